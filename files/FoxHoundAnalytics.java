@@ -0,0 +1,633 @@
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Stream;
+
+/**
+ * Statistics over archives of played games.
+ *
+ * An archive is a move stream as read by {@link FoxHoundBatch}, one
+ * game per line with the board dimension followed by the moves. The
+ * games are replayed and counted per board dimension: the wins of both
+ * sides, unfinished games, games with an invalid move and the number
+ * of moves. Finished and unfinished games are also counted per opening,
+ * the first move of the Fox and the answer of the Hounds, and for every
+ * win of the Hounds the square the fox was caught on is counted, a
+ * heatmap per dimension.
+ *
+ * The lines of an archive are read as a parallel stream. Every part of
+ * the stream is counted into its own {@link Stats}, which only holds
+ * long arrays indexed by dimension, opening and square, and the parts
+ * are added up at the end. No maps or boxed numbers are involved, so
+ * the work grows linearly with the number of games.
+ * <pre>
+ * java FoxHoundAnalytics [--threads N] [--csv DIR] [--json FILE] archive...
+ * </pre>
+ * Without {@code --csv} or {@code --json} the statistics per dimension
+ * are printed as CSV.
+ */
+public class FoxHoundAnalytics {
+
+    /** Option for the number of threads. */
+    public static final String THREADS_OPTION = "--threads";
+    /** Option for the directory to write the CSV reports to. */
+    public static final String CSV_OPTION = "--csv";
+    /** Option for the file to write the JSON report to. */
+    public static final String JSON_OPTION = "--json";
+    /** Name of the CSV report per dimension. */
+    public static final String DIMENSIONS_CSV = "dimensions.csv";
+    /** Name of the CSV report per opening. */
+    public static final String OPENINGS_CSV = "openings.csv";
+    /** Name of the CSV report of the squares the fox was caught on. */
+    public static final String CAPTURES_CSV = "captures.csv";
+
+    /** Number of entries of arrays indexed by dimension. */
+    private static final int DIMS = FoxHoundUtils.MAX_DIM + 1;
+    /** Largest number of hounds. */
+    private static final int MAX_HOUNDS = FoxHoundUtils.MAX_DIM / 2;
+    /** Number of openings per dimension: four fox moves times two moves of every hound. */
+    static final int OPENINGS = 4 * MAX_HOUNDS * 2;
+    /** Marker of an opening which is not counted. */
+    private static final int NO_OPENING = -1;
+
+    /**
+     * Mergeable counters of games. A Stats object is not thread safe,
+     * every thread counts into its own one.
+     */
+    public static final class Stats {
+
+        private final long[] games = new long[DIMS];
+        private final long[] foxWins = new long[DIMS];
+        private final long[] houndWins = new long[DIMS];
+        private final long[] errors = new long[DIMS];
+        private final long[] moves = new long[DIMS];
+        /** Games, fox wins and hound wins per opening, at {@code dim * OPENINGS + opening}. */
+        private final long[] openingGames = new long[DIMS * OPENINGS];
+        private final long[] openingFoxWins = new long[DIMS * OPENINGS];
+        private final long[] openingHoundWins = new long[DIMS * OPENINGS];
+        /** Hound wins per square of the fox, per dimension, allocated when first needed. */
+        private final long[][] captures = new long[DIMS][];
+        /** Lines without a valid board dimension. */
+        private long invalid;
+
+        /** Board of every dimension, set back to the start after every game. */
+        private final FoxHoundPosition[] boards = new FoxHoundPosition[DIMS];
+        /** Moves of the current game, to take them back. */
+        private int[] played = new int[64];
+
+        /**
+         * Replay a line of an archive and count the game. Empty lines and
+         * comments are skipped.
+         *
+         * @param line a String with the dimension and the moves of a game
+         */
+        public void accept(String line) {
+            int length = line.length();
+            int i = skipSpace(line, 0);
+            if (i == length || line.startsWith(FoxHoundBatch.COMMENT, i)) {
+                return;
+            }
+            int dim = 0;
+            int start = i;
+            while (i < length && line.charAt(i) >= '0' && line.charAt(i) <= '9' && i - start < 3) {
+                dim = dim * 10 + line.charAt(i++) - '0';
+            }
+            if (i == start || (i < length && !Character.isWhitespace(line.charAt(i)))
+                    || dim < FoxHoundUtils.MIN_DIM || dim > FoxHoundUtils.MAX_DIM) {
+                invalid++;
+                return;
+            }
+            if (boards[dim] == null) {
+                boards[dim] = FoxHoundPosition.initial(dim);
+            }
+            FoxHoundPosition board = boards[dim];
+            int count = 0;
+            char winner = 0;
+            boolean error = false;
+            for (i = skipSpace(line, i); i < length && winner == 0; i = skipSpace(line, i)) {
+                int end = i;
+                while (end < length && !Character.isWhitespace(line.charAt(end))) {
+                    end++;
+                }
+                int move = parseMove(dim, line, i, end);
+                if (!board.isLegal(move)) {
+                    error = true;
+                    break;
+                }
+                board.makeMove(move);
+                if (count == played.length) {
+                    played = Arrays.copyOf(played, 2 * count);
+                }
+                played[count++] = move;
+                if (board.isFoxWin()) {
+                    winner = FoxHoundUtils.FOX_FIELD;
+                }
+                else if (board.isHoundWin()) {
+                    winner = FoxHoundUtils.HOUND_FIELD;
+                }
+                i = end;
+            }
+            if (error) {
+                errors[dim]++;
+            }
+            else {
+                count(dim, count, winner, board.getFox());
+            }
+            while (count > 0) {
+                board.unmakeMove(played[--count]);
+            }
+        }
+
+        /**
+         * Count a replayed game.
+         *
+         * @param dim an int for the board dimension
+         * @param count an int for the number of moves played
+         * @param winner a char for the winning figure, or 0 if the game is not finished
+         * @param fox an int for the last square of the fox
+         */
+        private void count(int dim, int count, char winner, int fox) {
+            games[dim]++;
+            moves[dim] += count;
+            int opening = count < 2 ? NO_OPENING : opening(dim, played[0], played[1]);
+            if (opening != NO_OPENING) {
+                openingGames[dim * OPENINGS + opening]++;
+            }
+            if (winner == FoxHoundUtils.FOX_FIELD) {
+                foxWins[dim]++;
+                if (opening != NO_OPENING) {
+                    openingFoxWins[dim * OPENINGS + opening]++;
+                }
+            }
+            else if (winner == FoxHoundUtils.HOUND_FIELD) {
+                houndWins[dim]++;
+                if (opening != NO_OPENING) {
+                    openingHoundWins[dim * OPENINGS + opening]++;
+                }
+                if (captures[dim] == null) {
+                    captures[dim] = new long[dim * dim];
+                }
+                captures[dim][fox]++;
+            }
+        }
+
+        /**
+         * Add the counts of other statistics to these.
+         *
+         * @param other the statistics to add
+         * @return these statistics
+         */
+        public Stats merge(Stats other) {
+            add(games, other.games);
+            add(foxWins, other.foxWins);
+            add(houndWins, other.houndWins);
+            add(errors, other.errors);
+            add(moves, other.moves);
+            add(openingGames, other.openingGames);
+            add(openingFoxWins, other.openingFoxWins);
+            add(openingHoundWins, other.openingHoundWins);
+            for (int dim = 0; dim < DIMS; dim++) {
+                if (other.captures[dim] != null) {
+                    if (captures[dim] == null) {
+                        captures[dim] = new long[dim * dim];
+                    }
+                    add(captures[dim], other.captures[dim]);
+                }
+            }
+            invalid += other.invalid;
+            return this;
+        }
+
+        /**
+         * Number of replayed games without an invalid move.
+         *
+         * @param dim an int for the board dimension
+         * @return a long for the number of games
+         */
+        public long getGames(int dim) {
+            return games[dim];
+        }
+
+        /**
+         * Number of games won by the Fox.
+         *
+         * @param dim an int for the board dimension
+         * @return a long for the number of games
+         */
+        public long getFoxWins(int dim) {
+            return foxWins[dim];
+        }
+
+        /**
+         * Number of games won by the Hounds.
+         *
+         * @param dim an int for the board dimension
+         * @return a long for the number of games
+         */
+        public long getHoundWins(int dim) {
+            return houndWins[dim];
+        }
+
+        /**
+         * Number of games containing an invalid move, these are not counted otherwise.
+         *
+         * @param dim an int for the board dimension
+         * @return a long for the number of games
+         */
+        public long getErrors(int dim) {
+            return errors[dim];
+        }
+
+        /**
+         * Average number of moves of the games without an invalid move.
+         *
+         * @param dim an int for the board dimension
+         * @return a double for the number of moves, 0 if there are no games
+         */
+        public double getAverageMoves(int dim) {
+            return games[dim] == 0 ? 0 : moves[dim] / (double) games[dim];
+        }
+
+        /**
+         * Number of games with an opening.
+         *
+         * @param dim an int for the board dimension
+         * @param opening an int for the opening, see {@link #openingName}
+         * @return a long for the number of games
+         */
+        public long getOpeningGames(int dim, int opening) {
+            return openingGames[dim * OPENINGS + opening];
+        }
+
+        /**
+         * Number of games with an opening won by the Fox.
+         *
+         * @param dim an int for the board dimension
+         * @param opening an int for the opening, see {@link #openingName}
+         * @return a long for the number of games
+         */
+        public long getOpeningFoxWins(int dim, int opening) {
+            return openingFoxWins[dim * OPENINGS + opening];
+        }
+
+        /**
+         * Number of games with an opening won by the Hounds.
+         *
+         * @param dim an int for the board dimension
+         * @param opening an int for the opening, see {@link #openingName}
+         * @return a long for the number of games
+         */
+        public long getOpeningHoundWins(int dim, int opening) {
+            return openingHoundWins[dim * OPENINGS + opening];
+        }
+
+        /**
+         * Number of games the Hounds won with the fox on a square.
+         *
+         * @param dim an int for the board dimension
+         * @param square an int for the square of the fox
+         * @return a long for the number of games
+         */
+        public long getCaptures(int dim, int square) {
+            return captures[dim] == null ? 0 : captures[dim][square];
+        }
+
+        /**
+         * Number of lines without a valid board dimension.
+         *
+         * @return a long for the number of lines
+         */
+        public long getInvalid() {
+            return invalid;
+        }
+
+        /**
+         * Number of games of all dimensions, including those with an invalid move.
+         *
+         * @return a long for the number of games
+         */
+        public long getTotalGames() {
+            long total = 0;
+            for (int dim = 0; dim < DIMS; dim++) {
+                total += games[dim] + errors[dim];
+            }
+            return total;
+        }
+    }
+
+    /**
+     * Count the games of a stream of archive lines. The stream may be parallel.
+     *
+     * @param lines a Stream of lines of an archive
+     * @return the statistics of all games
+     */
+    public static Stats analyse(Stream<String> lines) {
+        return lines.collect(Stats::new, Stats::accept, Stats::merge);
+    }
+
+    /**
+     * Count the games of archive files in parallel.
+     *
+     * @param archives a List of Paths to the archives
+     * @param threads an int for the number of threads
+     * @return the statistics of all games
+     * @throws IOException if an archive cannot be read
+     */
+    public static Stats analyse(List<Path> archives, int threads) throws IOException {
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        Stats stats = new Stats();
+        try {
+            for (Path archive : archives) {
+                // the lines of a file are split among the threads of the pool running the stream
+                try (Stream<String> lines = Files.lines(archive, StandardCharsets.UTF_8)) {
+                    stats.merge(pool.submit(() -> analyse(lines.parallel())).get());
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted reading the archives", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof UncheckedIOException) {
+                throw ((UncheckedIOException) e.getCause()).getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        } finally {
+            pool.shutdown();
+        }
+        return stats;
+    }
+
+    /**
+     * The opening of the first two moves of a game.
+     *
+     * @param dim an int for the board dimension
+     * @param foxMove an int for the first move of the Fox
+     * @param houndMove an int for the answer of the Hounds
+     * @return an int for the opening, or {@link #NO_OPENING} if a hound moved which did not start on the first row
+     */
+    static int opening(int dim, int foxMove, int houndMove) {
+        int foxFrom = FoxHoundPosition.from(foxMove);
+        int foxTo = FoxHoundPosition.to(foxMove);
+        int direction = (foxTo > foxFrom ? 2 : 0) + (foxTo % dim > foxFrom % dim ? 1 : 0);
+        int houndFrom = FoxHoundPosition.from(houndMove);
+        if (houndFrom >= dim) {
+            return NO_OPENING;
+        }
+        int side = FoxHoundPosition.to(houndMove) % dim > houndFrom ? 1 : 0;
+        return direction * 2 * MAX_HOUNDS + houndFrom / 2 * 2 + side;
+    }
+
+    /**
+     * Name of an opening as its two moves, e.g. {@code E8D7 B1C2}.
+     *
+     * @param dim an int for the board dimension
+     * @param opening an int for the opening
+     * @return a String with both moves, or null if the opening is not possible on the board
+     */
+    public static String openingName(int dim, int opening) {
+        int direction = opening / (2 * MAX_HOUNDS);
+        int houndFrom = opening % (2 * MAX_HOUNDS) / 2 * 2 + 1;
+        int side = opening % 2;
+        int foxFrom = FoxHoundPosition.initial(dim).getFox();
+        int foxRow = foxFrom / dim + (direction >= 2 ? 1 : -1);
+        int foxCol = foxFrom % dim + (direction % 2 == 1 ? 1 : -1);
+        int houndCol = houndFrom + (side == 1 ? 1 : -1);
+        if (foxRow < 0 || foxRow >= dim || foxCol < 0 || foxCol >= dim
+                || houndFrom >= dim || houndCol < 0 || houndCol >= dim) {
+            return null;
+        }
+        return FoxHoundUtils.toCoord(dim, foxFrom) + FoxHoundUtils.toCoord(dim, foxRow * dim + foxCol) + " "
+            + FoxHoundUtils.toCoord(dim, houndFrom) + FoxHoundUtils.toCoord(dim, dim + houndCol);
+    }
+
+    /**
+     * The statistics per dimension as CSV.
+     *
+     * @param stats the statistics
+     * @return a String with a header line and a line per dimension with games
+     */
+    public static String dimensionsCsv(Stats stats) {
+        StringBuilder out = new StringBuilder("dim,games,fox_wins,hound_wins,open,errors,average_moves\n");
+        for (int dim = FoxHoundUtils.MIN_DIM; dim < DIMS; dim++) {
+            if (stats.getGames(dim) + stats.getErrors(dim) > 0) {
+                out.append(String.format(Locale.ROOT, "%d,%d,%d,%d,%d,%d,%.2f%n", dim, stats.getGames(dim),
+                    stats.getFoxWins(dim), stats.getHoundWins(dim), open(stats, dim), stats.getErrors(dim),
+                    stats.getAverageMoves(dim)));
+            }
+        }
+        return out.toString();
+    }
+
+    /**
+     * The statistics per opening as CSV.
+     *
+     * @param stats the statistics
+     * @return a String with a header line and a line per opening played
+     */
+    public static String openingsCsv(Stats stats) {
+        StringBuilder out = new StringBuilder("dim,opening,games,fox_wins,hound_wins,fox_win_rate\n");
+        for (int dim = FoxHoundUtils.MIN_DIM; dim < DIMS; dim++) {
+            for (int opening = 0; opening < OPENINGS; opening++) {
+                long games = stats.getOpeningGames(dim, opening);
+                if (games > 0) {
+                    long foxWins = stats.getOpeningFoxWins(dim, opening);
+                    out.append(String.format(Locale.ROOT, "%d,%s,%d,%d,%d,%.4f%n", dim, openingName(dim, opening),
+                        games, foxWins, stats.getOpeningHoundWins(dim, opening), foxWins / (double) games));
+                }
+            }
+        }
+        return out.toString();
+    }
+
+    /**
+     * The squares the fox was caught on as CSV.
+     *
+     * @param stats the statistics
+     * @return a String with a header line and a line per square with captures
+     */
+    public static String capturesCsv(Stats stats) {
+        StringBuilder out = new StringBuilder("dim,square,captures\n");
+        for (int dim = FoxHoundUtils.MIN_DIM; dim < DIMS; dim++) {
+            for (int square = 0; square < dim * dim; square++) {
+                if (stats.getCaptures(dim, square) > 0) {
+                    out.append(dim).append(',').append(FoxHoundUtils.toCoord(dim, square)).append(',')
+                        .append(stats.getCaptures(dim, square)).append('\n');
+                }
+            }
+        }
+        return out.toString();
+    }
+
+    /**
+     * All statistics as a JSON object. Heatmaps are given as an array of
+     * rows, starting with row 1, of the captures per column.
+     *
+     * @param stats the statistics
+     * @return a String with the JSON object
+     */
+    public static String toJson(Stats stats) {
+        StringBuilder out = new StringBuilder();
+        out.append("{\"games\":").append(stats.getTotalGames())
+            .append(",\"invalid\":").append(stats.getInvalid())
+            .append(",\"dimensions\":[");
+        String separator = "";
+        for (int dim = FoxHoundUtils.MIN_DIM; dim < DIMS; dim++) {
+            if (stats.getGames(dim) + stats.getErrors(dim) == 0) {
+                continue;
+            }
+            out.append(separator).append("{\"dim\":").append(dim)
+                .append(",\"games\":").append(stats.getGames(dim))
+                .append(",\"foxWins\":").append(stats.getFoxWins(dim))
+                .append(",\"houndWins\":").append(stats.getHoundWins(dim))
+                .append(",\"open\":").append(open(stats, dim))
+                .append(",\"errors\":").append(stats.getErrors(dim))
+                .append(String.format(Locale.ROOT, ",\"averageMoves\":%.2f", stats.getAverageMoves(dim)))
+                .append(",\"openings\":[");
+            String inner = "";
+            for (int opening = 0; opening < OPENINGS; opening++) {
+                if (stats.getOpeningGames(dim, opening) > 0) {
+                    FoxHoundJson.quote(out.append(inner).append("{\"opening\":"), openingName(dim, opening))
+                        .append(",\"games\":").append(stats.getOpeningGames(dim, opening))
+                        .append(",\"foxWins\":").append(stats.getOpeningFoxWins(dim, opening))
+                        .append(",\"houndWins\":").append(stats.getOpeningHoundWins(dim, opening))
+                        .append('}');
+                    inner = ",";
+                }
+            }
+            out.append("],\"captures\":[");
+            for (int row = 0; row < dim; row++) {
+                out.append(row == 0 ? "[" : ",[");
+                for (int col = 0; col < dim; col++) {
+                    out.append(col == 0 ? "" : ",").append(stats.getCaptures(dim, row * dim + col));
+                }
+                out.append(']');
+            }
+            out.append("]}");
+            separator = ",";
+        }
+        return out.append("]}").toString();
+    }
+
+    /**
+     * Number of unfinished games.
+     *
+     * @param stats the statistics
+     * @param dim an int for the board dimension
+     * @return a long for the number of games
+     */
+    private static long open(Stats stats, int dim) {
+        return stats.getGames(dim) - stats.getFoxWins(dim) - stats.getHoundWins(dim);
+    }
+
+    /**
+     * Convert a move of the move stream, like {@code E8D7} or {@code E8-D7}.
+     *
+     * @param dim an int for the board dimension
+     * @param line a String containing the move
+     * @param start index of the first char of the move
+     * @param end index after the last char of the move
+     * @return an int for the encoded move, or {@value FoxHoundPosition#NO_MOVE} if it is malformed
+     */
+    static int parseMove(int dim, String line, int start, int end) {
+        // the destination starts with the second letter of the move
+        int split = start + 1;
+        while (split < end && (line.charAt(split) < 'A' || line.charAt(split) > 'Z')) {
+            split++;
+        }
+        if (split == end || split < start + 2) {
+            return FoxHoundPosition.NO_MOVE;
+        }
+        int originEnd = line.charAt(split - 1) == '-' ? split - 1 : split;
+        int from = FoxHoundUtils.toSquare(dim, line, start, originEnd);
+        int to = FoxHoundUtils.toSquare(dim, line, split, end);
+        if (from == FoxHoundUtils.NO_SQUARE || to == FoxHoundUtils.NO_SQUARE) {
+            return FoxHoundPosition.NO_MOVE;
+        }
+        return FoxHoundPosition.move(from, to);
+    }
+
+    private static int skipSpace(String line, int index) {
+        while (index < line.length() && Character.isWhitespace(line.charAt(index))) {
+            index++;
+        }
+        return index;
+    }
+
+    private static void add(long[] sum, long[] other) {
+        for (int i = 0; i < sum.length; i++) {
+            sum[i] += other[i];
+        }
+    }
+
+    /**
+     * Write a report to a file.
+     *
+     * @param path a Path to the file
+     * @param text a String with the report
+     * @throws IOException if the file cannot be written
+     */
+    private static void write(Path path, String text) throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
+            writer.write(text);
+        }
+    }
+
+    /**
+     * Entry method of the analytics job.
+     *
+     * @param args options and the archive files
+     * @throws IOException if an archive or report cannot be read or written
+     */
+    public static void main(String[] args) throws IOException {
+        int threads = Runtime.getRuntime().availableProcessors();
+        Path csv = null;
+        Path json = null;
+        List<Path> archives = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals(THREADS_OPTION) && i + 1 < args.length) {
+                threads = Integer.parseInt(args[++i]);
+            }
+            else if (args[i].equals(CSV_OPTION) && i + 1 < args.length) {
+                csv = Paths.get(args[++i]);
+            }
+            else if (args[i].equals(JSON_OPTION) && i + 1 < args.length) {
+                json = Paths.get(args[++i]);
+            }
+            else {
+                archives.add(Paths.get(args[i]));
+            }
+        }
+        if (archives.isEmpty()) {
+            System.err.println("Usage: java FoxHoundAnalytics [--threads N] [--csv DIR] [--json FILE] archive...");
+            System.exit(1);
+        }
+
+        long start = System.nanoTime();
+        Stats stats = analyse(archives, threads);
+        double elapsed = (System.nanoTime() - start) / 1e9;
+        if (csv != null) {
+            Files.createDirectories(csv);
+            write(csv.resolve(DIMENSIONS_CSV), dimensionsCsv(stats));
+            write(csv.resolve(OPENINGS_CSV), openingsCsv(stats));
+            write(csv.resolve(CAPTURES_CSV), capturesCsv(stats));
+        }
+        if (json != null) {
+            write(json, toJson(stats));
+        }
+        if (csv == null && json == null) {
+            System.out.print(dimensionsCsv(stats));
+        }
+        System.err.printf("games=%d invalid=%d threads=%d time=%.1f s throughput=%.0f games/s%n",
+            stats.getTotalGames(), stats.getInvalid(), threads, elapsed, stats.getTotalGames() / elapsed);
+    }
+}
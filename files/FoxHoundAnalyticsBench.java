@@ -0,0 +1,88 @@
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.SplittableRandom;
+
+/**
+ * A benchmark of {@link FoxHoundAnalytics} on archives of growing size.
+ *
+ * Archives of random games on all board dimensions are written to
+ * temporary files, a quarter, half and all of the given number of
+ * games, and analysed. Linear scaling shows as a throughput which
+ * stays the same for all sizes.
+ * <pre>
+ * java FoxHoundAnalyticsBench [games] [threads]
+ * </pre>
+ */
+public class FoxHoundAnalyticsBench {
+
+    /** Default number of games of the largest archive. */
+    private static final int DEFAULT_GAMES = 2_000_000;
+
+    /**
+     * Write an archive of random games.
+     *
+     * @param path a Path to the archive
+     * @param games an int for the number of games
+     * @param random random numbers
+     * @throws IOException if the archive cannot be written
+     */
+    static void writeArchive(Path path, int games, SplittableRandom random) throws IOException {
+        int[] moves = new int[FoxHoundPosition.MAX_MOVES];
+        try (BufferedWriter writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
+            for (int i = 0; i < games; i++) {
+                int dim = FoxHoundUtils.MIN_DIM + random.nextInt(FoxHoundUtils.MAX_DIM - FoxHoundUtils.MIN_DIM + 1);
+                FoxHoundPosition position = FoxHoundPosition.initial(dim);
+                StringBuilder line = new StringBuilder().append(dim);
+                for (int ply = 0; ply < 4 * dim && !FoxHoundEngine.isGameOver(position); ply++) {
+                    int count = position.generateMoves(moves);
+                    if (count == 0) {
+                        break;
+                    }
+                    int move = moves[random.nextInt(count)];
+                    line.append(' ').append(FoxHoundUtils.toCoord(dim, FoxHoundPosition.from(move)))
+                        .append(FoxHoundUtils.toCoord(dim, FoxHoundPosition.to(move)));
+                    position.makeMove(move);
+                }
+                writer.write(line.toString());
+                writer.newLine();
+            }
+        }
+    }
+
+    /**
+     * Entry method of the benchmark.
+     *
+     * @param args number of games and threads, both optional
+     * @throws IOException if an archive cannot be written or read
+     */
+    public static void main(String[] args) throws IOException {
+        int games = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_GAMES;
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        SplittableRandom random = new SplittableRandom(1);
+        Path warmup = Files.createTempFile("foxhound", ".games");
+        try {
+            writeArchive(warmup, games / 8, random);
+            FoxHoundAnalytics.analyse(Collections.singletonList(warmup), threads);
+        } finally {
+            Files.deleteIfExists(warmup);
+        }
+        System.out.println("     games      MB  time s     games/s");
+        for (int size = games / 4; size <= games; size *= 2) {
+            Path archive = Files.createTempFile("foxhound", ".games");
+            try {
+                writeArchive(archive, size, random);
+                long start = System.nanoTime();
+                FoxHoundAnalytics.Stats stats = FoxHoundAnalytics.analyse(Collections.singletonList(archive), threads);
+                double elapsed = (System.nanoTime() - start) / 1e9;
+                System.out.printf("%10d  %6.1f  %6.2f  %10.0f%n", stats.getTotalGames(),
+                    Files.size(archive) / 1e6, elapsed, stats.getTotalGames() / elapsed);
+            } finally {
+                Files.deleteIfExists(archive);
+            }
+        }
+    }
+}
@@ -0,0 +1,368 @@
+import java.io.FilterInputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A terminal renderer for the fox hound program which only redraws
+ * the fields that changed since the last frame.
+ *
+ * The first frame is drawn in full. Every following frame is compared
+ * to the last one and only the changed fields are updated, which is
+ * usually two fields per move. The cursor is moved relative to where
+ * it stands, so the board may scroll with the terminal. For that the
+ * renderer counts the lines shown below the board since the last frame:
+ * everything printed or typed in between has to pass through the
+ * streams returned by {@link #track}. If the board may have scrolled
+ * off the screen, the frame is drawn in full below the last output.
+ *
+ * Frames are rate limited without blocking the caller: a frame asked for
+ * too soon after the last one is kept, replacing any frame kept before,
+ * and written once the minimum time between frames has passed or the
+ * user input is read through the tracked stream, whichever comes first.
+ * As text may have been printed below the board by then, such a frame
+ * only updates the changed fields and puts the cursor back where it was.
+ * The renderer and its tracked streams may therefore be used from
+ * another thread than the one drawing the kept frame.
+ *
+ * If the output is not an ANSI terminal, every frame is printed
+ * the same way as {@link FoxHoundUI#displayBoard} does it.
+ */
+public class FoxHoundAnsiRenderer {
+
+    /** Number of lines of a terminal if it is not known. */
+    public static final int DEFAULT_ROWS = 24;
+
+    /** Control sequence introducer. */
+    private static final String CSI = "\u001b[";
+    /** Clear the whole screen and move the cursor to the top left corner. */
+    private static final String CLEAR_SCREEN = CSI + "2J" + CSI + "H";
+    /** Clear everything from the cursor to the end of the screen. */
+    private static final String CLEAR_BELOW = CSI + "J";
+    /** Save the position of the cursor. */
+    private static final String SAVE_CURSOR = "\u001b7";
+    /** Move the cursor back to the saved position. */
+    private static final String RESTORE_CURSOR = "\u001b8";
+    /** Lines above the first board row: column letters and a blank line. */
+    private static final int HEADER_LINES = 2;
+    /** Lines below the last board row: a blank line and column letters. */
+    private static final int FOOTER_LINES = 2;
+
+    /** Stream the frames are written to. */
+    private final PrintStream out;
+    /** Whether ANSI control sequences are used. */
+    private final boolean ansi;
+    /** Minimum time between two frames in nanoseconds. */
+    private final long minFrameNanos;
+    /** Number of lines of the terminal. */
+    private final int rows;
+    /** Buffer the control sequences of a frame are collected in. */
+    private final StringBuilder frame = new StringBuilder(256);
+    /** Lines printed or typed below the board since the last frame. */
+    private final AtomicInteger linesBelow = new AtomicInteger();
+
+    /** Fields currently shown on screen, null before the first frame. */
+    private char[] shown;
+    /** Dimension of the board currently shown on screen. */
+    private int shownDim;
+    /** Time the last frame was written. */
+    private long lastFrameNanos;
+    /** Line of the cursor while a frame is built, counted from the top of the board. */
+    private int cursorLine;
+    /** Positions of the frame waiting for the frame rate, null if there is none. */
+    private String[] pending;
+    /** Dimension of the board of the waiting frame. */
+    private int pendingDim;
+    /** Whether a waiting frame is already scheduled to be drawn. */
+    private boolean scheduled;
+    /** Draws waiting frames once the time between frames has passed, created on the first one. */
+    private ScheduledExecutorService timer;
+
+    /**
+     * Create a renderer for a terminal of {@value #DEFAULT_ROWS} lines.
+     *
+     * @param out a PrintStream to write the frames to
+     * @param ansi whether the stream is an ANSI terminal
+     * @param maxFramesPerSecond an int for the maximum number of frames per second, 0 for no limit
+     * @throws NullPointerException if the given PrintStream is null
+     * @throws IllegalArgumentException if the frame rate is negative
+     */
+    public FoxHoundAnsiRenderer(PrintStream out, boolean ansi, int maxFramesPerSecond) {
+        this(out, ansi, maxFramesPerSecond, DEFAULT_ROWS);
+    }
+
+    /**
+     * Create a renderer.
+     *
+     * @param out a PrintStream to write the frames to
+     * @param ansi whether the stream is an ANSI terminal
+     * @param maxFramesPerSecond an int for the maximum number of frames per second, 0 for no limit
+     * @param rows an int for the number of lines of the terminal
+     * @throws NullPointerException if the given PrintStream is null
+     * @throws IllegalArgumentException if the frame rate is negative or there are no rows
+     */
+    public FoxHoundAnsiRenderer(PrintStream out, boolean ansi, int maxFramesPerSecond, int rows) {
+        if (out == null) {
+            throw new NullPointerException("Given PrintStream must not be null");
+        }
+        if (maxFramesPerSecond < 0) {
+            throw new IllegalArgumentException("Invalid frame rate: " + maxFramesPerSecond);
+        }
+        if (rows < 1) {
+            throw new IllegalArgumentException("Invalid number of rows: " + rows);
+        }
+        this.out = out;
+        this.ansi = ansi;
+        this.minFrameNanos = maxFramesPerSecond == 0 ? 0 : 1_000_000_000L / maxFramesPerSecond;
+        this.rows = rows;
+    }
+
+    /**
+     * Create a renderer for the standard output which uses ANSI
+     * control sequences only if the standard output is a terminal.
+     * The number of lines is taken from the LINES environment variable
+     * if it is set.
+     *
+     * @param maxFramesPerSecond an int for the maximum number of frames per second, 0 for no limit
+     * @return a renderer writing to the standard output
+     */
+    public static FoxHoundAnsiRenderer forStdOut(int maxFramesPerSecond) {
+        String term = System.getenv("TERM");
+        boolean tty = System.console() != null && term != null && !term.equals("dumb");
+        int rows = DEFAULT_ROWS;
+        try {
+            String lines = System.getenv("LINES");
+            if (lines != null && Integer.parseInt(lines.trim()) > 0) {
+                rows = Integer.parseInt(lines.trim());
+            }
+        } catch (NumberFormatException e) {
+            // keep the default
+        }
+        return new FoxHoundAnsiRenderer(System.out, tty, maxFramesPerSecond, rows);
+    }
+
+    /**
+     * Determine if this renderer uses ANSI control sequences.
+     *
+     * @return a boolean whether changed fields are redrawn in place
+     */
+    public boolean isAnsi() {
+        return ansi;
+    }
+
+    /**
+     * Wrap a stream printing to the terminal below the board, so its
+     * lines are counted.
+     *
+     * @param stream a PrintStream printing to the same terminal as the renderer
+     * @return a PrintStream counting every line it prints
+     */
+    public PrintStream track(PrintStream stream) {
+        return new PrintStream(new FilterOutputStream(stream) {
+            @Override
+            public void write(int b) throws IOException {
+                synchronized (FoxHoundAnsiRenderer.this) {
+                    count(b);
+                    out.write(b);
+                }
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                synchronized (FoxHoundAnsiRenderer.this) {
+                    for (int i = off; i < off + len; i++) {
+                        count(b[i]);
+                    }
+                    out.write(b, off, len);
+                }
+            }
+
+            @Override
+            public void flush() throws IOException {
+                synchronized (FoxHoundAnsiRenderer.this) {
+                    out.flush();
+                }
+            }
+        }, true);
+    }
+
+    /**
+     * Wrap the stream a terminal reads the user input from, so the lines
+     * the terminal echoes are counted. A frame waiting for the frame rate
+     * is drawn before the user input is waited for.
+     *
+     * @param stream an InputStream reading from the terminal of the renderer
+     * @return an InputStream counting every line read
+     */
+    public InputStream track(InputStream stream) {
+        return new FilterInputStream(stream) {
+            @Override
+            public int read() throws IOException {
+                flush();
+                int b = in.read();
+                count(b);
+                return b;
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                flush();
+                int read = in.read(b, off, len);
+                for (int i = off; i < off + read; i++) {
+                    count(b[i]);
+                }
+                return read;
+            }
+        };
+    }
+
+    /**
+     * Count a line if a byte ends one.
+     *
+     * @param b an int for the byte
+     */
+    private void count(int b) {
+        if (b == '\n') {
+            linesBelow.incrementAndGet();
+        }
+    }
+
+    /**
+     * Render the board without waiting. If the last frame was written less
+     * than the minimum time between frames ago, the frame is kept and
+     * drawn later, see {@link #flush}. The first frame and frames of a
+     * renderer without ANSI control sequences are written at once.
+     *
+     * @param players array of the positions of all figures
+     * @param dimension an int for dimensions of the board
+     */
+    public synchronized void render(String[] players, int dimension) {
+        long wait = lastFrameNanos + minFrameNanos - System.nanoTime();
+        if (!ansi || shown == null || wait <= 0) {
+            draw(players, dimension);
+            return;
+        }
+        pending = players.clone();
+        pendingDim = dimension;
+        if (!scheduled) {
+            if (timer == null) {
+                timer = Executors.newSingleThreadScheduledExecutor(task -> {
+                    Thread thread = new Thread(task, "foxhound-renderer");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+            }
+            scheduled = true;
+            timer.schedule(this::flush, wait, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Draw the frame waiting for the frame rate, if there is one. Only
+     * the changed fields are updated and the cursor is put back where it
+     * was, so text printed below the board since the frame was asked for
+     * stays.
+     */
+    public synchronized void flush() {
+        scheduled = false;
+        if (pending == null) {
+            return;
+        }
+        String[] players = pending;
+        pending = null;
+        write(players, pendingDim, true);
+    }
+
+    /**
+     * Write a frame regardless of the frame rate, with the cursor below
+     * the board. A frame waiting for the frame rate is dropped.
+     *
+     * @param players array of the positions of all figures
+     * @param dimension an int for dimensions of the board
+     */
+    public synchronized void draw(String[] players, int dimension) {
+        pending = null;
+        write(players, dimension, false);
+    }
+
+    /**
+     * Write a frame.
+     *
+     * @param players array of the positions of all figures
+     * @param dimension an int for dimensions of the board
+     * @param late whether text may have been printed below the board since the frame was asked for
+     */
+    private void write(String[] players, int dimension, boolean late) {
+        if (!ansi) {
+            out.print(FoxHoundUI.renderBoard(players, dimension));
+            out.flush();
+            lastFrameNanos = System.nanoTime();
+            return;
+        }
+
+        int height = HEADER_LINES + dimension + FOOTER_LINES;
+        int below = linesBelow.getAndSet(0);
+        char[] cells = FoxHoundUI.boardCells(players, dimension);
+        frame.setLength(0);
+        if (shown == null) {
+            frame.append(CLEAR_SCREEN).append(FoxHoundUI.renderBoard(players, dimension));
+        }
+        else if (shownDim != dimension || height + below >= rows) {
+            // the top of the board may be gone, start a new one below and keep any text printed since
+            frame.append(late ? "\n" : "\r" + CLEAR_BELOW).append(FoxHoundUI.renderBoard(players, dimension));
+        }
+        else {
+            frame.append(late ? SAVE_CURSOR : "\r");
+            cursorLine = height + below;
+            int offset = dimension > 9 ? 3 : 2;
+            for (int i = 0; i < cells.length; i++) {
+                if (cells[i] != shown[i]) {
+                    moveCursor(HEADER_LINES + i / dimension);
+                    frame.append(CSI).append(offset + 1 + i % dimension).append('G').append(cells[i]);
+                }
+            }
+            if (late) {
+                frame.append(RESTORE_CURSOR);
+                // the lines below the board are still there
+                linesBelow.addAndGet(below);
+            }
+            else {
+                // leave the cursor below the board for any following output
+                moveCursor(height);
+                frame.append('\r').append(CLEAR_BELOW);
+            }
+        }
+        shown = cells;
+        shownDim = dimension;
+        out.print(frame);
+        out.flush();
+        lastFrameNanos = System.nanoTime();
+    }
+
+    /**
+     * Forget the frame on screen so that the next frame is drawn in full.
+     */
+    public synchronized void invalidate() {
+        shown = null;
+    }
+
+    /**
+     * Append a sequence moving the cursor up or down to a line of the board.
+     *
+     * @param line an int for the line counted from the top of the board
+     */
+    private void moveCursor(int line) {
+        if (line < cursorLine) {
+            frame.append(CSI).append(cursorLine - line).append('A');
+        }
+        else if (line > cursorLine) {
+            frame.append(CSI).append(line - cursorLine).append('B');
+        }
+        cursorLine = line;
+    }
+}
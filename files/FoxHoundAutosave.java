@@ -0,0 +1,135 @@
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * A background writer for the autosave mode of the fox hound program.
+ *
+ * The game loop hands over a snapshot of the game after every move
+ * and continues immediately. A single daemon thread picks up the most
+ * recent snapshot and writes it to disk, so rapid updates are coalesced
+ * and only the latest state is ever written.
+ *
+ * Each save is written to a temporary file in the target directory,
+ * forced to the disk and then renamed over the save file, so a crash
+ * never leaves a torn save, see {@link FoxHoundIO#writeAtomically}.
+ */
+public class FoxHoundAutosave {
+
+    /** Path of the save file. */
+    private final Path path;
+    /** Background thread writing the snapshots. */
+    private final Thread writer;
+
+    /** Latest snapshot not yet written, guarded by this object. */
+    private String pending;
+    /** Number of snapshots written to disk so far, guarded by this object. */
+    private long written;
+    /** Set once no more snapshots will be accepted, guarded by this object. */
+    private boolean closed;
+
+    /**
+     * Create an autosave writer and start its background thread.
+     *
+     * @param path a Path object of the file to save to
+     * @throws NullPointerException if the given Path is null
+     */
+    public FoxHoundAutosave(Path path) {
+        if (path == null) {
+            throw new NullPointerException("The path is null");
+        }
+        this.path = path.toAbsolutePath();
+        this.writer = new Thread(this::writeLoop, "foxhound-autosave");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    /**
+     * Hand a snapshot of the game to the background writer.
+     *
+     * The players array is copied into the save file line right away,
+     * so the caller may keep modifying it. The call never waits for disk I/O.
+     *
+     * @param players array of the positions of all figures
+     * @param nextMove a character representing the figure to move next
+     * @throws IllegalStateException if the writer has already been closed
+     */
+    public void submit(String[] players, char nextMove) {
+        String line = FoxHoundIO.formatGame(players, nextMove);
+        synchronized (this) {
+            if (closed) {
+                throw new IllegalStateException("Autosave already closed");
+            }
+            pending = line;
+            notifyAll();
+        }
+    }
+
+    /**
+     * Write any outstanding snapshot and stop the background thread.
+     */
+    public void close() {
+        synchronized (this) {
+            closed = true;
+            notifyAll();
+        }
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Number of snapshots written to disk so far.
+     *
+     * @return a long for the number of completed writes
+     */
+    public synchronized long getWritten() {
+        return written;
+    }
+
+    /**
+     * Take the latest snapshot and write it until the writer is closed
+     * and nothing is left to write.
+     */
+    private void writeLoop() {
+        while (true) {
+            String line;
+            synchronized (this) {
+                while (pending == null && !closed) {
+                    try {
+                        wait();
+                    } catch (InterruptedException e) {
+                        closed = true;
+                    }
+                }
+                if (pending == null) {
+                    return;
+                }
+                line = pending;
+                pending = null;
+            }
+            if (writeAtomically(line)) {
+                synchronized (this) {
+                    written++;
+                }
+            }
+        }
+    }
+
+    /**
+     * Write a save file line to a temporary file and rename it over the save file.
+     *
+     * @param line the save file line to write
+     * @return a boolean value if the writing was successful
+     */
+    private boolean writeAtomically(String line) {
+        try {
+            FoxHoundIO.writeAtomically(path, path.getFileName().toString(), line);
+            return true;
+        } catch (IOException e) {
+            System.err.println("ERROR: Autosave to " + path + " failed: " + e.getMessage());
+            return false;
+        }
+    }
+}
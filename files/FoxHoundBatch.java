@@ -0,0 +1,145 @@
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * The non-interactive batch mode of the fox hound program.
+ *
+ * Games are read from a compact move stream, one game per line:
+ * the board dimension followed by the moves of both sides, starting
+ * with the Fox. A move is written as origin and destination without
+ * a space, e.g. {@code E8D7}, optionally separated by a dash,
+ * e.g. {@code E8-D7}. Empty lines and lines starting with
+ * {@value #COMMENT} are skipped.
+ *
+ * No prompts or boards are printed. For every game a single result
+ * line is written containing the game number, the outcome and the
+ * number of moves played:
+ * <ul>
+ *   <li>{@code F} if the Fox wins,</li>
+ *   <li>{@code H} if the Hounds win,</li>
+ *   <li>{@code -} if the game is not finished,</li>
+ *   <li>{@code ERROR} followed by the offending move if it is invalid.</li>
+ * </ul>
+ */
+public class FoxHoundBatch {
+
+    /** Marker of a comment line in the move stream. */
+    public static final String COMMENT = "#";
+    /** Result of a game the Fox won. */
+    public static final String RESULT_FOX = "F";
+    /** Result of a game the Hounds won. */
+    public static final String RESULT_HOUNDS = "H";
+    /** Result of a game which is not finished. */
+    public static final String RESULT_OPEN = "-";
+    /** Result of a game containing an invalid move. */
+    public static final String RESULT_ERROR = "ERROR";
+
+    /** Size of the input and output buffers in chars. */
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    /**
+     * Play all games of a move stream and print their results.
+     *
+     * @param in an InputStream to read the move stream from
+     * @param out an OutputStream to write the results to
+     * @return an int for the number of games played
+     * @throws UncheckedIOException if reading or writing fails
+     */
+    public static int run(InputStream in, OutputStream out) {
+        BufferedReader reader = new BufferedReader(
+            new InputStreamReader(in, StandardCharsets.UTF_8), BUFFER_SIZE);
+        PrintWriter writer = new PrintWriter(new BufferedWriter(
+            new OutputStreamWriter(out, StandardCharsets.UTF_8), BUFFER_SIZE));
+        int games = 0;
+        try {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith(COMMENT)) {
+                    continue;
+                }
+                games++;
+                writer.print(games);
+                writer.print(' ');
+                writer.println(playGame(line));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Reading the move stream failed.", e);
+        }
+        writer.flush();
+        return games;
+    }
+
+    /**
+     * Play a single game of the move stream.
+     *
+     * @param line a line of the move stream with dimension and moves
+     * @return a String with the outcome and the number of moves played
+     */
+    public static String playGame(String line) {
+        String[] tokens = line.split("\\s+");
+        int dim;
+        try {
+            dim = Integer.parseInt(tokens[0]);
+        } catch (NumberFormatException e) {
+            return RESULT_ERROR + " 0 " + tokens[0];
+        }
+        if (dim < FoxHoundUtils.MIN_DIM || dim > FoxHoundUtils.MAX_DIM) {
+            return RESULT_ERROR + " 0 " + tokens[0];
+        }
+
+        String[] players = FoxHoundUtils.initialisePositions(dim);
+        char turn = FoxHoundUtils.FOX_FIELD;
+        for (int i = 1; i < tokens.length; i++) {
+            String[] move = splitMove(dim, tokens[i]);
+            if (move == null || !FoxHoundUtils.isValidMove(dim, players, turn, move[0], move[1])) {
+                return RESULT_ERROR + " " + (i - 1) + " " + tokens[i];
+            }
+            FoxHoundUtils.applyMove(players, turn, move[0], move[1]);
+            if (FoxHoundUtils.isFoxWin(players[players.length - 1])) {
+                return RESULT_FOX + " " + i;
+            }
+            else if (FoxHoundUtils.isHoundWin(players, dim)) {
+                return RESULT_HOUNDS + " " + i;
+            }
+            turn = turn == FoxHoundUtils.FOX_FIELD ? FoxHoundUtils.HOUND_FIELD : FoxHoundUtils.FOX_FIELD;
+        }
+        return RESULT_OPEN + " " + (tokens.length - 1);
+    }
+
+    /**
+     * Split a compact move into origin and destination coordinate.
+     *
+     * @param dim an int for the board dimension
+     * @param move a String like {@code E8D7} or {@code E8-D7}
+     * @return a String array with two coordinates on the board, or null if the move is malformed
+     */
+    private static String[] splitMove(int dim, String move) {
+        // the destination starts with the second letter of the move
+        int split = -1;
+        for (int i = 1; i < move.length(); i++) {
+            if (move.charAt(i) >= 'A' && move.charAt(i) <= 'Z') {
+                split = i;
+                break;
+            }
+        }
+        if (split < 2) {
+            return null;
+        }
+        int end = move.charAt(split - 1) == '-' ? split - 1 : split;
+        int origin = FoxHoundUtils.toSquare(dim, move, 0, end);
+        int destination = FoxHoundUtils.toSquare(dim, move, split, move.length());
+        if (origin == FoxHoundUtils.NO_SQUARE || destination == FoxHoundUtils.NO_SQUARE) {
+            return null;
+        }
+        return new String[]{FoxHoundUtils.toCoord(dim, origin), FoxHoundUtils.toCoord(dim, destination)};
+    }
+}
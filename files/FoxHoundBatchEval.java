@@ -0,0 +1,320 @@
+import java.util.Arrays;
+
+/**
+ * Evaluation of many positions at once.
+ *
+ * Positions of one board dimension are stored structure-of-arrays
+ * style: the square of every fox in an int array, and the hounds of
+ * every position as a bit mask in a long array, {@link #getWords} longs
+ * per position with bit {@code square % 64} of word {@code square / 64}
+ * set for every hound. Squares are numbered as in {@link FoxHoundPosition}.
+ *
+ * {@link #evaluate} computes for every position whether it is legal,
+ * the number of fields the fox can move to, so 0 means the Hounds won
+ * as in {@link FoxHoundUtils#isHoundWin}, and whether the fox escaped,
+ * i.e. no hound is left in front of it, so the Hounds can no longer
+ * stop it. Boards up to 8x8 fit into a single long, and every position
+ * only takes a few table lookups, bit operations and a bit count. Larger
+ * boards use the same scheme word by word.
+ */
+public class FoxHoundBatchEval {
+
+    /** Flag of a legal position. */
+    public static final int LEGAL = 1;
+    /** Flag of a position in which the fox cannot move, so the Hounds won. */
+    public static final int TRAPPED = 2;
+    /** Flag of a position in which no hound is in front of the fox. */
+    public static final int ESCAPED = 4;
+
+    /** Number of bits in a word of a hound mask. */
+    private static final int WORD_BITS = Long.SIZE;
+
+    private final int dim;
+    private final int words;
+    private final int hounds;
+    private int size;
+    private int[] fox;
+    private long[] houndMasks;
+
+    /** For boards of one word, the fields next to every square. */
+    private final long[] neighbours;
+    /** For boards of one word, the squares in front of every square. */
+    private final long[] front;
+    /** The fields next to every square, four per square, {@link FoxHoundUtils#NO_SQUARE} if off the board. */
+    private final int[] neighbourSquares;
+
+    /**
+     * Create an empty batch of positions.
+     *
+     * @param dim an int for the board dimension of all positions
+     * @param capacity an int for the expected number of positions
+     * @throws IllegalArgumentException if the dimension is invalid
+     */
+    public FoxHoundBatchEval(int dim, int capacity) {
+        this(dim, new int[Math.max(1, capacity)], new long[Math.max(1, capacity) * words(dim)], 0);
+    }
+
+    /**
+     * Create a batch on existing arrays, which are used without copying.
+     *
+     * @param dim an int for the board dimension of all positions
+     * @param fox an int array with the fox square of every position
+     * @param houndMasks a long array with the hound mask of every position, {@link #words} longs each
+     * @param size an int for the number of positions
+     * @throws IllegalArgumentException if the dimension is invalid or the arrays are too short
+     */
+    public FoxHoundBatchEval(int dim, int[] fox, long[] houndMasks, int size) {
+        if (dim < FoxHoundUtils.MIN_DIM || dim > FoxHoundUtils.MAX_DIM) {
+            throw new IllegalArgumentException("Invalid board dimension");
+        }
+        this.dim = dim;
+        this.words = words(dim);
+        if (size < 0 || fox.length < size || houndMasks.length < (long) size * words) {
+            throw new IllegalArgumentException("Arrays too short for " + size + " positions");
+        }
+        this.hounds = FoxHoundUtils.initialisePositions(dim).length - 1;
+        this.fox = fox;
+        this.houndMasks = houndMasks;
+        this.size = size;
+
+        int squares = dim * dim;
+        neighbourSquares = new int[squares * 4];
+        neighbours = new long[words == 1 ? squares : 0];
+        front = new long[words == 1 ? squares : 0];
+        for (int square = 0; square < squares; square++) {
+            int row = square / dim;
+            int col = square % dim;
+            int n = 0;
+            for (int dr = -1; dr <= 1; dr += 2) {
+                for (int dc = -1; dc <= 1; dc += 2) {
+                    int r = row + dr;
+                    int c = col + dc;
+                    boolean inside = r >= 0 && r < dim && c >= 0 && c < dim;
+                    neighbourSquares[square * 4 + n++] = inside ? r * dim + c : FoxHoundUtils.NO_SQUARE;
+                    if (inside && words == 1) {
+                        neighbours[square] |= 1L << (r * dim + c);
+                    }
+                }
+            }
+            if (words == 1) {
+                front[square] = row == 0 ? 0 : -1L >>> (WORD_BITS - row * dim);
+            }
+        }
+    }
+
+    /**
+     * Number of longs of a hound mask.
+     *
+     * @param dim an int for the board dimension
+     * @return an int for the number of longs per position
+     */
+    public static int words(int dim) {
+        return (dim * dim + WORD_BITS - 1) / WORD_BITS;
+    }
+
+    /**
+     * Add a position.
+     *
+     * @param position the position to add, its dimension must match the batch
+     * @throws IllegalArgumentException if the dimension does not match
+     */
+    public void add(FoxHoundPosition position) {
+        if (position.getDim() != dim) {
+            throw new IllegalArgumentException("Expected dimension " + dim);
+        }
+        int index = grow();
+        fox[index] = position.getFox();
+        for (int i = 0; i < position.getHoundCount(); i++) {
+            int square = position.getHound(i);
+            houndMasks[index * words + square / WORD_BITS] |= 1L << square;
+        }
+    }
+
+    /**
+     * Add a position given by coordinates, as in the players array of
+     * {@link FoxHoundUtils}. Invalid coordinates are stored, but make the
+     * position illegal.
+     *
+     * @param players array of the positions of all figures, the fox last
+     */
+    public void add(String[] players) {
+        int index = grow();
+        int foxSquare = FoxHoundUtils.toSquare(dim, players[players.length - 1]);
+        boolean valid = foxSquare != FoxHoundUtils.NO_SQUARE && players.length - 1 == hounds;
+        for (int i = 0; i < players.length - 1; i++) {
+            int square = FoxHoundUtils.toSquare(dim, players[i]);
+            if (square == FoxHoundUtils.NO_SQUARE) {
+                valid = false;
+            }
+            else {
+                houndMasks[index * words + square / WORD_BITS] |= 1L << square;
+            }
+        }
+        fox[index] = valid ? foxSquare : FoxHoundUtils.NO_SQUARE;
+    }
+
+    /**
+     * Make room for another position and clear it.
+     *
+     * @return an int for the index of the new position
+     */
+    private int grow() {
+        if (size == fox.length) {
+            fox = Arrays.copyOf(fox, size * 2);
+            houndMasks = Arrays.copyOf(houndMasks, size * 2 * words);
+        }
+        Arrays.fill(houndMasks, size * words, (size + 1) * words, 0);
+        return size++;
+    }
+
+    /**
+     * Remove all positions, keeping the arrays.
+     */
+    public void clear() {
+        size = 0;
+    }
+
+    /**
+     * Evaluate all positions.
+     *
+     * @param flags a byte array with an entry per position to store {@link #LEGAL},
+     * {@link #TRAPPED} and {@link #ESCAPED} in
+     * @param mobility a byte array with an entry per position to store the
+     * number of fields the fox can move to in, 0 for illegal positions
+     * @return an int for the number of legal positions
+     * @throws IllegalArgumentException if an array is too short
+     */
+    public int evaluate(byte[] flags, byte[] mobility) {
+        if (flags.length < size || mobility.length < size) {
+            throw new IllegalArgumentException("Arrays too short for " + size + " positions");
+        }
+        return words == 1 ? evaluateSingleWord(flags, mobility) : evaluateWords(flags, mobility);
+    }
+
+    /**
+     * Evaluate positions whose hounds fit into a single long.
+     *
+     * @param flags a byte array to store the flags in
+     * @param mobility a byte array to store the fox mobility in
+     * @return an int for the number of legal positions
+     */
+    private int evaluateSingleWord(byte[] flags, byte[] mobility) {
+        int squares = dim * dim;
+        long board = squares == WORD_BITS ? -1L : (1L << squares) - 1;
+        int legal = 0;
+        for (int i = 0; i < size; i++) {
+            int square = fox[i];
+            long mask = houndMasks[i];
+            if (square < 0 || square >= squares || (mask & ~board) != 0
+                    || (mask >>> square & 1) != 0 || Long.bitCount(mask) != hounds) {
+                flags[i] = 0;
+                mobility[i] = 0;
+                continue;
+            }
+            int moves = Long.bitCount(neighbours[square] & ~mask);
+            mobility[i] = (byte) moves;
+            flags[i] = (byte) (LEGAL | (moves == 0 ? TRAPPED : 0) | ((mask & front[square]) == 0 ? ESCAPED : 0));
+            legal++;
+        }
+        return legal;
+    }
+
+    /**
+     * Evaluate positions whose hounds take several longs.
+     *
+     * @param flags a byte array to store the flags in
+     * @param mobility a byte array to store the fox mobility in
+     * @return an int for the number of legal positions
+     */
+    private int evaluateWords(byte[] flags, byte[] mobility) {
+        int squares = dim * dim;
+        int lastBits = squares - (words - 1) * WORD_BITS;
+        long lastBoard = lastBits == WORD_BITS ? -1L : (1L << lastBits) - 1;
+        int legal = 0;
+        for (int i = 0; i < size; i++) {
+            int square = fox[i];
+            int base = i * words;
+            if (square < 0 || square >= squares || (houndMasks[base + words - 1] & ~lastBoard) != 0
+                    || (houndMasks[base + square / WORD_BITS] >>> square & 1) != 0) {
+                flags[i] = 0;
+                mobility[i] = 0;
+                continue;
+            }
+            int count = 0;
+            for (int w = 0; w < words; w++) {
+                count += Long.bitCount(houndMasks[base + w]);
+            }
+            if (count != hounds) {
+                flags[i] = 0;
+                mobility[i] = 0;
+                continue;
+            }
+            int moves = 0;
+            for (int n = square * 4; n < square * 4 + 4; n++) {
+                int next = neighbourSquares[n];
+                if (next != FoxHoundUtils.NO_SQUARE && (houndMasks[base + next / WORD_BITS] >>> next & 1) == 0) {
+                    moves++;
+                }
+            }
+            // squares in front of the fox are those below the first square of its row
+            int frontBits = square / dim * dim;
+            boolean escaped = true;
+            for (int w = 0; w < frontBits / WORD_BITS && escaped; w++) {
+                escaped = houndMasks[base + w] == 0;
+            }
+            int rest = frontBits % WORD_BITS;
+            if (escaped && rest != 0) {
+                escaped = (houndMasks[base + frontBits / WORD_BITS] & (-1L >>> (WORD_BITS - rest))) == 0;
+            }
+            mobility[i] = (byte) moves;
+            flags[i] = (byte) (LEGAL | (moves == 0 ? TRAPPED : 0) | (escaped ? ESCAPED : 0));
+            legal++;
+        }
+        return legal;
+    }
+
+    /**
+     * Board dimension of all positions.
+     *
+     * @return an int for the dimension
+     */
+    public int getDim() {
+        return dim;
+    }
+
+    /**
+     * Number of positions.
+     *
+     * @return an int for the number of positions
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Number of longs per hound mask.
+     *
+     * @return an int for the number of longs
+     */
+    public int getWords() {
+        return words;
+    }
+
+    /**
+     * The fox squares, used directly without copying.
+     *
+     * @return the int array of fox squares, valid up to {@link #size}
+     */
+    public int[] getFoxSquares() {
+        return fox;
+    }
+
+    /**
+     * The hound masks, used directly without copying.
+     *
+     * @return the long array of hound masks, valid up to {@link #size} times {@link #getWords}
+     */
+    public long[] getHoundMasks() {
+        return houndMasks;
+    }
+}
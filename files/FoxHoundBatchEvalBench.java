@@ -0,0 +1,147 @@
+import java.util.SplittableRandom;
+
+/**
+ * A benchmark of {@link FoxHoundBatchEval} against checking positions
+ * one at a time with {@link FoxHoundUtils}.
+ *
+ * Positions are taken from random games, and every hundredth one is
+ * made illegal by putting the fox on a hound. Both ways compute
+ * legality, whether the Hounds won and whether the fox escaped, and
+ * their results are compared.
+ * <pre>
+ * java FoxHoundBatchEvalBench [positions] [dimensions...]
+ * </pre>
+ */
+public class FoxHoundBatchEvalBench {
+
+    /** Default number of positions per dimension. */
+    private static final int DEFAULT_POSITIONS = 1_000_000;
+    /** Default board dimensions. */
+    private static final int[] DEFAULT_DIMS = {8, 20};
+    /** Number of timed rounds, the fastest one counts. */
+    private static final int ROUNDS = 5;
+    /** Every this many positions is made illegal. */
+    private static final int ILLEGAL_EVERY = 100;
+
+    /**
+     * Check a position with the per-position utility functions.
+     *
+     * @param players array of the positions of all figures
+     * @param dim an int for the board dimension
+     * @return an int with the flags of {@link FoxHoundBatchEval}
+     */
+    static int check(String[] players, int dim) {
+        for (int i = 0; i < players.length; i++) {
+            if (!FoxHoundUtils.isValidCoord(dim, FoxHoundUtils.posToNum(players[i]))) {
+                return 0;
+            }
+            for (int j = 0; j < i; j++) {
+                if (players[i].equals(players[j])) {
+                    return 0;
+                }
+            }
+        }
+        int foxRow = FoxHoundUtils.posToNum(players[players.length - 1])[1];
+        boolean escaped = true;
+        for (int i = 0; i < players.length - 1; i++) {
+            if (FoxHoundUtils.posToNum(players[i])[1] < foxRow) {
+                escaped = false;
+            }
+        }
+        return FoxHoundBatchEval.LEGAL | (FoxHoundUtils.isHoundWin(players, dim) ? FoxHoundBatchEval.TRAPPED : 0)
+            | (escaped ? FoxHoundBatchEval.ESCAPED : 0);
+    }
+
+    /**
+     * Create random positions from random games.
+     *
+     * @param dim an int for the board dimension
+     * @param count an int for the number of positions
+     * @param random random numbers
+     * @return an array of players arrays
+     */
+    private static String[][] positions(int dim, int count, SplittableRandom random) {
+        String[][] positions = new String[count][];
+        int[] moves = new int[FoxHoundPosition.MAX_MOVES];
+        FoxHoundPosition position = FoxHoundPosition.initial(dim);
+        for (int i = 0; i < count; i++) {
+            int n = FoxHoundEngine.isGameOver(position) ? 0 : position.generateMoves(moves);
+            if (n == 0) {
+                position = FoxHoundPosition.initial(dim);
+                n = position.generateMoves(moves);
+            }
+            position.makeMove(moves[random.nextInt(n)]);
+            String[] players = position.toPlayers();
+            if (i % ILLEGAL_EVERY == ILLEGAL_EVERY - 1) {
+                players[players.length - 1] = players[0];
+            }
+            positions[i] = players;
+        }
+        return positions;
+    }
+
+    /**
+     * Run the benchmark for a dimension.
+     *
+     * @param dim an int for the board dimension
+     * @param count an int for the number of positions
+     */
+    private static void run(int dim, int count) {
+        String[][] players = positions(dim, count, new SplittableRandom(dim));
+        FoxHoundBatchEval batch = new FoxHoundBatchEval(dim, count);
+        for (String[] p : players) {
+            batch.add(p);
+        }
+        byte[] flags = new byte[count];
+        byte[] mobility = new byte[count];
+        int[] expected = new int[count];
+
+        long scalarBest = Long.MAX_VALUE;
+        long batchBest = Long.MAX_VALUE;
+        long sink = 0;
+        for (int round = 0; round < ROUNDS; round++) {
+            long start = System.nanoTime();
+            for (int i = 0; i < count; i++) {
+                expected[i] = check(players[i], dim);
+            }
+            scalarBest = Math.min(scalarBest, System.nanoTime() - start);
+
+            start = System.nanoTime();
+            sink += batch.evaluate(flags, mobility);
+            batchBest = Math.min(batchBest, System.nanoTime() - start);
+        }
+        int mismatches = 0;
+        int trapped = 0;
+        int escaped = 0;
+        for (int i = 0; i < count; i++) {
+            if (flags[i] != expected[i]) {
+                mismatches++;
+            }
+            trapped += flags[i] & FoxHoundBatchEval.TRAPPED;
+            escaped += flags[i] & FoxHoundBatchEval.ESCAPED;
+        }
+        System.out.printf("dim=%d positions=%d legal=%d trapped=%d escaped=%d mismatches=%d%n", dim, count,
+            sink / ROUNDS, trapped / FoxHoundBatchEval.TRAPPED, escaped / FoxHoundBatchEval.ESCAPED, mismatches);
+        System.out.printf("  per position: %.1f ns/position, batch: %.1f ns/position, speedup %.1fx%n",
+            scalarBest / (double) count, batchBest / (double) count, scalarBest / (double) batchBest);
+    }
+
+    /**
+     * Entry method of the benchmark.
+     *
+     * @param args number of positions and board dimensions, all optional
+     */
+    public static void main(String[] args) {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_POSITIONS;
+        int[] dims = DEFAULT_DIMS;
+        if (args.length > 1) {
+            dims = new int[args.length - 1];
+            for (int i = 1; i < args.length; i++) {
+                dims[i - 1] = Integer.parseInt(args[i]);
+            }
+        }
+        for (int dim : dims) {
+            run(dim, count);
+        }
+    }
+}
@@ -0,0 +1,108 @@
+import java.util.SplittableRandom;
+
+/**
+ * A benchmark of the decision time of {@link FoxHoundBeamEngine} and
+ * {@link FoxHoundEngine} against the board dimension.
+ *
+ * For every dimension positions are taken from games of random moves,
+ * and both engines choose a move in each. The full search runs to a
+ * fixed depth with a time limit per move, so it shows how far it gets
+ * on large boards instead of stalling the benchmark.
+ * <pre>
+ * java FoxHoundBeamBench [positions] [full search depth] [full search millis]
+ * </pre>
+ */
+public class FoxHoundBeamBench {
+
+    /** Default number of positions per dimension. */
+    private static final int DEFAULT_POSITIONS = 40;
+    /** Default depth of the full search. */
+    private static final int DEFAULT_FULL_DEPTH = 12;
+    /** Default time limit of the full search per move in milliseconds. */
+    private static final long DEFAULT_FULL_MILLIS = 2000;
+    /** Number of positions searched before timing, so the code is compiled. */
+    private static final int WARMUP = 200;
+
+    /**
+     * Create positions from games of random moves.
+     *
+     * @param dim an int for the board dimension
+     * @param count an int for the number of positions
+     * @param random random numbers
+     * @return an array of running positions
+     */
+    private static FoxHoundPosition[] positions(int dim, int count, SplittableRandom random) {
+        FoxHoundPosition[] positions = new FoxHoundPosition[count];
+        int[] moves = new int[FoxHoundPosition.MAX_MOVES];
+        for (int i = 0; i < count; i++) {
+            FoxHoundPosition position;
+            do {
+                position = FoxHoundPosition.initial(dim);
+                int length = random.nextInt(2 * dim);
+                for (int ply = 0; ply < length && !FoxHoundEngine.isGameOver(position); ply++) {
+                    int n = position.generateMoves(moves);
+                    if (n == 0) {
+                        break;
+                    }
+                    position.makeMove(moves[random.nextInt(n)]);
+                }
+            } while (FoxHoundEngine.isGameOver(position) || position.generateMoves(moves) == 0);
+            positions[i] = position;
+        }
+        return positions;
+    }
+
+    /**
+     * Entry method of the benchmark.
+     *
+     * @param args number of positions, depth and time limit of the full search, all optional
+     */
+    public static void main(String[] args) {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_POSITIONS;
+        int fullDepth = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_FULL_DEPTH;
+        long fullMillis = args.length > 2 ? Long.parseLong(args[2]) : DEFAULT_FULL_MILLIS;
+        FoxHoundBeamEngine beam = new FoxHoundBeamEngine();
+        SplittableRandom random = new SplittableRandom(1);
+        long sink = 0;
+        for (FoxHoundPosition position : positions(FoxHoundUtils.DEFAULT_DIM, WARMUP, random)) {
+            sink += beam.search(position, 0).move;
+        }
+        System.out.printf("beam %d x %d, full search depth %d limited to %d ms%n",
+            FoxHoundBeamEngine.DEFAULT_WIDTH, FoxHoundBeamEngine.DEFAULT_DEPTH, fullDepth, fullMillis);
+        System.out.println(" dim  beam mean/max ms   full mean/max ms  full depth  timeouts");
+        for (int dim = FoxHoundUtils.DEFAULT_DIM; dim <= FoxHoundUtils.MAX_DIM; dim++) {
+            FoxHoundPosition[] positions = positions(dim, count, random);
+            long beamTotal = 0;
+            long beamMax = 0;
+            long fullTotal = 0;
+            long fullMax = 0;
+            long depths = 0;
+            int timeouts = 0;
+            FoxHoundEngine full = new FoxHoundEngine();
+            for (FoxHoundPosition position : positions) {
+                long start = System.nanoTime();
+                sink += beam.search(position, 0).move;
+                long time = System.nanoTime() - start;
+                beamTotal += time;
+                beamMax = Math.max(beamMax, time);
+
+                full.clear();
+                start = System.nanoTime();
+                FoxHoundEngine.Result result = full.search(position, fullDepth, fullMillis, null);
+                time = System.nanoTime() - start;
+                fullTotal += time;
+                fullMax = Math.max(fullMax, time);
+                depths += result.depth;
+                if (result.depth < fullDepth && !result.isDecided()) {
+                    timeouts++;
+                }
+            }
+            System.out.printf("%4d  %7.2f /%7.2f   %7.1f /%7.1f  %10.1f  %8d%n", dim,
+                beamTotal / 1e6 / count, beamMax / 1e6, fullTotal / 1e6 / count, fullMax / 1e6,
+                depths / (double) count, timeouts);
+        }
+        if (sink == 42) {
+            System.out.println();
+        }
+    }
+}
@@ -0,0 +1,287 @@
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * A beam search engine for large boards.
+ *
+ * With ten or more hounds the full game tree grows too fast for
+ * {@link FoxHoundEngine}. This engine looks a fixed number of moves
+ * ahead but keeps only the most promising positions of every ply, the
+ * beam, and scores the moves of the root by minimax over the positions
+ * it kept. Every side keeps the positions best for itself, so replies
+ * of the opponent are its strongest ones as far as the evaluation can
+ * tell.
+ *
+ * Hound moves are pruned by cheap checks of the formation the hounds
+ * start in, see {@link #keepsFormation}. Together with the fixed width
+ * and depth the work of a move hardly depends on the board dimension.
+ */
+public class FoxHoundBeamEngine {
+
+    /**
+     * Smallest board dimension on which the beam search is preferred to
+     * the full search, e.g. by {@link FoxHoundEnginePlayer}.
+     */
+    public static final int LARGE_DIM = 16;
+    /** Default number of positions kept per ply. */
+    public static final int DEFAULT_WIDTH = 48;
+    /** Default number of plies looked ahead. */
+    public static final int DEFAULT_DEPTH = 8;
+
+    /** Marker for a node without expanded children. */
+    private static final int NO_NODE = -1;
+
+    private final FoxHoundEval eval;
+    private final int width;
+    private final int depth;
+    private final int[] moveList = new int[FoxHoundPosition.MAX_MOVES];
+
+    /** Parent, move and score from the point of view of the Fox of every node of a search. */
+    private int[] parents = new int[1024];
+    private int[] moves = new int[1024];
+    private int[] scores = new int[1024];
+    /** Whether the Fox is to move at every node. */
+    private boolean[] foxToMove = new boolean[1024];
+    /** Child with the best score for the side to move at every node. */
+    private int[] bestChild = new int[1024];
+    private int nodeCount;
+
+    /**
+     * Create an engine with the default evaluation, width and depth.
+     */
+    public FoxHoundBeamEngine() {
+        this(new FoxHoundEval(), DEFAULT_WIDTH, DEFAULT_DEPTH);
+    }
+
+    /**
+     * Create an engine.
+     *
+     * @param eval the evaluation function scoring positions
+     * @param width an int for the number of positions kept per ply
+     * @param depth an int for the number of plies looked ahead
+     * @throws IllegalArgumentException if width or depth are out of range
+     */
+    public FoxHoundBeamEngine(FoxHoundEval eval, int width, int depth) {
+        if (width < 1 || depth < 1 || depth > FoxHoundEngine.MAX_DEPTH) {
+            throw new IllegalArgumentException("Invalid beam: " + width + " x " + depth);
+        }
+        this.eval = eval;
+        this.width = width;
+        this.depth = depth;
+    }
+
+    /**
+     * Search the best move. If the time runs out, the plies completed so far are used.
+     *
+     * @param root the position to search, it is not modified
+     * @param timeLimitMillis a long for the time limit in milliseconds, or 0 for none
+     * @return the result of the search
+     */
+    public FoxHoundEngine.Result search(FoxHoundPosition root, long timeLimitMillis) {
+        long deadline = timeLimitMillis > 0 ? System.nanoTime() + timeLimitMillis * 1_000_000 : Long.MAX_VALUE;
+        nodeCount = 0;
+        addNode(NO_NODE, FoxHoundPosition.NO_MOVE, root);
+        scores[0] = terminalScore(root, 0);
+        FoxHoundPosition[] beam = {root.copy()};
+        if (FoxHoundEngine.isGameOver(root)) {
+            beam = new FoxHoundPosition[0];
+        }
+        int[] beamNodes = {0};
+        int plies = 0;
+        while (plies < depth && beam.length > 0 && System.nanoTime() < deadline) {
+            plies++;
+            int firstChild = nodeCount;
+            int[] slots = new int[beam.length * FoxHoundPosition.MAX_MOVES];
+            for (int b = 0; b < beam.length; b++) {
+                int start = nodeCount;
+                expand(beam[b], beamNodes[b], plies);
+                Arrays.fill(slots, start - firstChild, nodeCount - firstChild, b);
+            }
+            // keep the children best for the side which moved into them
+            boolean foxMoved = beam[0].getTurn() == FoxHoundUtils.FOX_FIELD;
+            long[] order = new long[nodeCount - firstChild];
+            for (int i = 0; i < order.length; i++) {
+                int node = firstChild + i;
+                long moverScore = foxMoved ? scores[node] : -scores[node];
+                order[i] = -moverScore << Integer.SIZE | i;
+            }
+            Arrays.sort(order);
+            Set<Long> kept = new HashSet<>();
+            FoxHoundPosition[] next = new FoxHoundPosition[Math.min(width, order.length)];
+            int[] nextNodes = new int[next.length];
+            int count = 0;
+            for (int i = 0; i < order.length && count < next.length; i++) {
+                int index = (int) order[i];
+                int node = firstChild + index;
+                if (Math.abs(scores[node]) > FoxHoundEngine.WIN_BOUND) {
+                    // decided, nothing to look at
+                    continue;
+                }
+                FoxHoundPosition position = beam[slots[index]].copy();
+                position.makeMove(moves[node]);
+                // a transposition is searched only once
+                if (kept.add(position.key())) {
+                    next[count] = position;
+                    nextNodes[count++] = node;
+                }
+            }
+            beam = Arrays.copyOf(next, count);
+            beamNodes = Arrays.copyOf(nextNodes, count);
+        }
+        backUp();
+        int move = bestChild[0] == NO_NODE ? FoxHoundPosition.NO_MOVE : moves[bestChild[0]];
+        int length = 0;
+        for (int node = bestChild[0]; node != NO_NODE; node = bestChild[node]) {
+            length++;
+        }
+        int[] line = new int[length];
+        length = 0;
+        for (int node = bestChild[0]; node != NO_NODE; node = bestChild[node]) {
+            line[length++] = moves[node];
+        }
+        int score = root.getTurn() == FoxHoundUtils.FOX_FIELD ? scores[0] : -scores[0];
+        return new FoxHoundEngine.Result(move, score, plies, nodeCount, line, root.getTurn());
+    }
+
+    /**
+     * Add all candidate moves of a beam position as children.
+     *
+     * @param position the position, restored afterwards
+     * @param node an int for its node
+     * @param ply an int for the ply of the children
+     */
+    private void expand(FoxHoundPosition position, int node, int ply) {
+        int count = candidateMoves(position, moveList);
+        if (count == 0) {
+            // the hounds cannot move
+            scores[node] = FoxHoundEngine.WIN_SCORE - ply + 1;
+        }
+        for (int i = 0; i < count; i++) {
+            int move = moveList[i];
+            position.makeMove(move);
+            addNode(node, move, position);
+            scores[nodeCount - 1] = terminalScore(position, ply);
+            position.unmakeMove(move);
+        }
+    }
+
+    /**
+     * Score of a position from the point of view of the Fox, wins
+     * sooner scoring higher.
+     *
+     * @param position the position
+     * @param ply an int for the number of moves since the root
+     * @return an int for the score
+     */
+    private int terminalScore(FoxHoundPosition position, int ply) {
+        if (position.isFoxWin()) {
+            return FoxHoundEngine.WIN_SCORE - ply;
+        }
+        if (position.isHoundWin()) {
+            return -(FoxHoundEngine.WIN_SCORE - ply);
+        }
+        return eval.evaluate(position);
+    }
+
+    /**
+     * Replace the score of every expanded node by the best score of its
+     * children for the side to move there. Children are always added
+     * after their parents, so going backwards sees every child first.
+     */
+    private void backUp() {
+        Arrays.fill(bestChild, 0, nodeCount, NO_NODE);
+        for (int node = nodeCount - 1; node >= 0; node--) {
+            if (bestChild[node] != NO_NODE) {
+                scores[node] = scores[bestChild[node]];
+            }
+            int parent = parents[node];
+            if (parent == NO_NODE) {
+                continue;
+            }
+            int best = bestChild[parent];
+            if (best == NO_NODE || (foxToMove[parent] ? scores[node] > scores[best] : scores[node] < scores[best])) {
+                bestChild[parent] = node;
+            }
+        }
+    }
+
+    /**
+     * Add a node, its score is set by the caller.
+     *
+     * @param parent an int for the parent node, or {@link #NO_NODE} for the root
+     * @param move an int for the move leading to the node
+     * @param position the position of the node
+     */
+    private void addNode(int parent, int move, FoxHoundPosition position) {
+        if (nodeCount == parents.length) {
+            int capacity = 2 * nodeCount;
+            parents = Arrays.copyOf(parents, capacity);
+            moves = Arrays.copyOf(moves, capacity);
+            scores = Arrays.copyOf(scores, capacity);
+            foxToMove = Arrays.copyOf(foxToMove, capacity);
+            bestChild = Arrays.copyOf(bestChild, capacity);
+        }
+        parents[nodeCount] = parent;
+        moves[nodeCount] = move;
+        foxToMove[nodeCount] = position.getTurn() == FoxHoundUtils.FOX_FIELD;
+        nodeCount++;
+    }
+
+    /**
+     * Generate the moves worth searching. All fox moves are kept, hound
+     * moves only if they keep the formation. If no hound move does, all
+     * of them are kept.
+     *
+     * @param position the position
+     * @param moves an int array of at least {@value FoxHoundPosition#MAX_MOVES} entries
+     * @return an int for the number of moves
+     */
+    static int candidateMoves(FoxHoundPosition position, int[] moves) {
+        int count = position.generateMoves(moves);
+        if (position.getTurn() == FoxHoundUtils.FOX_FIELD) {
+            return count;
+        }
+        int kept = 0;
+        for (int i = 0; i < count; i++) {
+            if (keepsFormation(position, moves[i])) {
+                int move = moves[i];
+                moves[i] = moves[kept];
+                moves[kept++] = move;
+            }
+        }
+        return kept > 0 ? kept : count;
+    }
+
+    /**
+     * Determine if a hound move keeps the formation the hounds start in,
+     * a line across the board closing the way of the fox. Moves of hounds
+     * already behind the fox are kept, they may be needed to pass the
+     * turn without opening the line. A move is rejected if
+     * <ul>
+     *   <li>the hound stands diagonally in front of the fox and would open its way,</li>
+     *   <li>or the hound is far to the side of the fox, out of its reach,
+     *       and moves further away from its column.</li>
+     * </ul>
+     *
+     * @param position the position with the hounds to move
+     * @param move an encoded hound move
+     * @return a boolean whether the move keeps the formation
+     */
+    static boolean keepsFormation(FoxHoundPosition position, int move) {
+        int dim = position.getDim();
+        int foxRow = position.getFox() / dim;
+        int foxCol = position.getFox() % dim;
+        int fromRow = FoxHoundPosition.from(move) / dim;
+        int fromCol = FoxHoundPosition.from(move) % dim;
+        int toRow = FoxHoundPosition.to(move) / dim;
+        int toCol = FoxHoundPosition.to(move) % dim;
+        if (fromRow + 1 == foxRow && Math.abs(fromCol - foxCol) == 1) {
+            return false;
+        }
+        // columns the fox can reach before it gets to the row of the hound
+        int reach = foxRow - toRow + 2;
+        int distance = Math.abs(fromCol - foxCol);
+        return distance <= reach || Math.abs(toCol - foxCol) <= distance;
+    }
+}
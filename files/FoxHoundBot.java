@@ -0,0 +1,136 @@
+import java.util.SplittableRandom;
+
+/**
+ * A computer player choosing moves without user input.
+ *
+ * Bots are described by a short name, so they can be given on the
+ * command line:
+ * <ul>
+ *   <li>{@code random} plays any valid move,</li>
+ *   <li>{@code greedy} plays the move with the best evaluation right after it,</li>
+ *   <li>{@code search:N} plays the best move of an engine search of depth N,</li>
+ *   <li>{@code beam:N} plays the best move of a beam search keeping N positions per ply.</li>
+ * </ul>
+ * A bot may keep state between moves, so every game needs its own bot.
+ */
+public interface FoxHoundBot {
+
+    /** Name of the random bot. */
+    String RANDOM = "random";
+    /** Name of the greedy bot. */
+    String GREEDY = "greedy";
+    /** Name of the search bot, followed by the depth. */
+    String SEARCH = "search:";
+    /** Name of the beam search bot, followed by the beam width. */
+    String BEAM = "beam:";
+
+    /**
+     * Choose a move.
+     *
+     * @param position the position to move in, it must not be modified
+     * @param random random numbers to break ties with
+     * @return an encoded move, or {@link FoxHoundPosition#NO_MOVE} if there is none
+     */
+    int chooseMove(FoxHoundPosition position, SplittableRandom random);
+
+    /**
+     * Create a bot from its name.
+     *
+     * @param name a String like {@code random}, {@code greedy}, {@code search:4} or {@code beam:48}
+     * @return a new bot
+     * @throws IllegalArgumentException if the name is unknown
+     */
+    static FoxHoundBot create(String name) {
+        if (name.equals(RANDOM)) {
+            return FoxHoundBot::randomMove;
+        }
+        if (name.equals(GREEDY)) {
+            FoxHoundEval eval = new FoxHoundEval();
+            return (position, random) -> greedyMove(eval, position, random);
+        }
+        if (name.startsWith(SEARCH)) {
+            int depth;
+            try {
+                depth = Integer.parseInt(name.substring(SEARCH.length()));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid bot: " + name);
+            }
+            if (depth < 1 || depth > FoxHoundEngine.MAX_DEPTH) {
+                throw new IllegalArgumentException("Invalid bot: " + name);
+            }
+            // a small table, as many bots play at the same time
+            FoxHoundEngine engine = new FoxHoundEngine(new FoxHoundEval(), 16);
+            return (position, random) -> engine.search(position, depth, 0, null).move;
+        }
+        if (name.startsWith(BEAM)) {
+            int width;
+            try {
+                width = Integer.parseInt(name.substring(BEAM.length()));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid bot: " + name);
+            }
+            if (width < 1) {
+                throw new IllegalArgumentException("Invalid bot: " + name);
+            }
+            FoxHoundBeamEngine engine = new FoxHoundBeamEngine(new FoxHoundEval(), width,
+                FoxHoundBeamEngine.DEFAULT_DEPTH);
+            return (position, random) -> engine.search(position, 0).move;
+        }
+        throw new IllegalArgumentException("Unknown bot: " + name);
+    }
+
+    /**
+     * Choose any valid move.
+     *
+     * @param position the position to move in
+     * @param random random numbers to choose with
+     * @return an encoded move, or {@link FoxHoundPosition#NO_MOVE} if there is none
+     */
+    static int randomMove(FoxHoundPosition position, SplittableRandom random) {
+        int[] moves = new int[FoxHoundPosition.MAX_MOVES];
+        int count = position.generateMoves(moves);
+        return count == 0 ? FoxHoundPosition.NO_MOVE : moves[random.nextInt(count)];
+    }
+
+    /**
+     * Choose the move leading to the best evaluated position, a winning move first.
+     *
+     * @param eval the evaluation function
+     * @param position the position to move in
+     * @param random random numbers to break ties with
+     * @return an encoded move, or {@link FoxHoundPosition#NO_MOVE} if there is none
+     */
+    static int greedyMove(FoxHoundEval eval, FoxHoundPosition position, SplittableRandom random) {
+        int[] moves = new int[FoxHoundPosition.MAX_MOVES];
+        int count = position.generateMoves(moves);
+        boolean fox = position.getTurn() == FoxHoundUtils.FOX_FIELD;
+        FoxHoundPosition next = position.copy();
+        int best = FoxHoundPosition.NO_MOVE;
+        int bestScore = Integer.MIN_VALUE;
+        int ties = 0;
+        for (int i = 0; i < count; i++) {
+            next.makeMove(moves[i]);
+            int score;
+            if (next.isFoxWin()) {
+                score = fox ? FoxHoundEngine.WIN_SCORE : -FoxHoundEngine.WIN_SCORE;
+            }
+            else if (next.isHoundWin()) {
+                score = fox ? -FoxHoundEngine.WIN_SCORE : FoxHoundEngine.WIN_SCORE;
+            }
+            else {
+                score = fox ? eval.evaluate(next) : -eval.evaluate(next);
+            }
+            next.unmakeMove(moves[i]);
+            if (score > bestScore) {
+                best = moves[i];
+                bestScore = score;
+                ties = 1;
+            }
+            else if (score == bestScore && random.nextInt(++ties) == 0) {
+                // pick uniformly among equally good moves
+                best = moves[i];
+            }
+        }
+        return best;
+    }
+}
@@ -0,0 +1,277 @@
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A broadcast of a single game to many spectators.
+ *
+ * The game thread publishes every move as a compact delta, a single
+ * long holding origin and destination square, the figure which moved
+ * and a sequence number, into a ring buffer of fixed size. Spectators
+ * read the ring at their own pace through a {@link Subscriber}, which
+ * only keeps its own cursor. Publishing never waits for spectators and
+ * takes no locks, so a slow spectator cannot hold up the game.
+ *
+ * A spectator which fell so far behind that the game overwrote deltas
+ * it did not read yet is either resynchronised with a snapshot of the
+ * current position in save file notation, or dropped.
+ */
+public class FoxHoundBroadcast {
+
+    /** Delta of a fox move. */
+    public static final int KIND_FOX = 0;
+    /** Delta of a hound move. */
+    public static final int KIND_HOUND = 1;
+    /** Delta replacing the whole game, e.g. after a load, to be read from a snapshot. */
+    public static final int KIND_RESET = 2;
+
+    /** Bits of a square in a delta. */
+    private static final int SQUARE_BITS = 10;
+    /** Mask of a square in a delta. */
+    private static final long SQUARE_MASK = (1L << SQUARE_BITS) - 1;
+    /** Position of the kind in a delta. */
+    private static final int KIND_SHIFT = 2 * SQUARE_BITS;
+    /** Position of the sequence number in a delta. */
+    private static final int SEQUENCE_SHIFT = KIND_SHIFT + 2;
+
+    /**
+     * Receives the updates of a broadcast.
+     */
+    public interface Listener {
+        /**
+         * Called for every move of the game.
+         *
+         * @param figure a char for the figure which moved
+         * @param from an int for the square moved from
+         * @param to an int for the square moved to
+         */
+        void onMove(char figure, int from, int to);
+
+        /**
+         * Called with the whole game when a spectator starts watching,
+         * after the game was replaced, or when it fell behind.
+         *
+         * @param dim an int for the board dimension
+         * @param line a String with the game in save file notation
+         */
+        void onSnapshot(int dim, String line);
+    }
+
+    /**
+     * The position of the game after a delta, published for resynchronisation.
+     */
+    private static final class Snapshot {
+        final long sequence;
+        final int dim;
+        final String line;
+
+        Snapshot(long sequence, int dim, String line) {
+            this.sequence = sequence;
+            this.dim = dim;
+            this.line = line;
+        }
+    }
+
+    private final AtomicLongArray ring;
+    private final int mask;
+    /** Sequence number of the last published delta. */
+    private final AtomicLong published = new AtomicLong(-1);
+    /** Position of the game, only used by the game thread. */
+    private FoxHoundPosition position;
+    /** Latest snapshot, replaced by the game thread after every delta. */
+    private volatile Snapshot snapshot;
+
+    /**
+     * Create a broadcast of a game.
+     *
+     * @param capacity an int for the number of deltas kept, rounded up to a power of two
+     * @param position the current position of the game, copied
+     * @throws IllegalArgumentException if the capacity is not positive or too large
+     */
+    public FoxHoundBroadcast(int capacity, FoxHoundPosition position) {
+        if (capacity <= 0 || capacity > 1 << 24) {
+            throw new IllegalArgumentException("Invalid capacity: " + capacity);
+        }
+        int size = Integer.highestOneBit(Math.max(2, capacity) - 1) << 1;
+        this.ring = new AtomicLongArray(size);
+        this.mask = size - 1;
+        this.position = position.copy();
+        this.snapshot = new Snapshot(-1, position.getDim(), position.toSaveLine().trim());
+    }
+
+    /**
+     * Number of deltas kept for slow spectators.
+     *
+     * @return an int for the ring size
+     */
+    public int getCapacity() {
+        return mask + 1;
+    }
+
+    /**
+     * Sequence number of the last published delta.
+     *
+     * @return a long, -1 if nothing was published yet
+     */
+    public long getPublished() {
+        return published.get();
+    }
+
+    /**
+     * Publish a move of the game. Must only be called by the game thread.
+     *
+     * @param move an encoded move legal in the current position
+     * @throws IllegalArgumentException if the move is not legal
+     */
+    public void publishMove(int move) {
+        if (!position.isLegal(move)) {
+            throw new IllegalArgumentException("Illegal move: " + move);
+        }
+        int kind = position.getTurn() == FoxHoundUtils.FOX_FIELD ? KIND_FOX : KIND_HOUND;
+        position.makeMove(move);
+        publish(kind, FoxHoundPosition.from(move), FoxHoundPosition.to(move));
+    }
+
+    /**
+     * Publish a new position replacing the game. Must only be called by the game thread.
+     *
+     * @param next the new position of the game, copied
+     */
+    public void publishReset(FoxHoundPosition next) {
+        position = next.copy();
+        publish(KIND_RESET, 0, 0);
+    }
+
+    /**
+     * Write a delta to the ring and make it visible to the spectators.
+     *
+     * @param kind an int for the kind of the delta
+     * @param from an int for the square moved from
+     * @param to an int for the square moved to
+     */
+    private void publish(int kind, int from, int to) {
+        long sequence = published.get() + 1;
+        ring.lazySet((int) sequence & mask, sequence << SEQUENCE_SHIFT
+            | (long) kind << KIND_SHIFT | (long) from << SQUARE_BITS | to);
+        snapshot = new Snapshot(sequence, position.getDim(), position.toSaveLine().trim());
+        published.lazySet(sequence);
+    }
+
+    /**
+     * Start watching the game. The first poll delivers a snapshot of the current position.
+     *
+     * @param listener receives the updates
+     * @param resync a boolean whether to resynchronise the spectator if it falls
+     * behind, otherwise it is dropped
+     * @return the subscriber to poll for updates
+     */
+    public Subscriber subscribe(Listener listener, boolean resync) {
+        return new Subscriber(listener, resync);
+    }
+
+    /**
+     * A spectator of the broadcast with its own read position. A subscriber
+     * must only be polled by one thread at a time.
+     */
+    public final class Subscriber {
+        private final Listener listener;
+        private final boolean resync;
+        /** Sequence number of the next delta to read, {@link Long#MIN_VALUE} to start with a snapshot. */
+        private long cursor = Long.MIN_VALUE;
+        private boolean dropped;
+        private long received;
+        private long resyncs;
+
+        Subscriber(Listener listener, boolean resync) {
+            this.listener = listener;
+            this.resync = resync;
+        }
+
+        /**
+         * Deliver the updates published since the last poll.
+         *
+         * @param max an int for the largest number of deltas to deliver
+         * @return an int for the number of updates delivered
+         */
+        public int poll(int max) {
+            if (dropped) {
+                return 0;
+            }
+            if (cursor == Long.MIN_VALUE) {
+                return resynchronise();
+            }
+            long last = published.get();
+            int delivered = 0;
+            while (cursor <= last && delivered < max) {
+                long delta = ring.get((int) cursor & mask);
+                if (delta >>> SEQUENCE_SHIFT != cursor) {
+                    // the game overwrote this delta before it was read
+                    if (!resync) {
+                        dropped = true;
+                        return delivered;
+                    }
+                    resyncs++;
+                    return delivered + resynchronise();
+                }
+                int kind = (int) (delta >>> KIND_SHIFT & 0x3);
+                if (kind == KIND_RESET) {
+                    return delivered + resynchronise();
+                }
+                listener.onMove(kind == KIND_FOX ? FoxHoundUtils.FOX_FIELD : FoxHoundUtils.HOUND_FIELD,
+                    (int) (delta >>> SQUARE_BITS & SQUARE_MASK), (int) (delta & SQUARE_MASK));
+                cursor++;
+                received++;
+                delivered++;
+            }
+            return delivered;
+        }
+
+        /**
+         * Deliver the latest snapshot and continue after it.
+         *
+         * @return an int for the number of updates delivered, always 1
+         */
+        private int resynchronise() {
+            Snapshot latest = snapshot;
+            listener.onSnapshot(latest.dim, latest.line);
+            cursor = latest.sequence + 1;
+            received++;
+            return 1;
+        }
+
+        /**
+         * Number of deltas the spectator is behind the game.
+         *
+         * @return a long for the unread deltas
+         */
+        public long getLag() {
+            return cursor == Long.MIN_VALUE ? 0 : Math.max(0, published.get() + 1 - cursor);
+        }
+
+        /**
+         * Determine if the spectator was dropped for falling behind.
+         *
+         * @return a boolean whether the spectator receives no more updates
+         */
+        public boolean isDropped() {
+            return dropped;
+        }
+
+        /**
+         * Number of updates delivered, including snapshots.
+         *
+         * @return a long for the number of updates
+         */
+        public long getReceived() {
+            return received;
+        }
+
+        /**
+         * Number of times the spectator fell behind and got a snapshot.
+         *
+         * @return a long for the number of resynchronisations
+         */
+        public long getResyncs() {
+            return resyncs;
+        }
+    }
+}
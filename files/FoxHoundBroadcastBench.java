@@ -0,0 +1,184 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A local fan-out benchmark of the {@link FoxHoundBroadcast}.
+ *
+ * A game thread plays random games at a fixed rate of moves and
+ * publishes every move, while reader threads poll thousands of
+ * spectators. The time the game thread spends publishing is measured,
+ * to show that it does not depend on the number of spectators. Some
+ * spectators are only polled rarely, so they fall behind and have to be
+ * resynchronised. At the end every spectator's board is compared with
+ * the board of the game.
+ * <pre>
+ * java FoxHoundBroadcastBench [subscribers] [reader threads] [seconds] [moves per second]
+ * </pre>
+ */
+public class FoxHoundBroadcastBench {
+
+    /** Default number of spectators. */
+    private static final int DEFAULT_SUBSCRIBERS = 5000;
+    /** Default number of threads polling the spectators. */
+    private static final int DEFAULT_READERS = 4;
+    /** Default duration of the measurement in seconds. */
+    private static final int DEFAULT_SECONDS = 5;
+    /** Default number of moves published per second. */
+    private static final int DEFAULT_RATE = 2000;
+    /** Number of deltas kept by the broadcast. */
+    private static final int CAPACITY = 1024;
+    /** Every this many spectators is a slow one. */
+    private static final int SLOW_EVERY = 10;
+    /** A slow spectator is only polled once in this many rounds. */
+    private static final int SLOW_ROUNDS = 200;
+    /** Largest number of updates delivered per poll. */
+    private static final int POLL_BATCH = 256;
+
+    /**
+     * A spectator keeping its own copy of the board.
+     */
+    private static final class Viewer implements FoxHoundBroadcast.Listener {
+        FoxHoundPosition position;
+        FoxHoundBroadcast.Subscriber subscriber;
+        boolean slow;
+
+        @Override
+        public void onMove(char figure, int from, int to) {
+            position.makeMove(FoxHoundPosition.move(from, to));
+        }
+
+        @Override
+        public void onSnapshot(int dim, String line) {
+            position = FoxHoundPosition.parse(dim, line);
+        }
+    }
+
+    /** Time the game thread spent publishing in nanoseconds. */
+    private static long publishNanos;
+
+    /**
+     * Publish random games until the time is up.
+     *
+     * @param broadcast the broadcast to publish to
+     * @param end a long for the time to stop in nanoseconds
+     * @param rate an int for the number of moves per second
+     * @return the position of the game when it stopped
+     */
+    private static FoxHoundPosition play(FoxHoundBroadcast broadcast, long end, int rate) {
+        SplittableRandom random = new SplittableRandom(1);
+        int[] moves = new int[FoxHoundPosition.MAX_MOVES];
+        FoxHoundPosition position = FoxHoundPosition.initial(FoxHoundUtils.DEFAULT_DIM);
+        long interval = 1_000_000_000L / rate;
+        long next = System.nanoTime();
+        publishNanos = 0;
+        while (System.nanoTime() < end) {
+            long wait = next - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            next += interval;
+            long start = System.nanoTime();
+            int count = FoxHoundEngine.isGameOver(position) ? 0 : position.generateMoves(moves);
+            if (count == 0) {
+                position = FoxHoundPosition.initial(FoxHoundUtils.DEFAULT_DIM);
+                broadcast.publishReset(position);
+            }
+            else {
+                int move = moves[random.nextInt(count)];
+                position.makeMove(move);
+                broadcast.publishMove(move);
+            }
+            publishNanos += System.nanoTime() - start;
+        }
+        return position;
+    }
+
+    /**
+     * Run the benchmark with a given number of spectators.
+     *
+     * @param subscribers an int for the number of spectators
+     * @param readers an int for the number of reader threads
+     * @param seconds an int for the duration in seconds
+     * @param rate an int for the number of moves per second
+     * @throws InterruptedException if waiting for the threads is interrupted
+     */
+    private static void run(int subscribers, int readers, int seconds, int rate) throws InterruptedException {
+        FoxHoundBroadcast broadcast = new FoxHoundBroadcast(CAPACITY,
+            FoxHoundPosition.initial(FoxHoundUtils.DEFAULT_DIM));
+        List<Viewer> viewers = new ArrayList<>();
+        for (int i = 0; i < subscribers; i++) {
+            Viewer viewer = new Viewer();
+            viewer.slow = i % SLOW_EVERY == SLOW_EVERY - 1;
+            viewer.subscriber = broadcast.subscribe(viewer, true);
+            viewers.add(viewer);
+        }
+
+        long start = System.nanoTime();
+        long end = start + seconds * 1_000_000_000L;
+        Thread[] threads = new Thread[readers];
+        long[] delivered = new long[readers];
+        for (int r = 0; r < readers; r++) {
+            int reader = r;
+            threads[r] = new Thread(() -> {
+                long rounds = 0;
+                while (System.nanoTime() < end) {
+                    rounds++;
+                    for (int i = reader; i < viewers.size(); i += readers) {
+                        Viewer viewer = viewers.get(i);
+                        if (!viewer.slow || rounds % SLOW_ROUNDS == 0) {
+                            delivered[reader] += viewer.subscriber.poll(POLL_BATCH);
+                        }
+                    }
+                }
+            }, "foxhound-spectators-" + r);
+            threads[r].start();
+        }
+        FoxHoundPosition last = play(broadcast, end, rate);
+        double elapsed = (System.nanoTime() - start) / 1e9;
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        // catch up with the end of the game and compare the boards
+        long resyncs = 0;
+        int mismatches = 0;
+        for (Viewer viewer : viewers) {
+            while (viewer.subscriber.poll(Integer.MAX_VALUE) > 0) {
+                // read everything
+            }
+            resyncs += viewer.subscriber.getResyncs();
+            if (!last.equals(viewer.position)) {
+                mismatches++;
+            }
+        }
+        long updates = 0;
+        for (long d : delivered) {
+            updates += d;
+        }
+        long moves = broadcast.getPublished() + 1;
+        int frame = FoxHoundUI.renderBoard(last.toPlayers(), last.getDim()).length();
+        System.out.printf("subscribers=%d readers=%d published=%d (%.0f/s) publish cost=%.0f ns/move%n",
+            subscribers, readers, moves, moves / elapsed, publishNanos / (double) moves);
+        System.out.printf("delivered=%d (%.0f/s) resyncs=%d mismatched boards=%d%n",
+            updates, updates / elapsed, resyncs, mismatches);
+        System.out.printf("bytes per update: delta=%d full board=%d%n", Long.BYTES, frame);
+    }
+
+    /**
+     * Entry method of the benchmark.
+     *
+     * @param args number of spectators, reader threads, seconds and moves per second, all optional
+     * @throws InterruptedException if waiting for the threads is interrupted
+     */
+    public static void main(String[] args) throws InterruptedException {
+        int subscribers = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_SUBSCRIBERS;
+        int readers = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_READERS;
+        int seconds = args.length > 2 ? Integer.parseInt(args[2]) : DEFAULT_SECONDS;
+        int rate = args.length > 3 ? Integer.parseInt(args[3]) : DEFAULT_RATE;
+        // the game alone first, to show that spectators do not slow it down
+        run(0, 1, seconds, rate);
+        run(subscribers, readers, seconds, rate);
+    }
+}
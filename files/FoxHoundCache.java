@@ -0,0 +1,337 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A bounded cache of analysis results keyed by the 64 bit position key
+ * of {@link FoxHoundPosition#key()}.
+ *
+ * Keys and values are plain longs kept in arrays, so the memory used
+ * is fixed when the cache is created and no objects are allocated per
+ * entry. The cache is split into sets of {@value #WAYS} entries; a key
+ * can only be stored in the set its hash selects, and a full set
+ * replaces its least recently used entry. Sets are spread over
+ * independently locked stripes, so threads using different positions
+ * rarely wait for each other.
+ *
+ * The cache can be saved to a file and loaded again, so a restarted
+ * program starts with the analyses of the previous run.
+ */
+public class FoxHoundCache {
+
+    /** Value returned by {@link #get} for a key not in the cache. */
+    public static final long MISSING = Long.MIN_VALUE;
+    /** Number of entries per set. */
+    public static final int WAYS = 8;
+
+    /** First number of a cache file. */
+    private static final int FILE_MAGIC = 0x46484331;
+    /** Number of independently locked stripes. */
+    private static final int STRIPES = 64;
+
+    private final long[] keys;
+    private final long[] values;
+    /** Time of the last use of every entry, 0 for an empty entry. */
+    private final long[] used;
+    private final int setMask;
+    private final Object[] locks = new Object[STRIPES];
+    /** Clock of every stripe, counting the uses of its entries. */
+    private final long[] clocks = new long[STRIPES];
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder puts = new LongAdder();
+
+    /**
+     * Create an empty cache.
+     *
+     * @param capacity an int for the number of entries, rounded up to a power of two
+     * @throws IllegalArgumentException if the capacity is not positive or too large
+     */
+    public FoxHoundCache(int capacity) {
+        if (capacity <= 0 || capacity > 1 << 28) {
+            throw new IllegalArgumentException("Invalid capacity: " + capacity);
+        }
+        int entries = Math.max(WAYS * STRIPES, Integer.highestOneBit(capacity - 1) << 1);
+        keys = new long[entries];
+        values = new long[entries];
+        used = new long[entries];
+        setMask = entries / WAYS - 1;
+        for (int i = 0; i < STRIPES; i++) {
+            locks[i] = new Object();
+        }
+    }
+
+    /**
+     * Number of entries the cache can hold.
+     *
+     * @return an int for the capacity
+     */
+    public int getCapacity() {
+        return keys.length;
+    }
+
+    /**
+     * Look up the value of a key.
+     *
+     * @param key a long position key
+     * @return a long for the value, or {@value #MISSING} if the key is not in the cache
+     */
+    public long get(long key) {
+        int set = set(key);
+        int stripe = set & (STRIPES - 1);
+        int base = set * WAYS;
+        synchronized (locks[stripe]) {
+            for (int i = base; i < base + WAYS; i++) {
+                if (used[i] != 0 && keys[i] == key) {
+                    used[i] = ++clocks[stripe];
+                    hits.increment();
+                    return values[i];
+                }
+            }
+        }
+        misses.increment();
+        return MISSING;
+    }
+
+    /**
+     * Store the value of a key, replacing an older value of the same key.
+     *
+     * @param key a long position key
+     * @param value a long for the value, must not be {@value #MISSING}
+     * @throws IllegalArgumentException if the value is {@value #MISSING}
+     */
+    public void put(long key, long value) {
+        if (value == MISSING) {
+            throw new IllegalArgumentException("Invalid value");
+        }
+        puts.increment();
+        int set = set(key);
+        int stripe = set & (STRIPES - 1);
+        int base = set * WAYS;
+        synchronized (locks[stripe]) {
+            int victim = base;
+            for (int i = base; i < base + WAYS; i++) {
+                if (used[i] != 0 && keys[i] == key) {
+                    victim = i;
+                    break;
+                }
+                if (used[i] < used[victim]) {
+                    victim = i;
+                }
+            }
+            if (used[victim] != 0 && keys[victim] != key) {
+                evictions.increment();
+            }
+            keys[victim] = key;
+            values[victim] = value;
+            used[victim] = ++clocks[stripe];
+        }
+    }
+
+    /**
+     * Number of entries in the cache.
+     *
+     * @return an int for the number of stored keys
+     */
+    public int size() {
+        int size = 0;
+        for (int stripe = 0; stripe < STRIPES; stripe++) {
+            synchronized (locks[stripe]) {
+                for (int set = stripe; set <= setMask; set += STRIPES) {
+                    for (int i = set * WAYS; i < (set + 1) * WAYS; i++) {
+                        if (used[i] != 0) {
+                            size++;
+                        }
+                    }
+                }
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Number of lookups which found their key.
+     *
+     * @return a long for the number of hits
+     */
+    public long getHits() {
+        return hits.sum();
+    }
+
+    /**
+     * Number of lookups which did not find their key.
+     *
+     * @return a long for the number of misses
+     */
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * Number of entries replaced to make room for another key.
+     *
+     * @return a long for the number of evictions
+     */
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    /**
+     * Number of values stored.
+     *
+     * @return a long for the number of puts
+     */
+    public long getPuts() {
+        return puts.sum();
+    }
+
+    /**
+     * Share of lookups which found their key.
+     *
+     * @return a double between 0 and 1, 0 if there were no lookups
+     */
+    public double getHitRate() {
+        long hit = hits.sum();
+        long total = hit + misses.sum();
+        return total == 0 ? 0 : hit / (double) total;
+    }
+
+    /**
+     * Describe the metrics of the cache.
+     *
+     * @return a String with size, hit rate and evictions
+     */
+    @Override
+    public String toString() {
+        return String.format("size=%d/%d hits=%d misses=%d hitRate=%.1f%% evictions=%d",
+            size(), getCapacity(), getHits(), getMisses(), getHitRate() * 100, getEvictions());
+    }
+
+    /**
+     * Write all entries to a file, replacing it at once when complete.
+     *
+     * @param path the file to write
+     * @return an int for the number of entries written
+     * @throws IOException if the file cannot be written
+     */
+    public int save(Path path) throws IOException {
+        Path target = path.toAbsolutePath();
+        Path tmp = Files.createTempFile(target.getParent(), target.getFileName().toString(), ".tmp");
+        int written = 0;
+        try {
+            try (DataOutputStream out = new DataOutputStream(
+                    new BufferedOutputStream(Files.newOutputStream(tmp), 1 << 16))) {
+                out.writeInt(FILE_MAGIC);
+                for (int stripe = 0; stripe < STRIPES; stripe++) {
+                    synchronized (locks[stripe]) {
+                        for (int set = stripe; set <= setMask; set += STRIPES) {
+                            // oldest first, so loading keeps the recently used entries
+                            for (int i : byAge(set)) {
+                                out.writeLong(keys[i]);
+                                out.writeLong(values[i]);
+                                written++;
+                            }
+                        }
+                    }
+                }
+                // entries can be added while saving, so the end is marked instead of counting first
+                out.writeLong(0);
+                out.writeLong(MISSING);
+            }
+            try {
+                Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+            return written;
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    /**
+     * Add all entries of a file written by {@link #save}.
+     *
+     * @param path the file to read
+     * @return an int for the number of entries read, 0 if the file does not exist
+     * @throws IOException if the file cannot be read or is no cache file
+     */
+    public int load(Path path) throws IOException {
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(Files.newInputStream(path), 1 << 16))) {
+            if (in.readInt() != FILE_MAGIC) {
+                throw new IOException("Not a cache file: " + path);
+            }
+            int count = 0;
+            while (true) {
+                long key = in.readLong();
+                long value = in.readLong();
+                if (value == MISSING) {
+                    return count;
+                }
+                put(key, value);
+                count++;
+            }
+        } catch (NoSuchFileException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * Save the cache to a file when the program ends.
+     *
+     * @param path the file to write
+     */
+    public void saveOnShutdown(Path path) {
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            try {
+                save(path);
+            } catch (IOException e) {
+                System.err.println("ERROR: Saving cache to " + path + " failed: " + e.getMessage());
+            }
+        }, "foxhound-cache-save"));
+    }
+
+    /**
+     * Used entries of a set, least recently used first.
+     *
+     * @param set an int for the set
+     * @return an int array of entry indices
+     */
+    private int[] byAge(int set) {
+        int[] order = new int[WAYS];
+        int count = 0;
+        for (int i = set * WAYS; i < (set + 1) * WAYS; i++) {
+            if (used[i] != 0) {
+                int j = count++;
+                while (j > 0 && used[order[j - 1]] > used[i]) {
+                    order[j] = order[j - 1];
+                    j--;
+                }
+                order[j] = i;
+            }
+        }
+        return java.util.Arrays.copyOf(order, count);
+    }
+
+    /**
+     * Select the set of a key.
+     *
+     * @param key a long position key
+     * @return an int for the set
+     */
+    private int set(long key) {
+        // position keys are random already, but fold the high bits in for other keys
+        return (int) (key ^ key >>> 32) & setMask;
+    }
+}
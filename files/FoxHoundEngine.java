@@ -0,0 +1,580 @@
+import java.util.function.LongSupplier;
+
+/**
+ * A game tree search engine for the fox hound program.
+ *
+ * The engine runs an iterative deepening alpha-beta search on a
+ * {@link FoxHoundPosition} and remembers searched positions in a
+ * transposition table, which stays warm between searches of the same
+ * engine. An engine must only be used by one search at a time, but a
+ * running search can be stopped from any thread.
+ *
+ * The game rules are the ones of the game loop: the Fox wins on
+ * reaching the first row, the Hounds win once the fox cannot move,
+ * and the Fox also wins if the hounds cannot move any more. Since the
+ * hounds only move forward, every game ends.
+ */
+public class FoxHoundEngine {
+
+    /** Score of a won game, reduced by the number of moves needed. */
+    public static final int WIN_SCORE = 100_000;
+    /** Scores above this bound are wins found by the search. */
+    public static final int WIN_BOUND = WIN_SCORE - 1_000;
+    /** Largest depth a search can go to. */
+    public static final int MAX_DEPTH = 128;
+
+    /** Default number of transposition table entries as a power of two. */
+    private static final int DEFAULT_TABLE_BITS = 20;
+    /** Number of nodes between two checks of the time limit. */
+    private static final int CHECK_INTERVAL = 127;
+    /** Table entry holds the exact score. */
+    private static final int EXACT = 0;
+    /** Table entry holds a lower bound of the score. */
+    private static final int LOWER = 1;
+    /** Table entry holds an upper bound of the score. */
+    private static final int UPPER = 2;
+    /** Offset making stored scores positive. */
+    private static final int SCORE_OFFSET = 1 << 20;
+
+    /**
+     * Receives the result of every completed iteration of a search.
+     */
+    public interface Listener {
+        /**
+         * Called after an iteration of the search completed.
+         *
+         * @param result the best move and score found at the completed depth
+         */
+        void onIteration(Result result);
+    }
+
+    /**
+     * The result of a search.
+     */
+    public static final class Result {
+        /** Best move found, or {@link FoxHoundPosition#NO_MOVE} if the game is over. */
+        public final int move;
+        /** Score from the point of view of the figure to move. */
+        public final int score;
+        /** Depth of the last completed iteration. */
+        public final int depth;
+        /** Number of positions searched. */
+        public final long nodes;
+        /** Expected moves of both sides starting with the best move. */
+        public final int[] line;
+        /** Figure to move in the searched position. */
+        public final char turn;
+
+        Result(int move, int score, int depth, long nodes, int[] line, char turn) {
+            this.move = move;
+            this.score = score;
+            this.depth = depth;
+            this.nodes = nodes;
+            this.line = line;
+            this.turn = turn;
+        }
+
+        /**
+         * Score from the point of view of the Fox.
+         *
+         * @return an int, positive if the position favours the Fox
+         */
+        public int foxScore() {
+            return turn == FoxHoundUtils.FOX_FIELD ? score : -score;
+        }
+
+        /**
+         * Expected reply of the opponent to the best move.
+         *
+         * @return an encoded move, or {@link FoxHoundPosition#NO_MOVE} if none is known
+         */
+        public int expectedReply() {
+            return line.length > 1 ? line[1] : FoxHoundPosition.NO_MOVE;
+        }
+
+        /**
+         * Determine if the search proved a win for one side.
+         *
+         * @return a boolean whether the score is a proven win or loss
+         */
+        public boolean isDecided() {
+            return Math.abs(score) > WIN_BOUND;
+        }
+    }
+
+    private final FoxHoundEval eval;
+    /** Source of the current time in nanoseconds the deadlines are given in. */
+    private final LongSupplier clock;
+    private final long[] tableKeys;
+    private final long[] tableData;
+    private final int tableMask;
+    /** History score of every destination square, per figure. */
+    private final int[][] history = new int[2][FoxHoundUtils.MAX_DIM * FoxHoundUtils.MAX_DIM];
+    /** Move lists of every ply. */
+    private final int[][] moveLists = new int[MAX_DEPTH + 1][FoxHoundPosition.MAX_MOVES];
+
+    private boolean searching;
+    private volatile boolean stopped;
+    private long deadline;
+    private long nodes;
+
+    /**
+     * Create an engine with the default evaluation and table size.
+     */
+    public FoxHoundEngine() {
+        this(new FoxHoundEval(), DEFAULT_TABLE_BITS);
+    }
+
+    /**
+     * Create an engine.
+     *
+     * @param eval the evaluation function scoring leaf positions
+     * @param tableBits an int for the transposition table size as a power of two
+     * @throws IllegalArgumentException if the table size is out of range
+     */
+    public FoxHoundEngine(FoxHoundEval eval, int tableBits) {
+        this(eval, tableBits, System::nanoTime);
+    }
+
+    /**
+     * Create an engine with its own clock. Deadlines are then times of
+     * this clock instead of {@link System#nanoTime}.
+     *
+     * @param eval the evaluation function scoring leaf positions
+     * @param tableBits an int for the transposition table size as a power of two
+     * @param clock the source of the current time in nanoseconds
+     * @throws IllegalArgumentException if the table size is out of range
+     */
+    FoxHoundEngine(FoxHoundEval eval, int tableBits, LongSupplier clock) {
+        if (tableBits < 4 || tableBits > 28) {
+            throw new IllegalArgumentException("Invalid table size: " + tableBits);
+        }
+        this.eval = eval;
+        this.clock = clock;
+        this.tableKeys = new long[1 << tableBits];
+        this.tableData = new long[1 << tableBits];
+        this.tableMask = (1 << tableBits) - 1;
+    }
+
+    /**
+     * The evaluation function of this engine.
+     *
+     * @return the evaluation function scoring leaf positions
+     */
+    public FoxHoundEval getEval() {
+        return eval;
+    }
+
+    /**
+     * Stop the running search as soon as possible. The search returns the
+     * result of its last completed iteration. Has no effect if no search runs.
+     */
+    public synchronized void stop() {
+        if (searching) {
+            stopped = true;
+        }
+    }
+
+    /**
+     * Forget all searched positions.
+     */
+    public void clear() {
+        java.util.Arrays.fill(tableKeys, 0);
+        java.util.Arrays.fill(tableData, 0);
+        for (int[] h : history) {
+            java.util.Arrays.fill(h, 0);
+        }
+    }
+
+    /**
+     * Search a position with iterative deepening.
+     *
+     * @param root the position to search, it is not modified
+     * @param maxDepth an int for the largest depth to search
+     * @param timeLimitMillis a long for the time limit in milliseconds, 0 for none
+     * @param listener receives every completed iteration, or null
+     * @return the result of the deepest completed iteration
+     */
+    public Result search(FoxHoundPosition root, int maxDepth, long timeLimitMillis, Listener listener) {
+        long deadlineNanos = timeLimitMillis > 0 ? clock.getAsLong() + timeLimitMillis * 1_000_000 : 0;
+        return searchUntil(root, maxDepth, deadlineNanos, listener);
+    }
+
+    /**
+     * Search a position with iterative deepening until a point in time.
+     *
+     * @param root the position to search, it is not modified
+     * @param maxDepth an int for the largest depth to search
+     * @param deadlineNanos a long for the {@link System#nanoTime} to stop at, 0 for none
+     * @param listener receives every completed iteration, or null
+     * @return the result of the deepest completed iteration
+     */
+    public Result searchUntil(FoxHoundPosition root, int maxDepth, long deadlineNanos, Listener listener) {
+        FoxHoundEvents.Search event = new FoxHoundEvents.Search();
+        event.begin();
+        long start = FoxHoundMetrics.start();
+        begin(deadlineNanos);
+        Result best = null;
+        try {
+            for (int depth = 1; depth <= Math.min(maxDepth, MAX_DEPTH); depth++) {
+                Result result = iterate(root, depth);
+                if (result == null) {
+                    break;
+                }
+                best = result;
+                if (listener != null) {
+                    listener.onIteration(result);
+                }
+                if (result.isDecided() || result.move == FoxHoundPosition.NO_MOVE) {
+                    break;
+                }
+            }
+            if (best == null) {
+                // not even the first iteration completed, fall back to any move
+                best = fallback(root);
+            }
+            return best;
+        } finally {
+            end();
+            record(event, start, root, best);
+        }
+    }
+
+    /**
+     * Search a position to a single depth.
+     *
+     * This allows callers to drive the iterations themselves, e.g. to
+     * share time between several searches.
+     *
+     * @param root the position to search, it is not modified
+     * @param depth an int for the depth to search
+     * @param deadlineNanos a long for the {@link System#nanoTime} to stop at, 0 for none
+     * @return the result, or null if the search was stopped before it completed
+     */
+    public Result searchDepth(FoxHoundPosition root, int depth, long deadlineNanos) {
+        FoxHoundEvents.Search event = new FoxHoundEvents.Search();
+        event.begin();
+        long start = FoxHoundMetrics.start();
+        begin(deadlineNanos);
+        Result result = null;
+        try {
+            result = iterate(root, Math.min(depth, MAX_DEPTH));
+            return result;
+        } finally {
+            end();
+            record(event, start, root, result);
+        }
+    }
+
+    /**
+     * Record the metrics and the flight recorder event of a search.
+     *
+     * @param event the event started before the search
+     * @param start a long returned by {@link FoxHoundMetrics#start}
+     * @param root the searched position
+     * @param result the result of the search, or null if it was stopped
+     */
+    private void record(FoxHoundEvents.Search event, long start, FoxHoundPosition root, Result result) {
+        FoxHoundMetrics.SEARCH.stop(start);
+        FoxHoundMetrics.SEARCH_NODES.add(nodes);
+        event.end();
+        if (event.shouldCommit()) {
+            event.dim = root.getDim();
+            event.nodes = nodes;
+            if (result != null) {
+                event.depth = result.depth;
+                event.score = result.score;
+                event.move = result.move == FoxHoundPosition.NO_MOVE ? null : root.moveToString(result.move);
+            }
+            event.commit();
+        }
+    }
+
+    /**
+     * Mark the start of a search.
+     *
+     * @param deadlineNanos a long for the {@link System#nanoTime} to stop at, 0 for none
+     */
+    private synchronized void begin(long deadlineNanos) {
+        searching = true;
+        stopped = false;
+        deadline = deadlineNanos;
+        nodes = 0;
+    }
+
+    /**
+     * Mark the end of a search.
+     */
+    private synchronized void end() {
+        searching = false;
+        stopped = false;
+    }
+
+    /**
+     * Run one iteration of the search.
+     *
+     * @param root the position to search
+     * @param depth an int for the depth to search
+     * @return the result, or null if the search was stopped
+     */
+    private Result iterate(FoxHoundPosition root, int depth) {
+        FoxHoundPosition position = root.copy();
+        int score = negamax(position, depth, 0, -WIN_SCORE - 1, WIN_SCORE + 1);
+        if (stopped) {
+            return null;
+        }
+        int[] line = principalLine(root.copy(), depth);
+        int move = line.length > 0 ? line[0] : FoxHoundPosition.NO_MOVE;
+        return new Result(move, score, depth, nodes, line, root.getTurn());
+    }
+
+    /**
+     * Pick the first move of a position without searching.
+     *
+     * @param root the position to pick a move in
+     * @return a result with depth 0
+     */
+    private Result fallback(FoxHoundPosition root) {
+        int[] moves = new int[FoxHoundPosition.MAX_MOVES];
+        int count = isGameOver(root) ? 0 : root.generateMoves(moves);
+        int move = count > 0 ? moves[0] : FoxHoundPosition.NO_MOVE;
+        int[] line = count > 0 ? new int[]{move} : new int[0];
+        int score = terminalScore(root, 0);
+        return new Result(move, score == Integer.MIN_VALUE ? 0 : score, 0, nodes, line, root.getTurn());
+    }
+
+    /**
+     * Alpha-beta search of a position.
+     *
+     * @param position the position to search, restored before returning
+     * @param depth an int for the remaining depth
+     * @param ply an int for the distance to the root
+     * @param alpha an int for the lower bound of the window
+     * @param beta an int for the upper bound of the window
+     * @return an int for the score from the point of view of the figure to move
+     */
+    private int negamax(FoxHoundPosition position, int depth, int ply, int alpha, int beta) {
+        if ((++nodes & CHECK_INTERVAL) == 0 && deadline != 0 && clock.getAsLong() >= deadline) {
+            stopped = true;
+        }
+        if (stopped) {
+            return 0;
+        }
+        int terminal = terminalScore(position, ply);
+        if (terminal != Integer.MIN_VALUE) {
+            return terminal;
+        }
+        int[] moves = moveLists[ply];
+        int count = position.generateMoves(moves);
+        if (count == 0) {
+            // only the hounds can run out of moves, which the fox wins
+            return -WIN_SCORE + ply;
+        }
+        if (depth <= 0 || ply >= MAX_DEPTH) {
+            return sideScore(position);
+        }
+
+        long key = position.key();
+        int index = (int) key & tableMask;
+        int tableMove = FoxHoundPosition.NO_MOVE;
+        if (tableKeys[index] == key) {
+            long data = tableData[index];
+            tableMove = (int) (data & 0xFFFFF);
+            int entryDepth = (int) (data >>> 44 & 0xFF);
+            if (entryDepth >= depth) {
+                int score = fromTable((int) (data >>> 20 & 0xFFFFFF) - SCORE_OFFSET, ply);
+                int flag = (int) (data >>> 52 & 0x3);
+                if (flag == EXACT
+                        || (flag == LOWER && score >= beta)
+                        || (flag == UPPER && score <= alpha)) {
+                    return score;
+                }
+            }
+        }
+
+        orderMoves(position, moves, count, tableMove);
+        int side = position.getTurn() == FoxHoundUtils.FOX_FIELD ? 0 : 1;
+        int originalAlpha = alpha;
+        int bestScore = -WIN_SCORE - 1;
+        int bestMove = moves[0];
+        for (int i = 0; i < count; i++) {
+            int move = moves[i];
+            position.makeMove(move);
+            int score = -negamax(position, depth - 1, ply + 1, -beta, -alpha);
+            position.unmakeMove(move);
+            if (stopped) {
+                return 0;
+            }
+            if (score > bestScore) {
+                bestScore = score;
+                bestMove = move;
+            }
+            if (score > alpha) {
+                alpha = score;
+            }
+            if (alpha >= beta) {
+                history[side][globalSquare(position, FoxHoundPosition.to(move))] += depth * depth;
+                break;
+            }
+        }
+
+        int flag = bestScore <= originalAlpha ? UPPER : bestScore >= beta ? LOWER : EXACT;
+        tableKeys[index] = key;
+        tableData[index] = (bestMove & 0xFFFFFL)
+            | ((long) (toTable(bestScore, ply) + SCORE_OFFSET) & 0xFFFFFF) << 20
+            | (long) Math.min(depth, 0xFF) << 44
+            | (long) flag << 52;
+        return bestScore;
+    }
+
+    /**
+     * Score a finished game.
+     *
+     * @param position the position to check
+     * @param ply an int for the distance to the root
+     * @return an int for the score from the point of view of the figure to move,
+     * or {@link Integer#MIN_VALUE} if the game is not over
+     */
+    private static int terminalScore(FoxHoundPosition position, int ply) {
+        if (position.isFoxWin()) {
+            return position.getTurn() == FoxHoundUtils.FOX_FIELD ? WIN_SCORE - ply : -WIN_SCORE + ply;
+        }
+        if (position.isHoundWin()) {
+            return position.getTurn() == FoxHoundUtils.HOUND_FIELD ? WIN_SCORE - ply : -WIN_SCORE + ply;
+        }
+        return Integer.MIN_VALUE;
+    }
+
+    /**
+     * Determine if a game is over.
+     *
+     * @param position the position to check
+     * @return a boolean whether the Fox or the Hounds won
+     */
+    public static boolean isGameOver(FoxHoundPosition position) {
+        return position.isFoxWin() || position.isHoundWin();
+    }
+
+    /**
+     * Score a position with the evaluation function.
+     *
+     * @param position the position to score
+     * @return an int for the score from the point of view of the figure to move
+     */
+    private int sideScore(FoxHoundPosition position) {
+        int score = eval.evaluate(position);
+        return position.getTurn() == FoxHoundUtils.FOX_FIELD ? score : -score;
+    }
+
+    /**
+     * Sort moves so that the most promising ones are searched first.
+     *
+     * @param position the position the moves belong to
+     * @param moves the moves to sort
+     * @param count an int for the number of moves
+     * @param tableMove the best move stored in the table, searched first
+     */
+    private void orderMoves(FoxHoundPosition position, int[] moves, int count, int tableMove) {
+        int side = position.getTurn() == FoxHoundUtils.FOX_FIELD ? 0 : 1;
+        int dim = position.getDim();
+        int[] keys = new int[count];
+        for (int i = 0; i < count; i++) {
+            int move = moves[i];
+            int to = FoxHoundPosition.to(move);
+            int key = history[side][globalSquare(position, to)];
+            if (side == 0 && to / dim < FoxHoundPosition.from(move) / dim) {
+                // fox moves towards the first row
+                key += 1 << 20;
+            }
+            if (move == tableMove) {
+                key = Integer.MAX_VALUE;
+            }
+            keys[i] = key;
+        }
+        // insertion sort, there are only a few moves
+        for (int i = 1; i < count; i++) {
+            int move = moves[i];
+            int key = keys[i];
+            int j = i - 1;
+            while (j >= 0 && keys[j] < key) {
+                moves[j + 1] = moves[j];
+                keys[j + 1] = keys[j];
+                j--;
+            }
+            moves[j + 1] = move;
+            keys[j + 1] = key;
+        }
+    }
+
+    /**
+     * Follow the best moves stored in the table.
+     *
+     * @param position the position to start at, modified by the method
+     * @param maxLength an int for the largest number of moves to follow
+     * @return the expected moves of both sides
+     */
+    private int[] principalLine(FoxHoundPosition position, int maxLength) {
+        int[] line = new int[maxLength];
+        int length = 0;
+        while (length < maxLength && !isGameOver(position)) {
+            long key = position.key();
+            int index = (int) key & tableMask;
+            if (tableKeys[index] != key) {
+                break;
+            }
+            int move = (int) (tableData[index] & 0xFFFFF);
+            if (!position.isLegal(move)) {
+                break;
+            }
+            line[length++] = move;
+            position.makeMove(move);
+        }
+        return java.util.Arrays.copyOf(line, length);
+    }
+
+    /**
+     * Convert a win score relative to the root into one relative to the position.
+     *
+     * @param score an int for the score
+     * @param ply an int for the distance to the root
+     * @return an int for the score to store
+     */
+    private static int toTable(int score, int ply) {
+        if (score > WIN_BOUND) {
+            return score + ply;
+        }
+        if (score < -WIN_BOUND) {
+            return score - ply;
+        }
+        return score;
+    }
+
+    /**
+     * Convert a stored win score back into one relative to the root.
+     *
+     * @param score an int for the stored score
+     * @param ply an int for the distance to the root
+     * @return an int for the score
+     */
+    private static int fromTable(int score, int ply) {
+        if (score > WIN_BOUND) {
+            return score - ply;
+        }
+        if (score < -WIN_BOUND) {
+            return score + ply;
+        }
+        return score;
+    }
+
+    /**
+     * Convert a square to the index of the same field on the largest board.
+     *
+     * @param position the position the square belongs to
+     * @param square an int for the square
+     * @return an int for the index on the largest board
+     */
+    private static int globalSquare(FoxHoundPosition position, int square) {
+        int dim = position.getDim();
+        return square / dim * FoxHoundUtils.MAX_DIM + square % dim;
+    }
+}
@@ -0,0 +1,247 @@
+import java.io.PrintStream;
+
+/**
+ * The engine as an opponent of a human player, with pondering.
+ *
+ * After the engine moved, it guesses the reply of the human from its
+ * own search and keeps searching the position after that reply on a
+ * background thread while the human thinks. If the human plays the
+ * expected reply, the engine already searched the position and answers
+ * at once, otherwise it starts a new search, which still profits from
+ * the positions remembered in its transposition table.
+ *
+ * On boards of {@value FoxHoundBeamEngine#LARGE_DIM} or more fields per
+ * side the full search gets too slow, so the engine plays the move of a
+ * {@link FoxHoundBeamEngine} instead and does not ponder.
+ */
+public class FoxHoundEnginePlayer {
+
+    /** Largest depth of a search. */
+    private static final int MAX_DEPTH = 40;
+    /** Transposition table size of the engine. */
+    private static final int TABLE_BITS = 20;
+
+    private final char figure;
+    private final long moveMillis;
+    private final FoxHoundEngine engine;
+    /** Engine of the large boards, created on the first move on one. */
+    private FoxHoundBeamEngine beamEngine;
+
+    /** Background thread searching the expected position, or null. */
+    private Thread ponderer;
+    /** Position the background thread searches. */
+    private FoxHoundPosition ponderPosition;
+    /** Start of the background search in nanoseconds. */
+    private long ponderStart;
+    /** Deepest result of the background search, guarded by this object. */
+    private FoxHoundEngine.Result ponderResult;
+
+    private int moves;
+    private int ponders;
+    private int ponderHits;
+    private long latencyNanos;
+    private long savedNanos;
+
+    /**
+     * Create an engine player with the default weights.
+     *
+     * @param figure a char for the figure the engine plays
+     * @param moveMillis a long for the time the engine thinks per move in milliseconds
+     * @throws IllegalArgumentException if the figure is invalid
+     */
+    public FoxHoundEnginePlayer(char figure, long moveMillis) {
+        this(figure, moveMillis, new FoxHoundEval());
+    }
+
+    /**
+     * Create an engine player.
+     *
+     * @param figure a char for the figure the engine plays
+     * @param moveMillis a long for the time the engine thinks per move in milliseconds
+     * @param eval the evaluation function of the engine
+     * @throws IllegalArgumentException if the figure is invalid
+     */
+    public FoxHoundEnginePlayer(char figure, long moveMillis, FoxHoundEval eval) {
+        this(figure, moveMillis, new FoxHoundEngine(eval, TABLE_BITS));
+    }
+
+    /**
+     * Create an engine player searching with the given engine.
+     *
+     * @param figure a char for the figure the engine plays
+     * @param moveMillis a long for the time the engine thinks per move in milliseconds
+     * @param engine the engine searching the moves and the expected positions
+     * @throws IllegalArgumentException if the figure is invalid
+     */
+    FoxHoundEnginePlayer(char figure, long moveMillis, FoxHoundEngine engine) {
+        if (figure != FoxHoundUtils.FOX_FIELD && figure != FoxHoundUtils.HOUND_FIELD) {
+            throw new IllegalArgumentException("Given figure field invalid: " + figure);
+        }
+        this.figure = figure;
+        this.moveMillis = moveMillis;
+        this.engine = engine;
+    }
+
+    /**
+     * The figure the engine plays.
+     *
+     * @return a char for the figure
+     */
+    public char getFigure() {
+        return figure;
+    }
+
+    /**
+     * Choose the move of the engine and start pondering on the expected reply.
+     *
+     * @param dim an int for the board dimension
+     * @param players array of the positions of all figures
+     * @return a String array with origin and destination coordinate, or null if the engine cannot move
+     * @throws IllegalArgumentException if the players do not form a valid position
+     */
+    public String[] chooseMove(int dim, String[] players) {
+        FoxHoundPosition position = new FoxHoundPosition(dim, players, figure);
+        long start = System.nanoTime();
+        boolean large = dim >= FoxHoundBeamEngine.LARGE_DIM;
+        FoxHoundEngine.Result result = large ? null : ponderHit(position, start);
+        if (result == null) {
+            stopPondering();
+            if (large) {
+                if (beamEngine == null) {
+                    beamEngine = new FoxHoundBeamEngine(engine.getEval(), FoxHoundBeamEngine.DEFAULT_WIDTH,
+                        FoxHoundBeamEngine.DEFAULT_DEPTH);
+                }
+                result = beamEngine.search(position, moveMillis);
+            }
+            else {
+                result = engine.search(position, MAX_DEPTH, moveMillis, null);
+            }
+        }
+        long latency = System.nanoTime() - start;
+        moves++;
+        latencyNanos += latency;
+        if (result.move == FoxHoundPosition.NO_MOVE) {
+            return null;
+        }
+        if (!large) {
+            startPondering(position, result);
+        }
+        return position.moveToString(result.move).split(" ");
+    }
+
+    /**
+     * Use the background search if it searched the given position.
+     *
+     * @param position the position the engine has to move in
+     * @param start a long for the time the move was asked for in nanoseconds
+     * @return the result of the background search, or null if it searched another position
+     */
+    private FoxHoundEngine.Result ponderHit(FoxHoundPosition position, long start) {
+        if (ponderer == null || !position.equals(ponderPosition)) {
+            return null;
+        }
+        // give the search the rest of the time of a normal move
+        long remaining = moveMillis - (start - ponderStart) / 1_000_000;
+        try {
+            if (remaining > 0) {
+                ponderer.join(remaining);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        stopPondering();
+        FoxHoundEngine.Result result;
+        synchronized (this) {
+            result = ponderResult;
+        }
+        if (result == null || result.move == FoxHoundPosition.NO_MOVE) {
+            return null;
+        }
+        ponderHits++;
+        savedNanos += Math.min(start - ponderStart, moveMillis * 1_000_000);
+        return result;
+    }
+
+    /**
+     * Search the position after the expected reply in the background.
+     *
+     * @param position the position the engine moved in
+     * @param result the result of the search of that position
+     */
+    private void startPondering(FoxHoundPosition position, FoxHoundEngine.Result result) {
+        int reply = result.expectedReply();
+        FoxHoundPosition next = position.copy();
+        next.makeMove(result.move);
+        if (reply == FoxHoundPosition.NO_MOVE || !next.isLegal(reply)) {
+            return;
+        }
+        next.makeMove(reply);
+        if (FoxHoundEngine.isGameOver(next)) {
+            return;
+        }
+        synchronized (this) {
+            ponderResult = null;
+        }
+        ponderPosition = next;
+        ponderStart = System.nanoTime();
+        ponders++;
+        FoxHoundPosition root = next.copy();
+        ponderer = new Thread(() -> engine.search(root, MAX_DEPTH, 0, iteration -> {
+            synchronized (this) {
+                ponderResult = iteration;
+            }
+        }), "foxhound-ponder");
+        ponderer.setDaemon(true);
+        ponderer.start();
+    }
+
+    /**
+     * Stop the background search and wait for it to end.
+     */
+    public void stopPondering() {
+        Thread thread = ponderer;
+        ponderer = null;
+        ponderPosition = null;
+        // the search may not have started yet when it is first stopped, so keep stopping it
+        while (thread != null && thread.isAlive()) {
+            engine.stop();
+            try {
+                thread.join(10);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    /**
+     * Number of moves the engine chose.
+     *
+     * @return an int for the number of moves
+     */
+    public int getMoves() {
+        return moves;
+    }
+
+    /**
+     * Share of background searches which searched the position the engine had to move in.
+     *
+     * @return a double between 0 and 1, 0 if the engine did not ponder yet
+     */
+    public double getPonderHitRate() {
+        return ponders == 0 ? 0 : ponderHits / (double) ponders;
+    }
+
+    /**
+     * Print the pondering statistics.
+     *
+     * @param out a PrintStream to print to
+     */
+    public void printStatistics(PrintStream out) {
+        out.printf("Engine moves: %d, average answer time: %.0f ms%n",
+            moves, moves == 0 ? 0.0 : latencyNanos / 1e6 / moves);
+        out.printf("Ponder hits: %d of %d (%.0f%%), average time saved per hit: %.0f ms%n",
+            ponderHits, ponders, getPonderHitRate() * 100,
+            ponderHits == 0 ? 0.0 : savedNanos / 1e6 / ponderHits);
+    }
+}
@@ -0,0 +1,260 @@
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The evaluation function of the fox hound engine.
+ *
+ * A position is described by a few features, each scaled to about
+ * the range 0 to 1, and scored as the weighted sum of its features.
+ * Scores are always given from the point of view of the Fox, so a
+ * positive score favours the Fox and a negative one the Hounds.
+ *
+ * Programs using tuned weights create the evaluation function with
+ * {@link #load}, which reads the file {@value #WEIGHTS_FILE} in the
+ * working directory, or the file named by the system property
+ * {@value #WEIGHTS_PROPERTY}, if it exists. Everything else uses the
+ * default weights.
+ */
+public class FoxHoundEval {
+
+    /** Names of all features in the order of the weights. */
+    public static final String[] FEATURES = {
+        "foxAdvance", "foxMobility", "houndsPassed", "houndSpread", "houndGaps", "foxPath"
+    };
+    /** Fox progress towards the first row. */
+    public static final int FOX_ADVANCE = 0;
+    /** Number of fields the fox can move to. */
+    public static final int FOX_MOBILITY = 1;
+    /** Hounds that can no longer block the fox because they are not in front of it. */
+    public static final int HOUNDS_PASSED = 2;
+    /** Distance between the rows of the first and the last hound. */
+    public static final int HOUND_SPREAD = 3;
+    /** Columns in front of the fox not covered by any hound. */
+    public static final int HOUND_GAPS = 4;
+    /** How direct the shortest way of the fox around the hounds to the first row is. */
+    public static final int FOX_PATH = 5;
+
+    /** Weights used if no others are given. */
+    private static final double[] DEFAULT_WEIGHTS = {300, 60, 500, 150, 400, 1000};
+    /** Name of the weights file read by {@link #load}. */
+    public static final String WEIGHTS_FILE = "foxhound.weights";
+    /** System property naming another weights file. */
+    public static final String WEIGHTS_PROPERTY = "foxhound.weights";
+    /** Distances of the fox, updated from the position evaluated last by the same thread. */
+    private static final ThreadLocal<FoxHoundFoxDistance> FOX_DISTANCE =
+        ThreadLocal.withInitial(FoxHoundFoxDistance::new);
+
+    /** Weight of every feature. */
+    private final double[] weights;
+
+    /**
+     * Create an evaluation function with the default weights.
+     */
+    public FoxHoundEval() {
+        this(DEFAULT_WEIGHTS);
+    }
+
+    /**
+     * Create an evaluation function with the given weights.
+     *
+     * @param weights a double array with one weight per feature
+     * @throws IllegalArgumentException if the number of weights does not match the features
+     */
+    public FoxHoundEval(double[] weights) {
+        if (weights.length != FEATURES.length) {
+            throw new IllegalArgumentException("Expected " + FEATURES.length + " weights");
+        }
+        this.weights = weights.clone();
+    }
+
+    /**
+     * The default weights.
+     *
+     * @return a copy of the default weight of every feature
+     */
+    public static double[] defaultWeights() {
+        return DEFAULT_WEIGHTS.clone();
+    }
+
+    /**
+     * The weights file {@link #load} reads.
+     *
+     * @return a Path to the file named by the system property {@value #WEIGHTS_PROPERTY},
+     *         or to {@value #WEIGHTS_FILE} in the working directory
+     */
+    public static Path weightsPath() {
+        return Paths.get(System.getProperty(WEIGHTS_PROPERTY, WEIGHTS_FILE));
+    }
+
+    /**
+     * Read the tuned weights from the weights file if it exists.
+     *
+     * @return a double array with the weights from {@link #weightsPath}, or the default weights
+     * @throws IOException if the weights file exists but cannot be read
+     * @throws IllegalArgumentException if a line of the weights file is not a name and a number
+     */
+    public static double[] loadWeights() throws IOException {
+        Path path = weightsPath();
+        if (!Files.exists(path)) {
+            return defaultWeights();
+        }
+        return readWeights(path);
+    }
+
+    /**
+     * Create an evaluation function with the tuned weights if there are any.
+     *
+     * @return an evaluation function with the weights of {@link #loadWeights}
+     * @throws IOException if the weights file exists but cannot be read
+     * @throws IllegalArgumentException if a line of the weights file is not a name and a number
+     */
+    public static FoxHoundEval load() throws IOException {
+        return new FoxHoundEval(loadWeights());
+    }
+
+    /**
+     * Read weights from a file with a line "name value" per feature.
+     * Empty lines and lines starting with # are skipped. Unknown features
+     * are ignored and missing ones keep their default weight, so a file
+     * stays usable when features are added or removed.
+     *
+     * @param path a Path to the weights file
+     * @return a double array with one weight per feature
+     * @throws IOException if the file cannot be read
+     * @throws IllegalArgumentException if a line is not a name and a number
+     */
+    public static double[] readWeights(Path path) throws IOException {
+        double[] weights = defaultWeights();
+        List<String> lines = Files.readAllLines(path, StandardCharsets.UTF_8);
+        for (int i = 0; i < lines.size(); i++) {
+            String line = lines.get(i).trim();
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            String[] parts = line.split("\\s+");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Invalid line " + (i + 1) + ": " + line);
+            }
+            double value;
+            try {
+                value = Double.parseDouble(parts[1]);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid weight in line " + (i + 1) + ": " + line);
+            }
+            int feature = Arrays.asList(FEATURES).indexOf(parts[0]);
+            if (feature >= 0) {
+                weights[feature] = value;
+            }
+        }
+        return weights;
+    }
+
+    /**
+     * Write weights to a file readable by {@link #readWeights}, replacing it at once.
+     *
+     * @param path a Path to the weights file
+     * @param weights a double array with one weight per feature
+     * @param comment a String written as a comment line first, or null
+     * @throws IOException if the file cannot be written
+     * @throws IllegalArgumentException if the number of weights does not match the features
+     */
+    public static void writeWeights(Path path, double[] weights, String comment) throws IOException {
+        if (weights.length != FEATURES.length) {
+            throw new IllegalArgumentException("Expected " + FEATURES.length + " weights");
+        }
+        String newLine = System.lineSeparator();
+        StringBuilder text = new StringBuilder();
+        if (comment != null) {
+            text.append("# ").append(comment).append(newLine);
+        }
+        for (int i = 0; i < FEATURES.length; i++) {
+            text.append(FEATURES[i]).append(' ').append(weights[i]).append(newLine);
+        }
+        FoxHoundIO.writeAtomically(path, "weights", text.toString());
+    }
+
+    /**
+     * The weights of this evaluation function.
+     *
+     * @return a copy of the weight of every feature
+     */
+    public double[] getWeights() {
+        return weights.clone();
+    }
+
+    /**
+     * Score a position from the point of view of the Fox.
+     *
+     * @param position the position to score
+     * @return an int, positive if the position favours the Fox
+     */
+    public int evaluate(FoxHoundPosition position) {
+        double[] features = new double[FEATURES.length];
+        features(position, features);
+        double score = 0;
+        for (int i = 0; i < features.length; i++) {
+            score += weights[i] * features[i];
+        }
+        return (int) Math.round(score);
+    }
+
+    /**
+     * Compute the features of a position.
+     *
+     * @param position the position to describe
+     * @param features a double array with one entry per feature to store the features in
+     */
+    public static void features(FoxHoundPosition position, double[] features) {
+        Arrays.fill(features, 0);
+        int dim = position.getDim();
+        int foxRow = position.getFox() / dim;
+        int hounds = position.getHoundCount();
+
+        features[FOX_ADVANCE] = (dim - 1 - foxRow) / (double) (dim - 1);
+        features[FOX_MOBILITY] = position.foxMobility() / 4.0;
+
+        int passed = 0;
+        int minRow = dim;
+        int maxRow = -1;
+        // columns shielded by a hound which is still in front of the fox
+        boolean[] covered = new boolean[dim];
+        for (int i = 0; i < hounds; i++) {
+            int square = position.getHound(i);
+            int row = square / dim;
+            int col = square % dim;
+            minRow = Math.min(minRow, row);
+            maxRow = Math.max(maxRow, row);
+            if (row >= foxRow) {
+                passed++;
+            }
+            else {
+                for (int c = Math.max(0, col - 1); c <= Math.min(dim - 1, col + 1); c++) {
+                    covered[c] = true;
+                }
+            }
+        }
+        int gaps = 0;
+        for (boolean c : covered) {
+            if (!c) {
+                gaps++;
+            }
+        }
+        features[HOUNDS_PASSED] = passed / (double) hounds;
+        features[HOUND_SPREAD] = (maxRow - minRow) / (double) (dim - 1);
+        features[HOUND_GAPS] = gaps / (double) dim;
+
+        // the rows left divided by the moves needed, 0 if the hounds close every way
+        int distance = FOX_DISTANCE.get().distance(position);
+        if (foxRow == 0) {
+            features[FOX_PATH] = 1;
+        }
+        else if (distance != FoxHoundFoxDistance.UNREACHABLE) {
+            features[FOX_PATH] = foxRow / (double) distance;
+        }
+    }
+}
@@ -0,0 +1,123 @@
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Java Flight Recorder events of the fox hound program.
+ *
+ * Events are only written while a recording with them enabled is
+ * running, e.g. after starting the program with
+ * {@code -XX:StartFlightRecording:filename=foxhound.jfr}. Without a
+ * recording, creating and ending an event costs next to nothing, so they
+ * can stay in the code. Stack traces are switched off, as the events are
+ * frequent and the place they come from is clear from their type.
+ *
+ * Move validations and win checks happen so often that they are off
+ * even in a recording, unless they are enabled in its settings file.
+ */
+public final class FoxHoundEvents {
+
+    /** Category of all events in the recording. */
+    private static final String CATEGORY = "Fox Hound";
+
+    private FoxHoundEvents() {
+    }
+
+    /**
+     * Validation of a move entered by a player.
+     */
+    @Name("foxhound.MoveValidation")
+    @Label("Move Validation")
+    @Category(CATEGORY)
+    @StackTrace(false)
+    @Enabled(false)
+    public static final class MoveValidation extends Event {
+        @Label("Dimension")
+        int dim;
+        @Label("Figure")
+        char figure;
+        @Label("Origin")
+        String origin;
+        @Label("Destination")
+        String destination;
+        @Label("Valid")
+        boolean valid;
+    }
+
+    /**
+     * Check whether the Fox or the Hounds won.
+     */
+    @Name("foxhound.WinCheck")
+    @Label("Win Check")
+    @Category(CATEGORY)
+    @StackTrace(false)
+    @Enabled(false)
+    public static final class WinCheck extends Event {
+        @Label("Figure")
+        @Description("The figure checked for a win")
+        char figure;
+        @Label("Won")
+        boolean won;
+    }
+
+    /**
+     * Rendering of the board into text.
+     */
+    @Name("foxhound.Render")
+    @Label("Board Rendering")
+    @Category(CATEGORY)
+    @StackTrace(false)
+    public static final class Render extends Event {
+        @Label("Dimension")
+        int dim;
+        @Label("Size")
+        @DataAmount(DataAmount.BYTES)
+        int size;
+    }
+
+    /**
+     * Saving or loading a game.
+     */
+    @Name("foxhound.SaveLoad")
+    @Label("Save or Load")
+    @Category(CATEGORY)
+    @StackTrace(false)
+    public static final class SaveLoad extends Event {
+        @Label("Operation")
+        String operation;
+        @Label("Path")
+        String path;
+        @Label("Size")
+        @DataAmount(DataAmount.BYTES)
+        int size;
+        @Label("Success")
+        boolean success;
+    }
+
+    /**
+     * A search of the engine.
+     */
+    @Name("foxhound.Search")
+    @Label("Engine Search")
+    @Category(CATEGORY)
+    @StackTrace(false)
+    public static final class Search extends Event {
+        @Label("Dimension")
+        int dim;
+        @Label("Depth")
+        @Description("Depth of the deepest completed iteration")
+        int depth;
+        @Label("Nodes")
+        long nodes;
+        @Label("Score")
+        @Description("Score for the side to move")
+        int score;
+        @Label("Move")
+        String move;
+    }
+}
@@ -0,0 +1,354 @@
+import java.util.Arrays;
+
+/**
+ * Distances of the fox to the first row around the hounds.
+ *
+ * For every square the number of fox moves needed to reach the first
+ * row is kept, going around the hounds as they stand, or
+ * {@link #UNREACHABLE} if the hounds close every way. The fox itself
+ * is no obstacle, so fox moves do not change the distances and the
+ * distance of the fox is a single lookup.
+ *
+ * When a hound moves only the distances depending on its two squares
+ * are updated. The square it leaves can only shorten ways, so the new
+ * distances spread from it. The square it enters can only lengthen
+ * ways, so first all squares whose every shortest way led over it are
+ * collected, and only those are measured again from their neighbours.
+ * {@link #distance} finds the hounds moved since the last position by
+ * comparing the squares of every hound, so positions of a search, which
+ * differ by a few moves, are cheap to follow.
+ */
+public class FoxHoundFoxDistance {
+
+    /** Distance of a square from which the first row cannot be reached. */
+    public static final int UNREACHABLE = Integer.MAX_VALUE / 2;
+
+    /** More moved hounds than this are handled by measuring everything again. */
+    private static final int MAX_CHANGES = 4;
+    /** Bits of a square in a sort key. */
+    private static final int SQUARE_BITS = 10;
+
+    private int dim;
+    /** Hound squares of the position the distances belong to. */
+    private int[] hounds = new int[0];
+    /** Distance of every square. */
+    private int[] distance = new int[0];
+    /** Number of hounds on every square, more than one only while hounds are moved. */
+    private byte[] blocked = new byte[0];
+    /** The fields next to every square, four per square, {@link FoxHoundUtils#NO_SQUARE} if off the board. */
+    private int[] neighbours = new int[0];
+    /** Squares whose distance is measured again. */
+    private boolean[] marked = new boolean[0];
+    /** Squares to visit, a square may be queued again when its distance shrinks. */
+    private int[] queue = new int[0];
+    /** Former distance of every collected square in the queue. */
+    private int[] levels = new int[0];
+    /** Collected squares by their new distance, see {@link #SQUARE_BITS}. */
+    private long[] sorted = new long[0];
+
+    /**
+     * Distance of the fox of a position to the first row. The distances
+     * are brought up to date with the hounds of the position first.
+     *
+     * @param position the position
+     * @return an int for the number of fox moves, or {@link #UNREACHABLE}
+     */
+    public int distance(FoxHoundPosition position) {
+        update(position);
+        return distance[position.getFox()];
+    }
+
+    /**
+     * Distance of a square to the first row with the hounds of the last position.
+     *
+     * @param square an int for the square
+     * @return an int for the number of fox moves, or {@link #UNREACHABLE}
+     */
+    public int getDistance(int square) {
+        return distance[square];
+    }
+
+    /**
+     * Bring the distances up to date with the hounds of a position.
+     *
+     * @param position the position
+     */
+    public void update(FoxHoundPosition position) {
+        int count = position.getHoundCount();
+        if (position.getDim() != dim || count != hounds.length) {
+            reset(position);
+            return;
+        }
+        int changes = 0;
+        for (int i = 0; i < count; i++) {
+            if (hounds[i] != position.getHound(i)) {
+                changes++;
+            }
+        }
+        if (changes > MAX_CHANGES) {
+            reset(position);
+            return;
+        }
+        for (int i = 0; i < count && changes > 0; i++) {
+            int square = position.getHound(i);
+            if (hounds[i] != square) {
+                moveHound(hounds[i], square);
+                hounds[i] = square;
+                changes--;
+            }
+        }
+    }
+
+    /**
+     * Measure all distances for the hounds of a position.
+     *
+     * @param position the position
+     */
+    public void reset(FoxHoundPosition position) {
+        if (position.getDim() != dim) {
+            resize(position.getDim());
+        }
+        hounds = new int[position.getHoundCount()];
+        Arrays.fill(blocked, (byte) 0);
+        for (int i = 0; i < hounds.length; i++) {
+            hounds[i] = position.getHound(i);
+            blocked[hounds[i]]++;
+        }
+        measure(distance, blocked, neighbours, queue, dim);
+    }
+
+    /**
+     * Measure all distances from scratch by a breadth first search from
+     * the first row, as done before every evaluation without this class.
+     *
+     * @param position the position
+     * @return an int for the distance of the fox, or {@link #UNREACHABLE}
+     */
+    public static int measure(FoxHoundPosition position) {
+        int dim = position.getDim();
+        int squares = dim * dim;
+        int[] distance = new int[squares];
+        byte[] blocked = new byte[squares];
+        for (int i = 0; i < position.getHoundCount(); i++) {
+            blocked[position.getHound(i)] = 1;
+        }
+        measure(distance, blocked, neighbours(dim), new int[squares], dim);
+        return distance[position.getFox()];
+    }
+
+    /**
+     * Breadth first search from all free squares of the first row.
+     *
+     * @param distance an int array to store the distance of every square in
+     * @param blocked a byte array, not 0 for every square with a hound
+     * @param neighbours an int array with the four fields next to every square
+     * @param queue an int array with an entry per square
+     * @param dim an int for the board dimension
+     */
+    private static void measure(int[] distance, byte[] blocked, int[] neighbours, int[] queue, int dim) {
+        Arrays.fill(distance, UNREACHABLE);
+        int tail = 0;
+        for (int square = 0; square < dim; square++) {
+            if (blocked[square] == 0) {
+                distance[square] = 0;
+                queue[tail++] = square;
+            }
+        }
+        for (int head = 0; head < tail; head++) {
+            int square = queue[head];
+            for (int n = square * 4; n < square * 4 + 4; n++) {
+                int next = neighbours[n];
+                if (next != FoxHoundUtils.NO_SQUARE && blocked[next] == 0
+                        && distance[next] == UNREACHABLE) {
+                    distance[next] = distance[square] + 1;
+                    queue[tail++] = next;
+                }
+            }
+        }
+    }
+
+    /**
+     * Determine if a free square has a neighbour one move closer to the first row.
+     *
+     * @param square an int for the square
+     * @return a boolean whether a shortest way from the square is left
+     */
+    private boolean supported(int square) {
+        for (int n = square * 4; n < square * 4 + 4; n++) {
+            int next = neighbours[n];
+            if (next != FoxHoundUtils.NO_SQUARE && blocked[next] == 0
+                    && distance[next] == distance[square] - 1) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Allocate the arrays for another board dimension.
+     *
+     * @param dim an int for the board dimension
+     */
+    private void resize(int dim) {
+        int squares = dim * dim;
+        this.dim = dim;
+        distance = new int[squares];
+        blocked = new byte[squares];
+        neighbours = neighbours(dim);
+        marked = new boolean[squares];
+        queue = new int[5 * squares];
+        levels = new int[squares];
+        sorted = new long[squares];
+    }
+
+    /**
+     * The fields next to every square.
+     *
+     * @param dim an int for the board dimension
+     * @return an int array with four fields per square, {@link FoxHoundUtils#NO_SQUARE} if off the board
+     */
+    private static int[] neighbours(int dim) {
+        int[] neighbours = new int[dim * dim * 4];
+        for (int square = 0; square < dim * dim; square++) {
+            int row = square / dim;
+            int col = square % dim;
+            int n = 0;
+            for (int dr = -1; dr <= 1; dr += 2) {
+                for (int dc = -1; dc <= 1; dc += 2) {
+                    int r = row + dr;
+                    int c = col + dc;
+                    boolean inside = r >= 0 && r < dim && c >= 0 && c < dim;
+                    neighbours[square * 4 + n++] = inside ? r * dim + c : FoxHoundUtils.NO_SQUARE;
+                }
+            }
+        }
+        return neighbours;
+    }
+
+    /**
+     * Move a hound and update the distances of the squares it affects.
+     *
+     * @param from an int for the square the hound leaves
+     * @param to an int for the square the hound enters
+     */
+    private void moveHound(int from, int to) {
+        // leave first, so a hound entering the square another one left does not block it twice
+        if (--blocked[from] == 0) {
+            free(from);
+        }
+        if (++blocked[to] == 1) {
+            block(to);
+        }
+    }
+
+    /**
+     * Spread the shorter ways over a square which was freed.
+     *
+     * @param square an int for the freed square
+     */
+    private void free(int square) {
+        distance[square] = square < dim ? 0 : UNREACHABLE;
+        for (int n = square * 4; n < square * 4 + 4; n++) {
+            int next = neighbours[n];
+            if (next != FoxHoundUtils.NO_SQUARE && blocked[next] == 0) {
+                distance[square] = Math.min(distance[square], distance[next] + 1);
+            }
+        }
+        if (distance[square] >= UNREACHABLE) {
+            distance[square] = UNREACHABLE;
+            return;
+        }
+        queue[0] = square;
+        for (int head = 0, tail = 1; head < tail; head++) {
+            int current = queue[head];
+            for (int n = current * 4; n < current * 4 + 4; n++) {
+                int next = neighbours[n];
+                if (next != FoxHoundUtils.NO_SQUARE && blocked[next] == 0
+                        && distance[next] > distance[current] + 1) {
+                    distance[next] = distance[current] + 1;
+                    queue[tail++] = next;
+                }
+            }
+        }
+    }
+
+    /**
+     * Measure again all squares whose shortest ways led over a square
+     * which was blocked.
+     *
+     * @param square an int for the blocked square
+     */
+    private void block(int square) {
+        int old = distance[square];
+        distance[square] = UNREACHABLE;
+        if (old == UNREACHABLE) {
+            return;
+        }
+        // collect squares without another neighbour one move closer, level by level
+        int tail = 0;
+        levels[tail] = old;
+        queue[tail++] = square;
+        for (int head = 0; head < tail; head++) {
+            int current = queue[head];
+            int level = levels[head];
+            for (int n = current * 4; n < current * 4 + 4; n++) {
+                int next = neighbours[n];
+                if (next != FoxHoundUtils.NO_SQUARE && blocked[next] == 0 && !marked[next]
+                        && distance[next] == level + 1 && !supported(next)) {
+                    marked[next] = true;
+                    distance[next] = UNREACHABLE;
+                    levels[tail] = level + 1;
+                    queue[tail++] = next;
+                }
+            }
+        }
+        if (tail == 1) {
+            return;
+        }
+        // measure the collected squares from their other neighbours, nearest first
+        int count = 0;
+        for (int i = 1; i < tail; i++) {
+            int current = queue[i];
+            int best = UNREACHABLE;
+            for (int n = current * 4; n < current * 4 + 4; n++) {
+                int next = neighbours[n];
+                if (next != FoxHoundUtils.NO_SQUARE && blocked[next] == 0 && !marked[next]) {
+                    best = Math.min(best, distance[next] + 1);
+                }
+            }
+            if (best < UNREACHABLE) {
+                distance[current] = best;
+                sorted[count++] = (long) best << SQUARE_BITS | current;
+            }
+        }
+        Arrays.sort(sorted, 0, count);
+        int collected = tail;
+        // squares improved on the way wait in the queue behind the collected ones
+        int head = collected;
+        tail = collected;
+        int next = 0;
+        while (next < count || head < tail) {
+            int current;
+            if (head == tail || (next < count && sorted[next] >>> SQUARE_BITS <= distance[queue[head]])) {
+                current = (int) (sorted[next++] & ((1 << SQUARE_BITS) - 1));
+                if (distance[current] != sorted[next - 1] >>> SQUARE_BITS) {
+                    continue;
+                }
+            }
+            else {
+                current = queue[head++];
+            }
+            for (int n = current * 4; n < current * 4 + 4; n++) {
+                int neighbour = neighbours[n];
+                if (neighbour != FoxHoundUtils.NO_SQUARE && marked[neighbour]
+                        && distance[neighbour] > distance[current] + 1) {
+                    distance[neighbour] = distance[current] + 1;
+                    queue[tail++] = neighbour;
+                }
+            }
+        }
+        for (int i = 1; i < collected; i++) {
+            marked[queue[i]] = false;
+        }
+    }
+}
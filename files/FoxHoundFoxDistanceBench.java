@@ -0,0 +1,116 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * A benchmark of {@link FoxHoundFoxDistance} against a breadth first
+ * search for every position.
+ *
+ * For every board dimension positions are taken from games of random
+ * moves, and all positions of a small search tree below them are
+ * visited in the order a depth first search evaluates them. The
+ * distance of the fox is computed for each of them both ways and the
+ * results are compared.
+ * <pre>
+ * java FoxHoundFoxDistanceBench [roots] [depth]
+ * </pre>
+ */
+public class FoxHoundFoxDistanceBench {
+
+    /** Default number of positions per dimension below which is searched. */
+    private static final int DEFAULT_ROOTS = 20;
+    /** Default depth of the search trees. */
+    private static final int DEFAULT_DEPTH = 3;
+    /** Number of timed rounds, the fastest one counts. */
+    private static final int ROUNDS = 5;
+
+    /**
+     * Collect the positions of a search tree in the order of a depth first search.
+     *
+     * @param position the position, restored afterwards
+     * @param depth an int for the number of plies left
+     * @param nodes a List to add copies of all positions to
+     */
+    private static void collect(FoxHoundPosition position, int depth, List<FoxHoundPosition> nodes) {
+        nodes.add(position.copy());
+        if (depth == 0 || FoxHoundEngine.isGameOver(position)) {
+            return;
+        }
+        int[] moves = new int[FoxHoundPosition.MAX_MOVES];
+        int count = position.generateMoves(moves);
+        for (int i = 0; i < count; i++) {
+            position.makeMove(moves[i]);
+            collect(position, depth - 1, nodes);
+            position.unmakeMove(moves[i]);
+        }
+    }
+
+    /**
+     * Create the positions of search trees below positions of random games.
+     *
+     * @param dim an int for the board dimension
+     * @param roots an int for the number of trees
+     * @param depth an int for the depth of the trees
+     * @param random random numbers
+     * @return an array of all positions in search order
+     */
+    private static FoxHoundPosition[] nodes(int dim, int roots, int depth, SplittableRandom random) {
+        List<FoxHoundPosition> nodes = new ArrayList<>();
+        int[] moves = new int[FoxHoundPosition.MAX_MOVES];
+        for (int i = 0; i < roots; i++) {
+            FoxHoundPosition position = FoxHoundPosition.initial(dim);
+            int length = random.nextInt(2 * dim);
+            for (int ply = 0; ply < length && !FoxHoundEngine.isGameOver(position); ply++) {
+                int n = position.generateMoves(moves);
+                if (n == 0) {
+                    break;
+                }
+                position.makeMove(moves[random.nextInt(n)]);
+            }
+            collect(position, depth, nodes);
+        }
+        return nodes.toArray(new FoxHoundPosition[0]);
+    }
+
+    /**
+     * Entry method of the benchmark.
+     *
+     * @param args number of trees per dimension and their depth, both optional
+     */
+    public static void main(String[] args) {
+        int roots = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_ROOTS;
+        int depth = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_DEPTH;
+        SplittableRandom random = new SplittableRandom(1);
+        System.out.println(" dim     nodes  incremental ns  full ns  speedup  mismatches");
+        for (int dim = FoxHoundUtils.DEFAULT_DIM; dim <= FoxHoundUtils.MAX_DIM; dim += 2) {
+            FoxHoundPosition[] nodes = nodes(dim, roots, depth, random);
+            int[] expected = new int[nodes.length];
+            int[] actual = new int[nodes.length];
+            long bestIncremental = Long.MAX_VALUE;
+            long bestFull = Long.MAX_VALUE;
+            for (int round = 0; round < ROUNDS; round++) {
+                FoxHoundFoxDistance distance = new FoxHoundFoxDistance();
+                long start = System.nanoTime();
+                for (int i = 0; i < nodes.length; i++) {
+                    actual[i] = distance.distance(nodes[i]);
+                }
+                bestIncremental = Math.min(bestIncremental, System.nanoTime() - start);
+
+                start = System.nanoTime();
+                for (int i = 0; i < nodes.length; i++) {
+                    expected[i] = FoxHoundFoxDistance.measure(nodes[i]);
+                }
+                bestFull = Math.min(bestFull, System.nanoTime() - start);
+            }
+            int mismatches = 0;
+            for (int i = 0; i < nodes.length; i++) {
+                if (expected[i] != actual[i]) {
+                    mismatches++;
+                }
+            }
+            System.out.printf("%4d  %8d  %14.0f  %7.0f  %7.1f  %10d%n", dim, nodes.length,
+                bestIncremental / (double) nodes.length, bestFull / (double) nodes.length,
+                bestFull / (double) bestIncremental, mismatches);
+        }
+    }
+}
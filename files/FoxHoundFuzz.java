@@ -0,0 +1,645 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.BooleanSupplier;
+import java.util.function.Supplier;
+
+/**
+ * A differential test of two implementations of the rules.
+ *
+ * Random positions and moves are generated on every board dimension and
+ * given to a reference implementation, normally the String based rules
+ * of {@link FoxHoundUtils}, and to a candidate, normally the square
+ * based rules of {@link FoxHoundPosition}. Every difference in a result,
+ * including one side throwing an exception, is a mismatch. A mismatch is
+ * shrunk to a small board with few hounds and reported as a save file
+ * line with the move, so it can be replayed by hand.
+ *
+ * Only positions with all figures on the board and no field occupied
+ * twice are generated, as loading a game checks those before asking the
+ * rules. The coordinates of a move may lie off the board, like a move
+ * from the edge of the board, a column past the board, row 0 or a row
+ * past the board, as both rules have to reject such moves.
+ * <pre>
+ * java FoxHoundFuzz [cases per dimension] [threads] [seed]
+ * </pre>
+ */
+public class FoxHoundFuzz {
+
+    /** Name of the check of the starting positions. */
+    public static final String INITIAL = "initialisePositions";
+    /** Name of the check of a move. */
+    public static final String MOVE = "isValidMove";
+    /** Name of the check of a fox win. */
+    public static final String FOX_WIN = "isFoxWin";
+    /** Name of the check of a hound win. */
+    public static final String HOUND_WIN = "isHoundWin";
+
+    /** Default number of cases per dimension. */
+    private static final int DEFAULT_CASES = 1_000_000;
+    /** Default seed. */
+    private static final long DEFAULT_SEED = 1;
+    /** Number of cases of one task. */
+    private static final int CHUNK = 50_000;
+    /** Largest number of mismatches kept by one task. */
+    private static final int KEPT = 4;
+    /** Odd constant spreading task numbers over the seeds. */
+    private static final long SEED_MIX = 0x9E3779B97F4A7C15L;
+    /** Largest row number of an off board coordinate, so it keeps at most two digits. */
+    private static final int MAX_ROW = 99;
+
+    /**
+     * The rules to compare.
+     */
+    public interface Rules {
+
+        /**
+         * Create the players array at the start of a game.
+         *
+         * @param dim an int for the board dimension
+         * @return a String array with the positions of all figures, the fox last
+         */
+        String[] initialisePositions(int dim);
+
+        /**
+         * Determine if a move is valid.
+         *
+         * @param dim an int for the board dimension
+         * @param players a String array with the positions of all figures, the fox last
+         * @param figure a char for the figure to move
+         * @param origin a String for the coordinate to move from
+         * @param destination a String for the coordinate to move to
+         * @return a boolean for valid or invalid move
+         */
+        boolean isValidMove(int dim, String[] players, char figure, String origin, String destination);
+
+        /**
+         * Determine if the fox reached the first row.
+         *
+         * @param dim an int for the board dimension
+         * @param players a String array with the positions of all figures, the fox last
+         * @return a boolean whether the Fox wins
+         */
+        boolean isFoxWin(int dim, String[] players);
+
+        /**
+         * Determine if the fox cannot move any more.
+         *
+         * @param dim an int for the board dimension
+         * @param players a String array with the positions of all figures, the fox last
+         * @return a boolean whether the Hounds win
+         */
+        boolean isHoundWin(int dim, String[] players);
+    }
+
+    /**
+     * The String based rules of {@link FoxHoundUtils}.
+     */
+    static class UtilsRules implements Rules {
+
+        @Override
+        public String[] initialisePositions(int dim) {
+            return FoxHoundUtils.initialisePositions(dim);
+        }
+
+        @Override
+        public boolean isValidMove(int dim, String[] players, char figure, String origin, String destination) {
+            return FoxHoundUtils.isValidMove(dim, players, figure, origin, destination);
+        }
+
+        @Override
+        public boolean isFoxWin(int dim, String[] players) {
+            return FoxHoundUtils.isFoxWin(players[players.length - 1]);
+        }
+
+        @Override
+        public boolean isHoundWin(int dim, String[] players) {
+            return FoxHoundUtils.isHoundWin(players, dim);
+        }
+    }
+
+    /**
+     * The square based rules of {@link FoxHoundPosition}.
+     */
+    static class PositionRules implements Rules {
+
+        @Override
+        public String[] initialisePositions(int dim) {
+            return FoxHoundPosition.initial(dim).toPlayers();
+        }
+
+        @Override
+        public boolean isValidMove(int dim, String[] players, char figure, String origin, String destination) {
+            FoxHoundPosition position = new FoxHoundPosition(dim, players, figure);
+            return position.isLegal(position.parseMove(origin, destination));
+        }
+
+        @Override
+        public boolean isFoxWin(int dim, String[] players) {
+            return new FoxHoundPosition(dim, players, FoxHoundUtils.FOX_FIELD).isFoxWin();
+        }
+
+        @Override
+        public boolean isHoundWin(int dim, String[] players) {
+            return new FoxHoundPosition(dim, players, FoxHoundUtils.FOX_FIELD).isHoundWin();
+        }
+    }
+
+    /** The rules of {@link FoxHoundUtils}. */
+    public static final Rules UTILS = new UtilsRules();
+    /** The rules of {@link FoxHoundPosition}. */
+    public static final Rules POSITION = new PositionRules();
+
+    /**
+     * A position with a move, the input of all checks but the starting positions.
+     */
+    static final class Case {
+
+        final int dim;
+        final String[] players;
+        final char figure;
+        final String origin;
+        final String destination;
+
+        /**
+         * Create a case.
+         *
+         * @param dim an int for the board dimension
+         * @param players a String array with the positions of all figures, the fox last
+         * @param figure a char for the figure to move
+         * @param origin a String for the coordinate to move from
+         * @param destination a String for the coordinate to move to
+         */
+        Case(int dim, String[] players, char figure, String origin, String destination) {
+            this.dim = dim;
+            this.players = players;
+            this.figure = figure;
+            this.origin = origin;
+            this.destination = destination;
+        }
+
+        /**
+         * The case in save file notation, followed by the move.
+         *
+         * @return a String like {@code F B3 D1 F3 H3 A2 move A2 B1}
+         */
+        @Override
+        public String toString() {
+            return FoxHoundIO.formatGame(players, figure) + "move " + origin + " " + destination;
+        }
+    }
+
+    private final Rules reference;
+    private final Rules candidate;
+    private final int cases;
+    private final long seed;
+    private long mismatches;
+    /** Number of cases with a true result of the reference, by check. */
+    private final long[] positives = new long[3];
+    private final Set<String> reproducers = new LinkedHashSet<>();
+
+    /**
+     * Create a differential test.
+     *
+     * @param reference the rules taken as correct
+     * @param candidate the rules to test
+     * @param cases an int for the number of cases per dimension
+     * @param seed a long for the random numbers
+     * @throws IllegalArgumentException if the number of cases is negative
+     */
+    public FoxHoundFuzz(Rules reference, Rules candidate, int cases, long seed) {
+        if (cases < 0) {
+            throw new IllegalArgumentException("Invalid number of cases: " + cases);
+        }
+        this.reference = reference;
+        this.candidate = candidate;
+        this.cases = cases;
+        this.seed = seed;
+    }
+
+    /**
+     * Run all checks on all dimensions, shared among worker threads.
+     *
+     * @param threads an int for the number of worker threads
+     * @throws InterruptedException if interrupted while waiting for the workers
+     */
+    public void run(int threads) throws InterruptedException {
+        for (int dim = FoxHoundUtils.MIN_DIM; dim <= FoxHoundUtils.MAX_DIM; dim++) {
+            int d = dim;
+            String expected = outcome(() -> Arrays.toString(reference.initialisePositions(d)));
+            String actual = outcome(() -> Arrays.toString(candidate.initialisePositions(d)));
+            if (!expected.equals(actual)) {
+                mismatches++;
+                reproducers.add(INITIAL + " dim=" + dim + ": reference " + expected + ", candidate " + actual);
+            }
+        }
+        List<Callable<long[]>> tasks = new ArrayList<>();
+        List<List<Case>> found = new ArrayList<>();
+        List<List<String>> checks = new ArrayList<>();
+        for (int dim = FoxHoundUtils.MIN_DIM; dim <= FoxHoundUtils.MAX_DIM; dim++) {
+            for (int start = 0; start < cases; start += CHUNK) {
+                int d = dim;
+                int count = Math.min(CHUNK, cases - start);
+                SplittableRandom random = new SplittableRandom(seed + (tasks.size() + 1) * SEED_MIX);
+                List<Case> failed = new ArrayList<>();
+                List<String> failedChecks = new ArrayList<>();
+                found.add(failed);
+                checks.add(failedChecks);
+                tasks.add(() -> runTask(d, count, random, failed, failedChecks));
+            }
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, threads));
+        try {
+            for (Future<long[]> future : executor.invokeAll(tasks)) {
+                long[] counts = future.get();
+                mismatches += counts[0];
+                for (int i = 0; i < positives.length; i++) {
+                    positives[i] += counts[i + 1];
+                }
+            }
+        }
+        catch (ExecutionException e) {
+            throw new IllegalStateException("Fuzz task failed", e.getCause());
+        }
+        finally {
+            executor.shutdown();
+        }
+        for (int t = 0; t < found.size(); t++) {
+            for (int i = 0; i < found.get(t).size(); i++) {
+                String check = checks.get(t).get(i);
+                Case shrunk = shrink(found.get(t).get(i), check);
+                reproducers.add(check + " dim=" + shrunk.dim + ": " + shrunk + " (reference "
+                    + result(reference, shrunk, check) + ", candidate " + result(candidate, shrunk, check) + ")");
+            }
+        }
+    }
+
+    /**
+     * Run random cases on one dimension.
+     *
+     * @param dim an int for the board dimension
+     * @param count an int for the number of cases
+     * @param random random numbers of the task
+     * @param failed list receiving the first mismatching cases
+     * @param failedChecks list receiving the mismatching check of every failed case
+     * @return a long array with the number of mismatches and the positive results of every check
+     */
+    private long[] runTask(int dim, int count, SplittableRandom random, List<Case> failed, List<String> failedChecks) {
+        long[] counts = new long[1 + positives.length];
+        for (int i = 0; i < count; i++) {
+            Case c = randomCase(dim, random);
+            String[] names = {MOVE, FOX_WIN, HOUND_WIN};
+            for (int n = 0; n < names.length; n++) {
+                String expected = result(reference, c, names[n]);
+                if (!expected.equals(result(candidate, c, names[n]))) {
+                    counts[0]++;
+                    if (failed.size() < KEPT) {
+                        failed.add(c);
+                        failedChecks.add(names[n]);
+                    }
+                }
+                else if (expected.equals("true")) {
+                    counts[n + 1]++;
+                }
+            }
+        }
+        return counts;
+    }
+
+    /**
+     * Create a random position and move. Hounds are often put next to
+     * the fox and moves often go to a neighbouring field, so that valid
+     * moves and trapped foxes are common enough. A neighbour of a field
+     * at the edge lies off the board, and some moves start or end at a
+     * random coordinate off the board.
+     *
+     * @param dim an int for the board dimension
+     * @param random random numbers
+     * @return a new case
+     */
+    static Case randomCase(int dim, SplittableRandom random) {
+        int hounds = 1 + random.nextInt(dim / 2);
+        int[] squares = new int[hounds + 1];
+        boolean crowd = random.nextInt(4) == 0;
+        squares[hounds] = random.nextInt(dim * dim);
+        for (int i = 0; i < hounds; i++) {
+            int square;
+            do {
+                square = crowd && random.nextBoolean()
+                    ? neighbour(dim, squares[hounds], random) : random.nextInt(dim * dim);
+            } while (square < 0 || square == squares[hounds] || contains(squares, i, square));
+            squares[i] = square;
+        }
+        char figure = random.nextBoolean() ? FoxHoundUtils.FOX_FIELD : FoxHoundUtils.HOUND_FIELD;
+        int origin;
+        if (random.nextInt(8) == 0) {
+            origin = random.nextInt(dim * dim);
+        }
+        else if (figure == FoxHoundUtils.FOX_FIELD && random.nextInt(4) != 0) {
+            origin = squares[hounds];
+        }
+        else {
+            origin = squares[random.nextInt(squares.length)];
+        }
+        String destination;
+        int kind = random.nextInt(16);
+        if (kind == 0) {
+            destination = offBoard(dim, random);
+        }
+        else if (kind == 1) {
+            destination = FoxHoundUtils.toCoord(dim, random.nextInt(dim * dim));
+        }
+        else {
+            destination = coord(origin / dim + (random.nextBoolean() ? 1 : -1),
+                origin % dim + (random.nextBoolean() ? 1 : -1));
+        }
+        String[] players = new String[squares.length];
+        for (int i = 0; i < squares.length; i++) {
+            // new Strings, so no implementation can rely on the same objects
+            players[i] = new String(FoxHoundUtils.toCoord(dim, squares[i]));
+        }
+        String from = random.nextInt(64) == 0 ? offBoard(dim, random) : FoxHoundUtils.toCoord(dim, origin);
+        return new Case(dim, players, figure, new String(from), new String(destination));
+    }
+
+    /**
+     * A random coordinate off the board: a column past the board, row 0 or a row past the board.
+     *
+     * @param dim an int for the board dimension
+     * @param random random numbers
+     * @return a String for a coordinate which is not on the board
+     */
+    static String offBoard(int dim, SplittableRandom random) {
+        int row = random.nextInt(dim);
+        int col = random.nextInt(dim);
+        switch (random.nextInt(3)) {
+            case 0:
+                col = dim + random.nextInt(FoxHoundUtils.MAX_DIM + 1 - dim);
+                break;
+            case 1:
+                row = -1;
+                break;
+            default:
+                row = dim + random.nextInt(MAX_ROW - dim);
+                break;
+        }
+        return coord(row, col);
+    }
+
+    /**
+     * The coordinate of a field, which may lie off the board.
+     *
+     * @param row an int for the row counted from 0
+     * @param col an int for the column counted from 0
+     * @return a String for the coordinate, with the char before A for column -1
+     */
+    private static String coord(int row, int col) {
+        return (char) (FoxHoundUtils.LETTER_A + col) + Integer.toString(row + 1);
+    }
+
+    /**
+     * Shrink a mismatching case as long as the mismatch stays, by
+     * removing hounds, making the board smaller and moving all figures
+     * towards A1.
+     *
+     * @param c a case on which the implementations differ
+     * @param check the name of the differing check
+     * @return a smallest case found with the same differing check
+     */
+    Case shrink(Case c, String check) {
+        boolean smaller = true;
+        while (smaller) {
+            smaller = false;
+            for (Case next : smallerCases(c)) {
+                if (!result(reference, next, check).equals(result(candidate, next, check))) {
+                    c = next;
+                    smaller = true;
+                    break;
+                }
+            }
+        }
+        return c;
+    }
+
+    /**
+     * All cases one step smaller than the given one.
+     *
+     * @param c a case
+     * @return a list of smaller cases
+     */
+    private static List<Case> smallerCases(Case c) {
+        List<Case> cases = new ArrayList<>();
+        for (int i = 0; i < c.players.length - 1 && c.players.length > 2; i++) {
+            String[] players = new String[c.players.length - 1];
+            System.arraycopy(c.players, 0, players, 0, i);
+            System.arraycopy(c.players, i + 1, players, i, players.length - i);
+            cases.add(new Case(c.dim, players, c.figure, c.origin, c.destination));
+        }
+        Case next = shift(c, c.dim - 1, 0, 0);
+        if (next != null) {
+            cases.add(next);
+        }
+        next = shift(c, c.dim, -1, 0);
+        if (next != null) {
+            cases.add(next);
+        }
+        next = shift(c, c.dim, 0, -1);
+        if (next != null) {
+            cases.add(next);
+        }
+        return cases;
+    }
+
+    /**
+     * Move all coordinates of a case onto another board.
+     *
+     * @param c a case
+     * @param dim an int for the new board dimension
+     * @param cols an int for the columns to move by
+     * @param rows an int for the rows to move by
+     * @return the moved case, or null if a coordinate leaves the board
+     */
+    private static Case shift(Case c, int dim, int cols, int rows) {
+        if (dim < FoxHoundUtils.MIN_DIM) {
+            return null;
+        }
+        String[] players = new String[c.players.length];
+        for (int i = 0; i < players.length; i++) {
+            players[i] = shift(c.players[i], dim, cols, rows);
+        }
+        String origin = shiftMove(c.origin, c.dim, dim, cols, rows);
+        String destination = shiftMove(c.destination, c.dim, dim, cols, rows);
+        if (origin == null || destination == null || Arrays.asList(players).contains(null)) {
+            return null;
+        }
+        return new Case(dim, players, c.figure, origin, destination);
+    }
+
+    /**
+     * Move a coordinate onto another board.
+     *
+     * @param coord a coordinate String
+     * @param dim an int for the new board dimension
+     * @param cols an int for the columns to move by
+     * @param rows an int for the rows to move by
+     * @return the moved coordinate, or null if it leaves the board
+     */
+    private static String shift(String coord, int dim, int cols, int rows) {
+        int[] pair = FoxHoundUtils.posToNum(coord);
+        int col = pair[0] - FoxHoundUtils.LETTER_A + cols;
+        int row = pair[1] - 1 + rows;
+        if (col < 0 || col >= dim || row < 0 || row >= dim) {
+            return null;
+        }
+        return FoxHoundUtils.toCoord(dim, row * dim + col);
+    }
+
+    /**
+     * Move a coordinate of a move onto another board. A coordinate off the
+     * board keeps its place relative to A1, while one on the board has to
+     * stay on the board.
+     *
+     * @param coord a coordinate String
+     * @param from an int for the board dimension of the coordinate
+     * @param dim an int for the new board dimension
+     * @param cols an int for the columns to move by
+     * @param rows an int for the rows to move by
+     * @return the moved coordinate, or null if it leaves the board or gets too far from it
+     */
+    private static String shiftMove(String coord, int from, int dim, int cols, int rows) {
+        if (FoxHoundUtils.toSquare(from, coord) != FoxHoundUtils.NO_SQUARE) {
+            return shift(coord, dim, cols, rows);
+        }
+        int[] pair = FoxHoundUtils.posToNum(coord);
+        int col = pair[0] - FoxHoundUtils.LETTER_A + cols;
+        int row = pair[1] - 1 + rows;
+        if (col < -1 || row < -1 || row >= MAX_ROW) {
+            return null;
+        }
+        return coord(row, col);
+    }
+
+    /**
+     * Result of a check as text, so results and exceptions can be compared.
+     *
+     * @param rules the rules to ask
+     * @param c the case to check
+     * @param check the name of the check
+     * @return a String with the result or the name of the thrown exception
+     */
+    private static String result(Rules rules, Case c, String check) {
+        BooleanSupplier call;
+        switch (check) {
+            case MOVE:
+                call = () -> rules.isValidMove(c.dim, c.players, c.figure, c.origin, c.destination);
+                break;
+            case FOX_WIN:
+                call = () -> rules.isFoxWin(c.dim, c.players);
+                break;
+            case HOUND_WIN:
+                call = () -> rules.isHoundWin(c.dim, c.players);
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown check: " + check);
+        }
+        return outcome(() -> Boolean.toString(call.getAsBoolean()));
+    }
+
+    /**
+     * Run a call and describe its outcome.
+     *
+     * @param call the call to run
+     * @return a String with the result or the name of the thrown exception
+     */
+    private static String outcome(Supplier<String> call) {
+        try {
+            return call.get();
+        }
+        catch (RuntimeException e) {
+            return e.getClass().getSimpleName();
+        }
+    }
+
+    /**
+     * A random diagonal neighbour of a square.
+     *
+     * @param dim an int for the board dimension
+     * @param square an int for the square
+     * @param random random numbers
+     * @return an int for the neighbour, or -1 if it lies outside the board
+     */
+    private static int neighbour(int dim, int square, SplittableRandom random) {
+        int row = square / dim + (random.nextBoolean() ? 1 : -1);
+        int col = square % dim + (random.nextBoolean() ? 1 : -1);
+        return row < 0 || row >= dim || col < 0 || col >= dim ? -1 : row * dim + col;
+    }
+
+    private static boolean contains(int[] array, int length, int value) {
+        for (int i = 0; i < length; i++) {
+            if (array[i] == value) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Number of differing results of all checks.
+     *
+     * @return a long for the number of mismatches
+     */
+    public long getMismatches() {
+        return mismatches;
+    }
+
+    /**
+     * Shrunk reproducers of the mismatches found, without duplicates.
+     *
+     * @return a list of Strings with the check, dimension, position and move
+     */
+    public List<String> getReproducers() {
+        return new ArrayList<>(reproducers);
+    }
+
+    /**
+     * Number of cases with a true result of the reference.
+     *
+     * @return a long array for valid moves, fox wins and hound wins
+     */
+    public long[] getPositives() {
+        return positives.clone();
+    }
+
+    /**
+     * Entry method of the differential test.
+     *
+     * @param args number of cases per dimension, threads and seed, all optional
+     * @throws InterruptedException if interrupted while waiting for the workers
+     */
+    public static void main(String[] args) throws InterruptedException {
+        int cases = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_CASES;
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        long seed = args.length > 2 ? Long.parseLong(args[2]) : DEFAULT_SEED;
+        FoxHoundFuzz fuzz = new FoxHoundFuzz(UTILS, POSITION, cases, seed);
+        long start = System.nanoTime();
+        fuzz.run(threads);
+        long total = (long) cases * (FoxHoundUtils.MAX_DIM - FoxHoundUtils.MIN_DIM + 1);
+        System.out.printf("%d cases in %.1f s: %d valid moves, %d fox wins, %d hound wins, %d mismatches%n",
+            total, (System.nanoTime() - start) / 1e9, fuzz.positives[0], fuzz.positives[1], fuzz.positives[2],
+            fuzz.mismatches);
+        for (String reproducer : fuzz.reproducers) {
+            System.out.println(reproducer);
+        }
+        if (fuzz.mismatches > 0) {
+            System.exit(1);
+        }
+    }
+}
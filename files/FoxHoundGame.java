@@ -1,6 +1,9 @@
 import java.io.IOException;
+import java.io.PrintStream;
+import java.util.Arrays;
 import java.util.Scanner;
 import java.nio.file.Path;
+import java.nio.file.Paths;
 
 /** 
  * The Main class of the fox hound program.
@@ -25,6 +28,19 @@ public class FoxHoundGame {
      */
     private static final Scanner STDIN_SCAN = new Scanner(System.in);
 
+    /** Command line option enabling the autosave mode, followed by the save file path. */
+    private static final String AUTOSAVE_OPTION = "--autosave";
+    /** Command line option enabling the ANSI renderer redrawing only changed fields. */
+    private static final String ANSI_OPTION = "--ansi";
+    /** Command line option running the non-interactive batch mode on the standard input. */
+    private static final String BATCH_OPTION = "--batch";
+    /** Command line option letting the engine play a figure, followed by F or H. */
+    private static final String ENGINE_OPTION = "--engine";
+    /** Time the engine thinks per move in milliseconds. */
+    private static final long ENGINE_MOVE_MILLIS = 1000;
+    /** Maximum number of frames per second drawn by the ANSI renderer. */
+    private static final int ANSI_FRAME_RATE = 30;
+
     /**
      * Swap between fox and hounds to determine the next
      * figure to move.
@@ -40,80 +56,392 @@ public class FoxHoundGame {
         }
     }
 
+    /**
+     * The optional parts of a game, all off unless set.
+     */
+    static final class Options {
+        /** Directory save files are kept in, or null to let the user choose any path. */
+        Path saveDir;
+        /** Background writer receiving the game after every move and load, or null. */
+        FoxHoundAutosave autosave;
+        /**
+         * Renderer redrawing only changed fields, or null to print the full board.
+         * The streams of the game should then be streams it tracks.
+         */
+        FoxHoundAnsiRenderer renderer;
+        /** Engine playing one of the figures, or null if both are played by users. */
+        FoxHoundEnginePlayer opponent;
+        /** Evaluation function of the hints, the default weights unless set. */
+        FoxHoundEval eval = new FoxHoundEval();
+
+        /**
+         * Keep save files in a directory.
+         *
+         * @param saveDir the directory save files are kept in, or null to let the user choose any path
+         * @return these options
+         */
+        Options saveDir(Path saveDir) {
+            this.saveDir = saveDir;
+            return this;
+        }
+
+        /**
+         * Save the game in the background after every move and load.
+         *
+         * @param autosave the background writer, or null
+         * @return these options
+         */
+        Options autosave(FoxHoundAutosave autosave) {
+            this.autosave = autosave;
+            return this;
+        }
+
+        /**
+         * Draw the board with a renderer.
+         *
+         * @param renderer the renderer, or null to print the full board
+         * @return these options
+         */
+        Options renderer(FoxHoundAnsiRenderer renderer) {
+            this.renderer = renderer;
+            return this;
+        }
+
+        /**
+         * Let an engine play one of the figures.
+         *
+         * @param opponent the engine, or null if both figures are played by users
+         * @return these options
+         */
+        Options opponent(FoxHoundEnginePlayer opponent) {
+            this.opponent = opponent;
+            return this;
+        }
+
+        /**
+         * Search hints with an evaluation function.
+         *
+         * @param eval the evaluation function of the hint engine
+         * @return these options
+         */
+        Options eval(FoxHoundEval eval) {
+            this.eval = eval;
+            return this;
+        }
+    }
+
     /**
      * The main loop of the game. Interactions with the main
      * menu are interpreted and executed here.
      * 
+     * The loop only talks to the given streams, so it can serve a
+     * terminal as well as a network connection.
+     * 
      * @param dim the dimension of the game board
      * @param players current position of all figures on the board in board coordinates
+     * @param in a Scanner object to read the user input from
+     * @param out a PrintStream to print the board, menus and results to
+     * @param err a PrintStream to print errors to
+     * @param options the save directory, autosave, renderer, engine and evaluation of the game
      */
-    private static void gameLoop(int dim, String[] players) {
+    static void gameLoop(int dim, String[] players, Scanner in, PrintStream out, PrintStream err,
+                         Options options) {
+        Path saveDir = options.saveDir;
+        FoxHoundAutosave autosave = options.autosave;
+        FoxHoundAnsiRenderer renderer = options.renderer;
+        FoxHoundEnginePlayer opponent = options.opponent;
 
         // start each game with the Fox
         char turn = FoxHoundUtils.FOX_FIELD;
         boolean exit = false;
-        while(!exit) {
-            System.out.println("\n#################################");
-            FoxHoundUI.displayBoard(players, dim);
+        // created on the first hint, so games without hints do not pay for an engine
+        FoxHoundHint hint = null;
+        FoxHoundVariations variations = startVariations(dim, players, turn, err);
+        try {
+            while(!exit) {
+                if (renderer != null && renderer.isAnsi()) {
+                    renderer.render(players, dim);
+                }
+                else {
+                    out.println("\n#################################");
+                    FoxHoundUI.displayBoard(players, dim, out);
+                }
 
-            int choice = FoxHoundUI.mainMenuQuery(turn, STDIN_SCAN);
+                boolean engineTurn = opponent != null && turn == opponent.getFigure();
+                int choice = engineTurn ? FoxHoundUI.MENU_MOVE : FoxHoundUI.mainMenuQuery(turn, in, out);
             
-            // handle menu choice
-            switch(choice) {
-                case FoxHoundUI.MENU_MOVE:
-                    // Ask for coordinates
-                    boolean true_move = false;
-                    while (!true_move) {
-                        String[] coords = FoxHoundUI.positionQuery(dim, STDIN_SCAN);
-                        if (FoxHoundUtils.isValidMove(dim, players, turn, coords[0], coords[1])) {
-                            if (turn == FoxHoundUtils.FOX_FIELD) {
-                                players[players.length - 1] = coords[1];
+                // handle menu choice
+                String[] coords = null;
+                switch(choice) {
+                    case FoxHoundUI.MENU_MOVE:
+                        if (engineTurn) {
+                            coords = engineMove(dim, players, opponent, out, err);
+                            exit = coords == null;
+                            break;
+                        }
+                        // Ask for coordinates
+                        boolean true_move = false;
+                        while (!true_move) {
+                            coords = FoxHoundUI.positionQuery(dim, in, out, err);
+                            if (FoxHoundUtils.isValidMove(dim, players, turn, coords[0], coords[1])) {
+                                true_move = true;
                             }
-                            else if (turn == FoxHoundUtils.HOUND_FIELD) {
-                                for (int i = 0; i < players.length; i++) {
-                                    if (players[i].equals(coords[0])) {
-                                        players[i] = coords[1];
-                                        break;
-                                    }
-                                }
+                            else {err.println("ERROR: The move is invalid");}
+                        }
+                        break;
+                    case FoxHoundUI.MENU_SAVE:
+                        Path pathS = FoxHoundUI.fileQuery(in, out, saveDir);
+                        boolean ifSaved = false;
+                        ifSaved = FoxHoundIO.saveGame(players, turn, pathS);
+                        if (!ifSaved) {
+                            err.println("ERROR: Saving file failed.");
+                        }
+                        break;
+                    case FoxHoundUI.MENU_LOAD:
+                        Path pathL = FoxHoundUI.fileQuery(in, out, saveDir);
+                        char nextMove = FoxHoundIO.loadGame(players, pathL);
+                        if (nextMove == '#') {
+                            err.println("ERROR: Loading from file failed.");
+                        }
+                        else {
+                            turn = nextMove;
+                            variations = startVariations(dim, players, turn, err);
+                            if (hint != null) {
+                                hint.cancel();
+                            }
+                            if (autosave != null) {
+                                autosave.submit(players, turn);
                             }
-                            true_move = true;
                         }
-                        else {System.err.println("ERROR: The move is invalid");}
-                    }
-                    if (FoxHoundUtils.isFoxWin(players[players.length - 1])) {
-                        System.out.println("The Fox wins!");
+                        break;
+                    case FoxHoundUI.MENU_HINT:
+                        if (hint == null) {
+                            hint = new FoxHoundHint(options.eval, out);
+                        }
+                        // the search prints its suggestions while the player decides
+                        try {
+                            hint.start(dim, players, turn);
+                        } catch (IllegalArgumentException e) {
+                            err.println("ERROR: No hint for this position: " + e.getMessage());
+                            break;
+                        }
+                        if (FoxHoundUI.hintQuery(in, out)) {
+                            coords = hint.getBest();
+                            if (coords == null) {
+                                err.println("ERROR: No hint found yet.");
+                            }
+                        }
+                        break;
+                    case FoxHoundUI.MENU_VARIATIONS:
+                        if (variations == null) {
+                            err.println("ERROR: No variations for this position.");
+                            break;
+                        }
+                        variations = exploreVariations(variations, players, in, out, err, saveDir);
+                        turn = variations.getPosition().getTurn();
+                        if (hint != null) {
+                            hint.cancel();
+                        }
+                        // the node returned to may be the end of a game
+                        exit = announceWinner(dim, players, out);
+                        if (autosave != null) {
+                            autosave.submit(players, turn);
+                        }
+                        break;
+                    case FoxHoundUI.MENU_EXIT:
                         exit = true;
+                        break;
+                    default:
+                        err.println("ERROR: invalid menu choice: " + choice);
+                }
+
+                if (coords != null) {
+                    // a move ends the search of the hint for the old position
+                    if (hint != null) {
+                        hint.cancel();
                     }
-                    else if (FoxHoundUtils.isHoundWin(players, dim)) {
-                        System.out.println("The Hounds win!");
-                        exit = true;
+                    FoxHoundUtils.applyMove(players, turn, coords[0], coords[1]);
+                    if (variations != null) {
+                        variations.play(FoxHoundPosition.move(FoxHoundUtils.toSquare(dim, coords[0]),
+                            FoxHoundUtils.toSquare(dim, coords[1])));
                     }
+                    exit = announceWinner(dim, players, out);
                     turn = swapPlayers(turn);
-                    break;
-                case FoxHoundUI.MENU_SAVE:
-                    Path pathS = FoxHoundUI.fileQuery(STDIN_SCAN);
-                    boolean ifSaved = false;
-                    ifSaved = FoxHoundIO.saveGame(players, turn, pathS);
-                    if (!ifSaved) {
-                        System.err.println("ERROR: Saving file failed.");
+                    if (autosave != null) {
+                        autosave.submit(players, turn);
                     }
+                }
+            }
+        } finally {
+            if (hint != null) {
+                hint.cancel();
+            }
+            if (opponent != null) {
+                opponent.stopPondering();
+            }
+        }
+    }
+
+    /**
+     * Print the winner if the game is over.
+     *
+     * @param dim the dimension of the game board
+     * @param players current position of all figures on the board in board coordinates
+     * @param out a PrintStream to print the result to
+     * @return a boolean whether the game is over
+     */
+    private static boolean announceWinner(int dim, String[] players, PrintStream out) {
+        if (FoxHoundUtils.isFoxWin(players[players.length - 1])) {
+            out.println("The Fox wins!");
+            return true;
+        }
+        else if (FoxHoundUtils.isHoundWin(players, dim)) {
+            out.println("The Hounds win!");
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Start the variations of a game at its current position.
+     *
+     * @param dim the dimension of the game board
+     * @param players current position of all figures on the board in board coordinates
+     * @param turn the figure to move next
+     * @param err a PrintStream to print errors to
+     * @return the variations, or null if the position cannot be stored
+     */
+    private static FoxHoundVariations startVariations(int dim, String[] players, char turn, PrintStream err) {
+        try {
+            return new FoxHoundVariations(new FoxHoundPosition(dim, players, turn));
+        } catch (IllegalArgumentException e) {
+            err.println("ERROR: Variations are off for this position: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * The loop of the variations menu. The board of the current node is
+     * shown after every step, and returning to the game continues from it.
+     *
+     * @param variations the variations of the game
+     * @param players the position of the game, replaced by the one of the current node on return
+     * @param in a Scanner object to read the user input from
+     * @param out a PrintStream to print the board, menus and results to
+     * @param err a PrintStream to print errors to
+     * @param saveDir directory save files are kept in, or null to let the user choose any path
+     * @return the variations to continue with, which are new ones if a file was loaded
+     */
+    private static FoxHoundVariations exploreVariations(FoxHoundVariations variations, String[] players, Scanner in,
+                                                        PrintStream out, PrintStream err, Path saveDir) {
+        int choice = -1;
+        while (choice != FoxHoundUI.VARIATIONS_RETURN) {
+            FoxHoundPosition position = variations.getPosition();
+            out.println("\n#################################");
+            FoxHoundUI.displayBoard(position.toPlayers(), position.getDim(), out);
+            out.println(describeNode(variations));
+
+            boolean moved = true;
+            choice = FoxHoundUI.variationsMenuQuery(in, out);
+            switch (choice) {
+                case FoxHoundUI.VARIATIONS_BACK:
+                    moved = variations.back();
+                    break;
+                case FoxHoundUI.VARIATIONS_FORWARD:
+                    moved = variations.forward();
+                    break;
+                case FoxHoundUI.VARIATIONS_PREVIOUS:
+                    moved = variations.previousVariation();
                     break;
-                case FoxHoundUI.MENU_LOAD:
-                    Path pathL = FoxHoundUI.fileQuery(STDIN_SCAN);
-                    char nextMove = FoxHoundIO.loadGame(players, pathL);
-                    if (nextMove == '#') {
-                        System.err.println("ERROR: Loading from file failed.");
+                case FoxHoundUI.VARIATIONS_NEXT:
+                    moved = variations.nextVariation();
+                    break;
+                case FoxHoundUI.VARIATIONS_GOTO:
+                    variations.gotoNode(FoxHoundUI.nodeQuery(variations.getNodeCount(), in, out));
+                    break;
+                case FoxHoundUI.VARIATIONS_SAVE:
+                    try {
+                        variations.save(FoxHoundUI.fileQuery(in, out, saveDir));
+                    } catch (IOException e) {
+                        err.println("ERROR: Saving variations failed.");
                     }
-                    else {turn = nextMove;}
                     break;
-                case FoxHoundUI.MENU_EXIT:
-                    exit = true;
+                case FoxHoundUI.VARIATIONS_LOAD:
+                    try {
+                        FoxHoundVariations loaded = FoxHoundVariations.load(FoxHoundUI.fileQuery(in, out, saveDir));
+                        if (loaded.getDim() != variations.getDim()
+                                || loaded.getPosition().getHoundCount() != players.length - 1) {
+                            err.println("ERROR: The variations belong to another board.");
+                        }
+                        else {
+                            variations = loaded;
+                        }
+                    } catch (IOException | IllegalArgumentException e) {
+                        err.println("ERROR: Loading variations failed.");
+                    }
                     break;
                 default:
-                    System.err.println("ERROR: invalid menu choice: " + choice);
+                    break;
             }
+            if (!moved) {
+                err.println("ERROR: There is no such move.");
+            }
+        }
+        String[] current = variations.getPosition().toPlayers();
+        System.arraycopy(current, 0, players, 0, players.length);
+        return variations;
+    }
+
+    /**
+     * Describe the current node of the variations and its moves.
+     *
+     * @param variations the variations of the game
+     * @return a String with the node number, the last move and all continuations
+     */
+    private static String describeNode(FoxHoundVariations variations) {
+        FoxHoundPosition position = variations.getPosition();
+        StringBuilder text = new StringBuilder("Node ").append(variations.getCurrent());
+        int last = variations.getLastMove();
+        if (last != FoxHoundPosition.NO_MOVE) {
+            text.append(", after ").append(position.moveToString(last))
+                .append(" (variation ").append(variations.getVariation()).append(')');
+        }
+        int[] moves = variations.getMoves(variations.getCurrent());
+        int[] children = variations.getChildren(variations.getCurrent());
+        text.append(moves.length == 0 ? ", no moves stored" : ", moves:");
+        for (int i = 0; i < moves.length; i++) {
+            text.append(' ').append(position.moveToString(moves[i])).append(" [").append(children[i]).append(']');
         }
+        return text.toString();
+    }
+
+    /**
+     * Let the engine choose its move.
+     *
+     * @param dim the dimension of the game board
+     * @param players current position of all figures on the board in board coordinates
+     * @param opponent the engine to move
+     * @param out a PrintStream to print the move to
+     * @param err a PrintStream to print errors to
+     * @return a String array with origin and destination coordinate, or null if the game ends
+     */
+    private static String[] engineMove(int dim, String[] players, FoxHoundEnginePlayer opponent,
+                                       PrintStream out, PrintStream err) {
+        String figure = opponent.getFigure() == FoxHoundUtils.FOX_FIELD ? "Fox" : "Hounds";
+        String[] coords;
+        try {
+            coords = opponent.chooseMove(dim, players);
+        } catch (IllegalArgumentException e) {
+            err.println("ERROR: The engine cannot play this game: " + e.getMessage());
+            return null;
+        }
+        if (coords == null) {
+            // only the hounds can run out of moves while the fox can still move
+            out.println("The Hounds cannot move. The Fox wins!");
+            return null;
+        }
+        out.println(figure + " (engine) plays " + coords[0] + " " + coords[1]);
+        return coords;
     }
 
     /**
@@ -128,27 +456,104 @@ public class FoxHoundGame {
      * Dimensions must be between {@value FoxHoundUtils#MIN_DIM} and 
      * {@value FoxHoundUtils#MAX_DIM}.
      * 
+     * The autosave mode is enabled with {@value #AUTOSAVE_OPTION} followed
+     * by a file path. The game is then written to that file in the
+     * background after every move.
+     * 
+     * With {@value #ANSI_OPTION} the board is drawn once and afterwards only
+     * the changed fields are redrawn, if the standard output is a terminal.
+     * 
+     * With {@value #ENGINE_OPTION} followed by F or H the engine plays the
+     * Fox or the Hounds. It keeps searching while the user thinks about
+     * the reply, see {@link FoxHoundEnginePlayer}. The engine and the hints
+     * use the tuned weights {@link FoxHoundEval#load} reads, if there are any.
+     * 
+     * With {@value #BATCH_OPTION} no interactive game is started. Instead
+     * scripted games are read from the standard input and only their
+     * results are printed, see {@link FoxHoundBatch}.
+     * 
      * @param args contain the command line arguments where the first can be
      * board dimensions.
      */
     public static void main(String[] args) {
-        int dimension;
-        if (args != null) {
-            if (Integer.parseInt(args[0]) > FoxHoundUtils.MAX_DIM || Integer.parseInt(args[0]) < FoxHoundUtils.MIN_DIM) {
-                System.out.println("Sorry, board dimensions should be from 4 to 26. Using default dimensions instead");
-                dimension = FoxHoundUtils.DEFAULT_DIM;
+        if (Arrays.asList(args).contains(BATCH_OPTION)) {
+            FoxHoundBatch.run(System.in, System.out);
+            return;
+        }
+
+        FoxHoundMetrics.register();
+        FoxHoundEval eval;
+        try {
+            eval = FoxHoundEval.load();
+        } catch (IOException | IllegalArgumentException e) {
+            System.err.println("Could not read weights file " + FoxHoundEval.weightsPath() + ": " + e.getMessage()
+                + ". Using the default weights instead");
+            eval = new FoxHoundEval();
+        }
+        int dimension = FoxHoundUtils.DEFAULT_DIM;
+        FoxHoundAutosave autosave = null;
+        FoxHoundAnsiRenderer renderer = null;
+        FoxHoundEnginePlayer opponent = null;
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals(AUTOSAVE_OPTION) && i + 1 < args.length) {
+                autosave = new FoxHoundAutosave(Paths.get(args[++i]));
+            }
+            else if (args[i].equals(ENGINE_OPTION) && i + 1 < args.length) {
+                String figure = args[++i].toUpperCase();
+                if (figure.equals("F") || figure.equals("H")) {
+                    opponent = new FoxHoundEnginePlayer(figure.charAt(0), ENGINE_MOVE_MILLIS, eval);
+                }
+                else {
+                    System.out.println("Sorry, the engine can only play F or H. Playing without engine instead");
+                }
+            }
+            else if (args[i].equals(ANSI_OPTION)) {
+                renderer = FoxHoundAnsiRenderer.forStdOut(ANSI_FRAME_RATE);
             }
             else {
-                dimension = Integer.parseInt(args[0]);
+                dimension = parseDimension(args[i]);
             }
         }
-        else {
-            dimension = FoxHoundUtils.DEFAULT_DIM;
-        }
 
+        Scanner in = STDIN_SCAN;
+        PrintStream out = System.out;
+        PrintStream err = System.err;
+        if (renderer != null && renderer.isAnsi()) {
+            // the renderer counts the lines below the board to find its way back to it
+            in = new Scanner(renderer.track(System.in));
+            out = renderer.track(System.out);
+            err = renderer.track(System.err);
+        }
         String[] players = FoxHoundUtils.initialisePositions(dimension);
-        gameLoop(dimension, players);
+        gameLoop(dimension, players, in, out, err,
+            new Options().autosave(autosave).renderer(renderer).opponent(opponent).eval(eval));
+        if (opponent != null) {
+            opponent.printStatistics(System.out);
+        }
+        if (autosave != null) {
+            autosave.close();
+        }
         // Close the scanner reading the standard input stream       
         STDIN_SCAN.close();
     }
+
+    /**
+     * Read the board dimension from a command line argument.
+     *
+     * @param arg the command line argument
+     * @return the given dimension, or the default dimension if it is invalid
+     */
+    private static int parseDimension(String arg) {
+        int dimension;
+        try {
+            dimension = Integer.parseInt(arg);
+        } catch (NumberFormatException e) {
+            dimension = -1;
+        }
+        if (dimension > FoxHoundUtils.MAX_DIM || dimension < FoxHoundUtils.MIN_DIM) {
+            System.out.println("Sorry, board dimensions should be from 4 to 26. Using default dimensions instead");
+            dimension = FoxHoundUtils.DEFAULT_DIM;
+        }
+        return dimension;
+    }
 }
@@ -0,0 +1,382 @@
+/**
+ * A store of many paused games in little memory.
+ *
+ * Every game takes {@value #WORDS} longs of one shared array, holding
+ * the board dimension, the figure to move, the number of hounds, a move
+ * counter and the squares of all figures at 10 bits each. A game is
+ * addressed by a handle, which combines its slot with a generation
+ * number, so a handle of a removed game is not mistaken for a new game
+ * in the same slot. Free slots are chained through their own words, so
+ * no memory is needed besides the game array.
+ *
+ * The store is thread safe. Games are locked in stripes, so sessions on
+ * different threads rarely wait for each other.
+ */
+public class FoxHoundGameStore {
+
+    /** Number of longs per game. */
+    public static final int WORDS = 3;
+    /** Largest move counter, larger counters are kept at this value. */
+    public static final int MAX_MOVE_COUNT = (1 << 22) - 1;
+
+    /** Bits of a square. */
+    private static final int SQUARE_BITS = 10;
+    private static final long SQUARE_MASK = (1L << SQUARE_BITS) - 1;
+    /** Header in the low bits of the first word: dimension, turn, hound count and move counter. */
+    private static final int DIM_BITS = 5;
+    private static final int TURN_SHIFT = DIM_BITS;
+    private static final int HOUNDS_SHIFT = TURN_SHIFT + 1;
+    private static final int MOVES_SHIFT = HOUNDS_SHIFT + 4;
+    /** Position of the first square, the fox, followed by all hounds. */
+    private static final int SQUARES_SHIFT = 32;
+    /** Position of the generation in the last word. */
+    private static final int GENERATION_SHIFT = 48;
+    private static final long GENERATION_MASK = 0xFFFF;
+    /** Largest number of hounds, on the largest board. */
+    private static final int MAX_HOUNDS = FoxHoundUtils.MAX_DIM / 2;
+    /** Number of lock stripes. */
+    private static final int STRIPES = 64;
+    /** End of the chain of free slots. */
+    private static final int NO_SLOT = -1;
+
+    private final long[] games;
+    private final int capacity;
+    private final Object[] locks = new Object[STRIPES];
+    /** First free slot, guarded by this object. */
+    private int free = NO_SLOT;
+    /** Slots below this were used before, guarded by this object. */
+    private int fresh;
+    private int size;
+
+    /**
+     * Create an empty store.
+     *
+     * @param capacity an int for the largest number of games
+     * @throws IllegalArgumentException if the capacity is not positive or too large
+     */
+    public FoxHoundGameStore(int capacity) {
+        if (capacity <= 0 || capacity > Integer.MAX_VALUE / WORDS) {
+            throw new IllegalArgumentException("Invalid capacity: " + capacity);
+        }
+        this.capacity = capacity;
+        this.games = new long[capacity * WORDS];
+        for (int i = 0; i < STRIPES; i++) {
+            locks[i] = new Object();
+        }
+    }
+
+    /**
+     * Store a new game.
+     *
+     * @param position the position of the game
+     * @param moveCount an int for the number of moves played
+     * @return a long handle of the game
+     * @throws IllegalStateException if the store is full
+     */
+    public long create(FoxHoundPosition position, int moveCount) {
+        int slot;
+        synchronized (this) {
+            if (free != NO_SLOT) {
+                slot = free;
+                free = (int) games[slot * WORDS + 1];
+            }
+            else if (fresh < capacity) {
+                slot = fresh++;
+            }
+            else {
+                throw new IllegalStateException("Game store full: " + capacity);
+            }
+            size++;
+        }
+        synchronized (lock(slot)) {
+            write(slot, position, moveCount);
+            return handle(slot);
+        }
+    }
+
+    /**
+     * Remove a game. Its handle becomes invalid.
+     *
+     * @param handle a long handle of the game
+     * @throws IllegalArgumentException if the handle is invalid
+     */
+    public void remove(long handle) {
+        int slot = slot(handle);
+        synchronized (lock(slot)) {
+            check(handle, slot);
+            int base = slot * WORDS;
+            long generation = (generation(slot) + 1) & GENERATION_MASK;
+            games[base] = 0;
+            games[base + 2] = generation << GENERATION_SHIFT;
+        }
+        synchronized (this) {
+            games[slot * WORDS + 1] = free;
+            free = slot;
+            size--;
+        }
+    }
+
+    /**
+     * The position of a game.
+     *
+     * @param handle a long handle of the game
+     * @return a new position
+     * @throws IllegalArgumentException if the handle is invalid
+     */
+    public FoxHoundPosition getPosition(long handle) {
+        int slot = slot(handle);
+        synchronized (lock(slot)) {
+            check(handle, slot);
+            return new FoxHoundPosition(dim(slot), players(slot), turn(slot));
+        }
+    }
+
+    /**
+     * The figures of a game as used by the game loop.
+     *
+     * @param handle a long handle of the game
+     * @return a new String array with the coordinates of all hounds and the fox last
+     * @throws IllegalArgumentException if the handle is invalid
+     */
+    public String[] getPlayers(long handle) {
+        int slot = slot(handle);
+        synchronized (lock(slot)) {
+            check(handle, slot);
+            return players(slot);
+        }
+    }
+
+    /**
+     * The figure to move next in a game.
+     *
+     * @param handle a long handle of the game
+     * @return a char for the figure to move
+     * @throws IllegalArgumentException if the handle is invalid
+     */
+    public char getTurn(long handle) {
+        int slot = slot(handle);
+        synchronized (lock(slot)) {
+            check(handle, slot);
+            return turn(slot);
+        }
+    }
+
+    /**
+     * The board dimension of a game.
+     *
+     * @param handle a long handle of the game
+     * @return an int for the dimension
+     * @throws IllegalArgumentException if the handle is invalid
+     */
+    public int getDim(long handle) {
+        int slot = slot(handle);
+        synchronized (lock(slot)) {
+            check(handle, slot);
+            return dim(slot);
+        }
+    }
+
+    /**
+     * The move counter of a game.
+     *
+     * @param handle a long handle of the game
+     * @return an int for the number of moves played
+     * @throws IllegalArgumentException if the handle is invalid
+     */
+    public int getMoveCount(long handle) {
+        int slot = slot(handle);
+        synchronized (lock(slot)) {
+            check(handle, slot);
+            return (int) (games[slot * WORDS] >>> MOVES_SHIFT & MAX_MOVE_COUNT);
+        }
+    }
+
+    /**
+     * Replace the state of a game.
+     *
+     * @param handle a long handle of the game
+     * @param position the new position of the game
+     * @param moveCount an int for the number of moves played
+     * @throws IllegalArgumentException if the handle is invalid
+     */
+    public void update(long handle, FoxHoundPosition position, int moveCount) {
+        int slot = slot(handle);
+        synchronized (lock(slot)) {
+            check(handle, slot);
+            write(slot, position, moveCount);
+        }
+    }
+
+    /**
+     * Move a figure of the side to move, pass the turn and count the move,
+     * without unpacking the game. The move is expected to be valid.
+     *
+     * @param handle a long handle of the game
+     * @param move an encoded move, see {@link FoxHoundPosition#move}
+     * @return a boolean whether a figure of the side to move stood on the origin
+     * @throws IllegalArgumentException if the handle is invalid
+     */
+    public boolean applyMove(long handle, int move) {
+        int slot = slot(handle);
+        synchronized (lock(slot)) {
+            check(handle, slot);
+            int base = slot * WORDS;
+            long header = games[base];
+            int from = FoxHoundPosition.from(move);
+            boolean fox = turn(slot) == FoxHoundUtils.FOX_FIELD;
+            int first = fox ? 0 : 1;
+            int last = fox ? 0 : (int) (header >>> HOUNDS_SHIFT & 0xF);
+            for (int i = first; i <= last; i++) {
+                if (square(base, i) == from) {
+                    setSquare(base, i, FoxHoundPosition.to(move));
+                    int moves = (int) Math.min(MAX_MOVE_COUNT, (header >>> MOVES_SHIFT & MAX_MOVE_COUNT) + 1);
+                    header ^= 1L << TURN_SHIFT;
+                    header = header & ~((long) MAX_MOVE_COUNT << MOVES_SHIFT) | (long) moves << MOVES_SHIFT;
+                    // the squares start in the first word as well
+                    games[base] = header & 0xFFFFFFFFL | games[base] & ~0xFFFFFFFFL;
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Number of stored games.
+     *
+     * @return an int for the number of games
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * Largest number of games.
+     *
+     * @return an int for the capacity
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Pack a game into its slot, keeping the generation.
+     *
+     * @param slot an int for the slot
+     * @param position the position of the game
+     * @param moveCount an int for the number of moves played
+     */
+    private void write(int slot, FoxHoundPosition position, int moveCount) {
+        int hounds = position.getHoundCount();
+        if (hounds > MAX_HOUNDS) {
+            throw new IllegalArgumentException("Too many hounds: " + hounds);
+        }
+        int base = slot * WORDS;
+        long generation = generation(slot);
+        games[base] = position.getDim()
+            | (position.getTurn() == FoxHoundUtils.HOUND_FIELD ? 1L : 0) << TURN_SHIFT
+            | (long) hounds << HOUNDS_SHIFT
+            | (long) Math.max(0, Math.min(MAX_MOVE_COUNT, moveCount)) << MOVES_SHIFT;
+        games[base + 1] = 0;
+        games[base + 2] = generation << GENERATION_SHIFT;
+        setSquare(base, 0, position.getFox());
+        for (int i = 0; i < hounds; i++) {
+            setSquare(base, i + 1, position.getHound(i));
+        }
+    }
+
+    /**
+     * Read a square of a game.
+     *
+     * @param base an int for the first word of the game
+     * @param index an int for the figure, 0 for the fox and then the hounds
+     * @return an int for the square
+     */
+    private int square(int base, int index) {
+        int bit = SQUARES_SHIFT + index * SQUARE_BITS;
+        int word = base + bit / Long.SIZE;
+        int shift = bit % Long.SIZE;
+        long value = games[word] >>> shift;
+        if (shift + SQUARE_BITS > Long.SIZE) {
+            value |= games[word + 1] << (Long.SIZE - shift);
+        }
+        return (int) (value & SQUARE_MASK);
+    }
+
+    /**
+     * Write a square of a game.
+     *
+     * @param base an int for the first word of the game
+     * @param index an int for the figure, 0 for the fox and then the hounds
+     * @param square an int for the square
+     */
+    private void setSquare(int base, int index, int square) {
+        int bit = SQUARES_SHIFT + index * SQUARE_BITS;
+        int word = base + bit / Long.SIZE;
+        int shift = bit % Long.SIZE;
+        games[word] = games[word] & ~(SQUARE_MASK << shift) | (long) square << shift;
+        if (shift + SQUARE_BITS > Long.SIZE) {
+            int spill = Long.SIZE - shift;
+            games[word + 1] = games[word + 1] & ~(SQUARE_MASK >>> spill) | (long) square >>> spill;
+        }
+    }
+
+    private int dim(int slot) {
+        return (int) (games[slot * WORDS] & ((1 << DIM_BITS) - 1));
+    }
+
+    private char turn(int slot) {
+        return (games[slot * WORDS] >>> TURN_SHIFT & 1) == 0 ? FoxHoundUtils.FOX_FIELD : FoxHoundUtils.HOUND_FIELD;
+    }
+
+    private long generation(int slot) {
+        return games[slot * WORDS + 2] >>> GENERATION_SHIFT & GENERATION_MASK;
+    }
+
+    /**
+     * Unpack the figures of a game.
+     *
+     * @param slot an int for the slot
+     * @return a String array with the coordinates of all hounds and the fox last
+     */
+    private String[] players(int slot) {
+        int base = slot * WORDS;
+        int dim = dim(slot);
+        int hounds = (int) (games[base] >>> HOUNDS_SHIFT & 0xF);
+        String[] players = new String[hounds + 1];
+        for (int i = 0; i < hounds; i++) {
+            players[i] = FoxHoundUtils.toCoord(dim, square(base, i + 1));
+        }
+        players[hounds] = FoxHoundUtils.toCoord(dim, square(base, 0));
+        return players;
+    }
+
+    private long handle(int slot) {
+        return generation(slot) << Integer.SIZE | slot;
+    }
+
+    private int slot(long handle) {
+        int slot = (int) handle;
+        if (slot < 0 || slot >= capacity) {
+            throw new IllegalArgumentException("Unknown game: " + handle);
+        }
+        return slot;
+    }
+
+    /**
+     * Check that a handle belongs to the game in its slot.
+     *
+     * @param handle a long handle
+     * @param slot an int for the slot of the handle
+     * @throws IllegalArgumentException if the slot is free or holds another game
+     */
+    private void check(long handle, int slot) {
+        if (dim(slot) == 0 || handle >>> Integer.SIZE != generation(slot)) {
+            throw new IllegalArgumentException("Unknown game: " + handle);
+        }
+    }
+
+    private Object lock(int slot) {
+        return locks[slot & (STRIPES - 1)];
+    }
+}
@@ -0,0 +1,135 @@
+import java.util.SplittableRandom;
+
+/**
+ * A benchmark of {@link FoxHoundGameStore} with many idle games.
+ *
+ * The games are taken from random play on all board dimensions. The
+ * heap used by the store is measured after garbage collection and
+ * compared with keeping every game as a players array and a turn, then
+ * random games are read and moved on.
+ * <pre>
+ * java -Xmx64m FoxHoundGameStoreBench [games] [operations]
+ * </pre>
+ */
+public class FoxHoundGameStoreBench {
+
+    /** Default number of games. */
+    private static final int DEFAULT_GAMES = 1_000_000;
+    /** Default number of timed operations. */
+    private static final int DEFAULT_OPERATIONS = 5_000_000;
+    /** Number of games kept as arrays to compare the memory. */
+    private static final int ARRAY_GAMES = 50_000;
+    /** Number of distinct games to fill the store with. */
+    private static final int POOL = 4096;
+
+    /**
+     * Heap in use after garbage collection.
+     *
+     * @return a long for the used bytes
+     */
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    /**
+     * Create random positions from random games on all dimensions.
+     *
+     * @param random random numbers
+     * @return an array of positions in running games
+     */
+    private static FoxHoundPosition[] positions(SplittableRandom random) {
+        FoxHoundPosition[] positions = new FoxHoundPosition[POOL];
+        int[] moves = new int[FoxHoundPosition.MAX_MOVES];
+        for (int i = 0; i < POOL; i++) {
+            FoxHoundPosition position = FoxHoundPosition.initial(
+                random.nextInt(FoxHoundUtils.MIN_DIM, FoxHoundUtils.MAX_DIM + 1));
+            int length = random.nextInt(2 * position.getDim());
+            for (int ply = 0; ply < length && !FoxHoundEngine.isGameOver(position); ply++) {
+                position.makeMove(moves[random.nextInt(position.generateMoves(moves))]);
+            }
+            positions[i] = position;
+        }
+        return positions;
+    }
+
+    /**
+     * Entry method of the benchmark.
+     *
+     * @param args number of games and operations, both optional
+     */
+    public static void main(String[] args) {
+        int games = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_GAMES;
+        int operations = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_OPERATIONS;
+        SplittableRandom random = new SplittableRandom(1);
+        FoxHoundPosition[] pool = positions(random);
+
+        long before = usedHeap();
+        String[][] players = new String[ARRAY_GAMES][];
+        char[] turns = new char[ARRAY_GAMES];
+        for (int i = 0; i < ARRAY_GAMES; i++) {
+            // new strings, as a game read from a client would have
+            String[] p = pool[i % POOL].toPlayers();
+            for (int j = 0; j < p.length; j++) {
+                p[j] = new String(p[j].toCharArray());
+            }
+            players[i] = p;
+            turns[i] = pool[i % POOL].getTurn();
+        }
+        double arrayBytes = (usedHeap() - before) / (double) ARRAY_GAMES;
+        long sink = players[ARRAY_GAMES - 1].length + turns[ARRAY_GAMES - 1];
+        players = null;
+        turns = null;
+
+        before = usedHeap();
+        long start = System.nanoTime();
+        FoxHoundGameStore store = new FoxHoundGameStore(games);
+        long[] handles = new long[games];
+        for (int i = 0; i < games; i++) {
+            handles[i] = store.create(pool[i % POOL], i % 100);
+        }
+        long fill = System.nanoTime() - start;
+        double storeBytes = (usedHeap() - before - (long) games * Long.BYTES) / (double) games;
+        System.out.printf("games=%d fill %.0f ms, max heap %d MB%n", games, fill / 1e6,
+            Runtime.getRuntime().maxMemory() >> 20);
+        System.out.printf("  store: %.1f bytes/game, players arrays: %.1f bytes/game, %.0fx smaller%n",
+            storeBytes, arrayBytes, arrayBytes / storeBytes);
+
+        start = System.nanoTime();
+        for (int i = 0; i < operations; i++) {
+            long handle = handles[random.nextInt(games)];
+            sink += store.getTurn(handle) + store.getMoveCount(handle);
+        }
+        long header = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        for (int i = 0; i < operations; i++) {
+            sink += store.getPlayers(handles[random.nextInt(games)]).length;
+        }
+        long unpack = System.nanoTime() - start;
+
+        int[] moves = new int[FoxHoundPosition.MAX_MOVES];
+        int finished = 0;
+        start = System.nanoTime();
+        for (int i = 0; i < operations; i++) {
+            int index = random.nextInt(games);
+            FoxHoundPosition position = store.getPosition(handles[index]);
+            int n = FoxHoundEngine.isGameOver(position) ? 0 : position.generateMoves(moves);
+            if (n == 0) {
+                store.remove(handles[index]);
+                handles[index] = store.create(pool[index % POOL], 0);
+                finished++;
+            }
+            else if (!store.applyMove(handles[index], moves[random.nextInt(n)])) {
+                throw new IllegalStateException("Move not applied");
+            }
+        }
+        long play = System.nanoTime() - start;
+        System.out.printf("  turn and counter: %.0f ns, players: %.0f ns, get, move and update: %.0f ns"
+            + " (%d games restarted, %d)%n", header / (double) operations, unpack / (double) operations,
+            play / (double) operations, finished, sink);
+    }
+}
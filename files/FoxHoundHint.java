@@ -0,0 +1,171 @@
+import java.io.PrintStream;
+
+/**
+ * A hint for the figure to move, searched in the background.
+ *
+ * When a hint is asked for, the engine searches the current position
+ * on its own thread with increasing depth and prints every new best
+ * move it finds, while the game loop keeps reading input. The best
+ * move found so far can be taken at any moment. The search ends when
+ * it reached its depth or time limit, or when it is cancelled because
+ * the position changed.
+ */
+public class FoxHoundHint {
+
+    /** Largest depth a hint is searched to. */
+    private static final int MAX_DEPTH = 40;
+    /** Longest time a hint is searched for, in milliseconds. */
+    private static final long MAX_MILLIS = 30_000;
+    /** Transposition table size of the hint engine. */
+    private static final int TABLE_BITS = 18;
+
+    private final FoxHoundEngine engine;
+    private final PrintStream out;
+
+    /** Background thread of the current search, guarded by this object. */
+    private Thread searcher;
+    /** Position of the current search, guarded by this object. */
+    private FoxHoundPosition position;
+    /** Best move found so far, guarded by this object. */
+    private int best = FoxHoundPosition.NO_MOVE;
+    /** Depth the best move was found at, guarded by this object. */
+    private int bestDepth;
+
+    /**
+     * Create a hint searcher with its own engine and the default weights.
+     *
+     * @param out a PrintStream to print the suggestions to
+     */
+    public FoxHoundHint(PrintStream out) {
+        this(new FoxHoundEval(), out);
+    }
+
+    /**
+     * Create a hint searcher with its own engine.
+     *
+     * @param eval the evaluation function of the engine
+     * @param out a PrintStream to print the suggestions to
+     */
+    public FoxHoundHint(FoxHoundEval eval, PrintStream out) {
+        this(new FoxHoundEngine(eval, TABLE_BITS), out);
+    }
+
+    /**
+     * Create a hint searcher with a given engine.
+     *
+     * @param engine the engine searching the hints
+     * @param out a PrintStream to print the suggestions to
+     */
+    public FoxHoundHint(FoxHoundEngine engine, PrintStream out) {
+        this.engine = engine;
+        this.out = out;
+    }
+
+    /**
+     * Start searching a hint for a position, unless the same position is
+     * already being searched. The call returns immediately.
+     *
+     * @param dim an int for the board dimension
+     * @param players array of the positions of all figures
+     * @param turn a char for the figure to move
+     */
+    public void start(int dim, String[] players, char turn) {
+        FoxHoundPosition next = new FoxHoundPosition(dim, players, turn);
+        synchronized (this) {
+            if (next.equals(position)) {
+                if (best != FoxHoundPosition.NO_MOVE) {
+                    print(best, bestDepth);
+                }
+                return;
+            }
+        }
+        cancel();
+        synchronized (this) {
+            position = next;
+            FoxHoundPosition root = next.copy();
+            searcher = new Thread(() -> search(root), "foxhound-hint");
+            searcher.setDaemon(true);
+            searcher.start();
+        }
+    }
+
+    /**
+     * Best move found so far.
+     *
+     * @return a String array with origin and destination coordinate, or null if none was found yet
+     */
+    public synchronized String[] getBest() {
+        if (best == FoxHoundPosition.NO_MOVE) {
+            return null;
+        }
+        return position.moveToString(best).split(" ");
+    }
+
+    /**
+     * Stop the current search and forget its hint. Returns once the
+     * search printed its last suggestion.
+     */
+    public void cancel() {
+        Thread thread;
+        synchronized (this) {
+            thread = searcher;
+            searcher = null;
+            position = null;
+            best = FoxHoundPosition.NO_MOVE;
+            bestDepth = 0;
+        }
+        // the search may not have started yet when it is first stopped, so keep stopping it
+        while (thread != null && thread.isAlive()) {
+            engine.stop();
+            try {
+                thread.join(10);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    /**
+     * Run the search of a hint on the background thread.
+     *
+     * @param root the position to search
+     */
+    private void search(FoxHoundPosition root) {
+        Thread self = Thread.currentThread();
+        FoxHoundEngine.Result result = engine.search(root, MAX_DEPTH, MAX_MILLIS, iteration -> {
+            synchronized (this) {
+                if (searcher != self || iteration.move == FoxHoundPosition.NO_MOVE) {
+                    return;
+                }
+                boolean changed = iteration.move != best;
+                best = iteration.move;
+                bestDepth = iteration.depth;
+                if (changed) {
+                    print(best, bestDepth);
+                }
+            }
+        });
+        synchronized (this) {
+            if (searcher == self) {
+                if (result.move == FoxHoundPosition.NO_MOVE) {
+                    out.println("Hint: no move possible.");
+                }
+                else if (result.isDecided()) {
+                    out.println("Hint: " + (result.score > 0 ? "winning" : "losing")
+                        + " in " + (FoxHoundEngine.WIN_SCORE - Math.abs(result.score)) + " moves.");
+                }
+            }
+        }
+    }
+
+    /**
+     * Print a suggestion.
+     *
+     * @param move an encoded move
+     * @param depth an int for the depth the move was found at
+     */
+    private void print(int move, int depth) {
+        out.println("Hint (depth " + depth + "): " + position.moveToString(move));
+    }
+}
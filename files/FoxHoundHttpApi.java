@@ -0,0 +1,524 @@
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * An HTTP endpoint analysing fox hound positions.
+ *
+ * Positions are posted to {@value #PATH} as a JSON object, or as a
+ * JSON array of objects to analyse several positions at once:
+ * <pre>
+ * {"position": "F C2 D1 F1 H1 D7", "dim": 8, "move": "D7 C6", "depth": 8}
+ * </pre>
+ * Only the position in save file notation is required. The answer
+ * contains for each position who has won, if anybody, the engine score
+ * from the point of view of the Fox, the best move and, if a move was
+ * given, whether it is legal:
+ * <pre>
+ * {"position": "F C2 D1 F1 H1 D7", "winner": null, "score": 412, "bestMove": "D7 C6", "depth": 8, "legal": true}
+ * </pre>
+ * A position which cannot be read or analysed is answered with an
+ * {@code error} member instead. A body which is not valid JSON, or which nests more
+ * than {@value FoxHoundJson#MAX_NESTING} objects and arrays, is answered
+ * with status 400.
+ *
+ * Identical positions requested at the same time are only searched
+ * once, and analyses are kept in a {@link FoxHoundCache} in front of
+ * the engine, which can be saved when the endpoint shuts down.
+ */
+public class FoxHoundHttpApi {
+
+    /** Default port of the endpoint. */
+    public static final int DEFAULT_PORT = 7476;
+    /** Path of the analysis endpoint. */
+    public static final String PATH = "/analyse";
+    /** Search depth used if the request does not give one. */
+    public static final int DEFAULT_DEPTH = 8;
+    /** Largest search depth a request may ask for. */
+    public static final int MAX_REQUEST_DEPTH = 20;
+
+    /** Time limit of a single search in milliseconds. */
+    private static final long SEARCH_MILLIS = 500;
+    /** Number of analyses kept in the cache if none is given. */
+    private static final int CACHE_SIZE = 1 << 16;
+    /** Odd constant mixing the depth into the key of a running search. */
+    private static final long DEPTH_MIX = 0x9E3779B97F4A7C15L;
+    /** Transposition table size of the engine of every worker thread. */
+    private static final int ENGINE_TABLE_BITS = 18;
+    /** Largest accepted request body in bytes. */
+    private static final int MAX_BODY = 1 << 20;
+
+    /**
+     * The result of analysing a position, shared by all requests for it.
+     */
+    private static final class Analysis {
+        final char winner;
+        final int score;
+        final int bestMove;
+        final int depth;
+
+        Analysis(char winner, int score, int bestMove, int depth) {
+            this.winner = winner;
+            this.score = score;
+            this.bestMove = bestMove;
+            this.depth = depth;
+        }
+
+        /**
+         * Pack the analysis into a cache value.
+         *
+         * @return a long with score, best move, depth and winner
+         */
+        long pack() {
+            long winnerBits = winner == FoxHoundUtils.FOX_FIELD ? 1 : winner == FoxHoundUtils.HOUND_FIELD ? 2 : 0;
+            return (score & 0xFFFFFFFFL)
+                | (long) (bestMove & 0xFFFFF) << 32
+                | (long) depth << 52
+                | winnerBits << 60;
+        }
+
+        /**
+         * Unpack an analysis from a cache value.
+         *
+         * @param value a long written by {@link #pack}
+         * @return the analysis
+         */
+        static Analysis unpack(long value) {
+            int move = (int) (value >>> 32 & 0xFFFFF);
+            int winnerBits = (int) (value >>> 60 & 0x3);
+            char winner = winnerBits == 1 ? FoxHoundUtils.FOX_FIELD : winnerBits == 2 ? FoxHoundUtils.HOUND_FIELD : 0;
+            return new Analysis(winner, (int) value, move == 0xFFFFF ? FoxHoundPosition.NO_MOVE : move,
+                (int) (value >>> 52 & 0xFF));
+        }
+    }
+
+    private final InetSocketAddress address;
+    private final ExecutorService executor;
+    private final ThreadLocal<FoxHoundEngine> engines;
+    /** Searches currently running, by position and depth. */
+    private final ConcurrentHashMap<Long, CompletableFuture<Analysis>> inFlight = new ConcurrentHashMap<>();
+    /** Analyses by position key, shared with other users of the cache. */
+    private final FoxHoundCache cache;
+    private final LongAdder positions = new LongAdder();
+    private final LongAdder cacheHits = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder searches = new LongAdder();
+    private HttpServer server;
+
+    static {
+        // answers are small, so do not let them wait for more data to send
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+    }
+
+    /**
+     * Create an endpoint. It does not listen before {@link #start} is called.
+     *
+     * @param address the address to listen on, port 0 for any free port
+     * @param threads an int for the number of worker threads
+     */
+    public FoxHoundHttpApi(InetSocketAddress address, int threads) {
+        this(address, threads, new FoxHoundCache(CACHE_SIZE));
+    }
+
+    /**
+     * Create an endpoint with a given analysis cache. It does not listen before {@link #start} is called.
+     *
+     * @param address the address to listen on, port 0 for any free port
+     * @param threads an int for the number of worker threads
+     * @param cache the cache of analyses, which may already hold analyses of an earlier run
+     */
+    public FoxHoundHttpApi(InetSocketAddress address, int threads, FoxHoundCache cache) {
+        this(address, threads, cache, () -> new FoxHoundEngine(new FoxHoundEval(), ENGINE_TABLE_BITS));
+    }
+
+    /**
+     * Create an endpoint whose worker threads search with engines of a given kind.
+     *
+     * @param address the address to listen on, port 0 for any free port
+     * @param threads an int for the number of worker threads
+     * @param cache the cache of analyses, which may already hold analyses of an earlier run
+     * @param engines creates the engine of each worker thread
+     */
+    FoxHoundHttpApi(InetSocketAddress address, int threads, FoxHoundCache cache, Supplier<FoxHoundEngine> engines) {
+        this.address = address;
+        this.cache = cache;
+        this.engines = ThreadLocal.withInitial(engines);
+        AtomicInteger count = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(threads, task -> {
+            Thread thread = new Thread(task, "foxhound-http-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Bind the server socket and start answering requests.
+     *
+     * @throws IOException if the socket cannot be opened
+     */
+    public void start() throws IOException {
+        server = HttpServer.create(address, 1024);
+        server.createContext(PATH, this::handle);
+        server.setExecutor(executor);
+        server.start();
+    }
+
+    /**
+     * Port the endpoint listens on.
+     *
+     * @return an int for the local port
+     */
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * Stop answering requests.
+     */
+    public void stop() {
+        server.stop(0);
+        executor.shutdownNow();
+        try {
+            executor.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Number of positions analysed, including batched ones.
+     *
+     * @return a long for the number of positions
+     */
+    public long getPositions() {
+        return positions.sum();
+    }
+
+    /**
+     * Number of positions answered from the cache.
+     *
+     * @return a long for the number of cache hits
+     */
+    public long getCacheHits() {
+        return cacheHits.sum();
+    }
+
+    /**
+     * The cache of analyses of this endpoint.
+     *
+     * @return the cache with its metrics
+     */
+    public FoxHoundCache getCache() {
+        return cache;
+    }
+
+    /**
+     * Number of positions answered by waiting for a search of another request.
+     *
+     * @return a long for the number of coalesced positions
+     */
+    public long getCoalesced() {
+        return coalesced.sum();
+    }
+
+    /**
+     * Number of searches run by the engines.
+     *
+     * @return a long for the number of searches
+     */
+    public long getSearches() {
+        return searches.sum();
+    }
+
+    /**
+     * Answer a single HTTP request.
+     *
+     * @param exchange the request and its response
+     * @throws IOException if the connection fails
+     */
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            if (!exchange.getRequestMethod().equals("POST")) {
+                exchange.getResponseHeaders().set("Allow", "POST");
+                respond(exchange, 405, "{\"error\":\"Only POST is supported\"}");
+                return;
+            }
+            String body;
+            try (InputStream in = exchange.getRequestBody()) {
+                byte[] bytes = in.readNBytes(MAX_BODY + 1);
+                if (bytes.length > MAX_BODY) {
+                    respond(exchange, 413, "{\"error\":\"Request too large\"}");
+                    return;
+                }
+                body = new String(bytes, StandardCharsets.UTF_8);
+            }
+            Object request;
+            try {
+                request = FoxHoundJson.parse(body);
+            } catch (IllegalArgumentException e) {
+                StringBuilder out = new StringBuilder("{\"error\":");
+                respond(exchange, 400, FoxHoundJson.quote(out, e.getMessage()).append('}').toString());
+                return;
+            }
+            String answer;
+            try {
+                answer = answer(request);
+            } catch (RuntimeException e) {
+                // never leave the client without a status
+                respond(exchange, 500, "{\"error\":\"Internal error\"}");
+                return;
+            }
+            respond(exchange, 200, answer);
+        }
+    }
+
+    /**
+     * Answer a parsed request, which is a single object or an array of objects.
+     *
+     * @param request the parsed JSON request
+     * @return a String with the JSON answer
+     */
+    String answer(Object request) {
+        StringBuilder out = new StringBuilder();
+        if (request instanceof List) {
+            out.append('[');
+            List<?> items = (List<?>) request;
+            for (int i = 0; i < items.size(); i++) {
+                if (i > 0) {
+                    out.append(',');
+                }
+                answerItem(items.get(i), out);
+            }
+            out.append(']');
+        }
+        else {
+            answerItem(request, out);
+        }
+        return out.toString();
+    }
+
+    /**
+     * Answer a single position of a request.
+     *
+     * @param item the parsed JSON object of the position
+     * @param out the builder to append the JSON answer to
+     */
+    private void answerItem(Object item, StringBuilder out) {
+        positions.increment();
+        out.append('{');
+        int start = out.length();
+        try {
+            if (!(item instanceof Map)) {
+                throw new IllegalArgumentException("Expected an object");
+            }
+            Map<?, ?> fields = (Map<?, ?>) item;
+            Object text = fields.get("position");
+            if (!(text instanceof String)) {
+                throw new IllegalArgumentException("Missing position");
+            }
+            int dim = intField(fields, "dim", FoxHoundUtils.DEFAULT_DIM);
+            int depth = Math.max(1, Math.min(MAX_REQUEST_DEPTH, intField(fields, "depth", DEFAULT_DEPTH)));
+            FoxHoundPosition position = FoxHoundPosition.parse(dim, (String) text);
+
+            FoxHoundJson.quote(out.append("\"position\":"), position.toSaveLine().trim());
+            Analysis analysis = analyse(position, depth);
+            out.append(",\"winner\":");
+            if (analysis.winner == 0) {
+                out.append("null");
+            }
+            else {
+                FoxHoundJson.quote(out, String.valueOf(analysis.winner));
+            }
+            out.append(",\"score\":").append(analysis.score);
+            out.append(",\"bestMove\":");
+            if (analysis.bestMove == FoxHoundPosition.NO_MOVE) {
+                out.append("null");
+            }
+            else {
+                FoxHoundJson.quote(out, position.moveToString(analysis.bestMove));
+            }
+            out.append(",\"depth\":").append(analysis.depth);
+
+            Object move = fields.get("move");
+            if (move instanceof String) {
+                out.append(",\"legal\":").append(analysis.winner == 0 && isLegal(position, (String) move));
+            }
+        } catch (IllegalArgumentException e) {
+            out.setLength(start);
+            FoxHoundJson.quote(out.append("\"error\":"), e.getMessage());
+        } catch (RuntimeException e) {
+            // a failed search only fails its own position of a batch
+            out.setLength(start);
+            FoxHoundJson.quote(out.append("\"error\":"), "Analysis failed: " + e);
+        }
+        out.append('}');
+    }
+
+    /**
+     * Read an optional whole number member of a request.
+     *
+     * @param fields the members of the request
+     * @param name the name of the member
+     * @param defaultValue the value if the member is missing
+     * @return an int for the value of the member
+     * @throws IllegalArgumentException if the member is not a whole number
+     */
+    private static int intField(Map<?, ?> fields, String name, int defaultValue) {
+        Object value = fields.get(name);
+        if (value == null) {
+            return defaultValue;
+        }
+        if (!(value instanceof Double) || (Double) value != Math.rint((Double) value)) {
+            throw new IllegalArgumentException("Invalid " + name);
+        }
+        return ((Double) value).intValue();
+    }
+
+    /**
+     * Determine if a move is legal in a position.
+     *
+     * @param position the position to move in
+     * @param move a String with origin and destination, e.g. {@code E8 D7} or {@code E8-D7}
+     * @return a boolean whether the figure to move may play the move
+     */
+    private static boolean isLegal(FoxHoundPosition position, String move) {
+        String[] coords = move.trim().split("[\\s-]+");
+        if (coords.length != 2) {
+            return false;
+        }
+        int encoded = position.parseMove(coords[0], coords[1]);
+        return encoded != FoxHoundPosition.NO_MOVE && position.isLegal(encoded);
+    }
+
+    /**
+     * Analyse a position, using the cache and searches of other requests if possible.
+     *
+     * An analysis in the cache is used if it was searched at least as
+     * deep as asked for, or if it decided the game.
+     *
+     * @param position the position to analyse
+     * @param depth an int for the search depth
+     * @return the analysis of the position
+     */
+    private Analysis analyse(FoxHoundPosition position, int depth) {
+        long cached = cache.get(position.key());
+        if (cached != FoxHoundCache.MISSING) {
+            Analysis analysis = Analysis.unpack(cached);
+            if (analysis.depth >= depth || analysis.winner != 0
+                    || Math.abs(analysis.score) > FoxHoundEngine.WIN_BOUND) {
+                cacheHits.increment();
+                return analysis;
+            }
+        }
+
+        Long key = position.key() ^ depth * DEPTH_MIX;
+        CompletableFuture<Analysis> mine = new CompletableFuture<>();
+        CompletableFuture<Analysis> running = inFlight.putIfAbsent(key, mine);
+        if (running != null) {
+            coalesced.increment();
+            try {
+                return running.join();
+            } catch (CompletionException e) {
+                // fail the same way as the request which ran the search
+                if (e.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) e.getCause();
+                }
+                throw e;
+            }
+        }
+        try {
+            Analysis analysis = search(position, depth);
+            cache.put(position.key(), analysis.pack());
+            mine.complete(analysis);
+            return analysis;
+        } catch (RuntimeException e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, mine);
+        }
+    }
+
+    /**
+     * Decide or search a position with the engine of the current thread.
+     *
+     * @param position the position to search
+     * @param depth an int for the search depth
+     * @return the analysis of the position
+     */
+    private Analysis search(FoxHoundPosition position, int depth) {
+        if (position.isFoxWin()) {
+            return new Analysis(FoxHoundUtils.FOX_FIELD, FoxHoundEngine.WIN_SCORE, FoxHoundPosition.NO_MOVE, 0);
+        }
+        if (position.isHoundWin()) {
+            return new Analysis(FoxHoundUtils.HOUND_FIELD, -FoxHoundEngine.WIN_SCORE, FoxHoundPosition.NO_MOVE, 0);
+        }
+        if (position.generateMoves(new int[FoxHoundPosition.MAX_MOVES]) == 0) {
+            // the hounds cannot move any more
+            return new Analysis(FoxHoundUtils.FOX_FIELD, FoxHoundEngine.WIN_SCORE, FoxHoundPosition.NO_MOVE, 0);
+        }
+        searches.increment();
+        FoxHoundEngine.Result result = engines.get().search(position, depth, SEARCH_MILLIS, null);
+        return new Analysis((char) 0, result.foxScore(), result.move, result.depth);
+    }
+
+    /**
+     * Send a JSON response.
+     *
+     * @param exchange the request to respond to
+     * @param status an int for the HTTP status code
+     * @param json a String with the response body
+     * @throws IOException if the connection fails
+     */
+    private static void respond(HttpExchange exchange, int status, String json) throws IOException {
+        byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    /**
+     * Entry method of the analysis endpoint.
+     *
+     * @param args contain the port, the number of worker threads and a cache file, all optional
+     * @throws IOException if the server socket cannot be opened, or the cache file or weights file cannot be read
+     */
+    public static void main(String[] args) throws IOException {
+        FoxHoundMetrics.register();
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        FoxHoundCache cache = new FoxHoundCache(CACHE_SIZE);
+        if (args.length > 2) {
+            Path cacheFile = Paths.get(args[2]);
+            System.out.println("Loaded " + cache.load(cacheFile) + " cached analyses from " + cacheFile);
+            cache.saveOnShutdown(cacheFile);
+        }
+        FoxHoundEval eval = FoxHoundEval.load();
+        FoxHoundHttpApi api = new FoxHoundHttpApi(new InetSocketAddress(port), threads, cache,
+            () -> new FoxHoundEngine(eval, ENGINE_TABLE_BITS));
+        api.start();
+        System.out.println("Fox and Hounds analysis listening on http://localhost:" + api.getPort() + PATH);
+    }
+}
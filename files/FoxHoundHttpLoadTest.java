@@ -0,0 +1,170 @@
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A localhost load test of the {@link FoxHoundHttpApi}.
+ *
+ * An endpoint is started in the same process and several client
+ * threads post positions taken from random games for a fixed time.
+ * Because the positions repeat, and a few of them are asked for much
+ * more often than the others, the test exercises the cache and the
+ * coalescing of identical requests as well as the engine. It reports
+ * throughput and latency percentiles of the requests.
+ * <pre>
+ * java FoxHoundHttpLoadTest [clients] [seconds] [positions] [batch size]
+ * </pre>
+ */
+public class FoxHoundHttpLoadTest {
+
+    /** Default number of client threads. */
+    private static final int DEFAULT_CLIENTS = 16;
+    /** Default duration of the measurement in seconds. */
+    private static final int DEFAULT_SECONDS = 10;
+    /** Default number of distinct positions posted. */
+    private static final int DEFAULT_POSITIONS = 2000;
+    /** Default number of positions per request. */
+    private static final int DEFAULT_BATCH = 1;
+    /** Number of request bodies which are asked for much more often than the others. */
+    private static final int HOT_BODIES = 8;
+    /** Share of the requests asking for one of the hot bodies. */
+    private static final double HOT_SHARE = 0.2;
+    /** Search depth asked for. */
+    private static final int DEPTH = 6;
+    /** Maximum number of latencies kept per client thread. */
+    private static final int MAX_SAMPLES = 1 << 17;
+
+    /**
+     * Create request bodies from positions of random games.
+     *
+     * @param count an int for the number of positions
+     * @param batch an int for the number of positions per request
+     * @param seed a long for the random games
+     * @return a String array of JSON request bodies
+     */
+    private static String[] createBodies(int count, int batch, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        int[] moves = new int[FoxHoundPosition.MAX_MOVES];
+        List<String> items = new ArrayList<>();
+        while (items.size() < count) {
+            FoxHoundPosition position = FoxHoundPosition.initial(FoxHoundUtils.DEFAULT_DIM);
+            while (items.size() < count && !FoxHoundEngine.isGameOver(position)) {
+                int moveCount = position.generateMoves(moves);
+                if (moveCount == 0) {
+                    break;
+                }
+                int move = moves[random.nextInt(moveCount)];
+                StringBuilder item = new StringBuilder("{\"position\":");
+                FoxHoundJson.quote(item, position.toSaveLine().trim());
+                FoxHoundJson.quote(item.append(",\"move\":"), position.moveToString(move));
+                items.add(item.append(",\"depth\":").append(DEPTH).append('}').toString());
+                position.makeMove(move);
+            }
+        }
+        String[] bodies = new String[(count + batch - 1) / batch];
+        for (int i = 0; i < bodies.length; i++) {
+            List<String> part = items.subList(i * batch, Math.min(count, (i + 1) * batch));
+            bodies[i] = batch == 1 ? part.get(0) : "[" + String.join(",", part) + "]";
+        }
+        return bodies;
+    }
+
+    /**
+     * Entry method of the load test.
+     *
+     * @param args number of clients, duration in seconds, number of positions and batch size, all optional
+     * @throws Exception if the endpoint cannot be started or a client fails
+     */
+    public static void main(String[] args) throws Exception {
+        int clients = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_CLIENTS;
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_SECONDS;
+        int positions = args.length > 2 ? Integer.parseInt(args[2]) : DEFAULT_POSITIONS;
+        int batch = args.length > 3 ? Integer.parseInt(args[3]) : DEFAULT_BATCH;
+
+        FoxHoundHttpApi api = new FoxHoundHttpApi(new InetSocketAddress("127.0.0.1", 0),
+            Runtime.getRuntime().availableProcessors() * 2);
+        api.start();
+        URI uri = URI.create("http://127.0.0.1:" + api.getPort() + FoxHoundHttpApi.PATH);
+        String[] bodies = createBodies(positions, batch, 7);
+        HttpClient http = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+
+        AtomicLong errors = new AtomicLong();
+        long[][] samples = new long[clients][MAX_SAMPLES];
+        int[] sampleCounts = new int[clients];
+        long end = System.nanoTime() + seconds * 1_000_000_000L;
+        Thread[] threads = new Thread[clients];
+        long start = System.nanoTime();
+        for (int c = 0; c < clients; c++) {
+            int client = c;
+            threads[c] = new Thread(() -> {
+                SplittableRandom random = new SplittableRandom(client);
+                while (System.nanoTime() < end) {
+                    int body = random.nextDouble() < HOT_SHARE
+                        ? random.nextInt(Math.min(HOT_BODIES, bodies.length)) : random.nextInt(bodies.length);
+                    HttpRequest request = HttpRequest.newBuilder(uri)
+                        .POST(HttpRequest.BodyPublishers.ofString(bodies[body]))
+                        .header("Content-Type", "application/json")
+                        .build();
+                    long sent = System.nanoTime();
+                    try {
+                        HttpResponse<String> response = http.send(request, HttpResponse.BodyHandlers.ofString());
+                        if (response.statusCode() != 200 || response.body().contains("\"error\"")) {
+                            errors.incrementAndGet();
+                        }
+                    } catch (Exception e) {
+                        errors.incrementAndGet();
+                        continue;
+                    }
+                    if (sampleCounts[client] < MAX_SAMPLES) {
+                        samples[client][sampleCounts[client]++] = System.nanoTime() - sent;
+                    }
+                }
+            }, "foxhound-http-client-" + c);
+            threads[c].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        double elapsed = (System.nanoTime() - start) / 1e9;
+        api.stop();
+
+        long[] sorted = new long[Arrays.stream(sampleCounts).sum()];
+        int filled = 0;
+        for (int c = 0; c < clients; c++) {
+            System.arraycopy(samples[c], 0, sorted, filled, sampleCounts[c]);
+            filled += sampleCounts[c];
+        }
+        Arrays.sort(sorted);
+        System.out.printf("clients=%d positions=%d batch=%d requests=%d errors=%d%n",
+            clients, positions, batch, sorted.length, errors.get());
+        System.out.printf("throughput=%.0f requests/s (%.0f positions/s)%n",
+            sorted.length / elapsed, api.getPositions() / elapsed);
+        if (sorted.length > 0) {
+            System.out.printf("latency p50=%.3f ms p90=%.3f ms p99=%.3f ms max=%.3f ms%n",
+                percentile(sorted, 0.50), percentile(sorted, 0.90),
+                percentile(sorted, 0.99), sorted[sorted.length - 1] / 1e6);
+        }
+        System.out.printf("searches=%d cache hits=%d coalesced=%d%n",
+            api.getSearches(), api.getCacheHits(), api.getCoalesced());
+        System.out.println("cache " + api.getCache());
+    }
+
+    /**
+     * Read a percentile from sorted samples.
+     *
+     * @param sorted sorted latencies in nanoseconds
+     * @param fraction a double between 0 and 1
+     * @return a double for the percentile in milliseconds
+     */
+    private static double percentile(long[] sorted, double fraction) {
+        int index = (int) Math.min(sorted.length - 1, Math.round(fraction * (sorted.length - 1)));
+        return sorted[index] / 1e6;
+    }
+}
@@ -1,5 +1,13 @@
+import java.io.BufferedReader;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.io.File;
 import java.io.FileWriter;
 import java.util.Scanner;
@@ -12,6 +20,9 @@ import java.util.Scanner;
  */
 public class FoxHoundIO {
 
+    /** Pattern of the line in a save file, see {@link #formatGame}. */
+    private static final String SAVE_LINE = "[FH](\\s[A-H][1-8]){5}";
+
     /**
      * Save the game to a file.
      *
@@ -67,6 +78,9 @@ public class FoxHoundIO {
                 throw new  IllegalArgumentException("Illegal coordinate");
             }
         }
+        FoxHoundEvents.SaveLoad event = new FoxHoundEvents.SaveLoad();
+        event.begin();
+        long start = FoxHoundMetrics.start();
         char returnChar = '#';
         String data = "";
         try {
@@ -74,7 +88,7 @@ public class FoxHoundIO {
             if (!fileToScan.createNewFile()) {
                 Scanner fileScan = new Scanner(fileToScan);
                 data = (fileScan.nextLine()).trim();
-                if (data.matches("[FH](\\s[A-H][1-8]){5}")) {
+                if (data.matches(SAVE_LINE)) {
                     String[] playersArray = (data.substring(2, data.length())).split(" ");
                     returnChar = data.charAt(0);
                     // Update players array
@@ -84,12 +98,43 @@ public class FoxHoundIO {
                 }
             }
         } catch (IOException e) {
+            FoxHoundMetrics.IO_ERRORS.increment();
             System.out.println("An error occurred.");
             e.printStackTrace();
         }
+        FoxHoundMetrics.LOAD.stop(start);
+        commitSaveLoad(event, "load", path, data.length(), returnChar != '#');
         return returnChar;
     }
 
+    /**
+     * Read a saved game without changing anything on disk. Unlike
+     * {@link #loadGame}, a missing file is not created but reported.
+     *
+     * @param path a Path object of the save file
+     * @return the saved position, or null if the file is not a valid save file
+     * @throws IOException if the file cannot be read, e.g. because it does not exist
+     * @throws NullPointerException if the given Path is null
+     */
+    public static FoxHoundPosition readGame(Path path) throws IOException {
+        if (path == null) {
+            throw new NullPointerException("The path is null");
+        }
+        String data;
+        try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            data = reader.readLine();
+        }
+        if (data == null || !data.trim().matches(SAVE_LINE)) {
+            return null;
+        }
+        try {
+            return FoxHoundPosition.parse(FoxHoundUtils.DEFAULT_DIM, data);
+        } catch (IllegalArgumentException e) {
+            // e.g. two figures on the same field
+            return null;
+        }
+    }
+
     /**
      * Determine if writing to a file was successful.
      *
@@ -99,29 +144,102 @@ public class FoxHoundIO {
      * @return boolean value for successful or unsuccessful writing
      */
     public static boolean ifWroteToFile(String[] players, char nextMove, Path path) {
+        FoxHoundEvents.SaveLoad event = new FoxHoundEvents.SaveLoad();
+        event.begin();
+        long start = FoxHoundMetrics.start();
         boolean value = false;
+        String line = formatGame(players, nextMove);
         try {
             File fileToWrite = path.toFile();
             if (fileToWrite.createNewFile()) {
                 try {
                     FileWriter fileWriter = new FileWriter(fileToWrite);
-                    fileWriter.write(nextMove);
-                    fileWriter.write(" ");
-                    for (String p: players) {
-                        fileWriter.write(p + " ");
-                    }
+                    fileWriter.write(line);
                     value = true;
                     fileWriter.close();
                 } catch (IOException e){
+                    FoxHoundMetrics.IO_ERRORS.increment();
                     System.err.println("Couldn`t write to file.");
                     e.printStackTrace();
                 }
             }
         } catch (IOException e) {
+            FoxHoundMetrics.IO_ERRORS.increment();
             System.out.println("Couldn`t create new file.");
             e.printStackTrace();
         }
+        FoxHoundMetrics.SAVE.stop(start);
+        commitSaveLoad(event, "save", path, value ? line.length() : 0, value);
         return value;
     }
 
+    /**
+     * Write a save or load event if it is recorded.
+     *
+     * @param event the event started before the operation
+     * @param operation a String naming the operation
+     * @param path the Path of the save file
+     * @param size an int for the number of characters written or read
+     * @param success a boolean whether the operation succeeded
+     */
+    private static void commitSaveLoad(FoxHoundEvents.SaveLoad event, String operation, Path path,
+                                       int size, boolean success) {
+        event.end();
+        if (event.shouldCommit()) {
+            event.operation = operation;
+            event.path = path.toString();
+            event.size = size;
+            event.success = success;
+            event.commit();
+        }
+    }
+
+    /**
+     * Write a file so that a crash never leaves it torn. The content is
+     * written to a temporary file in the same directory, forced to the
+     * disk and then renamed over the file. If the file system cannot
+     * rename atomically, the file is replaced by a plain rename.
+     *
+     * @param path the file to write
+     * @param prefix a String the name of the temporary file starts with
+     * @param content the text to write in UTF-8
+     * @throws IOException if writing or renaming fails, the temporary file is removed then
+     */
+    static void writeAtomically(Path path, String prefix, String content) throws IOException {
+        Path target = path.toAbsolutePath();
+        Path tmp = Files.createTempFile(target.getParent(), prefix, ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.WRITE)) {
+                ByteBuffer buffer = StandardCharsets.UTF_8.encode(content);
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                // the data has to be on disk before the rename makes it the file
+                channel.force(true);
+            }
+            try {
+                Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    /**
+     * Format the game as the single line stored in a save file.
+     *
+     * @param players array of the positions of all figures
+     * @param nextMove a character representing the figure to move next
+     * @return a String with the figure to move next followed by all positions
+     */
+    public static String formatGame(String[] players, char nextMove) {
+        StringBuilder line = new StringBuilder(players.length * 4 + 2);
+        line.append(nextMove).append(' ');
+        for (String p: players) {
+            line.append(p).append(' ');
+        }
+        return line.toString();
+    }
 }
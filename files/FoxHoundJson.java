@@ -0,0 +1,315 @@
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A minimal JSON reader and writer for the fox hound network services.
+ *
+ * Objects are read as {@link Map}, arrays as {@link List}, numbers as
+ * {@link Double}, and {@code true}, {@code false} and {@code null} as
+ * the matching Java values. Only what the services need is supported.
+ */
+public class FoxHoundJson {
+
+    /** Largest number of objects and arrays nested in each other. */
+    public static final int MAX_NESTING = 64;
+
+    private final String text;
+    private int index;
+    /** Number of objects and arrays the current index is in. */
+    private int nesting;
+
+    /**
+     * Create a reader for a JSON text.
+     *
+     * @param text the text to read
+     */
+    private FoxHoundJson(String text) {
+        this.text = text;
+    }
+
+    /**
+     * Read a JSON text.
+     *
+     * @param text the text to read
+     * @return the value of the text
+     * @throws IllegalArgumentException if the text is not valid JSON or nests
+     *         more than {@value #MAX_NESTING} objects and arrays
+     */
+    public static Object parse(String text) {
+        FoxHoundJson reader = new FoxHoundJson(text);
+        Object value = reader.readValue();
+        reader.skipSpace();
+        if (reader.index != text.length()) {
+            throw reader.error("Unexpected text after value");
+        }
+        return value;
+    }
+
+    /**
+     * Append a String as a quoted JSON string.
+     *
+     * @param out the builder to append to
+     * @param value the String to quote
+     * @return the builder
+     */
+    public static StringBuilder quote(StringBuilder out, String value) {
+        out.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                    out.append("\\\"");
+                    break;
+                case '\\':
+                    out.append("\\\\");
+                    break;
+                case '\n':
+                    out.append("\\n");
+                    break;
+                case '\r':
+                    out.append("\\r");
+                    break;
+                case '\t':
+                    out.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        out.append(String.format("\\u%04x", (int) c));
+                    }
+                    else {
+                        out.append(c);
+                    }
+            }
+        }
+        return out.append('"');
+    }
+
+    /**
+     * Read the value at the current index.
+     *
+     * @return the value read
+     */
+    private Object readValue() {
+        skipSpace();
+        if (index >= text.length()) {
+            throw error("Unexpected end of text");
+        }
+        char c = text.charAt(index);
+        if ((c == '{' || c == '[') && nesting == MAX_NESTING) {
+            throw error("Nesting deeper than " + MAX_NESTING);
+        }
+        switch (c) {
+            case '{':
+                return readObject();
+            case '[':
+                return readArray();
+            case '"':
+                return readString();
+            case 't':
+                return readWord("true", Boolean.TRUE);
+            case 'f':
+                return readWord("false", Boolean.FALSE);
+            case 'n':
+                return readWord("null", null);
+            default:
+                if (c == '-' || (c >= '0' && c <= '9')) {
+                    return readNumber();
+                }
+                throw error("Unexpected character '" + c + "'");
+        }
+    }
+
+    /**
+     * Read an object.
+     *
+     * @return a Map with the members in order
+     */
+    private Map<String, Object> readObject() {
+        Map<String, Object> object = new LinkedHashMap<>();
+        index++;
+        skipSpace();
+        if (peek() == '}') {
+            index++;
+            return object;
+        }
+        nesting++;
+        while (true) {
+            skipSpace();
+            if (peek() != '"') {
+                throw error("Expected member name");
+            }
+            String name = readString();
+            skipSpace();
+            expect(':');
+            object.put(name, readValue());
+            skipSpace();
+            if (peek() == ',') {
+                index++;
+            }
+            else {
+                expect('}');
+                nesting--;
+                return object;
+            }
+        }
+    }
+
+    /**
+     * Read an array.
+     *
+     * @return a List with the elements in order
+     */
+    private List<Object> readArray() {
+        List<Object> array = new ArrayList<>();
+        index++;
+        skipSpace();
+        if (peek() == ']') {
+            index++;
+            return array;
+        }
+        nesting++;
+        while (true) {
+            array.add(readValue());
+            skipSpace();
+            if (peek() == ',') {
+                index++;
+            }
+            else {
+                expect(']');
+                nesting--;
+                return array;
+            }
+        }
+    }
+
+    /**
+     * Read a quoted string.
+     *
+     * @return the String without quotes and escapes
+     */
+    private String readString() {
+        StringBuilder out = new StringBuilder();
+        index++;
+        while (true) {
+            if (index >= text.length()) {
+                throw error("Unterminated string");
+            }
+            char c = text.charAt(index++);
+            if (c == '"') {
+                return out.toString();
+            }
+            if (c != '\\') {
+                out.append(c);
+                continue;
+            }
+            if (index >= text.length()) {
+                throw error("Unterminated string");
+            }
+            char e = text.charAt(index++);
+            switch (e) {
+                case 'n':
+                    out.append('\n');
+                    break;
+                case 'r':
+                    out.append('\r');
+                    break;
+                case 't':
+                    out.append('\t');
+                    break;
+                case 'b':
+                    out.append('\b');
+                    break;
+                case 'f':
+                    out.append('\f');
+                    break;
+                case 'u':
+                    if (index + 4 > text.length()) {
+                        throw error("Invalid escape");
+                    }
+                    try {
+                        out.append((char) Integer.parseInt(text.substring(index, index + 4), 16));
+                    } catch (NumberFormatException ex) {
+                        throw error("Invalid escape");
+                    }
+                    index += 4;
+                    break;
+                default:
+                    out.append(e);
+            }
+        }
+    }
+
+    /**
+     * Read a number.
+     *
+     * @return a Double for the number
+     */
+    private Double readNumber() {
+        int start = index;
+        while (index < text.length() && "+-0123456789.eE".indexOf(text.charAt(index)) >= 0) {
+            index++;
+        }
+        try {
+            return Double.valueOf(text.substring(start, index));
+        } catch (NumberFormatException e) {
+            throw error("Invalid number");
+        }
+    }
+
+    /**
+     * Read a literal word.
+     *
+     * @param word the expected word
+     * @param value the value of the word
+     * @return the value of the word
+     */
+    private Object readWord(String word, Object value) {
+        if (!text.startsWith(word, index)) {
+            throw error("Expected " + word);
+        }
+        index += word.length();
+        return value;
+    }
+
+    /**
+     * Skip white space.
+     */
+    private void skipSpace() {
+        while (index < text.length() && Character.isWhitespace(text.charAt(index))) {
+            index++;
+        }
+    }
+
+    /**
+     * The character at the current index.
+     *
+     * @return the current char, or 0 at the end of the text
+     */
+    private char peek() {
+        return index < text.length() ? text.charAt(index) : 0;
+    }
+
+    /**
+     * Read an expected character.
+     *
+     * @param c the char expected at the current index
+     */
+    private void expect(char c) {
+        if (peek() != c) {
+            throw error("Expected '" + c + "'");
+        }
+        index++;
+    }
+
+    /**
+     * Create an exception for invalid text at the current index.
+     *
+     * @param message a String describing the problem
+     * @return the exception to throw
+     */
+    private IllegalArgumentException error(String message) {
+        return new IllegalArgumentException(message + " at index " + index);
+    }
+}
@@ -0,0 +1,301 @@
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.SplittableRandom;
+
+/**
+ * A local load generator for the {@link FoxHoundServer}.
+ *
+ * It opens many client connections from a single thread, lets them
+ * play random valid moves against each other and measures the round
+ * trip time from sending a move until the server confirms it.
+ *
+ * Without a host argument a server is started in the same process
+ * on a free port, so no outside service is needed:
+ * <pre>
+ * java FoxHoundLoadGenerator [sessions] [seconds] [host port]
+ * </pre>
+ */
+public class FoxHoundLoadGenerator {
+
+    /** Default number of client connections. */
+    private static final int DEFAULT_SESSIONS = 1000;
+    /** Default duration of the measurement in seconds. */
+    private static final int DEFAULT_SECONDS = 10;
+    /** Maximum number of round trip times kept for the percentiles. */
+    private static final int MAX_SAMPLES = 1 << 22;
+    /** Size of the read buffer. */
+    private static final int BUFFER_SIZE = 4096;
+
+    /**
+     * The state of a single client connection.
+     */
+    private static final class Client {
+        final SocketChannel channel;
+        final StringBuilder line = new StringBuilder();
+        final int[] moves = new int[FoxHoundPosition.MAX_MOVES];
+        FoxHoundPosition position;
+        char figure;
+        long sentAt;
+        ByteBuffer pending;
+
+        Client(SocketChannel channel) {
+            this.channel = channel;
+        }
+    }
+
+    private final SplittableRandom random = new SplittableRandom(42);
+    private final ByteBuffer readBuffer = ByteBuffer.allocate(BUFFER_SIZE);
+    private final long[] samples = new long[MAX_SAMPLES];
+    private int sampleCount;
+    private long roundTrips;
+    private long games;
+    private long errors;
+    private int dim;
+
+    /**
+     * Run the load against a server.
+     *
+     * @param address the address of the server
+     * @param sessions an int for the number of client connections
+     * @param seconds an int for the duration of the measurement
+     * @param dim an int for the board dimension of all games
+     * @throws IOException if connecting fails
+     */
+    public void run(InetSocketAddress address, int sessions, int seconds, int dim) throws IOException {
+        this.dim = dim;
+        Selector selector = Selector.open();
+        Client[] clients = new Client[sessions];
+        for (int i = 0; i < sessions; i++) {
+            SocketChannel channel = SocketChannel.open(address);
+            channel.socket().setTcpNoDelay(true);
+            channel.configureBlocking(false);
+            clients[i] = new Client(channel);
+            SelectionKey key = channel.register(selector, SelectionKey.OP_READ, clients[i]);
+            send(clients[i], "JOIN " + dim);
+            write(clients[i], key);
+        }
+        System.out.println("Connected " + sessions + " sessions");
+
+        long start = System.nanoTime();
+        long end = start + seconds * 1_000_000_000L;
+        while (System.nanoTime() < end) {
+            selector.select(100);
+            Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+            while (keys.hasNext()) {
+                SelectionKey key = keys.next();
+                keys.remove();
+                Client client = (Client) key.attachment();
+                if (key.isWritable()) {
+                    write(client, key);
+                }
+                if (key.isValid() && key.isReadable()) {
+                    read(client, key);
+                }
+            }
+        }
+        double elapsed = (System.nanoTime() - start) / 1e9;
+        for (Client client : clients) {
+            client.channel.close();
+        }
+        selector.close();
+        report(sessions, elapsed);
+    }
+
+    /**
+     * Read the responses of the server for a client.
+     *
+     * @param client the client to read for
+     * @param key the selection key of the client
+     * @throws IOException if reading fails
+     */
+    private void read(Client client, SelectionKey key) throws IOException {
+        readBuffer.clear();
+        int read = client.channel.read(readBuffer);
+        if (read < 0) {
+            key.cancel();
+            return;
+        }
+        for (int i = 0; i < read; i++) {
+            char c = (char) readBuffer.get(i);
+            if (c == '\n') {
+                handle(client, client.line.toString());
+                client.line.setLength(0);
+            }
+            else {
+                client.line.append(c);
+            }
+        }
+        if (client.pending != null) {
+            write(client, key);
+        }
+    }
+
+    /**
+     * Handle a response line of the server.
+     *
+     * @param client the client the response is for
+     * @param response the response line
+     */
+    private void handle(Client client, String response) {
+        String[] tokens = response.split(" ");
+        switch (tokens[0]) {
+            case "START":
+                client.figure = tokens[1].charAt(0);
+                client.position = FoxHoundPosition.initial(dim);
+                games++;
+                playIfTurn(client);
+                break;
+            case "OK":
+                record(System.nanoTime() - client.sentAt);
+                break;
+            case "MOVED":
+                client.position.makeMove(client.position.parseMove(tokens[1], tokens[2]));
+                playIfTurn(client);
+                break;
+            case "WIN":
+            case "END":
+                client.position = null;
+                send(client, "JOIN " + dim);
+                break;
+            default:
+                errors++;
+        }
+    }
+
+    /**
+     * Send a random valid move if it is the turn of the client.
+     *
+     * @param client the client to move for
+     */
+    private void playIfTurn(Client client) {
+        FoxHoundPosition position = client.position;
+        if (position == null || position.getTurn() != client.figure
+                || position.isFoxWin() || position.isHoundWin()) {
+            // not our turn, or the game is over and the result is on its way
+            return;
+        }
+        int count = position.generateMoves(client.moves);
+        if (count == 0) {
+            return;
+        }
+        int move = client.moves[random.nextInt(count)];
+        String text = position.moveToString(move);
+        position.makeMove(move);
+        client.sentAt = System.nanoTime();
+        send(client, "MOVE " + text);
+    }
+
+    /**
+     * Queue a request line for a client.
+     *
+     * @param client the client to send for
+     * @param request the request line without line break
+     */
+    private void send(Client client, String request) {
+        byte[] bytes = (request + "\n").getBytes(StandardCharsets.US_ASCII);
+        if (client.pending == null) {
+            client.pending = ByteBuffer.wrap(bytes);
+        }
+        else {
+            ByteBuffer joined = ByteBuffer.allocate(client.pending.remaining() + bytes.length);
+            joined.put(client.pending).put(bytes).flip();
+            client.pending = joined;
+        }
+    }
+
+    /**
+     * Write the pending requests of a client.
+     *
+     * @param client the client to write for
+     * @param key the selection key of the client
+     * @throws IOException if writing fails
+     */
+    private void write(Client client, SelectionKey key) throws IOException {
+        if (client.pending != null) {
+            client.channel.write(client.pending);
+            if (!client.pending.hasRemaining()) {
+                client.pending = null;
+            }
+        }
+        key.interestOps(client.pending == null
+            ? SelectionKey.OP_READ : SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+    }
+
+    /**
+     * Record a round trip time.
+     *
+     * @param nanos a long for the round trip time in nanoseconds
+     */
+    private void record(long nanos) {
+        roundTrips++;
+        if (sampleCount < MAX_SAMPLES) {
+            samples[sampleCount++] = nanos;
+        }
+    }
+
+    /**
+     * Print throughput and round trip percentiles.
+     *
+     * @param sessions an int for the number of connections
+     * @param elapsed a double for the duration in seconds
+     */
+    private void report(int sessions, double elapsed) {
+        long[] sorted = Arrays.copyOf(samples, sampleCount);
+        Arrays.sort(sorted);
+        System.out.printf("sessions=%d games=%d moves=%d errors=%d%n", sessions, games, roundTrips, errors);
+        System.out.printf("throughput=%.0f moves/s%n", roundTrips / elapsed);
+        if (sorted.length > 0) {
+            System.out.printf("round trip p50=%.3f ms p90=%.3f ms p99=%.3f ms max=%.3f ms%n",
+                percentile(sorted, 0.50), percentile(sorted, 0.90),
+                percentile(sorted, 0.99), sorted[sorted.length - 1] / 1e6);
+        }
+    }
+
+    /**
+     * Read a percentile from sorted samples.
+     *
+     * @param sorted sorted round trip times in nanoseconds
+     * @param fraction a double between 0 and 1
+     * @return a double for the percentile in milliseconds
+     */
+    private static double percentile(long[] sorted, double fraction) {
+        int index = (int) Math.min(sorted.length - 1, Math.round(fraction * (sorted.length - 1)));
+        return sorted[index] / 1e6;
+    }
+
+    /**
+     * Entry method of the load generator.
+     *
+     * @param args number of sessions, duration in seconds and optionally host and port of the server
+     * @throws Exception if the server cannot be started or reached
+     */
+    public static void main(String[] args) throws Exception {
+        int sessions = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_SESSIONS;
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_SECONDS;
+        FoxHoundServer server = null;
+        InetSocketAddress address;
+        if (args.length > 3) {
+            address = new InetSocketAddress(args[2], Integer.parseInt(args[3]));
+        }
+        else {
+            server = new FoxHoundServer(new InetSocketAddress("127.0.0.1", 0));
+            server.start();
+            Thread serverThread = new Thread(server, "foxhound-server");
+            serverThread.setDaemon(true);
+            serverThread.start();
+            address = new InetSocketAddress("127.0.0.1", server.getPort());
+        }
+        new FoxHoundLoadGenerator().run(address, sessions, seconds, FoxHoundUtils.DEFAULT_DIM);
+        if (server != null) {
+            System.out.printf("server games=%d moves=%d%n", server.getGamesStarted(), server.getMovesPlayed());
+            server.stop();
+        }
+    }
+}
@@ -0,0 +1,309 @@
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.ToDoubleFunction;
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * In-process metrics of the fox hound program: counters and timers
+ * with a latency histogram.
+ *
+ * Recording is off unless the program is started with
+ * {@code -Dfoxhound.metrics=true} or it is switched on through JMX, see
+ * {@link FoxHoundMetricsMXBean}. While it is off, timing an operation
+ * costs a single read of a volatile flag and no clock is read.
+ * <pre>
+ * long start = FoxHoundMetrics.start();
+ * ...
+ * FoxHoundMetrics.SAVE.stop(start);
+ * </pre>
+ */
+public final class FoxHoundMetrics implements FoxHoundMetricsMXBean {
+
+    /** Name the metrics are registered with in JMX. */
+    public static final String OBJECT_NAME = "foxhound:type=Metrics";
+    /** System property switching recording on at startup. */
+    public static final String ENABLED_PROPERTY = "foxhound.metrics";
+
+    /** Number of histogram buckets, bucket b counts durations below 2^b nanoseconds. */
+    private static final int BUCKETS = 64;
+
+    private static final Map<String, Timer> TIMERS = new ConcurrentHashMap<>();
+    private static final Map<String, Counter> COUNTERS = new ConcurrentHashMap<>();
+    private static final FoxHoundMetrics INSTANCE = new FoxHoundMetrics();
+
+    private static volatile boolean enabled = Boolean.getBoolean(ENABLED_PROPERTY);
+    private static boolean registered;
+
+    /** Validation of moves entered by players. */
+    public static final Timer MOVE_VALIDATION = timer("move.validation");
+    /** Checks whether a side won. */
+    public static final Timer WIN_CHECK = timer("win.check");
+    /** Rendering of the board. */
+    public static final Timer RENDER = timer("board.render");
+    /** Saving of games. */
+    public static final Timer SAVE = timer("game.save");
+    /** Loading of games. */
+    public static final Timer LOAD = timer("game.load");
+    /** Engine searches. */
+    public static final Timer SEARCH = timer("engine.search");
+    /** Moves rejected as invalid. */
+    public static final Counter INVALID_MOVES = counter("move.invalid");
+    /** Failed reads and writes of save files. */
+    public static final Counter IO_ERRORS = counter("io.errors");
+    /** Positions visited by engine searches. */
+    public static final Counter SEARCH_NODES = counter("engine.nodes");
+
+    /**
+     * A number which only grows.
+     */
+    public static final class Counter {
+        private final LongAdder value = new LongAdder();
+
+        /**
+         * Add to the counter if recording is on.
+         *
+         * @param amount a long to add
+         */
+        public void add(long amount) {
+            if (enabled) {
+                value.add(amount);
+            }
+        }
+
+        /**
+         * Add one to the counter if recording is on.
+         */
+        public void increment() {
+            add(1);
+        }
+
+        /**
+         * Current value of the counter.
+         *
+         * @return a long for the value
+         */
+        public long get() {
+            return value.sum();
+        }
+    }
+
+    /**
+     * Number and durations of an operation, with a histogram of the
+     * durations in buckets of powers of two.
+     */
+    public static final class Timer {
+        private final LongAdder count = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+
+        /**
+         * Record the duration of an operation started with {@link FoxHoundMetrics#start}.
+         *
+         * @param start a long returned by {@link FoxHoundMetrics#start}, 0 if recording was off
+         */
+        public void stop(long start) {
+            if (start != 0) {
+                record(System.nanoTime() - start);
+            }
+        }
+
+        /**
+         * Record a duration.
+         *
+         * @param nanos a long for the duration in nanoseconds
+         */
+        public void record(long nanos) {
+            long duration = Math.max(0, nanos);
+            count.increment();
+            totalNanos.add(duration);
+            buckets.incrementAndGet(Math.min(BUCKETS - 1, BUCKETS - Long.numberOfLeadingZeros(duration)));
+        }
+
+        /**
+         * Number of recorded operations.
+         *
+         * @return a long for the number of operations
+         */
+        public long getCount() {
+            return count.sum();
+        }
+
+        /**
+         * Mean duration of the recorded operations.
+         *
+         * @return a double for the mean in microseconds, 0 if nothing was recorded
+         */
+        public double getMeanMicros() {
+            long n = count.sum();
+            return n == 0 ? 0 : totalNanos.sum() / 1e3 / n;
+        }
+
+        /**
+         * Approximate percentile of the durations, the upper end of the
+         * histogram bucket it falls in, so at most twice the real value.
+         *
+         * @param percentile a double between 0 and 100
+         * @return a double for the duration in microseconds, 0 if nothing was recorded
+         */
+        public double getPercentileMicros(double percentile) {
+            long total = 0;
+            long[] counts = new long[BUCKETS];
+            for (int b = 0; b < BUCKETS; b++) {
+                counts[b] = buckets.get(b);
+                total += counts[b];
+            }
+            long rank = (long) Math.ceil(total * percentile / 100);
+            long seen = 0;
+            for (int b = 0; b < BUCKETS; b++) {
+                seen += counts[b];
+                if (seen >= rank && seen > 0) {
+                    return Math.pow(2, b) / 1e3;
+                }
+            }
+            return 0;
+        }
+
+        private void reset() {
+            count.reset();
+            totalNanos.reset();
+            for (int b = 0; b < BUCKETS; b++) {
+                buckets.set(b, 0);
+            }
+        }
+    }
+
+    private FoxHoundMetrics() {
+    }
+
+    /**
+     * Create a timer.
+     *
+     * @param name a String for the name of the timer
+     * @return the new timer
+     */
+    private static Timer timer(String name) {
+        Timer timer = new Timer();
+        TIMERS.put(name, timer);
+        return timer;
+    }
+
+    /**
+     * Create a counter.
+     *
+     * @param name a String for the name of the counter
+     * @return the new counter
+     */
+    private static Counter counter(String name) {
+        Counter counter = new Counter();
+        COUNTERS.put(name, counter);
+        return counter;
+    }
+
+    /**
+     * Start timing an operation.
+     *
+     * @return a long to pass to {@link Timer#stop}, 0 if recording is off
+     */
+    public static long start() {
+        return enabled ? System.nanoTime() | 1 : 0;
+    }
+
+    /**
+     * Register the metrics with the platform MBean server, once.
+     */
+    public static synchronized void register() {
+        if (registered) {
+            return;
+        }
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(INSTANCE, new ObjectName(OBJECT_NAME));
+        } catch (InstanceAlreadyExistsException e) {
+            // registered by another class loader, keep that one
+        } catch (JMException e) {
+            System.err.println("Could not register the metrics: " + e.getMessage());
+        }
+        registered = true;
+    }
+
+    /**
+     * The management interface of the metrics.
+     *
+     * @return the metrics object registered in JMX
+     */
+    public static FoxHoundMetricsMXBean get() {
+        return INSTANCE;
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @Override
+    public void setEnabled(boolean on) {
+        enabled = on;
+    }
+
+    @Override
+    public Map<String, Long> getCounters() {
+        Map<String, Long> values = new TreeMap<>();
+        COUNTERS.forEach((name, counter) -> values.put(name, counter.get()));
+        return values;
+    }
+
+    @Override
+    public Map<String, Long> getCounts() {
+        Map<String, Long> values = new TreeMap<>();
+        TIMERS.forEach((name, timer) -> values.put(name, timer.getCount()));
+        return values;
+    }
+
+    @Override
+    public Map<String, Double> getMeanMicros() {
+        return timerValues(Timer::getMeanMicros);
+    }
+
+    @Override
+    public Map<String, Double> getP99Micros() {
+        return timerValues(timer -> timer.getPercentileMicros(99));
+    }
+
+    @Override
+    public void reset() {
+        COUNTERS.values().forEach(counter -> counter.value.reset());
+        TIMERS.values().forEach(Timer::reset);
+    }
+
+    /**
+     * Compute a value of every timer.
+     *
+     * @param value the function computing the value
+     * @return a Map from timer name to value
+     */
+    private static Map<String, Double> timerValues(ToDoubleFunction<Timer> value) {
+        Map<String, Double> values = new TreeMap<>();
+        TIMERS.forEach((name, timer) -> values.put(name, value.applyAsDouble(timer)));
+        return values;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder summary = new StringBuilder();
+        TIMERS.entrySet().stream().sorted(Map.Entry.comparingByKey()).forEach(entry -> {
+            Timer timer = entry.getValue();
+            if (timer.getCount() > 0) {
+                summary.append(String.format("%s: count=%d mean=%.1f us p99<=%.1f us%n", entry.getKey(),
+                    timer.getCount(), timer.getMeanMicros(), timer.getPercentileMicros(99)));
+            }
+        });
+        getCounters().forEach((name, value) -> summary.append(name).append(": ").append(value)
+            .append(System.lineSeparator()));
+        return summary.toString();
+    }
+}
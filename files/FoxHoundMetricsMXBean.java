@@ -0,0 +1,56 @@
+import java.util.Map;
+
+/**
+ * Management interface of the {@link FoxHoundMetrics}, registered as
+ * {@value FoxHoundMetrics#OBJECT_NAME} so it can be read and switched on
+ * with tools like jconsole.
+ */
+public interface FoxHoundMetricsMXBean {
+
+    /**
+     * Determine if metrics are recorded.
+     *
+     * @return a boolean whether metrics are recorded
+     */
+    boolean isEnabled();
+
+    /**
+     * Switch recording of metrics on or off.
+     *
+     * @param enabled a boolean whether to record metrics
+     */
+    void setEnabled(boolean enabled);
+
+    /**
+     * Values of all counters.
+     *
+     * @return a Map from counter name to value
+     */
+    Map<String, Long> getCounters();
+
+    /**
+     * Number of timed operations of every kind.
+     *
+     * @return a Map from timer name to number of operations
+     */
+    Map<String, Long> getCounts();
+
+    /**
+     * Mean duration of every kind of timed operation.
+     *
+     * @return a Map from timer name to mean duration in microseconds
+     */
+    Map<String, Double> getMeanMicros();
+
+    /**
+     * Approximate 99th percentile of the duration of every kind of timed operation.
+     *
+     * @return a Map from timer name to duration in microseconds
+     */
+    Map<String, Double> getP99Micros();
+
+    /**
+     * Set all counters and timers back to zero.
+     */
+    void reset();
+}
@@ -0,0 +1,544 @@
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * A game position of the fox hound program in square form.
+ *
+ * In contrast to the players array used by the game loop, figures
+ * are stored as square indices as defined by
+ * {@link FoxHoundUtils#toSquare}, which allows generating, making
+ * and taking back moves without creating any objects. The rules are
+ * the same as the ones of {@link FoxHoundUtils}, restricted to fields
+ * on the board.
+ *
+ * A move is encoded as a single int holding origin and destination
+ * square, see {@link #move}.
+ *
+ * Every position also keeps a 64-bit key which identifies it
+ * independently of the order of the hounds and is updated with
+ * every move.
+ */
+public class FoxHoundPosition {
+
+    /** Maximum number of moves possible in any position. */
+    public static final int MAX_MOVES = 2 * (FoxHoundUtils.MAX_DIM / 2);
+    /** Marker for no move, e.g. if a side cannot move at all. */
+    public static final int NO_MOVE = -1;
+
+    /** Content of an empty field. */
+    private static final byte EMPTY = 0;
+    /** Content of a field with a hound. */
+    private static final byte HOUND = 1;
+    /** Content of the field with the fox. */
+    private static final byte FOX = 2;
+
+    /** Number of bits used for a square in a move. */
+    private static final int SQUARE_BITS = 10;
+    /** Mask of a square in a move. */
+    private static final int SQUARE_MASK = (1 << SQUARE_BITS) - 1;
+
+    /** Seed of the random numbers used for the position keys, fixed so keys can be stored. */
+    private static final long KEY_SEED = 0x5DEECE66DL;
+    /** Key part of the fox for every field of the largest board. */
+    private static final long[] FOX_KEYS = new long[FoxHoundUtils.MAX_DIM * FoxHoundUtils.MAX_DIM];
+    /** Key part of a hound for every field of the largest board. */
+    private static final long[] HOUND_KEYS = new long[FoxHoundUtils.MAX_DIM * FoxHoundUtils.MAX_DIM];
+    /** Key part of every board dimension. */
+    private static final long[] DIM_KEYS = new long[FoxHoundUtils.MAX_DIM + 1];
+    /** Key part added if the hounds are to move. */
+    private static final long HOUND_TURN_KEY;
+
+    static {
+        SplittableRandom random = new SplittableRandom(KEY_SEED);
+        for (int i = 0; i < FOX_KEYS.length; i++) {
+            FOX_KEYS[i] = random.nextLong();
+            HOUND_KEYS[i] = random.nextLong();
+        }
+        for (int i = 0; i < DIM_KEYS.length; i++) {
+            DIM_KEYS[i] = random.nextLong();
+        }
+        HOUND_TURN_KEY = random.nextLong();
+    }
+
+    /** Dimension of the board. */
+    private final int dim;
+    /** Content of every field of the board. */
+    private final byte[] board;
+    /** Squares of all hounds. */
+    private final int[] hounds;
+    /** Square of the fox. */
+    private int fox;
+    /** Figure to move next. */
+    private char turn;
+    /** Key of the position. */
+    private long key;
+
+    /**
+     * Create a position from a players array as used by the game loop.
+     *
+     * @param dim an int for the board dimension
+     * @param players array of the positions of all figures, the fox last
+     * @param turn a char for the figure to move next
+     * @throws IllegalArgumentException if the dimension, a coordinate or the figure is invalid,
+     * there are more than dim / 2 hounds or two figures share a field
+     * @throws NullPointerException if the players array is null
+     */
+    public FoxHoundPosition(int dim, String[] players, char turn) {
+        if (dim < FoxHoundUtils.MIN_DIM || dim > FoxHoundUtils.MAX_DIM) {
+            throw new IllegalArgumentException("Invalid board dimension");
+        }
+        if (players == null) {
+            throw new NullPointerException("Players array is null");
+        }
+        if (players.length < 2) {
+            throw new IllegalArgumentException("Players array too short");
+        }
+        // the move lists of MAX_MOVES entries hold the moves of at most dim / 2 hounds
+        if (players.length - 1 > dim / 2) {
+            throw new IllegalArgumentException("Too many hounds: " + (players.length - 1));
+        }
+        if (turn != FoxHoundUtils.FOX_FIELD && turn != FoxHoundUtils.HOUND_FIELD) {
+            throw new IllegalArgumentException("Given figure field invalid: " + turn);
+        }
+        this.dim = dim;
+        this.board = new byte[dim * dim];
+        this.hounds = new int[players.length - 1];
+        this.turn = turn;
+        this.key = DIM_KEYS[dim] ^ (turn == FoxHoundUtils.HOUND_FIELD ? HOUND_TURN_KEY : 0);
+        for (int i = 0; i < players.length; i++) {
+            int square = FoxHoundUtils.toSquare(dim, players[i]);
+            if (square == FoxHoundUtils.NO_SQUARE) {
+                throw new IllegalArgumentException("Illegal coordinate: " + players[i]);
+            }
+            if (board[square] != EMPTY) {
+                throw new IllegalArgumentException("Field occupied twice: " + players[i]);
+            }
+            if (i < hounds.length) {
+                hounds[i] = square;
+                board[square] = HOUND;
+                key ^= HOUND_KEYS[globalIndex(square)];
+            }
+            else {
+                fox = square;
+                board[square] = FOX;
+                key ^= FOX_KEYS[globalIndex(square)];
+            }
+        }
+    }
+
+    /**
+     * Create a copy of another position.
+     *
+     * @param other the position to copy
+     */
+    private FoxHoundPosition(FoxHoundPosition other) {
+        this.dim = other.dim;
+        this.board = other.board.clone();
+        this.hounds = other.hounds.clone();
+        this.fox = other.fox;
+        this.turn = other.turn;
+        this.key = other.key;
+    }
+
+    /**
+     * Create the starting position of a game, with the Fox to move.
+     *
+     * @param dim an int for the board dimension
+     * @return the starting position
+     * @throws IllegalArgumentException if the board dimensions are invalid
+     */
+    public static FoxHoundPosition initial(int dim) {
+        return new FoxHoundPosition(dim, FoxHoundUtils.initialisePositions(dim), FoxHoundUtils.FOX_FIELD);
+    }
+
+    /**
+     * Create a position from a line in save file notation,
+     * e.g. {@code F C2 D1 F1 H1 D7}.
+     *
+     * @param dim an int for the board dimension
+     * @param line a String with the figure to move next followed by all positions
+     * @return the position of the line
+     * @throws IllegalArgumentException if the line is not a valid position
+     */
+    public static FoxHoundPosition parse(int dim, String line) {
+        String[] tokens = line.trim().split("\\s+");
+        if (tokens.length < 3 || tokens[0].length() != 1) {
+            throw new IllegalArgumentException("Invalid position: " + line);
+        }
+        return new FoxHoundPosition(dim, Arrays.copyOfRange(tokens, 1, tokens.length), tokens[0].charAt(0));
+    }
+
+    /**
+     * Create an independent copy of this position.
+     *
+     * @return a copy of this position
+     */
+    public FoxHoundPosition copy() {
+        return new FoxHoundPosition(this);
+    }
+
+    /**
+     * Encode a move.
+     *
+     * @param from an int for the origin square
+     * @param to an int for the destination square
+     * @return an int holding both squares
+     */
+    public static int move(int from, int to) {
+        return from << SQUARE_BITS | to;
+    }
+
+    /**
+     * Origin square of a move.
+     *
+     * @param move an encoded move
+     * @return an int for the origin square
+     */
+    public static int from(int move) {
+        return move >>> SQUARE_BITS;
+    }
+
+    /**
+     * Destination square of a move.
+     *
+     * @param move an encoded move
+     * @return an int for the destination square
+     */
+    public static int to(int move) {
+        return move & SQUARE_MASK;
+    }
+
+    /**
+     * Dimension of the board.
+     *
+     * @return an int for the board dimension
+     */
+    public int getDim() {
+        return dim;
+    }
+
+    /**
+     * Figure to move next.
+     *
+     * @return {@link FoxHoundUtils#FOX_FIELD} or {@link FoxHoundUtils#HOUND_FIELD}
+     */
+    public char getTurn() {
+        return turn;
+    }
+
+    /**
+     * Square of the fox.
+     *
+     * @return an int for the square of the fox
+     */
+    public int getFox() {
+        return fox;
+    }
+
+    /**
+     * Number of hounds on the board.
+     *
+     * @return an int for the number of hounds
+     */
+    public int getHoundCount() {
+        return hounds.length;
+    }
+
+    /**
+     * Square of a hound.
+     *
+     * @param index an int for the index of the hound
+     * @return an int for the square of the hound
+     */
+    public int getHound(int index) {
+        return hounds[index];
+    }
+
+    /**
+     * Determine if a hound stands on a square.
+     *
+     * @param square an int for a square on the board
+     * @return a boolean whether a hound is on the square
+     */
+    public boolean isHound(int square) {
+        return board[square] == HOUND;
+    }
+
+    /**
+     * The 64-bit key of this position. Positions with the same figures on
+     * the same fields, the same figure to move and the same dimension have
+     * the same key.
+     *
+     * @return a long identifying the position
+     */
+    public long key() {
+        return key;
+    }
+
+    /**
+     * Convert the position to a players array as used by the game loop.
+     *
+     * @return a String array with the coordinates of all hounds and the fox last
+     */
+    public String[] toPlayers() {
+        String[] players = new String[hounds.length + 1];
+        for (int i = 0; i < hounds.length; i++) {
+            players[i] = FoxHoundUtils.toCoord(dim, hounds[i]);
+        }
+        players[hounds.length] = FoxHoundUtils.toCoord(dim, fox);
+        return players;
+    }
+
+    /**
+     * Convert the position to save file notation, e.g. {@code F C2 D1 F1 H1 D7}.
+     *
+     * @return a String with the figure to move next followed by all positions
+     */
+    public String toSaveLine() {
+        return FoxHoundIO.formatGame(toPlayers(), turn).trim();
+    }
+
+    /**
+     * Convert a move to coordinate notation, e.g. {@code E8 D7}.
+     *
+     * @param move an encoded move
+     * @return a String with origin and destination coordinate
+     */
+    public String moveToString(int move) {
+        return FoxHoundUtils.toCoord(dim, from(move)) + " " + FoxHoundUtils.toCoord(dim, to(move));
+    }
+
+    /**
+     * Convert origin and destination coordinate to a move.
+     *
+     * @param origin a coordinate String to move from
+     * @param destination a coordinate String to move to
+     * @return an encoded move, or {@value #NO_MOVE} if a coordinate is not on the board
+     */
+    public int parseMove(String origin, String destination) {
+        int from = FoxHoundUtils.toSquare(dim, origin);
+        int to = FoxHoundUtils.toSquare(dim, destination);
+        if (from == FoxHoundUtils.NO_SQUARE || to == FoxHoundUtils.NO_SQUARE) {
+            return NO_MOVE;
+        }
+        return move(from, to);
+    }
+
+    /**
+     * Generate all moves of the figure to move next.
+     *
+     * @param moves an int array of at least {@value #MAX_MOVES} entries to store the moves in
+     * @return an int for the number of moves generated
+     */
+    public int generateMoves(int[] moves) {
+        int count = 0;
+        if (turn == FoxHoundUtils.FOX_FIELD) {
+            int row = fox / dim;
+            int col = fox % dim;
+            for (int dr = -1; dr <= 1; dr += 2) {
+                for (int dc = -1; dc <= 1; dc += 2) {
+                    int to = target(row + dr, col + dc);
+                    if (to >= 0) {
+                        moves[count++] = move(fox, to);
+                    }
+                }
+            }
+        }
+        else {
+            for (int from : hounds) {
+                int row = from / dim;
+                int col = from % dim;
+                for (int dc = -1; dc <= 1; dc += 2) {
+                    int to = target(row + 1, col + dc);
+                    if (to >= 0) {
+                        moves[count++] = move(from, to);
+                    }
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Determine if a move is valid for the figure to move next.
+     *
+     * @param move an encoded move
+     * @return a boolean for valid or invalid move
+     */
+    public boolean isLegal(int move) {
+        if (move < 0) {
+            return false;
+        }
+        int from = from(move);
+        int to = to(move);
+        if (from >= board.length || to >= board.length || board[to] != EMPTY) {
+            return false;
+        }
+        int rowStep = to / dim - from / dim;
+        int colStep = to % dim - from % dim;
+        if (Math.abs(colStep) != 1) {
+            return false;
+        }
+        if (turn == FoxHoundUtils.FOX_FIELD) {
+            return board[from] == FOX && Math.abs(rowStep) == 1;
+        }
+        return board[from] == HOUND && rowStep == 1;
+    }
+
+    /**
+     * Make a move of the figure to move next. The move is expected to be valid.
+     *
+     * @param move an encoded move
+     */
+    public void makeMove(int move) {
+        int from = from(move);
+        int to = to(move);
+        if (turn == FoxHoundUtils.FOX_FIELD) {
+            fox = to;
+            board[from] = EMPTY;
+            board[to] = FOX;
+            key ^= FOX_KEYS[globalIndex(from)] ^ FOX_KEYS[globalIndex(to)];
+            turn = FoxHoundUtils.HOUND_FIELD;
+        }
+        else {
+            moveHound(from, to);
+            turn = FoxHoundUtils.FOX_FIELD;
+        }
+        key ^= HOUND_TURN_KEY;
+    }
+
+    /**
+     * Take back the last move made. The move must be the last one made.
+     *
+     * @param move an encoded move
+     */
+    public void unmakeMove(int move) {
+        int from = from(move);
+        int to = to(move);
+        if (turn == FoxHoundUtils.HOUND_FIELD) {
+            // the fox made the move
+            fox = from;
+            board[to] = EMPTY;
+            board[from] = FOX;
+            key ^= FOX_KEYS[globalIndex(from)] ^ FOX_KEYS[globalIndex(to)];
+            turn = FoxHoundUtils.FOX_FIELD;
+        }
+        else {
+            moveHound(to, from);
+            turn = FoxHoundUtils.HOUND_FIELD;
+        }
+        key ^= HOUND_TURN_KEY;
+    }
+
+    /**
+     * Pass the turn to the other figure without moving, e.g. if the
+     * hounds cannot move. Passing twice restores the position.
+     */
+    public void pass() {
+        turn = turn == FoxHoundUtils.FOX_FIELD ? FoxHoundUtils.HOUND_FIELD : FoxHoundUtils.FOX_FIELD;
+        key ^= HOUND_TURN_KEY;
+    }
+
+    /**
+     * Determine if the fox reached the first row.
+     *
+     * @return a boolean whether the Fox wins
+     */
+    public boolean isFoxWin() {
+        return fox < dim;
+    }
+
+    /**
+     * Determine if the fox cannot move any more.
+     *
+     * @return a boolean whether the Hounds win
+     */
+    public boolean isHoundWin() {
+        return foxMobility() == 0;
+    }
+
+    /**
+     * Number of fields the fox can move to.
+     *
+     * @return an int between 0 and 4
+     */
+    public int foxMobility() {
+        int row = fox / dim;
+        int col = fox % dim;
+        int count = 0;
+        for (int dr = -1; dr <= 1; dr += 2) {
+            for (int dc = -1; dc <= 1; dc += 2) {
+                if (target(row + dr, col + dc) >= 0) {
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Find a free field on the board.
+     *
+     * @param row an int for the row starting at 0
+     * @param col an int for the column starting at 0
+     * @return an int for the square, or -1 if it is outside the board or occupied
+     */
+    private int target(int row, int col) {
+        if (row < 0 || row >= dim || col < 0 || col >= dim) {
+            return -1;
+        }
+        int square = row * dim + col;
+        return board[square] == EMPTY ? square : -1;
+    }
+
+    /**
+     * Move a hound between two squares and update the key.
+     *
+     * @param from an int for the square the hound is on
+     * @param to an int for the square the hound moves to
+     */
+    private void moveHound(int from, int to) {
+        for (int i = 0; i < hounds.length; i++) {
+            if (hounds[i] == from) {
+                hounds[i] = to;
+                break;
+            }
+        }
+        board[from] = EMPTY;
+        board[to] = HOUND;
+        key ^= HOUND_KEYS[globalIndex(from)] ^ HOUND_KEYS[globalIndex(to)];
+    }
+
+    /**
+     * Convert a square of this board to the index of the same field on the largest board.
+     *
+     * @param square an int for a square on this board
+     * @return an int for the index on the largest board
+     */
+    private int globalIndex(int square) {
+        return square / dim * FoxHoundUtils.MAX_DIM + square % dim;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof FoxHoundPosition)) {
+            return false;
+        }
+        FoxHoundPosition other = (FoxHoundPosition) o;
+        return dim == other.dim && fox == other.fox && turn == other.turn
+            && Arrays.equals(board, other.board);
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(key);
+    }
+
+    @Override
+    public String toString() {
+        return toSaveLine();
+    }
+}
@@ -0,0 +1,553 @@
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Queue;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A generator of "win in N" puzzles for both sides.
+ *
+ * Worker threads play games from the initial position on random board
+ * dimensions, with a mix of greedy and random moves, and take a position
+ * shortly before the end of every game as a candidate. A solver then
+ * checks that the figure to move can force a win in exactly N of its
+ * own moves, not less, and that only a single first move does so.
+ * Positions in which the fox only has to run past all hounds are left out.
+ * Puzzles are deduplicated by their position key.
+ *
+ * Every puzzle is written to its own file in the save file format, so
+ * 8x8 puzzles can be opened with {@link FoxHoundIO#loadGame}. The file
+ * {@value #INDEX_FILE} lists all puzzles with their solution.
+ * <pre>
+ * java FoxHoundPuzzles [directory] [moves] [seconds] [threads] [seed]
+ * </pre>
+ */
+public class FoxHoundPuzzles {
+
+    /** Name of the file listing all puzzles. */
+    public static final String INDEX_FILE = "puzzles.txt";
+    /** Largest number of moves of a puzzle. */
+    public static final int MAX_MOVES = 8;
+    /** Default number of moves of a puzzle. */
+    private static final int DEFAULT_MOVES = 3;
+    /** Default running time in seconds. */
+    private static final int DEFAULT_SECONDS = 60;
+    /** Default seed. */
+    private static final long DEFAULT_SEED = 1;
+    /** Share of random moves in the sampled games. */
+    private static final double RANDOM_MOVES = 0.3;
+    /** Odd constant spreading numbers over the seeds and keys. */
+    private static final long MIX = 0x9E3779B97F4A7C15L;
+
+    /**
+     * The results of proven positions by key, kept in plain arrays with
+     * open addressing so no object is allocated per position. Entries
+     * belong to the generation they were stored in, so clearing the
+     * table only starts a new generation. The table grows when it gets
+     * half full.
+     */
+    static final class ProvenTable {
+        /** Value of {@link #get} for a key not in the table. */
+        static final int UNKNOWN = -1;
+
+        private long[] keys;
+        private boolean[] wins;
+        /** Generation every entry was stored in, entries of older generations are empty. */
+        private int[] generations;
+        private int generation = 1;
+        private int size;
+
+        /**
+         * Create an empty table.
+         *
+         * @param capacity an int for the number of entries before growing, rounded up to a power of two
+         */
+        ProvenTable(int capacity) {
+            allocate(Math.max(16, Integer.highestOneBit(Math.max(1, capacity) - 1) << 2));
+        }
+
+        private void allocate(int length) {
+            keys = new long[length];
+            wins = new boolean[length];
+            generations = new int[length];
+        }
+
+        /**
+         * Index of the entry of a key, or of the empty entry it would be stored in.
+         */
+        private int find(long key) {
+            int mask = keys.length - 1;
+            int i = (int) ((key * MIX) >>> 32) & mask;
+            while (generations[i] == generation && keys[i] != key) {
+                i = (i + 1) & mask;
+            }
+            return i;
+        }
+
+        /**
+         * The result stored for a key.
+         *
+         * @param key a long for the key
+         * @return an int, 1 for a win, 0 for no win, or {@link #UNKNOWN}
+         */
+        int get(long key) {
+            int i = find(key);
+            if (generations[i] != generation) {
+                return UNKNOWN;
+            }
+            return wins[i] ? 1 : 0;
+        }
+
+        /**
+         * Store the result for a key, replacing an earlier one.
+         *
+         * @param key a long for the key
+         * @param win a boolean for the result
+         */
+        void put(long key, boolean win) {
+            int i = find(key);
+            if (generations[i] != generation) {
+                if (2 * (size + 1) > keys.length) {
+                    grow();
+                    i = find(key);
+                }
+                size++;
+                generations[i] = generation;
+                keys[i] = key;
+            }
+            wins[i] = win;
+        }
+
+        /**
+         * Remove all entries.
+         */
+        void clear() {
+            size = 0;
+            if (++generation == Integer.MAX_VALUE) {
+                Arrays.fill(generations, 0);
+                generation = 1;
+            }
+        }
+
+        /**
+         * Number of entries.
+         *
+         * @return an int for the number of keys stored
+         */
+        int size() {
+            return size;
+        }
+
+        private void grow() {
+            long[] oldKeys = keys;
+            boolean[] oldWins = wins;
+            int[] oldGenerations = generations;
+            allocate(2 * oldKeys.length);
+            for (int j = 0; j < oldKeys.length; j++) {
+                if (oldGenerations[j] == generation) {
+                    int i = find(oldKeys[j]);
+                    generations[i] = generation;
+                    keys[i] = oldKeys[j];
+                    wins[i] = oldWins[j];
+                }
+            }
+        }
+    }
+
+    /**
+     * Proves forced wins by searching all replies, remembering proven
+     * positions. A solver is used by a single thread.
+     */
+    static final class Solver {
+        private final ProvenTable proven = new ProvenTable(1 << 12);
+        private final int[][] moves = new int[2 * MAX_MOVES + 2][FoxHoundPosition.MAX_MOVES];
+        private char attacker;
+        private long nodes;
+
+        /**
+         * Determine if the figure to move can force a win within a number of its moves.
+         *
+         * @param position the position to solve, restored afterwards
+         * @param n an int for the largest number of moves of the figure to move
+         * @return a boolean whether a win can be forced
+         */
+        boolean forcedWin(FoxHoundPosition position, int n) {
+            return winningMoves(position, n, 1, null) > 0;
+        }
+
+        /**
+         * Count the first moves forcing a win within a number of moves.
+         *
+         * @param position the position to solve, restored afterwards
+         * @param n an int for the largest number of moves of the figure to move
+         * @param limit an int to stop counting at
+         * @param first an int array to store the last winning first move in, or null
+         * @return an int for the number of winning first moves, at most the limit
+         * @throws IllegalArgumentException if the number of moves is invalid
+         */
+        int winningMoves(FoxHoundPosition position, int n, int limit, int[] first) {
+            if (n < 1 || n > MAX_MOVES) {
+                throw new IllegalArgumentException("Invalid number of moves: " + n);
+            }
+            proven.clear();
+            attacker = position.getTurn();
+            int count = position.generateMoves(moves[0]);
+            int found = 0;
+            for (int i = 0; i < count && found < limit; i++) {
+                int move = moves[0][i];
+                position.makeMove(move);
+                boolean win = afterAttack(position, n - 1, 1);
+                position.unmakeMove(move);
+                if (win) {
+                    found++;
+                    if (first != null) {
+                        first[0] = move;
+                    }
+                }
+            }
+            return found;
+        }
+
+        /**
+         * Determine if the attacker to move forces a win within n moves.
+         */
+        private boolean attack(FoxHoundPosition position, int n, int ply) {
+            if (n == 0) {
+                return false;
+            }
+            long key = position.key() ^ n * MIX;
+            int known = proven.get(key);
+            if (known != ProvenTable.UNKNOWN) {
+                return known == 1;
+            }
+            int count = position.generateMoves(moves[ply]);
+            boolean win = false;
+            for (int i = 0; i < count && !win; i++) {
+                position.makeMove(moves[ply][i]);
+                win = afterAttack(position, n - 1, ply + 1);
+                position.unmakeMove(moves[ply][i]);
+            }
+            proven.put(key, win);
+            return win;
+        }
+
+        /**
+         * Determine if the attacker wins after its move, whatever the defender replies,
+         * with n more attacker moves.
+         */
+        private boolean afterAttack(FoxHoundPosition position, int n, int ply) {
+            nodes++;
+            char winner = winner(position);
+            if (winner != 0) {
+                return winner == attacker;
+            }
+            if (n == 0) {
+                return false;
+            }
+            int count = position.generateMoves(moves[ply]);
+            if (count == 0) {
+                // only the hounds can be stuck, which lets the fox win
+                return attacker == FoxHoundUtils.FOX_FIELD;
+            }
+            for (int i = 0; i < count; i++) {
+                int move = moves[ply][i];
+                position.makeMove(move);
+                winner = winner(position);
+                boolean win = winner == attacker || winner == 0 && attack(position, n, ply + 1);
+                position.unmakeMove(move);
+                if (!win) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Number of positions searched so far.
+         *
+         * @return a long for the number of positions
+         */
+        long getNodes() {
+            return nodes;
+        }
+    }
+
+    /**
+     * The winner of a position.
+     *
+     * @param position the position
+     * @return a char for the winning figure, 0 if the game goes on
+     */
+    static char winner(FoxHoundPosition position) {
+        if (position.isFoxWin()) {
+            return FoxHoundUtils.FOX_FIELD;
+        }
+        if (position.isHoundWin()) {
+            return FoxHoundUtils.HOUND_FIELD;
+        }
+        return 0;
+    }
+
+    /**
+     * Determine if the fox is to move and no hound is left in front of
+     * it, so it only has to run to the first row.
+     *
+     * @param position the position
+     * @return a boolean whether the position is a plain race of the fox
+     */
+    static boolean isRace(FoxHoundPosition position) {
+        if (position.getTurn() != FoxHoundUtils.FOX_FIELD) {
+            return false;
+        }
+        int foxRow = position.getFox() / position.getDim();
+        for (int i = 0; i < position.getHoundCount(); i++) {
+            if (position.getHound(i) / position.getDim() < foxRow) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Determine if a position is a puzzle: the figure to move forces a win
+     * in exactly n moves with a single first move.
+     *
+     * @param solver the solver to use
+     * @param position the position, restored afterwards
+     * @param n an int for the number of moves
+     * @return the encoded winning first move, or {@link FoxHoundPosition#NO_MOVE} if it is no puzzle
+     */
+    static int solve(Solver solver, FoxHoundPosition position, int n) {
+        if (winner(position) != 0 || isRace(position)) {
+            return FoxHoundPosition.NO_MOVE;
+        }
+        int[] first = new int[1];
+        if (solver.winningMoves(position, n, 2, first) != 1) {
+            return FoxHoundPosition.NO_MOVE;
+        }
+        if (n > 1 && solver.forcedWin(position, n - 1)) {
+            return FoxHoundPosition.NO_MOVE;
+        }
+        return first[0];
+    }
+
+    /**
+     * Play a game and take a position shortly before its end.
+     *
+     * @param dim an int for the board dimension
+     * @param n an int for the number of moves of the puzzles
+     * @param eval the evaluation function of the greedy moves
+     * @param random random numbers
+     * @return a candidate position
+     */
+    static FoxHoundPosition sample(int dim, int n, FoxHoundEval eval, SplittableRandom random) {
+        FoxHoundPosition position = FoxHoundPosition.initial(dim);
+        int[] played = new int[dim * dim * dim];
+        int length = 0;
+        while (winner(position) == 0 && length < played.length) {
+            int move = random.nextDouble() < RANDOM_MOVES
+                ? FoxHoundBot.randomMove(position, random)
+                : FoxHoundBot.greedyMove(eval, position, random);
+            if (move == FoxHoundPosition.NO_MOVE) {
+                break;
+            }
+            position.makeMove(move);
+            played[length++] = move;
+        }
+        // a win in n moves takes up to 2n - 1 plies, go back a little further for some defence
+        int back = 1 + random.nextInt(2 * n + 2);
+        for (int i = 0; i < back && length > 0; i++) {
+            position.unmakeMove(played[--length]);
+        }
+        return position;
+    }
+
+    private final Path directory;
+    private final int n;
+    private final Set<Long> seen = ConcurrentHashMap.newKeySet();
+    private final AtomicLong candidates = new AtomicLong();
+    private final AtomicLong duplicates = new AtomicLong();
+    private final AtomicLong nodes = new AtomicLong();
+    /** Exceptions which ended a worker, rethrown by {@link #run}. */
+    private final Queue<RuntimeException> failures = new ConcurrentLinkedQueue<>();
+    /** Puzzles found per dimension and side, guarded by this object. */
+    private final int[][] found = new int[FoxHoundUtils.MAX_DIM + 1][2];
+    private int puzzles;
+    private BufferedWriter index;
+
+    /**
+     * Create a generator.
+     *
+     * @param directory a Path to the directory to write the puzzles to, created if missing
+     * @param n an int for the number of moves of the puzzles
+     * @throws IOException if the directory or index cannot be created
+     * @throws IllegalArgumentException if the number of moves is invalid
+     */
+    public FoxHoundPuzzles(Path directory, int n) throws IOException {
+        if (n < 1 || n > MAX_MOVES) {
+            throw new IllegalArgumentException("Invalid number of moves: " + n);
+        }
+        this.directory = directory;
+        this.n = n;
+        Files.createDirectories(directory);
+        this.index = Files.newBufferedWriter(directory.resolve(INDEX_FILE), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Generate puzzles on worker threads for a while.
+     *
+     * @param seconds a long for the running time in seconds
+     * @param threads an int for the number of worker threads
+     * @param seed a long for the random numbers
+     * @throws InterruptedException if waiting for the workers is interrupted
+     * @throws IOException if a puzzle or the index cannot be written
+     */
+    public void run(long seconds, int threads, long seed) throws InterruptedException, IOException {
+        long end = System.nanoTime() + seconds * 1_000_000_000L;
+        Thread[] workers = new Thread[threads];
+        try {
+            for (int t = 0; t < threads; t++) {
+                SplittableRandom random = new SplittableRandom(seed + t * MIX);
+                workers[t] = new Thread(() -> work(end, random), "foxhound-puzzles-" + t);
+                workers[t].start();
+            }
+            for (Thread worker : workers) {
+                worker.join();
+            }
+        } finally {
+            synchronized (this) {
+                index.close();
+            }
+        }
+        rethrowFailures();
+    }
+
+    /**
+     * Throw the exception which ended the first failed worker, with the
+     * exceptions of the other failed workers as suppressed exceptions.
+     *
+     * @throws IOException if a worker could not write a puzzle
+     */
+    private void rethrowFailures() throws IOException {
+        RuntimeException first = failures.poll();
+        if (first == null) {
+            return;
+        }
+        Exception thrown = first instanceof UncheckedIOException ? ((UncheckedIOException) first).getCause() : first;
+        for (RuntimeException other : failures) {
+            thrown.addSuppressed(other);
+        }
+        if (thrown instanceof IOException) {
+            throw (IOException) thrown;
+        }
+        throw first;
+    }
+
+    /**
+     * Main loop of a worker.
+     *
+     * @param end a long for the {@link System#nanoTime} to stop at
+     * @param random random numbers of the worker
+     */
+    private void work(long end, SplittableRandom random) {
+        Solver solver = new Solver();
+        FoxHoundEval eval = new FoxHoundEval();
+        try {
+            // stop as well once another worker failed
+            while (System.nanoTime() < end && failures.isEmpty()) {
+                int dim = FoxHoundUtils.MIN_DIM + random.nextInt(FoxHoundUtils.MAX_DIM - FoxHoundUtils.MIN_DIM + 1);
+                FoxHoundPosition position = sample(dim, n, eval, random);
+                candidates.incrementAndGet();
+                int move = solve(solver, position, n);
+                if (move == FoxHoundPosition.NO_MOVE) {
+                    continue;
+                }
+                if (!seen.add(position.key())) {
+                    duplicates.incrementAndGet();
+                    continue;
+                }
+                record(position, move);
+            }
+        } catch (RuntimeException e) {
+            failures.add(e);
+        } finally {
+            nodes.addAndGet(solver.getNodes());
+        }
+    }
+
+    /**
+     * Write a puzzle and add it to the index.
+     *
+     * @param position the puzzle position
+     * @param move the encoded winning first move
+     */
+    private synchronized void record(FoxHoundPosition position, int move) {
+        char side = position.getTurn();
+        String name = String.format("puzzle-%05d.txt", ++puzzles);
+        try {
+            Files.write(directory.resolve(name),
+                FoxHoundIO.formatGame(position.toPlayers(), side).getBytes(StandardCharsets.UTF_8));
+            index.write(String.format("%s dim=%d side=%c moves=%d solution=%s", name, position.getDim(), side, n,
+                position.moveToString(move)));
+            index.newLine();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not write puzzle " + name, e);
+        }
+        found[position.getDim()][side == FoxHoundUtils.FOX_FIELD ? 0 : 1]++;
+    }
+
+    /**
+     * Number of puzzles found.
+     *
+     * @return an int for the number of puzzles
+     */
+    public synchronized int getPuzzles() {
+        return puzzles;
+    }
+
+    /**
+     * Print the puzzles found per dimension and side.
+     *
+     * @param seconds a double for the running time in seconds
+     */
+    public synchronized void printStatistics(double seconds) {
+        System.out.println("dim  fox  hounds");
+        for (int dim = FoxHoundUtils.MIN_DIM; dim <= FoxHoundUtils.MAX_DIM; dim++) {
+            if (found[dim][0] + found[dim][1] > 0) {
+                System.out.printf("%3d %4d %7d%n", dim, found[dim][0], found[dim][1]);
+            }
+        }
+        System.out.printf("win in %d: puzzles=%d candidates=%d duplicates=%d solver nodes=%d%n",
+            n, puzzles, candidates.get(), duplicates.get(), nodes.get());
+        System.out.printf("%.1f s, %.0f puzzles per hour%n", seconds, puzzles * 3600 / seconds);
+    }
+
+    /**
+     * Entry method of the generator.
+     *
+     * @param args directory, number of moves, seconds, threads and seed, all optional
+     * @throws IOException if the puzzles cannot be written
+     * @throws InterruptedException if waiting for the workers is interrupted
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        Path directory = Paths.get(args.length > 0 ? args[0] : "puzzles");
+        int n = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_MOVES;
+        long seconds = args.length > 2 ? Long.parseLong(args[2]) : DEFAULT_SECONDS;
+        int threads = args.length > 3 ? Integer.parseInt(args[3]) : Runtime.getRuntime().availableProcessors();
+        long seed = args.length > 4 ? Long.parseLong(args[4]) : DEFAULT_SEED;
+
+        FoxHoundPuzzles generator = new FoxHoundPuzzles(directory, n);
+        long start = System.nanoTime();
+        generator.run(seconds, threads, seed);
+        generator.printStatistics((System.nanoTime() - start) / 1e9);
+    }
+}
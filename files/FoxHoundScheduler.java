@@ -0,0 +1,505 @@
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * An engine service sharing a fixed pool of search threads between
+ * many games.
+ *
+ * Games ask for a move with a deadline. Requests wait in a queue ordered
+ * by deadline, and every worker takes the request with the earliest
+ * deadline and searches it one depth further, see
+ * {@link FoxHoundEngine#searchDepth}. A slice of work ends after the
+ * depth or after {@link #getSliceMillis} milliseconds, whatever comes
+ * first, and the request goes back into the queue, so a request with an
+ * earlier deadline is served next. An iteration cut off by the end of a
+ * slice is searched again with twice the time. The subtrees it completed
+ * are still in the transposition table of the engine, so the search goes
+ * on almost where it stopped. For that a request stays with the worker
+ * which searched it: a worker takes the most urgent request which is new
+ * or its own, and only takes over a request of another worker if it has
+ * nothing else to do while that worker is busy.
+ *
+ * A request is answered with its deepest completed iteration as soon as
+ * the next iteration is not expected to end before the deadline. The
+ * time of the next iteration is estimated from the last two, and the
+ * time left is shared with all waiting requests, so under load the
+ * searches get shallower instead of late. A slice also ends before the
+ * deadline of the next request waiting for a worker. The first iteration is always
+ * searched to its end, it only takes microseconds.
+ */
+public class FoxHoundScheduler implements AutoCloseable {
+
+    /** Default length of a slice of work in milliseconds. */
+    public static final long DEFAULT_SLICE_MILLIS = 5;
+    /** Transposition table size of the engine of every worker. */
+    private static final int TABLE_BITS = 18;
+    /** Time kept free before a deadline to answer in nanoseconds. */
+    private static final long SAFETY_NANOS = 3_000_000;
+    /** Smallest expected growth of the time from one iteration to the next. */
+    private static final double MIN_GROWTH = 2;
+
+    /**
+     * A search request of a game.
+     */
+    private static final class Request implements Comparable<Request> {
+        final FoxHoundPosition position;
+        final long deadline;
+        final long sequence;
+        final CompletableFuture<FoxHoundEngine.Result> future = new CompletableFuture<>();
+        /** Deepest completed iteration, or null. */
+        FoxHoundEngine.Result best;
+        /** Depth of the next iteration. */
+        int depth = 1;
+        /** Time of the last two completed iterations in nanoseconds. */
+        long lastNanos;
+        long previousNanos;
+        /** Time of the next slice in nanoseconds. */
+        long sliceNanos;
+        /** Time spent on the next iteration in slices cut off so far in nanoseconds. */
+        long spentNanos;
+        /** Worker whose engine searched the request last, or -1 for none. */
+        int worker = -1;
+
+        Request(FoxHoundPosition position, long deadline, long sequence, long sliceNanos) {
+            this.position = position;
+            this.deadline = deadline;
+            this.sequence = sequence;
+            this.sliceNanos = sliceNanos;
+        }
+
+        @Override
+        public int compareTo(Request other) {
+            int order = Long.compare(deadline, other.deadline);
+            return order != 0 ? order : Long.compare(sequence, other.sequence);
+        }
+    }
+
+    private final int maxDepth;
+    private final long sliceMillis;
+    /** Source of the current time in nanoseconds. */
+    private final LongSupplier clock;
+    /** Creates the engine of every worker. */
+    private final Supplier<FoxHoundEngine> engines;
+    private final Thread[] workers;
+    /** Whether every worker searches a slice, guarded by the queue. */
+    private final boolean[] busy;
+    /** Waiting requests, earliest deadline first, guarded by itself. */
+    private final TreeSet<Request> queue = new TreeSet<>();
+    private long sequence;
+    private boolean closed;
+
+    private final LongAdder submitted = new LongAdder();
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder degraded = new LongAdder();
+    private final LongAdder slices = new LongAdder();
+    private final LongAdder depths = new LongAdder();
+    private final LongAdder lateNanos = new LongAdder();
+
+    /**
+     * Create a scheduler with the default slice length and start its workers.
+     *
+     * @param threads an int for the number of search threads
+     * @param maxDepth an int for the largest depth to search
+     * @throws IllegalArgumentException if a value is out of range
+     */
+    public FoxHoundScheduler(int threads, int maxDepth) {
+        this(threads, maxDepth, DEFAULT_SLICE_MILLIS);
+    }
+
+    /**
+     * Create a scheduler and start its workers.
+     *
+     * @param threads an int for the number of search threads
+     * @param maxDepth an int for the largest depth to search
+     * @param sliceMillis a long for the length of a slice of work in milliseconds
+     * @throws IllegalArgumentException if a value is out of range
+     */
+    public FoxHoundScheduler(int threads, int maxDepth, long sliceMillis) {
+        this(threads, maxDepth, sliceMillis, new FoxHoundEval());
+    }
+
+    /**
+     * Create a scheduler whose engines use a given evaluation function and start its workers.
+     *
+     * @param threads an int for the number of search threads
+     * @param maxDepth an int for the largest depth to search
+     * @param sliceMillis a long for the length of a slice of work in milliseconds
+     * @param eval the evaluation function of every engine
+     * @throws IllegalArgumentException if a value is out of range
+     */
+    public FoxHoundScheduler(int threads, int maxDepth, long sliceMillis, FoxHoundEval eval) {
+        this(threads, maxDepth, sliceMillis, System::nanoTime, () -> new FoxHoundEngine(eval, TABLE_BITS));
+    }
+
+    /**
+     * Create a scheduler with its own clock and engines and start its workers.
+     * The engines are given deadlines of the clock to stop at.
+     *
+     * @param threads an int for the number of search threads
+     * @param maxDepth an int for the largest depth to search
+     * @param sliceMillis a long for the length of a slice of work in milliseconds
+     * @param clock the source of the current time in nanoseconds
+     * @param engines creates the engine of every worker
+     * @throws IllegalArgumentException if a value is out of range
+     */
+    FoxHoundScheduler(int threads, int maxDepth, long sliceMillis, LongSupplier clock,
+                      Supplier<FoxHoundEngine> engines) {
+        if (threads < 1 || maxDepth < 1 || maxDepth > FoxHoundEngine.MAX_DEPTH || sliceMillis < 1) {
+            throw new IllegalArgumentException("Invalid scheduler: " + threads + " threads, depth " + maxDepth
+                + ", slice " + sliceMillis + " ms");
+        }
+        this.maxDepth = maxDepth;
+        this.sliceMillis = sliceMillis;
+        this.clock = clock;
+        this.engines = engines;
+        this.workers = new Thread[threads];
+        this.busy = new boolean[threads];
+        for (int i = 0; i < threads; i++) {
+            int worker = i;
+            workers[i] = new Thread(() -> work(worker), "foxhound-scheduler-" + (i + 1));
+            workers[i].setDaemon(true);
+            workers[i].start();
+        }
+    }
+
+    /**
+     * Ask for the best move of a position.
+     *
+     * @param dim an int for the board dimension
+     * @param players array of the positions of all figures
+     * @param turn a char for the figure to move
+     * @param timeLimitMillis a long for the time until the answer is due in milliseconds
+     * @return a future completed with the result of the search
+     * @throws IllegalArgumentException if the players do not form a valid position
+     * @throws IllegalStateException if the scheduler is closed
+     */
+    public CompletableFuture<FoxHoundEngine.Result> submit(int dim, String[] players, char turn,
+                                                           long timeLimitMillis) {
+        FoxHoundPosition position = new FoxHoundPosition(dim, players, turn);
+        long deadline = clock.getAsLong() + timeLimitMillis * 1_000_000;
+        Request request;
+        synchronized (queue) {
+            if (closed) {
+                throw new IllegalStateException("Scheduler closed");
+            }
+            request = new Request(position, deadline, sequence++, sliceMillis * 1_000_000);
+            queue.add(request);
+            queue.notify();
+        }
+        submitted.increment();
+        return request.future;
+    }
+
+    /**
+     * Choose a move, waiting for the answer.
+     *
+     * @param dim an int for the board dimension
+     * @param players array of the positions of all figures
+     * @param turn a char for the figure to move
+     * @param timeLimitMillis a long for the time until the answer is due in milliseconds
+     * @return a String array with origin and destination coordinate, or null if the figure cannot move
+     * @throws IllegalArgumentException if the players do not form a valid position
+     * @throws IllegalStateException if the scheduler is closed or the search failed
+     * @throws InterruptedException if waiting is interrupted
+     */
+    public String[] chooseMove(int dim, String[] players, char turn, long timeLimitMillis)
+            throws InterruptedException {
+        FoxHoundEngine.Result result;
+        try {
+            result = submit(dim, players, turn, timeLimitMillis).get();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Search failed", e.getCause());
+        }
+        if (result.move == FoxHoundPosition.NO_MOVE) {
+            return null;
+        }
+        return new String[]{FoxHoundUtils.toCoord(dim, FoxHoundPosition.from(result.move)),
+            FoxHoundUtils.toCoord(dim, FoxHoundPosition.to(result.move))};
+    }
+
+    /**
+     * Loop of a worker: search slices of the most urgent requests.
+     *
+     * @param worker an int for the number of the worker
+     */
+    private void work(int worker) {
+        FoxHoundEngine engine = engines.get();
+        while (true) {
+            Request request;
+            int waiting;
+            long nextDeadline;
+            synchronized (queue) {
+                while ((request = take(worker)) == null) {
+                    if (closed && queue.isEmpty()) {
+                        return;
+                    }
+                    try {
+                        queue.wait();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+                busy[worker] = true;
+                if (request.worker != worker) {
+                    // the table of another engine knows nothing of the cut off iteration
+                    request.spentNanos = 0;
+                    request.worker = worker;
+                }
+                waiting = queue.size();
+                // with all workers busy, the next request has to wait for this slice
+                nextDeadline = waiting >= workers.length ? queue.first().deadline : Long.MAX_VALUE;
+            }
+            boolean again = false;
+            try {
+                again = slice(engine, request, waiting, nextDeadline);
+                if (!again) {
+                    complete(request);
+                }
+            } catch (RuntimeException e) {
+                request.future.completeExceptionally(e);
+            }
+            synchronized (queue) {
+                busy[worker] = false;
+                if (again) {
+                    queue.add(request);
+                }
+                // requests of this worker may have been left to it
+                queue.notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Remove the next request of a worker from the queue: the most urgent
+     * one which is new or was searched by the worker, else the most urgent
+     * one of a busy worker. Must be called holding the queue.
+     *
+     * @param worker an int for the number of the worker
+     * @return the request, or null if there is none for the worker
+     */
+    private Request take(int worker) {
+        Request busyOwner = null;
+        for (Request request : queue) {
+            if (request.worker < 0 || request.worker == worker) {
+                queue.remove(request);
+                return request;
+            }
+            if (busyOwner == null && busy[request.worker]) {
+                busyOwner = request;
+            }
+        }
+        if (busyOwner != null) {
+            queue.remove(busyOwner);
+        }
+        return busyOwner;
+    }
+
+    /**
+     * Search a request for a slice.
+     *
+     * @param engine the engine of the worker
+     * @param request the request
+     * @param waiting an int for the number of other waiting requests
+     * @param nextDeadline a long for the deadline of the next request which has to wait for the slice
+     * @return a boolean whether the request needs more slices
+     */
+    private boolean slice(FoxHoundEngine engine, Request request, int waiting, long nextDeadline) {
+        slices.increment();
+        long start = clock.getAsLong();
+        if (request.best == null) {
+            // the first iteration takes no time and makes sure there is an answer
+            request.best = engine.searchDepth(request.position, 1, 0);
+            request.lastNanos = clock.getAsLong() - start;
+            request.depth = 2;
+            return !finished(request) && worthDeepening(request, start, waiting);
+        }
+        // leave the next request time to answer before its deadline
+        long end = Math.min(start + request.sliceNanos,
+            Math.min(request.deadline, nextDeadline) - SAFETY_NANOS);
+        if (end <= start) {
+            degraded.increment();
+            return false;
+        }
+        FoxHoundEngine.Result result = engine.searchDepth(request.position, request.depth, end);
+        long now = clock.getAsLong();
+        request.spentNanos += now - start;
+        if (result == null) {
+            // cut off, try again later, with more time if the slice was too short
+            if (end == start + request.sliceNanos) {
+                request.sliceNanos *= 2;
+            }
+            if (now < request.deadline - SAFETY_NANOS) {
+                return true;
+            }
+            degraded.increment();
+            return false;
+        }
+        request.best = result;
+        request.previousNanos = request.lastNanos;
+        // the whole iteration, including its slices cut off before
+        request.lastNanos = request.spentNanos;
+        request.spentNanos = 0;
+        request.depth++;
+        request.sliceNanos = sliceMillis * 1_000_000;
+        return !finished(request) && worthDeepening(request, now, waiting);
+    }
+
+    /**
+     * Determine if a request needs no deeper iteration.
+     *
+     * @param request the request
+     * @return a boolean whether the result cannot improve
+     */
+    private boolean finished(Request request) {
+        return request.best.isDecided() || request.best.move == FoxHoundPosition.NO_MOVE
+            || request.depth > maxDepth;
+    }
+
+    /**
+     * Determine if the next iteration of a request is expected to end
+     * before its deadline, counting its share of the workers.
+     *
+     * @param request the request
+     * @param now a long for the current time of the clock
+     * @param waiting an int for the number of other waiting requests
+     * @return a boolean whether to search deeper
+     */
+    private boolean worthDeepening(Request request, long now, int waiting) {
+        double growth = request.previousNanos > 0
+            ? Math.max(MIN_GROWTH, request.lastNanos / (double) request.previousNanos) : MIN_GROWTH;
+        double share = Math.min(1, workers.length / (double) (waiting + 1));
+        double expected = request.lastNanos * growth / share;
+        if (now + expected < request.deadline - SAFETY_NANOS) {
+            return true;
+        }
+        degraded.increment();
+        return false;
+    }
+
+    /**
+     * Answer a request with its deepest completed iteration.
+     *
+     * @param request the request
+     */
+    private void complete(Request request) {
+        long late = clock.getAsLong() - request.deadline;
+        if (late > 0) {
+            misses.increment();
+            lateNanos.add(late);
+        }
+        completed.increment();
+        depths.add(request.best.depth);
+        request.future.complete(request.best);
+    }
+
+    /**
+     * Stop the workers after the waiting requests are answered. If waiting
+     * for the workers is interrupted, the interrupt is kept for the caller
+     * and the workers finish on their own.
+     */
+    @Override
+    public void close() {
+        synchronized (queue) {
+            closed = true;
+            queue.notifyAll();
+        }
+        try {
+            for (Thread worker : workers) {
+                worker.join();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Length of a slice of work.
+     *
+     * @return a long for the slice in milliseconds
+     */
+    public long getSliceMillis() {
+        return sliceMillis;
+    }
+
+    /**
+     * Number of requests submitted.
+     *
+     * @return a long for the number of requests
+     */
+    public long getSubmitted() {
+        return submitted.sum();
+    }
+
+    /**
+     * Number of requests answered.
+     *
+     * @return a long for the number of requests
+     */
+    public long getCompleted() {
+        return completed.sum();
+    }
+
+    /**
+     * Number of requests answered after their deadline.
+     *
+     * @return a long for the number of requests
+     */
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * Share of the answered requests which missed their deadline.
+     *
+     * @return a double between 0 and 1
+     */
+    public double getMissRate() {
+        long count = completed.sum();
+        return count == 0 ? 0 : misses.sum() / (double) count;
+    }
+
+    /**
+     * Number of requests answered below the largest depth to keep their deadline.
+     *
+     * @return a long for the number of requests
+     */
+    public long getDegraded() {
+        return degraded.sum();
+    }
+
+    /**
+     * Average depth of the answers.
+     *
+     * @return a double for the depth, 0 if nothing was answered
+     */
+    public double getAverageDepth() {
+        long count = completed.sum();
+        return count == 0 ? 0 : depths.sum() / (double) count;
+    }
+
+    /**
+     * Average time by which the missed deadlines were missed.
+     *
+     * @return a double for the time in milliseconds, 0 if none was missed
+     */
+    public double getAverageLateMillis() {
+        long count = misses.sum();
+        return count == 0 ? 0 : lateNanos.sum() / 1e6 / count;
+    }
+
+    /**
+     * A summary of the counters in a single line.
+     *
+     * @return a String with requests, misses, degraded answers, depth and slices
+     */
+    public String report() {
+        return String.format("requests=%d answered=%d missed=%d (%.2f%%, %.1f ms late) degraded=%d depth=%.1f slices=%d",
+            getSubmitted(), getCompleted(), getMisses(), 100 * getMissRate(), getAverageLateMillis(),
+            getDegraded(), getAverageDepth(), slices.sum());
+    }
+}
@@ -0,0 +1,143 @@
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A benchmark of many engine games in one process, comparing
+ * {@link FoxHoundScheduler} with a search thread per game.
+ *
+ * Every game is played by its own client thread, the engine moving for
+ * both sides with the same time per move. With a search thread per game
+ * all searches run at once and share the processors as the operating
+ * system sees fit. With the scheduler they are queued by deadline and
+ * shared between a worker per processor. For both the share of late
+ * moves, the lateness and the average depth are printed.
+ * <pre>
+ * java FoxHoundSchedulerBench [games] [millis per move] [moves per game] [dim]
+ * </pre>
+ */
+public class FoxHoundSchedulerBench {
+
+    /** Default number of games played at once. */
+    private static final int DEFAULT_GAMES = 64;
+    /** Default time per move in milliseconds. */
+    private static final long DEFAULT_MILLIS = 100;
+    /** Default number of moves per game. */
+    private static final int DEFAULT_MOVES = 10;
+    /** Largest depth of a search. */
+    private static final int MAX_DEPTH = 40;
+    /** Transposition table size of the engine of every game with its own search. */
+    private static final int TABLE_BITS = 16;
+
+    /** Moves, late moves, time late in nanoseconds and depths of the own searches. */
+    private static final LongAdder MOVES = new LongAdder();
+    private static final LongAdder LATE = new LongAdder();
+    private static final LongAdder LATE_NANOS = new LongAdder();
+    private static final LongAdder DEPTHS = new LongAdder();
+
+    /**
+     * Play a game, the engine moving for both sides.
+     *
+     * @param scheduler the scheduler to ask for moves, or null to search on the game thread
+     * @param dim an int for the board dimension
+     * @param millis a long for the time per move
+     * @param moves an int for the largest number of moves
+     * @param seed a long for the random opening move
+     */
+    private static void playGame(FoxHoundScheduler scheduler, int dim, long millis, int moves, long seed) {
+        FoxHoundEngine engine = scheduler == null ? new FoxHoundEngine(new FoxHoundEval(), TABLE_BITS) : null;
+        String[] players = FoxHoundUtils.initialisePositions(dim);
+        char turn = FoxHoundUtils.FOX_FIELD;
+        // a random first move, so the games differ
+        FoxHoundPosition position = new FoxHoundPosition(dim, players, turn);
+        int[] list = new int[FoxHoundPosition.MAX_MOVES];
+        int count = position.generateMoves(list);
+        int first = list[new SplittableRandom(seed).nextInt(count)];
+        FoxHoundUtils.applyMove(players, turn, FoxHoundUtils.toCoord(dim, FoxHoundPosition.from(first)),
+            FoxHoundUtils.toCoord(dim, FoxHoundPosition.to(first)));
+        turn = FoxHoundUtils.HOUND_FIELD;
+        try {
+            for (int i = 0; i < moves; i++) {
+                position = new FoxHoundPosition(dim, players, turn);
+                if (FoxHoundEngine.isGameOver(position)) {
+                    break;
+                }
+                String[] move;
+                if (scheduler != null) {
+                    move = scheduler.chooseMove(dim, players, turn, millis);
+                }
+                else {
+                    long start = System.nanoTime();
+                    FoxHoundEngine.Result result = engine.search(position, MAX_DEPTH, millis, null);
+                    long late = System.nanoTime() - start - millis * 1_000_000;
+                    MOVES.increment();
+                    DEPTHS.add(result.depth);
+                    if (late > 0) {
+                        LATE.increment();
+                        LATE_NANOS.add(late);
+                    }
+                    move = result.move == FoxHoundPosition.NO_MOVE ? null : position.moveToString(result.move).split(" ");
+                }
+                if (move == null) {
+                    break;
+                }
+                FoxHoundUtils.applyMove(players, turn, move[0], move[1]);
+                turn = turn == FoxHoundUtils.FOX_FIELD ? FoxHoundUtils.HOUND_FIELD : FoxHoundUtils.FOX_FIELD;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Play all games at once.
+     *
+     * @param scheduler the scheduler to ask for moves, or null for a search per game
+     * @param games an int for the number of games
+     * @param dim an int for the board dimension
+     * @param millis a long for the time per move
+     * @param moves an int for the largest number of moves per game
+     * @return a double for the time taken in seconds
+     * @throws InterruptedException if waiting for the games is interrupted
+     */
+    private static double run(FoxHoundScheduler scheduler, int games, int dim, long millis, int moves)
+            throws InterruptedException {
+        Thread[] threads = new Thread[games];
+        long start = System.nanoTime();
+        for (int i = 0; i < games; i++) {
+            long seed = i;
+            threads[i] = new Thread(() -> playGame(scheduler, dim, millis, moves, seed));
+            threads[i].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        return (System.nanoTime() - start) / 1e9;
+    }
+
+    /**
+     * Entry method of the benchmark.
+     *
+     * @param args number of games, time and number of moves and board dimension, all optional
+     * @throws InterruptedException if waiting for the games is interrupted
+     */
+    public static void main(String[] args) throws InterruptedException {
+        int games = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_GAMES;
+        long millis = args.length > 1 ? Long.parseLong(args[1]) : DEFAULT_MILLIS;
+        int moves = args.length > 2 ? Integer.parseInt(args[2]) : DEFAULT_MOVES;
+        int dim = args.length > 3 ? Integer.parseInt(args[3]) : FoxHoundUtils.DEFAULT_DIM;
+        int processors = Runtime.getRuntime().availableProcessors();
+        System.out.printf("%d games at once on %dx%d, %d ms per move, %d processors%n",
+            games, dim, dim, millis, processors);
+
+        double seconds = run(null, games, dim, millis, moves);
+        long count = MOVES.sum();
+        System.out.printf("search per game: moves=%d missed=%d (%.2f%%, %.1f ms late) depth=%.1f time=%.1f s%n",
+            count, LATE.sum(), 100.0 * LATE.sum() / count, LATE.sum() == 0 ? 0 : LATE_NANOS.sum() / 1e6 / LATE.sum(),
+            DEPTHS.sum() / (double) count, seconds);
+
+        try (FoxHoundScheduler scheduler = new FoxHoundScheduler(processors, MAX_DEPTH)) {
+            seconds = run(scheduler, games, dim, millis, moves);
+            System.out.printf("shared scheduler: %s time=%.1f s%n", scheduler.report(), seconds);
+        }
+    }
+}
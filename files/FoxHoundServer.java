@@ -0,0 +1,781 @@
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * A network server hosting many fox hound games at once.
+ *
+ * All connections are served by a single thread using a
+ * {@link Selector}. Clients speak a line based protocol which mirrors
+ * the main menu of the console game:
+ * <ul>
+ *   <li>{@code JOIN [dim]} waits for an opponent on a board of the given dimension,</li>
+ *   <li>{@code MOVE <from> <to>} moves a figure ({@link FoxHoundUI#MENU_MOVE}),</li>
+ *   <li>{@code SAVE} returns the game in save file notation ({@link FoxHoundUI#MENU_SAVE}),</li>
+ *   <li>{@code LOAD <line>} replaces the game by one in save file notation, only on the own turn
+ *       of a game which is not over ({@link FoxHoundUI#MENU_LOAD}),</li>
+ *   <li>{@code HINT} asks for a good move of the own figure ({@link FoxHoundUI#MENU_HINT}),</li>
+ *   <li>{@code VARIATIONS} is refused, as both players share a single line
+ *       ({@link FoxHoundUI#MENU_VARIATIONS}),</li>
+ *   <li>{@code EXIT} leaves the game and closes the connection ({@link FoxHoundUI#MENU_EXIT}).</li>
+ * </ul>
+ *
+ * The server answers with:
+ * <ul>
+ *   <li>{@code START <figure> <dim> <line>} once two clients are matched, the first one plays the Fox,</li>
+ *   <li>{@code OK} to a valid move and {@code MOVED <from> <to>} to the opponent,</li>
+ *   <li>{@code WIN <figure>} to both clients once the game is over,</li>
+ *   <li>{@code SAVED <line>} to a save and {@code BOARD <line>} to both clients after a load,</li>
+ *   <li>{@code HINT <from> <to>} to a hint,</li>
+ *   <li>{@code END} if the opponent left and {@code ERR <reason>} for invalid requests.</li>
+ * </ul>
+ * Moves are validated with {@link FoxHoundUtils}. Hints are searched by
+ * a {@link FoxHoundScheduler} so the event loop keeps serving the other
+ * clients, and the answer is sent once the search is done.
+ *
+ * A client which does not read its responses is disconnected once more
+ * than {@value #MAX_OUTPUT} bytes wait to be written to it.
+ *
+ * Every game is published to spectators while both clients play it, as
+ * moves and as a snapshot after a load, see {@link #getBroadcast}.
+ */
+public class FoxHoundServer implements Runnable {
+
+    /** Default port of the server. */
+    public static final int DEFAULT_PORT = 7474;
+
+    /** Command to wait for an opponent. */
+    private static final String CMD_JOIN = "JOIN";
+    /** Commands of the main menu, indexed by their menu entry. */
+    private static final String[] MENU_COMMANDS = {null, "MOVE", "SAVE", "LOAD", "EXIT", "HINT", "VARIATIONS"};
+    /** Time until a hint is answered in milliseconds. */
+    private static final long HINT_MILLIS = 200;
+    /** Largest depth of a hint search. */
+    private static final int HINT_DEPTH = 12;
+    /** Maximum length of a request line in bytes. */
+    private static final int MAX_LINE = 256;
+    /** Size of the read buffer of every connection. */
+    private static final int BUFFER_SIZE = 512;
+    /** Maximum number of pending connections. */
+    private static final int BACKLOG = 4096;
+    /** Maximum number of response bytes waiting for a client before it is disconnected. */
+    private static final int MAX_OUTPUT = 64 * 1024;
+    /** Number of moves kept for slow spectators of a game. */
+    private static final int BROADCAST_CAPACITY = 256;
+
+    /** Address the server listens on. */
+    private final InetSocketAddress address;
+    /** Evaluation function of the hint engines. */
+    private final FoxHoundEval eval;
+    /** Clients waiting for an opponent, indexed by board dimension. */
+    private final List<ArrayDeque<Session>> waiting = new ArrayList<>(FoxHoundUtils.MAX_DIM + 1);
+    /** Buffer all reads are done into. */
+    private final ByteBuffer readBuffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+
+    private Selector selector;
+    private ServerSocketChannel serverChannel;
+    private volatile boolean running;
+    /** Searches hints on its own threads. */
+    private FoxHoundScheduler hints;
+    /** Work handed back to the event loop by other threads. */
+    private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+    /** Number of games started since the server started, only written by the event loop. */
+    private volatile long gamesStarted;
+    /** Number of moves played since the server started, only written by the event loop. */
+    private volatile long movesPlayed;
+    /** Broadcasts of the games being played, by game number. */
+    private final Map<Long, FoxHoundBroadcast> broadcasts = new ConcurrentHashMap<>();
+
+    /**
+     * A game between two connected clients.
+     */
+    private static final class Match {
+        final int dim;
+        String[] players;
+        char turn = FoxHoundUtils.FOX_FIELD;
+        final Session fox;
+        final Session hounds;
+        boolean over;
+        /** Number of the game, counted from 1 in the order the games started. */
+        final long number;
+        /** Publishes the game to spectators, only from the event loop. */
+        final FoxHoundBroadcast broadcast;
+
+        Match(int dim, Session fox, Session hounds, long number) {
+            this.dim = dim;
+            this.players = FoxHoundUtils.initialisePositions(dim);
+            this.fox = fox;
+            this.hounds = hounds;
+            this.number = number;
+            this.broadcast = new FoxHoundBroadcast(BROADCAST_CAPACITY, new FoxHoundPosition(dim, players, turn));
+        }
+
+        Session opponent(Session session) {
+            return session == fox ? hounds : fox;
+        }
+    }
+
+    /**
+     * The state of a single connection.
+     */
+    private static final class Session {
+        final SocketChannel channel;
+        final SelectionKey key;
+        /** Bytes of the request line read so far. */
+        final byte[] line = new byte[MAX_LINE];
+        int lineLength;
+        /** Responses not yet written to the channel. */
+        final ArrayDeque<ByteBuffer> output = new ArrayDeque<>();
+        /** Number of bytes in the output queue. */
+        int outputBytes;
+        Match match;
+        char figure;
+        /** Dimension the client waits for an opponent on, 0 if it is not waiting. */
+        int waitingDim;
+        boolean closing;
+
+        Session(SocketChannel channel, SelectionKey key) {
+            this.channel = channel;
+            this.key = key;
+        }
+    }
+
+    /**
+     * Create a server whose hints use the default weights. It does not
+     * listen before {@link #start} is called.
+     *
+     * @param address the address to listen on, port 0 for any free port
+     */
+    public FoxHoundServer(InetSocketAddress address) {
+        this(address, new FoxHoundEval());
+    }
+
+    /**
+     * Create a server. It does not listen before {@link #start} is called.
+     *
+     * @param address the address to listen on, port 0 for any free port
+     * @param eval the evaluation function of the hint engines
+     */
+    public FoxHoundServer(InetSocketAddress address, FoxHoundEval eval) {
+        this.address = address;
+        this.eval = eval;
+        for (int dim = 0; dim <= FoxHoundUtils.MAX_DIM; dim++) {
+            waiting.add(new ArrayDeque<>());
+        }
+    }
+
+    /**
+     * Bind the server socket.
+     *
+     * @throws IOException if the socket cannot be opened
+     */
+    public void start() throws IOException {
+        selector = Selector.open();
+        serverChannel = ServerSocketChannel.open();
+        serverChannel.configureBlocking(false);
+        serverChannel.bind(address, BACKLOG);
+        serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+        hints = new FoxHoundScheduler(Math.max(1, Runtime.getRuntime().availableProcessors() - 1), HINT_DEPTH,
+            FoxHoundScheduler.DEFAULT_SLICE_MILLIS, eval);
+        running = true;
+    }
+
+    /**
+     * Port the server listens on.
+     *
+     * @return an int for the local port
+     * @throws IOException if the port cannot be determined
+     */
+    public int getPort() throws IOException {
+        return ((InetSocketAddress) serverChannel.getLocalAddress()).getPort();
+    }
+
+    /**
+     * Stop the event loop and close all connections.
+     */
+    public void stop() {
+        running = false;
+        if (selector != null) {
+            selector.wakeup();
+        }
+    }
+
+    /**
+     * Number of games started so far.
+     *
+     * @return a long for the number of games
+     */
+    public long getGamesStarted() {
+        return gamesStarted;
+    }
+
+    /**
+     * Broadcast of a game being played, to watch it with a
+     * {@link FoxHoundBroadcast.Subscriber}. It keeps its updates after
+     * the game ended, but is no longer found by its number then.
+     *
+     * @param game a long for the number of the game, counted from 1 in the order the games started
+     * @return the broadcast of the game, or null if no such game is being played
+     */
+    public FoxHoundBroadcast getBroadcast(long game) {
+        return broadcasts.get(game);
+    }
+
+    /**
+     * Number of moves played so far.
+     *
+     * @return a long for the number of moves
+     */
+    public long getMovesPlayed() {
+        return movesPlayed;
+    }
+
+    /**
+     * Run the event loop until the server is stopped.
+     */
+    @Override
+    public void run() {
+        try {
+            while (running) {
+                selector.select();
+                Runnable task;
+                while ((task = tasks.poll()) != null) {
+                    task.run();
+                }
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    if (!key.isValid()) {
+                        continue;
+                    }
+                    try {
+                        if (key.isAcceptable()) {
+                            accept();
+                        }
+                        else {
+                            Session session = (Session) key.attachment();
+                            if (key.isReadable()) {
+                                read(session);
+                            }
+                            if (key.isValid() && key.isWritable()) {
+                                flush(session);
+                            }
+                        }
+                    } catch (IOException e) {
+                        if (key.attachment() != null) {
+                            close((Session) key.attachment());
+                        }
+                    }
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("ERROR: Server failed: " + e.getMessage());
+        } finally {
+            closeAll();
+        }
+    }
+
+    /**
+     * Accept all pending connections.
+     *
+     * @throws IOException if accepting fails
+     */
+    private void accept() throws IOException {
+        SocketChannel channel;
+        while ((channel = serverChannel.accept()) != null) {
+            channel.configureBlocking(false);
+            channel.socket().setTcpNoDelay(true);
+            SelectionKey key = channel.register(selector, SelectionKey.OP_READ);
+            key.attach(new Session(channel, key));
+        }
+    }
+
+    /**
+     * Read from a connection and handle every complete request line.
+     *
+     * @param session the connection to read from
+     * @throws IOException if reading fails
+     */
+    private void read(Session session) throws IOException {
+        readBuffer.clear();
+        int read = session.channel.read(readBuffer);
+        if (read < 0) {
+            close(session);
+            return;
+        }
+        readBuffer.flip();
+        while (readBuffer.hasRemaining() && !session.closing) {
+            byte b = readBuffer.get();
+            if (b == '\n') {
+                int length = session.lineLength;
+                if (length > 0 && session.line[length - 1] == '\r') {
+                    length--;
+                }
+                session.lineLength = 0;
+                handle(session, new String(session.line, 0, length, StandardCharsets.US_ASCII).trim());
+            }
+            else if (session.lineLength < MAX_LINE) {
+                session.line[session.lineLength++] = b;
+            }
+        }
+        flush(session);
+    }
+
+    /**
+     * Handle a single request line.
+     *
+     * @param session the connection the request came from
+     * @param request the request line
+     */
+    private void handle(Session session, String request) {
+        if (request.isEmpty()) {
+            return;
+        }
+        int space = request.indexOf(' ');
+        String command = space < 0 ? request : request.substring(0, space);
+        String argument = space < 0 ? "" : request.substring(space + 1).trim();
+
+        if (command.equals(CMD_JOIN)) {
+            join(session, argument);
+            return;
+        }
+        int choice = menuEntry(command);
+        if (choice != FoxHoundUI.MENU_EXIT && session.match == null) {
+            send(session, "ERR not in a game");
+            return;
+        }
+        switch (choice) {
+            case FoxHoundUI.MENU_MOVE:
+                move(session, argument);
+                break;
+            case FoxHoundUI.MENU_SAVE:
+                Match match = session.match;
+                send(session, "SAVED " + FoxHoundIO.formatGame(match.players, match.turn).trim());
+                break;
+            case FoxHoundUI.MENU_LOAD:
+                load(session, argument);
+                break;
+            case FoxHoundUI.MENU_HINT:
+                hint(session);
+                break;
+            case FoxHoundUI.MENU_VARIATIONS:
+                // a shared match has a single line, both players would have to agree on going back
+                send(session, "ERR variations are not available in network games");
+                break;
+            case FoxHoundUI.MENU_EXIT:
+                leave(session);
+                session.closing = true;
+                break;
+            default:
+                send(session, "ERR unknown command: " + command);
+        }
+    }
+
+    /**
+     * Find the main menu entry of a command.
+     *
+     * @param command the command of a request
+     * @return an int for the menu entry, or -1 if it is no menu command
+     */
+    private static int menuEntry(String command) {
+        for (int i = 1; i < MENU_COMMANDS.length; i++) {
+            if (MENU_COMMANDS[i].equals(command)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Start a short search of the current game for a hint. The search runs
+     * on the hint scheduler and the answer is sent by the event loop.
+     *
+     * @param session the connection asking for a hint
+     */
+    private void hint(Session session) {
+        Match match = session.match;
+        if (match.over) {
+            send(session, "ERR game over");
+            return;
+        }
+        if (match.turn != session.figure) {
+            send(session, "ERR not your turn");
+            return;
+        }
+        FoxHoundPosition position;
+        try {
+            position = new FoxHoundPosition(match.dim, match.players, match.turn);
+        } catch (IllegalArgumentException e) {
+            send(session, "ERR no hint for this game");
+            return;
+        }
+        String[] players = match.players.clone();
+        hints.submit(match.dim, players, match.turn, HINT_MILLIS).whenComplete((result, failure) -> {
+            tasks.add(() -> answerHint(session, match, players, position, result));
+            selector.wakeup();
+        });
+    }
+
+    /**
+     * Send the result of a hint search, unless the game changed meanwhile.
+     *
+     * @param session the connection which asked for the hint
+     * @param match the game the hint was searched for
+     * @param players the positions of all figures when the hint was asked for
+     * @param position the searched position
+     * @param result the result of the search, null if it failed
+     */
+    private void answerHint(Session session, Match match, String[] players, FoxHoundPosition position,
+                            FoxHoundEngine.Result result) {
+        if (session.closing || !session.key.isValid()) {
+            return;
+        }
+        if (session.match != match || match.over || match.turn != position.getTurn()
+                || !Arrays.equals(match.players, players)) {
+            send(session, "ERR game changed");
+        }
+        else if (result == null || result.move == FoxHoundPosition.NO_MOVE) {
+            send(session, "ERR no move possible");
+        }
+        else {
+            send(session, "HINT " + position.moveToString(result.move));
+        }
+        flushQuietly(session);
+    }
+
+    /**
+     * Match a client with a waiting opponent or let it wait for one.
+     *
+     * @param session the connection to match
+     * @param argument the requested board dimension, empty for the default
+     */
+    private void join(Session session, String argument) {
+        int dim = FoxHoundUtils.DEFAULT_DIM;
+        if (!argument.isEmpty()) {
+            try {
+                dim = Integer.parseInt(argument);
+            } catch (NumberFormatException e) {
+                dim = -1;
+            }
+        }
+        if (dim < FoxHoundUtils.MIN_DIM || dim > FoxHoundUtils.MAX_DIM) {
+            send(session, "ERR invalid dimension: " + argument);
+            return;
+        }
+        leave(session);
+        ArrayDeque<Session> queue = waiting.get(dim);
+        Session opponent = queue.poll();
+        if (opponent == null) {
+            queue.add(session);
+            session.waitingDim = dim;
+            return;
+        }
+        opponent.waitingDim = 0;
+        gamesStarted++;
+        Match match = new Match(dim, opponent, session, gamesStarted);
+        opponent.match = match;
+        opponent.figure = FoxHoundUtils.FOX_FIELD;
+        session.match = match;
+        session.figure = FoxHoundUtils.HOUND_FIELD;
+        broadcasts.put(match.number, match.broadcast);
+        String line = FoxHoundIO.formatGame(match.players, match.turn).trim();
+        send(opponent, "START " + FoxHoundUtils.FOX_FIELD + " " + dim + " " + line);
+        flushQuietly(opponent);
+        send(session, "START " + FoxHoundUtils.HOUND_FIELD + " " + dim + " " + line);
+    }
+
+    /**
+     * Validate and play a move.
+     *
+     * @param session the connection of the moving client
+     * @param argument origin and destination coordinate separated by a space
+     */
+    private void move(Session session, String argument) {
+        Match match = session.match;
+        if (match.over) {
+            send(session, "ERR game over");
+            return;
+        }
+        if (match.turn != session.figure) {
+            send(session, "ERR not your turn");
+            return;
+        }
+        String[] coords = argument.split("\\s+");
+        if (coords.length != 2
+                || !FoxHoundUtils.isValidCoord(match.dim, coords[0])
+                || !FoxHoundUtils.isValidCoord(match.dim, coords[1])) {
+            send(session, "ERR invalid coordinates: " + argument);
+            return;
+        }
+        String origin = FoxHoundUtils.toCoord(match.dim, FoxHoundUtils.toSquare(match.dim, coords[0]));
+        String destination = FoxHoundUtils.toCoord(match.dim, FoxHoundUtils.toSquare(match.dim, coords[1]));
+        if (!FoxHoundUtils.isValidMove(match.dim, match.players, match.turn, origin, destination)) {
+            send(session, "ERR invalid move: " + argument);
+            return;
+        }
+        FoxHoundUtils.applyMove(match.players, match.turn, origin, destination);
+        match.broadcast.publishMove(FoxHoundPosition.move(FoxHoundUtils.toSquare(match.dim, origin),
+            FoxHoundUtils.toSquare(match.dim, destination)));
+        match.turn = match.turn == FoxHoundUtils.FOX_FIELD ? FoxHoundUtils.HOUND_FIELD : FoxHoundUtils.FOX_FIELD;
+        movesPlayed++;
+        Session opponent = match.opponent(session);
+        send(session, "OK");
+        send(opponent, "MOVED " + origin + " " + destination);
+        announceWinner(match);
+        flushQuietly(opponent);
+    }
+
+    /**
+     * Replace the game of a client by a game in save file notation.
+     *
+     * @param session the connection of the loading client
+     * @param argument the game in save file notation
+     */
+    private void load(Session session, String argument) {
+        Match match = session.match;
+        if (match.over) {
+            send(session, "ERR game over");
+            return;
+        }
+        if (match.turn != session.figure) {
+            send(session, "ERR not your turn");
+            return;
+        }
+        String[] tokens = argument.split("\\s+");
+        if (tokens.length != match.players.length + 1
+                || tokens[0].length() != 1
+                || (tokens[0].charAt(0) != FoxHoundUtils.FOX_FIELD
+                    && tokens[0].charAt(0) != FoxHoundUtils.HOUND_FIELD)) {
+            send(session, "ERR invalid game: " + argument);
+            return;
+        }
+        String[] players = new String[match.players.length];
+        for (int i = 0; i < players.length; i++) {
+            int square = FoxHoundUtils.toSquare(match.dim, tokens[i + 1]);
+            if (square == FoxHoundUtils.NO_SQUARE) {
+                send(session, "ERR invalid game: " + argument);
+                return;
+            }
+            players[i] = FoxHoundUtils.toCoord(match.dim, square);
+        }
+        FoxHoundPosition position;
+        try {
+            // rejects figures sharing a field, which the later hints could not search
+            position = new FoxHoundPosition(match.dim, players, tokens[0].charAt(0));
+        } catch (IllegalArgumentException e) {
+            send(session, "ERR invalid game: " + argument);
+            return;
+        }
+        match.players = players;
+        match.turn = tokens[0].charAt(0);
+        match.broadcast.publishReset(position);
+        String line = FoxHoundIO.formatGame(players, match.turn).trim();
+        send(match.fox, "BOARD " + line);
+        send(match.hounds, "BOARD " + line);
+        announceWinner(match);
+        flushQuietly(match.opponent(session));
+    }
+
+    /**
+     * Tell both clients if the game is over.
+     *
+     * The game ends as in the console game, and additionally with a win
+     * of the Fox if the hounds cannot move any more.
+     *
+     * @param match the game to check
+     */
+    private void announceWinner(Match match) {
+        char winner = 0;
+        if (FoxHoundUtils.isFoxWin(match.players[match.players.length - 1])) {
+            winner = FoxHoundUtils.FOX_FIELD;
+        }
+        else if (FoxHoundUtils.isHoundWin(match.players, match.dim)) {
+            winner = FoxHoundUtils.HOUND_FIELD;
+        }
+        else if (match.turn == FoxHoundUtils.HOUND_FIELD && !houndsCanMove(match)) {
+            winner = FoxHoundUtils.FOX_FIELD;
+        }
+        if (winner != 0) {
+            match.over = true;
+            send(match.fox, "WIN " + winner);
+            send(match.hounds, "WIN " + winner);
+        }
+    }
+
+    /**
+     * Determine if any hound has a valid move.
+     *
+     * @param match the game to check
+     * @return a boolean whether the hounds can move
+     */
+    private static boolean houndsCanMove(Match match) {
+        for (int i = 0; i < match.players.length - 1; i++) {
+            int[] coord = FoxHoundUtils.posToNum(match.players[i]);
+            for (int dc = -1; dc <= 1; dc += 2) {
+                int[] target = {coord[0] + dc, coord[1] + 1};
+                if (FoxHoundUtils.isValidCoord(match.dim, target)) {
+                    int square = (target[1] - 1) * match.dim + target[0] - FoxHoundUtils.LETTER_A;
+                    String destination = FoxHoundUtils.toCoord(match.dim, square);
+                    if (FoxHoundUtils.isValidMove(match.dim, match.players, FoxHoundUtils.HOUND_FIELD,
+                            match.players[i], destination)) {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Remove a client from the waiting queues and its game.
+     *
+     * @param session the connection leaving
+     */
+    private void leave(Session session) {
+        if (session.waitingDim != 0) {
+            waiting.get(session.waitingDim).remove(session);
+            session.waitingDim = 0;
+        }
+        Match match = session.match;
+        if (match != null) {
+            session.match = null;
+            broadcasts.remove(match.number);
+            Session opponent = match.opponent(session);
+            if (opponent.match == match) {
+                opponent.match = null;
+                if (!match.over) {
+                    send(opponent, "END");
+                    flushQuietly(opponent);
+                }
+            }
+        }
+    }
+
+    /**
+     * Queue a response line for a client. A client with too many
+     * responses waiting does not read them and is disconnected.
+     *
+     * @param session the connection to respond to
+     * @param response the response line without line break
+     */
+    private void send(Session session, String response) {
+        if (!session.key.isValid()) {
+            return;
+        }
+        byte[] bytes = (response + "\n").getBytes(StandardCharsets.US_ASCII);
+        if (session.outputBytes + bytes.length > MAX_OUTPUT) {
+            session.output.clear();
+            session.outputBytes = 0;
+            close(session);
+            return;
+        }
+        session.output.add(ByteBuffer.wrap(bytes));
+        session.outputBytes += bytes.length;
+    }
+
+    /**
+     * Write queued responses without blocking and wait for the channel
+     * to become writable if not everything could be written.
+     *
+     * @param session the connection to write to
+     * @throws IOException if writing fails
+     */
+    private void flush(Session session) throws IOException {
+        while (!session.output.isEmpty()) {
+            ByteBuffer buffer = session.output.peek();
+            session.channel.write(buffer);
+            if (buffer.hasRemaining()) {
+                session.key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+                return;
+            }
+            session.outputBytes -= buffer.capacity();
+            session.output.poll();
+        }
+        if (session.closing) {
+            close(session);
+        }
+        else if (session.key.isValid()) {
+            session.key.interestOps(SelectionKey.OP_READ);
+        }
+    }
+
+    /**
+     * Write queued responses of another client, closing it if that fails.
+     *
+     * @param session the connection to write to
+     */
+    private void flushQuietly(Session session) {
+        try {
+            flush(session);
+        } catch (IOException e) {
+            close(session);
+        }
+    }
+
+    /**
+     * Close a connection and end its game.
+     *
+     * @param session the connection to close
+     */
+    private void close(Session session) {
+        session.key.cancel();
+        try {
+            session.channel.close();
+        } catch (IOException ignored) {
+            // the connection is gone either way
+        }
+        if (session.match != null || !session.closing) {
+            session.closing = true;
+            leave(session);
+        }
+    }
+
+    /**
+     * Close the server socket and all connections.
+     */
+    private void closeAll() {
+        hints.close();
+        for (SelectionKey key : selector.keys()) {
+            try {
+                key.channel().close();
+            } catch (IOException ignored) {
+                // shutting down anyway
+            }
+        }
+        try {
+            selector.close();
+        } catch (IOException ignored) {
+            // shutting down anyway
+        }
+    }
+
+    /**
+     * Entry method of the game server.
+     *
+     * @param args contain the command line arguments where the first can be the port
+     * @throws IOException if the server socket cannot be opened or the weights file cannot be read
+     */
+    public static void main(String[] args) throws IOException {
+        FoxHoundMetrics.register();
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+        FoxHoundServer server = new FoxHoundServer(new InetSocketAddress(port), FoxHoundEval.load());
+        server.start();
+        System.out.println("Fox and Hounds server listening on port " + server.getPort());
+        server.run();
+    }
+}
@@ -0,0 +1,205 @@
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * A benchmark of the {@link FoxHoundSessionServer} threading modes.
+ *
+ * For every mode a server is started in the same process and many
+ * mostly idle sessions are connected. The benchmark reports how many
+ * sessions got their main menu within the time limit, the heap and
+ * threads used to hold them, and the latency of one move played in
+ * every served session.
+ * <pre>
+ * java FoxHoundSessionBench [sessions] [pool size]
+ * </pre>
+ */
+public class FoxHoundSessionBench {
+
+    /** Default number of sessions. */
+    private static final int DEFAULT_SESSIONS = 2000;
+    /** Default size of the fixed platform thread pool. */
+    private static final int DEFAULT_POOL = 256;
+    /** Time to wait for all sessions to show their menu, in nanoseconds. */
+    private static final long TIMEOUT_NANOS = 10_000_000_000L;
+    /** Text every main menu prompt starts with. */
+    private static final String MENU_PROMPT = "Enter 1 - ";
+    /** Input moving the fox in the default starting position. */
+    private static final String MOVE_INPUT = FoxHoundUI.MENU_MOVE + "\nE8 D7\n";
+
+    /**
+     * The client side of a session.
+     */
+    private static final class Client {
+        final SocketChannel channel;
+        final StringBuilder received = new StringBuilder();
+        int prompts;
+        long sentAt;
+        long latency = -1;
+
+        Client(SocketChannel channel) {
+            this.channel = channel;
+        }
+    }
+
+    /**
+     * Run the benchmark for a single threading mode.
+     *
+     * @param mode the threading mode of the server
+     * @param sessions an int for the number of sessions
+     * @throws IOException if connecting fails
+     */
+    private static void runMode(String mode, int sessions) throws IOException {
+        FoxHoundSessionServer server = new FoxHoundSessionServer(
+            new InetSocketAddress("127.0.0.1", 0), FoxHoundUtils.DEFAULT_DIM, mode,
+            FoxHoundSessionServer.DEFAULT_SAVE_DIR);
+        server.start();
+        Thread acceptor = new Thread(server, "foxhound-acceptor");
+        acceptor.setDaemon(true);
+        acceptor.start();
+
+        long heapBefore = usedHeap();
+        int threadsBefore = Thread.activeCount();
+        Selector selector = Selector.open();
+        List<Client> clients = new ArrayList<>();
+        long start = System.nanoTime();
+        for (int i = 0; i < sessions; i++) {
+            SocketChannel channel = SocketChannel.open(new InetSocketAddress("127.0.0.1", server.getPort()));
+            channel.configureBlocking(false);
+            Client client = new Client(channel);
+            channel.register(selector, SelectionKey.OP_READ, client);
+            clients.add(client);
+        }
+        int served = awaitPrompts(selector, sessions, 1, start + TIMEOUT_NANOS);
+        double setupMillis = (System.nanoTime() - start) / 1e6;
+        long heapUsed = usedHeap() - heapBefore;
+        int threads = Thread.activeCount() - threadsBefore;
+
+        // play one move in every session which got its menu
+        long moveStart = System.nanoTime();
+        ByteBuffer input = ByteBuffer.wrap(MOVE_INPUT.getBytes(StandardCharsets.US_ASCII));
+        for (Client client : clients) {
+            if (client.prompts >= 1) {
+                client.sentAt = System.nanoTime();
+                input.rewind();
+                client.channel.write(input);
+            }
+        }
+        int moved = awaitPrompts(selector, served, 2, moveStart + TIMEOUT_NANOS);
+        long[] latencies = clients.stream().filter(c -> c.latency >= 0).mapToLong(c -> c.latency).sorted().toArray();
+
+        System.out.printf("%-10s served=%d/%d setup=%.0f ms heap=%d KB (%.1f KB/session) threads=%d%n",
+            mode, served, sessions, setupMillis, heapUsed / 1024,
+            served == 0 ? 0.0 : heapUsed / 1024.0 / served, threads);
+        if (latencies.length > 0) {
+            System.out.printf("%-10s moves=%d move latency p50=%.3f ms p99=%.3f ms%n", mode, moved,
+                latencies[latencies.length / 2] / 1e6,
+                latencies[(int) ((latencies.length - 1) * 0.99)] / 1e6);
+        }
+
+        for (Client client : clients) {
+            client.channel.close();
+        }
+        selector.close();
+        // let the sessions see the closed connections before the next mode is measured
+        long end = System.nanoTime() + TIMEOUT_NANOS;
+        while (server.getActiveSessions() > 0 && System.nanoTime() < end) {
+            try {
+                Thread.sleep(10);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        server.stop();
+    }
+
+    /**
+     * Read from all sessions until enough of them showed the given number of menus.
+     *
+     * @param selector the selector of all client channels
+     * @param expected an int for the number of sessions to wait for
+     * @param prompts an int for the number of menus a session has to show
+     * @param deadline a long for the time to give up, in nanoseconds
+     * @return an int for the number of sessions which showed the menus
+     * @throws IOException if reading fails
+     */
+    private static int awaitPrompts(Selector selector, int expected, int prompts, long deadline)
+            throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(4096);
+        int done = 0;
+        for (SelectionKey key : selector.keys()) {
+            if (((Client) key.attachment()).prompts >= prompts) {
+                done++;
+            }
+        }
+        while (done < expected && System.nanoTime() < deadline) {
+            selector.select(100);
+            Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+            while (keys.hasNext()) {
+                SelectionKey key = keys.next();
+                keys.remove();
+                Client client = (Client) key.attachment();
+                buffer.clear();
+                if (client.channel.read(buffer) < 0) {
+                    key.cancel();
+                    continue;
+                }
+                client.received.append(new String(buffer.array(), 0, buffer.position(), StandardCharsets.US_ASCII));
+                int index;
+                while ((index = client.received.indexOf(MENU_PROMPT)) >= 0) {
+                    client.received.delete(0, index + MENU_PROMPT.length());
+                    client.prompts++;
+                    if (client.prompts == 2) {
+                        client.latency = System.nanoTime() - client.sentAt;
+                    }
+                    if (client.prompts == prompts) {
+                        done++;
+                    }
+                }
+            }
+        }
+        return done;
+    }
+
+    /**
+     * Heap in use after a garbage collection.
+     *
+     * @return a long for the used heap in bytes
+     */
+    private static long usedHeap() {
+        System.gc();
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+
+    /**
+     * Entry method of the benchmark.
+     *
+     * @param args number of sessions and size of the fixed pool, both optional
+     * @throws IOException if the servers cannot be started or reached
+     */
+    public static void main(String[] args) throws IOException {
+        int sessions = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_SESSIONS;
+        int pool = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_POOL;
+        List<String> modes = new ArrayList<>(Arrays.asList(
+            FoxHoundSessionServer.MODE_PLATFORM, FoxHoundSessionServer.MODE_POOL + pool));
+        if (FoxHoundSessionServer.hasVirtualThreads()) {
+            modes.add(0, FoxHoundSessionServer.MODE_VIRTUAL);
+        }
+        else {
+            System.out.println("Virtual threads need Java 21 or newer, skipping " + FoxHoundSessionServer.MODE_VIRTUAL);
+        }
+        for (String mode : modes) {
+            runMode(mode, sessions);
+        }
+    }
+}
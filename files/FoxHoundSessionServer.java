@@ -0,0 +1,242 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.lang.reflect.Method;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.NoSuchElementException;
+import java.util.Scanner;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A network server running the console game once per connection.
+ *
+ * Every accepted connection gets its own game loop with a Scanner and
+ * a PrintStream on the socket in place of the standard streams, so the
+ * client sees exactly what a player at the terminal sees. Each game
+ * loop runs on its own thread, which is a virtual thread if the Java
+ * runtime supports them. Otherwise, or if asked for, platform threads
+ * are used.
+ *
+ * Save files of all sessions are kept in a single directory given to
+ * the server and only the file name entered by a client is used.
+ */
+public class FoxHoundSessionServer implements Runnable {
+
+    /** Default port of the server. */
+    public static final int DEFAULT_PORT = 7475;
+    /** Mode running every session on a virtual thread. */
+    public static final String MODE_VIRTUAL = "virtual";
+    /** Mode running every session on a new platform thread. */
+    public static final String MODE_PLATFORM = "platform";
+    /** Mode running sessions on a fixed pool of platform threads, followed by the pool size. */
+    public static final String MODE_POOL = "pool:";
+
+    /** Directory the save files are kept in if the server is started from the command line. */
+    public static final Path DEFAULT_SAVE_DIR = Paths.get("session-saves");
+    /** Stack size of platform session threads, enough for the game loop. */
+    private static final long PLATFORM_STACK_SIZE = 256 * 1024;
+
+    private final InetSocketAddress address;
+    private final int dim;
+    /** Directory the save files of all sessions are kept in. */
+    private final Path saveDir;
+    private final ExecutorService executor;
+    private final AtomicInteger activeSessions = new AtomicInteger();
+    private ServerSocket serverSocket;
+    private volatile boolean running;
+
+    /**
+     * Create a server. It does not listen before {@link #start} is called.
+     *
+     * @param address the address to listen on, port 0 for any free port
+     * @param dim an int for the board dimension of all games
+     * @param mode a String for the threading mode of the sessions
+     * @param saveDir the directory the save files of all sessions are kept in
+     * @throws IllegalArgumentException if the dimension or the mode is invalid
+     */
+    public FoxHoundSessionServer(InetSocketAddress address, int dim, String mode, Path saveDir) {
+        if (dim < FoxHoundUtils.MIN_DIM || dim > FoxHoundUtils.MAX_DIM) {
+            throw new IllegalArgumentException("Invalid board dimension");
+        }
+        this.address = address;
+        this.dim = dim;
+        this.saveDir = saveDir;
+        this.executor = newExecutor(mode);
+    }
+
+    /**
+     * Determine if the Java runtime supports virtual threads.
+     *
+     * @return a boolean whether virtual threads are available
+     */
+    public static boolean hasVirtualThreads() {
+        try {
+            Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return true;
+        } catch (NoSuchMethodException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Create the executor running the sessions.
+     *
+     * Virtual threads are looked up reflectively, so the server also
+     * runs on Java versions without them.
+     *
+     * @param mode a String for the threading mode
+     * @return an ExecutorService starting one task per session
+     * @throws IllegalArgumentException if the mode is invalid
+     */
+    private static ExecutorService newExecutor(String mode) {
+        if (mode.equals(MODE_VIRTUAL)) {
+            try {
+                Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+                return (ExecutorService) factory.invoke(null);
+            } catch (ReflectiveOperationException e) {
+                System.err.println("Virtual threads are not available, using platform threads.");
+                return Executors.newCachedThreadPool(platformThreads());
+            }
+        }
+        if (mode.equals(MODE_PLATFORM)) {
+            return Executors.newCachedThreadPool(platformThreads());
+        }
+        if (mode.startsWith(MODE_POOL)) {
+            int size = Integer.parseInt(mode.substring(MODE_POOL.length()));
+            return Executors.newFixedThreadPool(size, platformThreads());
+        }
+        throw new IllegalArgumentException("Unknown mode: " + mode);
+    }
+
+    /**
+     * Thread factory for platform session threads with a small stack.
+     *
+     * @return a ThreadFactory creating daemon threads
+     */
+    private static ThreadFactory platformThreads() {
+        AtomicInteger count = new AtomicInteger();
+        return task -> {
+            Thread thread = new Thread(null, task, "foxhound-session-" + count.incrementAndGet(),
+                PLATFORM_STACK_SIZE);
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * Bind the server socket.
+     *
+     * @throws IOException if the socket cannot be opened
+     */
+    public void start() throws IOException {
+        Files.createDirectories(saveDir);
+        serverSocket = new ServerSocket();
+        serverSocket.bind(address, 4096);
+        running = true;
+    }
+
+    /**
+     * Port the server listens on.
+     *
+     * @return an int for the local port
+     */
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    /**
+     * Number of sessions currently running.
+     *
+     * @return an int for the number of connected players
+     */
+    public int getActiveSessions() {
+        return activeSessions.get();
+    }
+
+    /**
+     * Stop accepting connections and end all sessions.
+     */
+    public void stop() {
+        running = false;
+        try {
+            serverSocket.close();
+        } catch (IOException ignored) {
+            // closing anyway
+        }
+        executor.shutdownNow();
+        try {
+            executor.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Accept connections until the server is stopped.
+     */
+    @Override
+    public void run() {
+        while (running) {
+            try {
+                Socket socket = serverSocket.accept();
+                socket.setTcpNoDelay(true);
+                executor.execute(() -> runSession(socket));
+            } catch (IOException e) {
+                if (running) {
+                    System.err.println("ERROR: Accepting connection failed: " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * Run the game loop for a single connection.
+     *
+     * @param socket the connection of the player
+     */
+    private void runSession(Socket socket) {
+        activeSessions.incrementAndGet();
+        try (socket;
+             Scanner in = new Scanner(new BufferedInputStream(socket.getInputStream()), StandardCharsets.UTF_8);
+             PrintStream out = new PrintStream(new BufferedOutputStream(socket.getOutputStream()),
+                 true, StandardCharsets.UTF_8)) {
+            String[] players = FoxHoundUtils.initialisePositions(dim);
+            FoxHoundGame.gameLoop(dim, players, in, out, out, new FoxHoundGame.Options().saveDir(saveDir));
+        } catch (NoSuchElementException | IOException e) {
+            // the player disconnected
+        } catch (RuntimeException e) {
+            System.err.println("ERROR: Session failed: " + e);
+        } finally {
+            activeSessions.decrementAndGet();
+        }
+    }
+
+    /**
+     * Entry method of the session server.
+     *
+     * @param args contain the port, the threading mode and the board dimension, all optional
+     * @throws IOException if the server socket cannot be opened
+     */
+    public static void main(String[] args) throws IOException {
+        FoxHoundMetrics.register();
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+        String mode = args.length > 1 ? args[1] : MODE_VIRTUAL;
+        int dim = args.length > 2 ? Integer.parseInt(args[2]) : FoxHoundUtils.DEFAULT_DIM;
+        FoxHoundSessionServer server = new FoxHoundSessionServer(new InetSocketAddress(port), dim, mode,
+            DEFAULT_SAVE_DIR);
+        server.start();
+        System.out.println("Fox and Hounds session server (" + mode + ") listening on port " + server.getPort());
+        server.run();
+    }
+}
@@ -0,0 +1,385 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Queue;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * A round-robin tournament between bots.
+ *
+ * Every pair of bots plays the same number of games on every board
+ * dimension from {@value FoxHoundUtils#MIN_DIM} to
+ * {@value FoxHoundUtils#MAX_DIM}, alternating who plays the Fox over all
+ * games of the pair, so both play the Fox equally often up to one game. The
+ * games are shared among worker threads. Every game gets its own random
+ * numbers derived from the seed of the tournament and the number of the
+ * game, and results are stored by game number, so the same seed gives
+ * the same results with any number of threads.
+ *
+ * The results are printed as a table of win rates between every pair
+ * and as Elo ratings, both with 95% confidence intervals.
+ * <pre>
+ * java FoxHoundTournament [games per pair and dimension] [threads] [seed] [bots...]
+ * </pre>
+ */
+public class FoxHoundTournament {
+
+    /** Default number of games per pair of bots and dimension. */
+    private static final int DEFAULT_GAMES = 4;
+    /** Default seed. */
+    private static final long DEFAULT_SEED = 1;
+    /** Bots playing if none are given. */
+    private static final String[] DEFAULT_BOTS = {
+        FoxHoundBot.RANDOM, FoxHoundBot.GREEDY, FoxHoundBot.SEARCH + 2, FoxHoundBot.SEARCH + 3
+    };
+    /** Normal quantile of a two-sided 95% interval. */
+    private static final double Z95 = 1.96;
+    /** Number of iterations of the rating computation. */
+    private static final int RATING_ITERATIONS = 1000;
+    /** Odd constant spreading game numbers over the seeds. */
+    private static final long SEED_MIX = 0x9E3779B97F4A7C15L;
+
+    private final String[] bots;
+    /** Creates a bot of every game by its name. */
+    private final Function<String, FoxHoundBot> factory;
+    private final long seed;
+    /** First bot, second bot, dimension and fox of every game, by game number. */
+    private final int[][] schedule;
+    /** Winning bot of every game, by game number. */
+    private final int[] winners;
+    /** Number of moves of every game, by game number. */
+    private final int[] lengths;
+    /** Exceptions thrown by the games, rethrown once all workers ended. */
+    private final Queue<RuntimeException> failures = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Create a tournament.
+     *
+     * @param bots the names of the playing bots, see {@link FoxHoundBot#create}
+     * @param games an int for the number of games per pair of bots and dimension
+     * @param seed a long for the random numbers of all games
+     * @throws IllegalArgumentException if a bot is unknown, there are less than two bots
+     *         or the number of games is not positive
+     */
+    public FoxHoundTournament(String[] bots, int games, long seed) {
+        this(bots, games, seed, FoxHoundBot::create);
+    }
+
+    /**
+     * Create a tournament whose bots come from the given factory.
+     *
+     * @param bots the names of the playing bots
+     * @param games an int for the number of games per pair of bots and dimension
+     * @param seed a long for the random numbers of all games
+     * @param factory creates a bot by its name, throwing IllegalArgumentException for an unknown one
+     * @throws IllegalArgumentException if a bot is unknown, there are less than two bots
+     *         or the number of games is not positive
+     */
+    FoxHoundTournament(String[] bots, int games, long seed, Function<String, FoxHoundBot> factory) {
+        if (bots.length < 2) {
+            throw new IllegalArgumentException("At least two bots are needed");
+        }
+        if (games < 1) {
+            throw new IllegalArgumentException("Invalid number of games: " + games);
+        }
+        for (String bot : bots) {
+            factory.apply(bot);
+        }
+        this.bots = bots.clone();
+        this.factory = factory;
+        this.seed = seed;
+        List<int[]> list = new ArrayList<>();
+        for (int a = 0; a < bots.length; a++) {
+            for (int b = a + 1; b < bots.length; b++) {
+                // alternate over all dimensions, so an odd number of games does not favour one bot
+                int played = 0;
+                for (int dim = FoxHoundUtils.MIN_DIM; dim <= FoxHoundUtils.MAX_DIM; dim++) {
+                    for (int g = 0; g < games; g++) {
+                        list.add(new int[]{a, b, dim, played++ % 2 == 0 ? a : b});
+                    }
+                }
+            }
+        }
+        this.schedule = list.toArray(new int[0][]);
+        this.winners = new int[schedule.length];
+        this.lengths = new int[schedule.length];
+    }
+
+    /**
+     * Play a game between two bots.
+     *
+     * @param fox the bot playing the Fox
+     * @param hounds the bot playing the Hounds
+     * @param dim an int for the board dimension
+     * @param random random numbers of the game
+     * @param length an int array with at least one entry to store the number of moves in, or null
+     * @return a char for the winning figure
+     */
+    public static char playGame(FoxHoundBot fox, FoxHoundBot hounds, int dim, SplittableRandom random,
+                                int[] length) {
+        FoxHoundPosition position = FoxHoundPosition.initial(dim);
+        int moves = 0;
+        char winner;
+        while (true) {
+            if (position.isFoxWin()) {
+                winner = FoxHoundUtils.FOX_FIELD;
+                break;
+            }
+            if (position.isHoundWin()) {
+                winner = FoxHoundUtils.HOUND_FIELD;
+                break;
+            }
+            boolean foxToMove = position.getTurn() == FoxHoundUtils.FOX_FIELD;
+            int move = (foxToMove ? fox : hounds).chooseMove(position, random);
+            if (move == FoxHoundPosition.NO_MOVE || !position.isLegal(move)) {
+                // only the hounds can get stuck, an invalid move loses as well
+                winner = foxToMove ? FoxHoundUtils.HOUND_FIELD : FoxHoundUtils.FOX_FIELD;
+                break;
+            }
+            position.makeMove(move);
+            moves++;
+        }
+        if (length != null) {
+            length[0] = moves;
+        }
+        return winner;
+    }
+
+    /**
+     * Play all games of the tournament. If a game throws an exception,
+     * the workers stop and the exception is rethrown.
+     *
+     * @param threads an int for the number of worker threads
+     * @throws InterruptedException if waiting for the workers is interrupted
+     * @throws RuntimeException the first exception thrown by a game, with the others suppressed
+     */
+    public void run(int threads) throws InterruptedException {
+        AtomicInteger next = new AtomicInteger();
+        Thread[] workers = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            workers[t] = new Thread(() -> work(next), "foxhound-tournament-" + t);
+            workers[t].start();
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        rethrowFailures();
+    }
+
+    /**
+     * Main loop of a worker, playing the next game until all are played.
+     *
+     * @param next the number of the next game to play
+     */
+    private void work(AtomicInteger next) {
+        int[] length = new int[1];
+        int game;
+        try {
+            // stop as well once another worker failed
+            while (failures.isEmpty() && (game = next.getAndIncrement()) < schedule.length) {
+                int[] entry = schedule[game];
+                int foxBot = entry[3];
+                int houndBot = foxBot == entry[0] ? entry[1] : entry[0];
+                SplittableRandom random = new SplittableRandom(seed + game * SEED_MIX);
+                char winner = playGame(factory.apply(bots[foxBot]), factory.apply(bots[houndBot]),
+                    entry[2], random, length);
+                winners[game] = winner == FoxHoundUtils.FOX_FIELD ? foxBot : houndBot;
+                lengths[game] = length[0];
+            }
+        } catch (RuntimeException e) {
+            failures.add(e);
+        }
+    }
+
+    /**
+     * Throw the first exception of a game, with the others suppressed.
+     */
+    private void rethrowFailures() {
+        RuntimeException first = failures.poll();
+        if (first == null) {
+            return;
+        }
+        for (RuntimeException other : failures) {
+            first.addSuppressed(other);
+        }
+        throw first;
+    }
+
+    /**
+     * Number of games of the tournament.
+     *
+     * @return an int for the number of games
+     */
+    public int getGameCount() {
+        return schedule.length;
+    }
+
+    /**
+     * Number of games a bot won against another one.
+     *
+     * @return an int matrix with the wins of the row bot against the column bot
+     */
+    public int[][] getWins() {
+        int[][] wins = new int[bots.length][bots.length];
+        for (int game = 0; game < schedule.length; game++) {
+            int winner = winners[game];
+            int loser = winner == schedule[game][0] ? schedule[game][1] : schedule[game][0];
+            wins[winner][loser]++;
+        }
+        return wins;
+    }
+
+    /**
+     * Compute Elo ratings with the Bradley-Terry model. Every pair gets
+     * half a win each way in addition, so a bot winning all its games
+     * still gets a finite rating.
+     *
+     * @param wins an int matrix with the wins of the row bot against the column bot
+     * @return a double matrix with the rating and the half width of its 95% interval of every bot
+     */
+    public static double[][] ratings(int[][] wins) {
+        int n = wins.length;
+        double[] strength = new double[n];
+        Arrays.fill(strength, 1);
+        for (int iteration = 0; iteration < RATING_ITERATIONS; iteration++) {
+            for (int i = 0; i < n; i++) {
+                double won = 0;
+                double sum = 0;
+                for (int j = 0; j < n; j++) {
+                    if (i != j) {
+                        won += wins[i][j] + 0.5;
+                        sum += (wins[i][j] + wins[j][i] + 1) / (strength[i] + strength[j]);
+                    }
+                }
+                strength[i] = won / sum;
+            }
+            // keep the average rating at 0
+            double logMean = 0;
+            for (double s : strength) {
+                logMean += Math.log(s) / n;
+            }
+            for (int i = 0; i < n; i++) {
+                strength[i] /= Math.exp(logMean);
+            }
+        }
+        double eloPerLog = 400 / Math.log(10);
+        double[][] ratings = new double[n][2];
+        for (int i = 0; i < n; i++) {
+            double information = 0;
+            for (int j = 0; j < n; j++) {
+                if (i != j) {
+                    double p = strength[i] / (strength[i] + strength[j]);
+                    information += (wins[i][j] + wins[j][i] + 1) * p * (1 - p);
+                }
+            }
+            ratings[i][0] = eloPerLog * Math.log(strength[i]);
+            ratings[i][1] = Z95 * eloPerLog / Math.sqrt(information);
+        }
+        return ratings;
+    }
+
+    /**
+     * Wilson score interval of a win rate.
+     *
+     * @param wins an int for the number of wins
+     * @param total an int for the number of games
+     * @return a double array with the lower and upper bound
+     */
+    public static double[] wilson(int wins, int total) {
+        if (total == 0) {
+            return new double[]{0, 1};
+        }
+        double p = wins / (double) total;
+        double z2 = Z95 * Z95;
+        double centre = (p + z2 / (2 * total)) / (1 + z2 / total);
+        double half = Z95 * Math.sqrt(p * (1 - p) / total + z2 / (4.0 * total * total)) / (1 + z2 / total);
+        return new double[]{Math.max(0, centre - half), Math.min(1, centre + half)};
+    }
+
+    /**
+     * Print the win rates and ratings of all bots.
+     */
+    public void printResults() {
+        int[][] wins = getWins();
+        System.out.println("Win rate of the row bot against the column bot (95% interval):");
+        StringBuilder header = new StringBuilder(String.format("%-12s", ""));
+        for (String bot : bots) {
+            header.append(String.format("%-22s", bot));
+        }
+        System.out.println(header);
+        for (int i = 0; i < bots.length; i++) {
+            StringBuilder row = new StringBuilder(String.format("%-12s", bots[i]));
+            for (int j = 0; j < bots.length; j++) {
+                if (i == j) {
+                    row.append(String.format("%-22s", "-"));
+                    continue;
+                }
+                int total = wins[i][j] + wins[j][i];
+                double[] interval = wilson(wins[i][j], total);
+                row.append(String.format("%-22s", String.format("%.2f [%.2f, %.2f]",
+                    wins[i][j] / (double) total, interval[0], interval[1])));
+            }
+            System.out.println(row);
+        }
+
+        int[] foxGames = new int[bots.length];
+        int[] foxWins = new int[bots.length];
+        int[] houndGames = new int[bots.length];
+        int[] houndWins = new int[bots.length];
+        for (int game = 0; game < schedule.length; game++) {
+            int foxBot = schedule[game][3];
+            int houndBot = foxBot == schedule[game][0] ? schedule[game][1] : schedule[game][0];
+            foxGames[foxBot]++;
+            houndGames[houndBot]++;
+            if (winners[game] == foxBot) {
+                foxWins[foxBot]++;
+            }
+            else {
+                houndWins[houndBot]++;
+            }
+        }
+        double[][] ratings = ratings(wins);
+        Integer[] order = new Integer[bots.length];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> Double.compare(ratings[b][0], ratings[a][0]));
+        System.out.println();
+        System.out.printf("%-12s %-16s %-10s %-10s%n", "bot", "Elo (95%)", "as fox", "as hounds");
+        for (int i : order) {
+            System.out.printf("%-12s %-16s %-10s %-10s%n", bots[i],
+                String.format("%+.0f +- %.0f", ratings[i][0], ratings[i][1]),
+                String.format("%.0f%%", 100.0 * foxWins[i] / foxGames[i]),
+                String.format("%.0f%%", 100.0 * houndWins[i] / houndGames[i]));
+        }
+        long moves = 0;
+        for (int length : lengths) {
+            moves += length;
+        }
+        System.out.printf("%ngames=%d moves=%d checksum=%08x%n", schedule.length, moves, Arrays.hashCode(winners));
+    }
+
+    /**
+     * Entry method of the tournament.
+     *
+     * @param args number of games per pair and dimension, threads, seed and bot names, all optional
+     * @throws InterruptedException if waiting for the workers is interrupted
+     */
+    public static void main(String[] args) throws InterruptedException {
+        int games = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_GAMES;
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        long seed = args.length > 2 ? Long.parseLong(args[2]) : DEFAULT_SEED;
+        String[] bots = args.length > 3 ? Arrays.copyOfRange(args, 3, args.length) : DEFAULT_BOTS;
+
+        FoxHoundTournament tournament = new FoxHoundTournament(bots, games, seed);
+        long start = System.nanoTime();
+        tournament.run(threads);
+        double elapsed = (System.nanoTime() - start) / 1e9;
+        tournament.printResults();
+        System.out.printf("threads=%d time=%.1f s throughput=%.1f games/s%n",
+            threads, elapsed, tournament.getGameCount() / elapsed);
+    }
+}
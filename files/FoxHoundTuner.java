@@ -0,0 +1,365 @@
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Tunes the weights of the {@link FoxHoundEval} by self-play.
+ *
+ * The engine plays games against itself on random board dimensions,
+ * with some random moves for variety. Every position of a game is
+ * labelled with the result of the game, 1 if the Fox won and 0 if the
+ * Hounds won. The weights are then fitted by logistic regression, so that
+ * the probability of a fox win predicted from the evaluation score,
+ * {@code 1 / (1 + 10^(-score / 400))}, matches the labels as well as
+ * possible. Both the games and the gradient of the fit are shared among
+ * worker threads. Every tenth game is only used to validate the fit.
+ *
+ * The tuning starts from the weights {@link FoxHoundEval#load} reads and
+ * writes the tuned weights to a file, by default {@value FoxHoundEval#WEIGHTS_FILE},
+ * which {@link FoxHoundEval#load} reads afterwards.
+ * <pre>
+ * java FoxHoundTuner [games] [threads] [seed] [weights file]
+ * </pre>
+ */
+public class FoxHoundTuner {
+
+    /** Default number of self-play games. */
+    private static final int DEFAULT_GAMES = 400;
+    /** Default seed. */
+    private static final long DEFAULT_SEED = 1;
+    /** Largest search depth of the self-play engine, every side of every game gets a random depth up to it. */
+    private static final int PLAY_DEPTH = 4;
+    /** Transposition table size of the self-play engine. */
+    private static final int PLAY_TABLE_BITS = 14;
+    /** Number of random moves opening every self-play game. */
+    private static final int RANDOM_MOVES = 4;
+    /** Every this many games is used for validation only. */
+    private static final int VALIDATION_EVERY = 10;
+    /** Converts a score into the exponent of the win probability. */
+    private static final double SCALE = Math.log(10) / 400;
+    /** Number of positions per share of the gradient. */
+    private static final int CHUNK = 4096;
+    /** Number of gradient steps. */
+    private static final int ITERATIONS = 2000;
+    /** Step size of the gradient descent in score units. */
+    private static final double LEARNING_RATE = 5;
+    /** Decay rates of the moving averages of the gradient. */
+    private static final double BETA1 = 0.9;
+    private static final double BETA2 = 0.999;
+    /** Odd constant spreading game numbers over the seeds. */
+    private static final long SEED_MIX = 0x9E3779B97F4A7C15L;
+
+    /**
+     * Labelled positions, the features of position i are stored at
+     * {@code i * FEATURES.length}.
+     */
+    public static final class Data {
+        double[] features = new double[1024];
+        double[] labels = new double[1024 / FoxHoundEval.FEATURES.length];
+        int size;
+
+        /**
+         * Add the positions of another set.
+         *
+         * @param other the positions to add
+         */
+        void addAll(Data other) {
+            int f = FoxHoundEval.FEATURES.length;
+            ensure(size + other.size);
+            System.arraycopy(other.features, 0, features, size * f, other.size * f);
+            System.arraycopy(other.labels, 0, labels, size, other.size);
+            size += other.size;
+        }
+
+        /**
+         * Make room for a number of positions.
+         *
+         * @param capacity an int for the number of positions
+         */
+        void ensure(int capacity) {
+            if (capacity > labels.length) {
+                int grown = Math.max(capacity, labels.length * 2);
+                features = Arrays.copyOf(features, grown * FoxHoundEval.FEATURES.length);
+                labels = Arrays.copyOf(labels, grown);
+            }
+        }
+    }
+
+    private final ExecutorService pool;
+
+    /**
+     * Create a tuner.
+     *
+     * @param threads an int for the number of worker threads
+     */
+    public FoxHoundTuner(int threads) {
+        this.pool = Executors.newFixedThreadPool(threads);
+    }
+
+    /**
+     * Stop the worker threads.
+     */
+    public void shutdown() {
+        pool.shutdown();
+    }
+
+    /**
+     * Play a self-play game and label its positions.
+     *
+     * @param weights a double array with the weights the engine plays with
+     * @param random random numbers of the game
+     * @return the positions of the game labelled with its result
+     */
+    static Data playGame(double[] weights, SplittableRandom random) {
+        int dim = FoxHoundUtils.MIN_DIM + random.nextInt(FoxHoundUtils.MAX_DIM - FoxHoundUtils.MIN_DIM + 1);
+        FoxHoundEngine engine = new FoxHoundEngine(new FoxHoundEval(weights), PLAY_TABLE_BITS);
+        // sides of different strength, so both of them win some games
+        int foxDepth = 1 + random.nextInt(PLAY_DEPTH);
+        int houndDepth = 1 + random.nextInt(PLAY_DEPTH);
+        FoxHoundPosition position = FoxHoundPosition.initial(dim);
+        int f = FoxHoundEval.FEATURES.length;
+        double[] features = new double[f];
+        Data data = new Data();
+        int moves = 0;
+        char winner;
+        while (true) {
+            if (position.isFoxWin()) {
+                winner = FoxHoundUtils.FOX_FIELD;
+                break;
+            }
+            if (position.isHoundWin()) {
+                winner = FoxHoundUtils.HOUND_FIELD;
+                break;
+            }
+            FoxHoundEval.features(position, features);
+            data.ensure(data.size + 1);
+            System.arraycopy(features, 0, data.features, data.size * f, f);
+            data.size++;
+            int move = moves++ < RANDOM_MOVES
+                ? FoxHoundBot.randomMove(position, random)
+                : engine.search(position, position.getTurn() == FoxHoundUtils.FOX_FIELD ? foxDepth : houndDepth,
+                    0, null).move;
+            if (move == FoxHoundPosition.NO_MOVE) {
+                // the hounds cannot move
+                winner = FoxHoundUtils.FOX_FIELD;
+                break;
+            }
+            position.makeMove(move);
+        }
+        Arrays.fill(data.labels, 0, data.size, winner == FoxHoundUtils.FOX_FIELD ? 1 : 0);
+        return data;
+    }
+
+    /**
+     * Play self-play games on the worker threads.
+     *
+     * @param games an int for the number of games
+     * @param seed a long for the random numbers of all games
+     * @param weights a double array with the weights the engine plays with
+     * @return a Data array with the training and the validation positions
+     * @throws InterruptedException if waiting for the games is interrupted
+     */
+    public Data[] generate(int games, long seed, double[] weights) throws InterruptedException {
+        List<Callable<Data>> tasks = new ArrayList<>();
+        for (int game = 0; game < games; game++) {
+            long gameSeed = seed + game * SEED_MIX;
+            tasks.add(() -> playGame(weights, new SplittableRandom(gameSeed)));
+        }
+        List<Future<Data>> results = pool.invokeAll(tasks);
+        Data training = new Data();
+        Data validation = new Data();
+        // collect in game order, so the data does not depend on the threads
+        for (int game = 0; game < games; game++) {
+            Data data = get(results.get(game));
+            (game % VALIDATION_EVERY == VALIDATION_EVERY - 1 ? validation : training).addAll(data);
+        }
+        return new Data[]{training, validation};
+    }
+
+    /**
+     * Compute the mean loss and its gradient over the positions on the worker threads.
+     *
+     * @param data the labelled positions
+     * @param weights a double array with the weights to evaluate
+     * @param gradient a double array with one entry per feature to store the gradient in
+     * @return a double for the mean cross entropy of the predictions
+     * @throws InterruptedException if waiting for the workers is interrupted
+     */
+    public double lossAndGradient(Data data, double[] weights, double[] gradient) throws InterruptedException {
+        int f = FoxHoundEval.FEATURES.length;
+        List<Callable<double[]>> tasks = new ArrayList<>();
+        for (int start = 0; start < data.size; start += CHUNK) {
+            int from = start;
+            int to = Math.min(data.size, start + CHUNK);
+            tasks.add(() -> {
+                // loss in the last entry
+                double[] partial = new double[f + 1];
+                for (int i = from; i < to; i++) {
+                    double score = 0;
+                    for (int k = 0; k < f; k++) {
+                        score += weights[k] * data.features[i * f + k];
+                    }
+                    double p = 1 / (1 + Math.exp(-SCALE * score));
+                    double y = data.labels[i];
+                    double error = (p - y) * SCALE;
+                    for (int k = 0; k < f; k++) {
+                        partial[k] += error * data.features[i * f + k];
+                    }
+                    p = Math.min(1 - 1e-12, Math.max(1e-12, p));
+                    partial[f] -= y * Math.log(p) + (1 - y) * Math.log(1 - p);
+                }
+                return partial;
+            });
+        }
+        Arrays.fill(gradient, 0);
+        double loss = 0;
+        // add the shares in a fixed order, so the result does not depend on the threads
+        for (Future<double[]> result : pool.invokeAll(tasks)) {
+            double[] partial = get(result);
+            for (int k = 0; k < f; k++) {
+                gradient[k] += partial[k] / data.size;
+            }
+            loss += partial[f] / data.size;
+        }
+        return loss;
+    }
+
+    /**
+     * Fit the weights to the labelled positions with the Adam variant of gradient descent.
+     *
+     * @param data the labelled positions
+     * @param start a double array with the weights to start from
+     * @return a double array with the fitted weights
+     * @throws InterruptedException if waiting for the workers is interrupted
+     */
+    public double[] fit(Data data, double[] start) throws InterruptedException {
+        int f = FoxHoundEval.FEATURES.length;
+        double[] weights = start.clone();
+        double[] gradient = new double[f];
+        double[] mean = new double[f];
+        double[] variance = new double[f];
+        for (int t = 1; t <= ITERATIONS; t++) {
+            lossAndGradient(data, weights, gradient);
+            for (int k = 0; k < f; k++) {
+                mean[k] = BETA1 * mean[k] + (1 - BETA1) * gradient[k];
+                variance[k] = BETA2 * variance[k] + (1 - BETA2) * gradient[k] * gradient[k];
+                double m = mean[k] / (1 - Math.pow(BETA1, t));
+                double v = variance[k] / (1 - Math.pow(BETA2, t));
+                weights[k] -= LEARNING_RATE * m / (Math.sqrt(v) + 1e-12);
+            }
+        }
+        return weights;
+    }
+
+    /**
+     * Share of positions whose result the weights predict correctly.
+     *
+     * @param data the labelled positions
+     * @param weights a double array with the weights to evaluate
+     * @return a double between 0 and 1
+     */
+    static double accuracy(Data data, double[] weights) {
+        int f = FoxHoundEval.FEATURES.length;
+        int correct = 0;
+        for (int i = 0; i < data.size; i++) {
+            double score = 0;
+            for (int k = 0; k < f; k++) {
+                score += weights[k] * data.features[i * f + k];
+            }
+            if ((score > 0) == (data.labels[i] > 0.5)) {
+                correct++;
+            }
+        }
+        return data.size == 0 ? 0 : correct / (double) data.size;
+    }
+
+    /**
+     * Wait for the result of a task.
+     *
+     * @param future the task
+     * @param <T> the type of the result
+     * @return the result
+     * @throws InterruptedException if waiting for the task is interrupted
+     * @throws IllegalStateException if the task failed
+     */
+    private static <T> T get(Future<T> future) throws InterruptedException {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Tuning task failed", e.getCause());
+        }
+    }
+
+    /**
+     * Print the weights with the loss and accuracy they reach.
+     *
+     * @param label a String naming the weights
+     * @param weights a double array with the weights
+     * @param training the training positions
+     * @param validation the validation positions
+     * @throws InterruptedException if waiting for the workers is interrupted
+     */
+    private void report(String label, double[] weights, Data training, Data validation)
+            throws InterruptedException {
+        double[] gradient = new double[weights.length];
+        StringBuilder line = new StringBuilder(String.format("%-8s", label));
+        for (int k = 0; k < weights.length; k++) {
+            line.append(String.format(" %s=%.0f", FoxHoundEval.FEATURES[k], weights[k]));
+        }
+        System.out.println(line);
+        System.out.printf("         loss train=%.4f validation=%.4f accuracy train=%.3f validation=%.3f%n",
+            lossAndGradient(training, weights, gradient), lossAndGradient(validation, weights, gradient),
+            accuracy(training, weights), accuracy(validation, weights));
+    }
+
+    /**
+     * Entry method of the tuner.
+     *
+     * @param args number of games, threads, seed and weights file, all optional
+     * @throws InterruptedException if waiting for the workers is interrupted
+     * @throws IOException if the weights file cannot be read or written
+     * @throws IllegalArgumentException if the number of games is not positive
+     */
+    public static void main(String[] args) throws InterruptedException, IOException {
+        int games = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_GAMES;
+        if (games < 1) {
+            throw new IllegalArgumentException("Invalid number of games: " + games);
+        }
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        long seed = args.length > 2 ? Long.parseLong(args[2]) : DEFAULT_SEED;
+        Path output = Paths.get(args.length > 3 ? args[3] : FoxHoundEval.WEIGHTS_FILE);
+
+        FoxHoundTuner tuner = new FoxHoundTuner(threads);
+        try {
+            double[] start = FoxHoundEval.loadWeights();
+            long begin = System.nanoTime();
+            Data[] data = tuner.generate(games, seed, start);
+            long played = System.nanoTime();
+            double foxWon = 0;
+            for (int i = 0; i < data[0].size; i++) {
+                foxWon += data[0].labels[i];
+            }
+            System.out.printf("games=%d positions=%d (%d for validation) in %.1f s with %d threads%n",
+                games, data[0].size + data[1].size, data[1].size, (played - begin) / 1e9, threads);
+            System.out.printf("training positions from games the fox won: %.0f%%%n", 100 * foxWon / data[0].size);
+            double[] tuned = tuner.fit(data[0], start);
+            System.out.printf("fitted in %.1f s%n", (System.nanoTime() - played) / 1e9);
+            tuner.report("start", start, data[0], data[1]);
+            tuner.report("tuned", tuned, data[0], data[1]);
+            FoxHoundEval.writeWeights(output, tuned,
+                "tuned by self-play, games=" + games + " seed=" + seed);
+            System.out.println("Weights written to " + output);
+        } finally {
+            tuner.shutdown();
+        }
+    }
+}
@@ -1,6 +1,9 @@
+import java.io.PrintStream;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.Arrays;
 import java.util.Scanner;
+import java.util.NoSuchElementException;
 import java.util.Objects;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -15,10 +18,16 @@ import java.util.regex.Pattern;
 public class FoxHoundUI<fileName> {
 
     /** Number of main menu entries. */
-    private static final int MENU_ENTRIES = 4;
+    private static final int MENU_ENTRIES = 6;
     /** Main menu display string. */
     private static final String MAIN_MENU =
-        "\n1. Move\n2. Save\n3. Load\n4. Exit\n\nEnter 1 - 4:";
+        "\n1. Move\n2. Save\n3. Load\n4. Exit\n5. Hint\n6. Variations\n\nEnter 1 - 6:";
+    /** Number of variations menu entries. */
+    private static final int VARIATIONS_ENTRIES = 8;
+    /** Variations menu display string. */
+    private static final String VARIATIONS_MENU =
+        "\n1. Back\n2. Forward\n3. Previous variation\n4. Next variation\n5. Go to node"
+        + "\n6. Save variations\n7. Load variations\n8. Return to game\n\nEnter 1 - 8:";
 
     /** Menu entry to select a move action. */
     public static final int MENU_MOVE = 1;
@@ -28,67 +37,153 @@ public class FoxHoundUI<fileName> {
     public static final int MENU_LOAD = 3;
     /** Menu entry to terminate the program. */
     public static final int MENU_EXIT = 4;
+    /** Menu entry to ask for a hint. */
+    public static final int MENU_HINT = 5;
+    /** Menu entry to explore the variations of the game. */
+    public static final int MENU_VARIATIONS = 6;
+
+    /** Variations menu entry to go back by one move. */
+    public static final int VARIATIONS_BACK = 1;
+    /** Variations menu entry to follow the main line by one move. */
+    public static final int VARIATIONS_FORWARD = 2;
+    /** Variations menu entry to switch to the previous variation. */
+    public static final int VARIATIONS_PREVIOUS = 3;
+    /** Variations menu entry to switch to the next variation. */
+    public static final int VARIATIONS_NEXT = 4;
+    /** Variations menu entry to jump to a node by its number. */
+    public static final int VARIATIONS_GOTO = 5;
+    /** Variations menu entry to save all variations. */
+    public static final int VARIATIONS_SAVE = 6;
+    /** Variations menu entry to load variations. */
+    public static final int VARIATIONS_LOAD = 7;
+    /** Variations menu entry to continue the game from the current node. */
+    public static final int VARIATIONS_RETURN = 8;
+
+    /** Symbol to represent an empty field on the board. */
+    private static final char EMPTY_CELL = '.';
+    /** Buffer for rendering the board, reused by every call of the same thread. */
+    private static final ThreadLocal<StringBuilder> FRAME_BUFFER =
+        ThreadLocal.withInitial(() -> new StringBuilder(1024));
 
     /**
      * Print current board with players.
      *
+     * The whole board is rendered first and then written to the
+     * standard output at once.
+     *
      * @param players array of the positions of all figures
      * @param dimension an int for dimensions of the board
      * @throws IllegalArgumentException if the players array is null
      */
     public static void displayBoard(String[] players, int dimension) {
+        displayBoard(players, dimension, System.out);
+    }
+
+    /**
+     * Print current board with players to the given stream.
+     *
+     * @param players array of the positions of all figures
+     * @param dimension an int for dimensions of the board
+     * @param out a PrintStream to print the board to
+     * @throws IllegalArgumentException if the players array is null
+     */
+    public static void displayBoard(String[] players, int dimension, PrintStream out) {
+        out.print(renderBoard(players, dimension));
+    }
+
+    /**
+     * Render current board with players into a String.
+     *
+     * The output is the same as the one printed by {@link #displayBoard}.
+     * Figures are placed into a grid of cells first so that every cell
+     * is looked up in constant time, and the frame is built in a
+     * buffer which is reused between calls of the same thread.
+     *
+     * @param players array of the positions of all figures
+     * @param dimension an int for dimensions of the board
+     * @return a String with the rendered board
+     * @throws IllegalArgumentException if the players array is null
+     */
+    public static String renderBoard(String[] players, int dimension) {
         if (dimension < FoxHoundUtils.MIN_DIM || dimension > FoxHoundUtils.MAX_DIM) {
             throw new IllegalArgumentException("Players array is null");
         }
         if (players == null) {
             throw new NullPointerException("Players array is null");
         }
-        for (String str: players) {
-            if (!FoxHoundUtils.isValidCoord(dimension, FoxHoundUtils.posToNum(str))){
-                throw new IllegalArgumentException("Invalid coord");
-            }
-        }
-        // Making an array of all the possible letter positions (just an alphabet of uppercases)
-        // using unicode
-        char[] letter_pos = new char[26];
-        for(int i = 0; i < 26; i++){
-            letter_pos[i] = (char)(65 + i);
-        }
+        FoxHoundEvents.Render event = new FoxHoundEvents.Render();
+        event.begin();
+        long start = FoxHoundMetrics.start();
+        char[] cells = boardCells(players, dimension);
 
-        FoxHoundUtils.letterPrinting(letter_pos, dimension);
-        System.out.println();
-
-        // Variable 'player' to keep track of the player we need to paste on the board
-        int player = 1;
+        StringBuilder frame = FRAME_BUFFER.get();
+        frame.setLength(0);
+        String newLine = System.lineSeparator();
+        boolean padded = dimension > 9;
 
+        appendLetters(frame, dimension);
+        frame.append(newLine);
         for (int i = 1; i <= dimension; i++) {
-            if (dimension > 9 && i < 10) {
-                System.out.print(0);
-            }
-            System.out.print(i + " ");
-            for (int j = 1; j <= dimension; j++) {
-                if (FoxHoundUtils.contains(players, ("" + letter_pos[j - 1] + i))) {
-                    if (players[players.length - 1].equals("" + letter_pos[j - 1] + i)) {
-                        System.out.print("F");
-                    }
-                    else {System.out.print("H");}
-                    if (player != players.length) {
-                        player++;
-                    }
-                }
-                else {
-                    System.out.print(".");
-                }
+            if (padded && i < 10) {
+                frame.append('0');
             }
-            if (dimension > 9 && i < 10) {
-                System.out.println(" " + 0 + i);
+            frame.append(i).append(' ');
+            frame.append(cells, (i - 1) * dimension, dimension);
+            frame.append(' ');
+            if (padded && i < 10) {
+                frame.append('0');
             }
-            else {
-                System.out.println(" " + i);
+            frame.append(i).append(newLine);
+        }
+        frame.append(newLine);
+        appendLetters(frame, dimension);
+        String board = frame.toString();
+        FoxHoundMetrics.RENDER.stop(start);
+        event.end();
+        if (event.shouldCommit()) {
+            event.dim = dimension;
+            event.size = board.length();
+            event.commit();
+        }
+        return board;
+    }
+
+    /**
+     * Place all figures into a grid of board cells.
+     *
+     * @param players array of the positions of all figures
+     * @param dimension an int for dimensions of the board
+     * @return a char array of dimension * dimension cells in row order
+     * @throws IllegalArgumentException if a coordinate is invalid
+     */
+    static char[] boardCells(String[] players, int dimension) {
+        char[] cells = new char[dimension * dimension];
+        Arrays.fill(cells, EMPTY_CELL);
+        for (int i = 0; i < players.length; i++) {
+            int square = FoxHoundUtils.toSquare(dimension, players[i]);
+            if (square == FoxHoundUtils.NO_SQUARE) {
+                throw new IllegalArgumentException("Invalid coord");
             }
+            // the fox is the last figure, so it is drawn over a hound on the same field
+            cells[square] = i == players.length - 1
+                ? FoxHoundUtils.FOX_FIELD : FoxHoundUtils.HOUND_FIELD;
+        }
+        return cells;
+    }
+
+    /**
+     * Append the line of column letters to a frame.
+     *
+     * @param frame the frame to append to
+     * @param dim an int for board dimensions
+     */
+    private static void appendLetters(StringBuilder frame, int dim) {
+        String margin = dim < 10 ? "  " : "   ";
+        frame.append(margin);
+        for (int i = 0; i < dim; i++) {
+            frame.append((char) (FoxHoundUtils.LETTER_A + i));
         }
-        System.out.println();
-        FoxHoundUtils.letterPrinting(letter_pos, dimension);
+        frame.append(margin).append(System.lineSeparator());
     }
 
     /**
@@ -101,6 +196,20 @@ public class FoxHoundUI<fileName> {
      * @throws NullPointerException if the given Scanner is null
      */
     public static int mainMenuQuery(char figureToMove, Scanner stdin) {
+        return mainMenuQuery(figureToMove, stdin, System.out);
+    }
+
+    /**
+     * Print the main menu to the given stream and query the user for an entry selection.
+     * 
+     * @param figureToMove the figure type that has the next move
+     * @param stdin a Scanner object to read user input from
+     * @param out a PrintStream to print the menu to
+     * @return a number representing the menu entry selected by the user
+     * @throws IllegalArgumentException if the given figure type is invalid
+     * @throws NullPointerException if the given Scanner is null
+     */
+    public static int mainMenuQuery(char figureToMove, Scanner stdin, PrintStream out) {
         Objects.requireNonNull(stdin, "Given Scanner must not be null");
         if (figureToMove != FoxHoundUtils.FOX_FIELD 
          && figureToMove != FoxHoundUtils.HOUND_FIELD) {
@@ -110,19 +219,46 @@ public class FoxHoundUI<fileName> {
         String nextFigure = 
             figureToMove == FoxHoundUtils.FOX_FIELD ? "Fox" : "Hounds";
 
+        return menuQuery(nextFigure + " to move", MAIN_MENU, MENU_ENTRIES, stdin, out);
+    }
+
+    /**
+     * Print the variations menu and query the user for an entry selection.
+     *
+     * @param stdin a Scanner object to read user input from
+     * @param out a PrintStream to print the menu to
+     * @return a number representing the menu entry selected by the user
+     * @throws NullPointerException if the given Scanner is null
+     */
+    public static int variationsMenuQuery(Scanner stdin, PrintStream out) {
+        Objects.requireNonNull(stdin, "Given Scanner must not be null");
+        return menuQuery("Variations", VARIATIONS_MENU, VARIATIONS_ENTRIES, stdin, out);
+    }
+
+    /**
+     * Print a menu until the user selects one of its entries.
+     *
+     * @param title a String printed above the menu
+     * @param menu a String with all entries
+     * @param entries an int for the number of entries
+     * @param stdin a Scanner object to read user input from
+     * @param out a PrintStream to print the menu to
+     * @return a number representing the menu entry selected by the user
+     */
+    private static int menuQuery(String title, String menu, int entries, Scanner stdin, PrintStream out) {
         int input = -1;
         while (input == -1) {
-            System.out.println(nextFigure + " to move");
-            System.out.println(MAIN_MENU);
+            out.println(title);
+            out.println(menu);
 
             boolean validInput = false;
             if (stdin.hasNextInt()) {
                 input = stdin.nextInt();
-                validInput = input > 0 && input <= MENU_ENTRIES;
+                validInput = input > 0 && input <= entries;
             }
 
             if (!validInput) {
-                System.out.println("Please enter valid number.");
+                out.println("Please enter valid number.");
                 input = -1; // reset input variable
             }
 
@@ -132,6 +268,32 @@ public class FoxHoundUI<fileName> {
         return input;
     }
 
+    /**
+     * Ask user for the number of a node of the variations.
+     *
+     * @param nodes an int for the number of nodes
+     * @param stdin a Scanner object to read users input from
+     * @param out a PrintStream to print the query to
+     * @return an int for a node between 0 and nodes - 1
+     * @throws NoSuchElementException if the input ends before a valid node was entered
+     */
+    public static int nodeQuery(int nodes, Scanner stdin, PrintStream out) {
+        Objects.requireNonNull(stdin, "Given Scanner must not be null");
+        while (true) {
+            out.println("Enter node 0 - " + (nodes - 1) + ":");
+            String answer = stdin.nextLine().trim();
+            try {
+                int node = Integer.parseInt(answer);
+                if (node >= 0 && node < nodes) {
+                    return node;
+                }
+            } catch (NumberFormatException e) {
+                // asked again below
+            }
+            out.println("Please enter valid number.");
+        }
+    }
+
     /**
      * Ask user for coordinates.
      *
@@ -140,6 +302,20 @@ public class FoxHoundUI<fileName> {
      * @return a String array with two coordinates
      */
     public static String[] positionQuery(int dim, Scanner stdin) {
+        return positionQuery(dim, stdin, System.out, System.err);
+    }
+
+    /**
+     * Ask user for coordinates using the given streams.
+     *
+     * @param dim an int for dimensions of the board
+     * @param stdin a Scanner object to read users input from
+     * @param out a PrintStream to print the query to
+     * @param err a PrintStream to print errors to
+     * @return a String array with two coordinates
+     * @throws NoSuchElementException if the input ends before a valid pair was entered
+     */
+    public static String[] positionQuery(int dim, Scanner stdin, PrintStream out, PrintStream err) {
         Objects.requireNonNull(stdin, "Given Scanner must not be null");
         if (dim < FoxHoundUtils.MIN_DIM || dim > FoxHoundUtils.MAX_DIM) {
             throw new IllegalArgumentException("Invalid dimension");
@@ -148,29 +324,56 @@ public class FoxHoundUI<fileName> {
 
         boolean validPair = false;
         while (!validPair) {
-            System.out.println("Provide origin and destination coordinates.");
-            System.out.println("Enter two positions between A1-" + (char)(FoxHoundUtils.LETTER_A + dim - 1) + dim + ":");
+            out.println("Provide origin and destination coordinates.");
+            out.println("Enter two positions between A1-" + (char)(FoxHoundUtils.LETTER_A + dim - 1) + dim + ":");
             if (stdin.hasNext()) {
                 String input = stdin.nextLine();
                 String[] potentialCoord = input.trim().split("\\s+");
                 // Checking if entered input is coordinates
                 if ((potentialCoord.length == 2)
-                        && FoxHoundUtils.isValidCoord(dim, FoxHoundUtils.posToNum(potentialCoord[0]))
-                        && FoxHoundUtils.isValidCoord(dim, FoxHoundUtils.posToNum(potentialCoord[1]))) {
+                        && FoxHoundUtils.isValidCoord(dim, potentialCoord[0])
+                        && FoxHoundUtils.isValidCoord(dim, potentialCoord[1])) {
+                    // use the canonical coordinate Strings, e.g. E8 for E08
                     for (int i = 0; i < potentialCoord.length; i++) {
-                        coords[i] = potentialCoord[i];
+                        coords[i] = FoxHoundUtils.toCoord(dim, FoxHoundUtils.toSquare(dim, potentialCoord[i]));
                     }
                     validPair = true;
                 }
                 else {
-                    System.out.println();
-                    System.err.println("ERROR: Please enter valid coordinate pair separated by space.");
+                    out.println();
+                    err.println("ERROR: Please enter valid coordinate pair separated by space.");
                 }
             }
+            else {
+                throw new NoSuchElementException("No coordinates left to read");
+            }
         }
         return coords;
     }
 
+    /**
+     * Ask user whether to play the current hint.
+     *
+     * @param stdin a Scanner object to read users input from
+     * @param out a PrintStream to print the query to
+     * @return a boolean whether the user accepted the hint
+     * @throws NoSuchElementException if the input ends before an answer was entered
+     */
+    public static boolean hintQuery(Scanner stdin, PrintStream out) {
+        Objects.requireNonNull(stdin, "Given Scanner must not be null");
+        while (true) {
+            out.println("Play the best move found so far? (y/n)");
+            String answer = stdin.nextLine().trim().toLowerCase();
+            if (answer.equals("y") || answer.equals("yes")) {
+                return true;
+            }
+            if (answer.equals("n") || answer.equals("no")) {
+                return false;
+            }
+            out.println("Please enter y or n.");
+        }
+    }
+
     /**
      * Ask user for file path to save to or load from.
      *
@@ -178,14 +381,37 @@ public class FoxHoundUI<fileName> {
      * @return a Path object with entered path
      */
     public static Path fileQuery(Scanner stdin) {
-        System.out.println("Enter file path:");
+        return fileQuery(stdin, System.out, null);
+    }
+
+    /**
+     * Ask user for file path to save to or load from using the given stream.
+     *
+     * If a directory is given, only the file name of the entered path is
+     * used and resolved inside that directory, so the user cannot reach
+     * any other file.
+     *
+     * @param stdin a Scanner object to read users input from
+     * @param out a PrintStream to print the query to
+     * @param directory a Path object of the directory to keep files in, or null
+     * @return a Path object with entered path
+     */
+    public static Path fileQuery(Scanner stdin, PrintStream out, Path directory) {
+        out.println("Enter file path:");
         String filename = stdin.nextLine();
         // Determine if entered file name has either / or \ in it
         Pattern pattern = Pattern.compile("[\\\\/]");
         Matcher matcher = pattern.matcher(filename);
 
         Path path;
-        if (matcher.find()) {
+        if (directory != null) {
+            String name = filename.substring(filename.replace('\\', '/').lastIndexOf('/') + 1).trim();
+            if (name.isEmpty() || name.equals(".") || name.equals("..")) {
+                name = "game.txt";
+            }
+            path = directory.resolve(name);
+        }
+        else if (matcher.find()) {
             path = Paths.get(filename);
         }
         else {
@@ -196,10 +422,3 @@ public class FoxHoundUI<fileName> {
         return path;
     }
 }
-
-
-
-
-
-
-
@@ -30,6 +30,45 @@ public class FoxHoundUtils {
     /** Number of letter B in ASCII */
     public static final int LETTER_B = 66;
 
+    /** Marker for a String which is not a coordinate on the board. */
+    public static final int NO_SQUARE = -1;
+
+    /**
+     * Coordinate Strings of all fields of the largest board, indexed by
+     * {@code (number - 1) * MAX_DIM + (letter - 'A')}. Every coordinate
+     * String handed out by this class comes from this table.
+     */
+    private static final String[] COORDS = new String[MAX_DIM * MAX_DIM];
+    /**
+     * For every dimension, the square of each entry of {@link #COORDS}
+     * on that board, or {@link #NO_SQUARE} if it lies outside the board.
+     * Squares are numbered {@code (number - 1) * dim + (letter - 'A')}.
+     */
+    private static final int[][] SQUARE_OF_COORD = new int[MAX_DIM + 1][];
+    /** For every dimension, the coordinate String of each square. */
+    private static final String[][] COORD_OF_SQUARE = new String[MAX_DIM + 1][];
+
+    static {
+        for (int row = 0; row < MAX_DIM; row++) {
+            for (int col = 0; col < MAX_DIM; col++) {
+                COORDS[row * MAX_DIM + col] = ((char) (LETTER_A + col) + Integer.toString(row + 1)).intern();
+            }
+        }
+        for (int dim = MIN_DIM; dim <= MAX_DIM; dim++) {
+            int[] squares = new int[COORDS.length];
+            String[] coords = new String[dim * dim];
+            Arrays.fill(squares, NO_SQUARE);
+            for (int row = 0; row < dim; row++) {
+                for (int col = 0; col < dim; col++) {
+                    squares[row * MAX_DIM + col] = row * dim + col;
+                    coords[row * dim + col] = COORDS[row * MAX_DIM + col];
+                }
+            }
+            SQUARE_OF_COORD[dim] = squares;
+            COORD_OF_SQUARE[dim] = coords;
+        }
+    }
+
     /**
      * Create an array of initial players' positions.
      *
@@ -73,6 +112,7 @@ public class FoxHoundUtils {
 
     /**
      * Determine if the users' entered coordinates represent a valid move for given figure.
+     * A move to a coordinate outside the board is invalid.
      *
      * @param dim an int representing dimensions of the board
      * @param players a String array with coordinates of all the players on board
@@ -84,14 +124,47 @@ public class FoxHoundUtils {
      * improper character representing figure to move
      */
     public static boolean isValidMove(int dim, String[] players, char figure, String origin, String destination) {
+        FoxHoundEvents.MoveValidation event = new FoxHoundEvents.MoveValidation();
+        event.begin();
+        long start = FoxHoundMetrics.start();
+        boolean valid = checkMove(dim, players, figure, origin, destination);
+        FoxHoundMetrics.MOVE_VALIDATION.stop(start);
+        if (!valid) {
+            FoxHoundMetrics.INVALID_MOVES.increment();
+        }
+        event.end();
+        if (event.shouldCommit()) {
+            event.dim = dim;
+            event.figure = figure;
+            event.origin = origin;
+            event.destination = destination;
+            event.valid = valid;
+            event.commit();
+        }
+        return valid;
+    }
+
+    /**
+     * Validate a move, see {@link #isValidMove}.
+     *
+     * @param dim an int representing dimensions of the board
+     * @param players a String array with coordinates of all the players on board
+     * @param figure a char representing a figure to move
+     * @param origin a String for coordinate to move form
+     * @param destination a String for coordinate to move to
+     * @return a boolean for valid or invalid move
+     * @throws IllegalArgumentException if the board dimensions are invalid, players array is null, or
+     * improper character representing figure to move
+     */
+    private static boolean checkMove(int dim, String[] players, char figure, String origin, String destination) {
         boolean value = false;
         if (!(players != null
                 && (figure == 'F' || figure == 'H')
                 && dim >= MIN_DIM && dim <= MAX_DIM)) {
             throw new IllegalArgumentException("Invalid input");
         }
-        // Checking if destination position is free and continue
-        if (! (contains(players, destination))) {
+        // Checking if destination position is free and on the board and continue
+        if (! (contains(players, destination)) && toSquare(dim, destination) != NO_SQUARE) {
             // Current position and destination position as numbers
             int[] current_pos = posToNum(origin);
             int[] destination_pos = posToNum(destination);
@@ -105,7 +178,7 @@ public class FoxHoundUtils {
                     }
                     break;
                 case HOUND_FIELD:
-                    if (contains(Arrays.copyOfRange(players, 0, players.length - 1), origin)) {
+                    if (isHound(players, origin)) {
                         // Same but hounds can go only forward
                         if ((current_pos[1] - destination_pos[1]) == -1 && Math.abs(current_pos[0] - destination_pos[0]) == 1) {
                             value = true;
@@ -117,6 +190,28 @@ public class FoxHoundUtils {
         return value;
     }
 
+    /**
+     * Move a figure on the board. The move is expected to be valid.
+     *
+     * @param players a String array with coordinates of all the players on board
+     * @param figure a char representing the figure to move
+     * @param origin a String for coordinate to move from
+     * @param destination a String for coordinate to move to
+     */
+    public static void applyMove(String[] players, char figure, String origin, String destination) {
+        if (figure == FOX_FIELD) {
+            players[players.length - 1] = destination;
+        }
+        else if (figure == HOUND_FIELD) {
+            for (int i = 0; i < players.length; i++) {
+                if (players[i].equals(origin)) {
+                    players[i] = destination;
+                    break;
+                }
+            }
+        }
+    }
+
     /**
      * Determine if the coordinate is valid.
      *
@@ -126,12 +221,100 @@ public class FoxHoundUtils {
      */
     public static boolean isValidCoord(int dim, int[] coord) {
         boolean value = false;
-        if (coord[0] <= (LETTER_A + dim - 1) && coord[1] <= dim){
+        if (coord[0] >= LETTER_A && coord[0] <= (LETTER_A + dim - 1)
+                && coord[1] >= 1 && coord[1] <= dim){
             value = true;
         }
         return value;
     }
 
+    /**
+     * Determine if the coordinate String is a valid field on the board.
+     *
+     * @param dim an int representing dimensions of the board
+     * @param position a coordinate String
+     * @return a boolean for valid or invalid coordinate
+     */
+    public static boolean isValidCoord(int dim, String position) {
+        return toSquare(dim, position) != NO_SQUARE;
+    }
+
+    /**
+     * Convert a coordinate String to the square it represents on the board.
+     *
+     * @param dim an int representing dimensions of the board
+     * @param position a coordinate String
+     * @return an int for the square {@code (number - 1) * dim + (letter - 'A')},
+     * or {@value #NO_SQUARE} if the coordinate is not on the board
+     * @throws IllegalArgumentException if the board dimensions are invalid
+     */
+    public static int toSquare(int dim, String position) {
+        return toSquare(dim, position, 0, position.length());
+    }
+
+    /**
+     * Convert a part of a String to the square it represents on the board.
+     *
+     * @param dim an int representing dimensions of the board
+     * @param text a CharSequence containing the coordinate
+     * @param start index of the first char of the coordinate
+     * @param end index after the last char of the coordinate
+     * @return an int for the square, or {@value #NO_SQUARE} if the coordinate is not on the board
+     * @throws IllegalArgumentException if the board dimensions are invalid
+     */
+    static int toSquare(int dim, CharSequence text, int start, int end) {
+        if (dim < MIN_DIM || dim > MAX_DIM) {
+            throw new IllegalArgumentException("Invalid board dimension");
+        }
+        int index = coordIndex(text, start, end);
+        return index == NO_SQUARE ? NO_SQUARE : SQUARE_OF_COORD[dim][index];
+    }
+
+    /**
+     * Convert a square on the board to its coordinate String.
+     *
+     * @param dim an int representing dimensions of the board
+     * @param square an int for the square on the board
+     * @return the coordinate String of the square
+     * @throws IllegalArgumentException if the board dimensions or the square are invalid
+     */
+    public static String toCoord(int dim, int square) {
+        if (dim < MIN_DIM || dim > MAX_DIM || square < 0 || square >= dim * dim) {
+            throw new IllegalArgumentException("Invalid square: " + square);
+        }
+        return COORD_OF_SQUARE[dim][square];
+    }
+
+    /**
+     * Find the index of a coordinate in the table of all coordinates
+     * of the largest board without creating any objects.
+     *
+     * @param text a CharSequence containing the coordinate
+     * @param start index of the first char of the coordinate
+     * @param end index after the last char of the coordinate
+     * @return an int for the index into {@link #COORDS}, or {@value #NO_SQUARE}
+     * if it is not a coordinate of the largest board
+     */
+    private static int coordIndex(CharSequence text, int start, int end) {
+        int length = end - start;
+        if (length != 2 && length != 3) {
+            return NO_SQUARE;
+        }
+        int col = text.charAt(start) - LETTER_A;
+        int row = 0;
+        for (int i = start + 1; i < end; i++) {
+            int digit = text.charAt(i) - '0';
+            if (digit < 0 || digit > 9) {
+                return NO_SQUARE;
+            }
+            row = row * 10 + digit;
+        }
+        if (col < 0 || col >= MAX_DIM || row < 1 || row > MAX_DIM) {
+            return NO_SQUARE;
+        }
+        return (row - 1) * MAX_DIM + col;
+    }
+
     /**
      * Determine if array contains specific element.
      *
@@ -150,6 +333,22 @@ public class FoxHoundUtils {
         return value;
     }
 
+    /**
+     * Determine if a hound stands on the given coordinate.
+     *
+     * @param players a String array for positions of all the players
+     * @param position a coordinate String
+     * @return a boolean whether one of the hounds is on the coordinate
+     */
+    private static boolean isHound(String[] players, String position) {
+        for (int i = 0; i < players.length - 1; i++) {
+            if (players[i].equals(position)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     /**
      * Convert coordinate to two integers.
      *
@@ -161,8 +360,16 @@ public class FoxHoundUtils {
             throw new IllegalArgumentException("Ivalid coordinate");
         }
         int[] coordPair = new int[2];
-        coordPair[0] = position.charAt(0);
-        coordPair[1] = Integer.parseInt(position.substring(1, position.length()));
+        int index = coordIndex(position, 0, position.length());
+        if (index != NO_SQUARE) {
+            coordPair[0] = LETTER_A + index % MAX_DIM;
+            coordPair[1] = index / MAX_DIM + 1;
+        }
+        else {
+            // not a field of the largest board, so parse whatever number is given
+            coordPair[0] = position.charAt(0);
+            coordPair[1] = Integer.parseInt(position.substring(1, position.length()));
+        }
         return coordPair;
     }
 
@@ -194,11 +401,16 @@ public class FoxHoundUtils {
      * @return a boolean
      */
     public static boolean isFoxWin(String foxPos) {
+        FoxHoundEvents.WinCheck event = new FoxHoundEvents.WinCheck();
+        event.begin();
+        long start = FoxHoundMetrics.start();
         int[] foxCoords = posToNum(foxPos);
         boolean value = false;
         if (foxCoords[1] == 1) {
             value = true;
         }
+        FoxHoundMetrics.WIN_CHECK.stop(start);
+        commitWinCheck(event, FOX_FIELD, value);
         return value;
     }
 
@@ -213,6 +425,9 @@ public class FoxHoundUtils {
         if (dim < MIN_DIM || dim > MAX_DIM) {
             throw new IllegalArgumentException("Invalid board dimensions");
         }
+        FoxHoundEvents.WinCheck event = new FoxHoundEvents.WinCheck();
+        event.begin();
+        long start = FoxHoundMetrics.start();
         boolean value = false;
         int[] foxCoord = posToNum(players[players.length - 1]);
         // Counter to count how many fields are there for fox to go to
@@ -220,9 +435,8 @@ public class FoxHoundUtils {
         for (int i = -1; i <= 1; i+=2) {
             for (int j = -1; j <= 1; j+=2) {
                 int[] potentialCoord = {foxCoord[0] + i, foxCoord[1] + j};
-                String potentialCoordAsString = (char)potentialCoord[0] + Integer.toString(potentialCoord[1]);
                 if (isValidCoord(dim, potentialCoord)
-                        && !contains(Arrays.copyOfRange(players, 0, players.length - 1), potentialCoordAsString)){
+                        && !isHound(players, COORDS[(potentialCoord[1] - 1) * MAX_DIM + potentialCoord[0] - LETTER_A])){
                     counter++;
                 }
             }
@@ -230,6 +444,24 @@ public class FoxHoundUtils {
         if (counter == 0) {
             value = true;
         }
+        FoxHoundMetrics.WIN_CHECK.stop(start);
+        commitWinCheck(event, HOUND_FIELD, value);
         return value;
     }
+
+    /**
+     * Write a win check event if it is recorded.
+     *
+     * @param event the event started before the check
+     * @param figure a char for the figure checked for a win
+     * @param won a boolean whether the figure won
+     */
+    private static void commitWinCheck(FoxHoundEvents.WinCheck event, char figure, boolean won) {
+        event.end();
+        if (event.shouldCommit()) {
+            event.figure = figure;
+            event.won = won;
+            event.commit();
+        }
+    }
 }
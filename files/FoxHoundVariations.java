@@ -0,0 +1,550 @@
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A tree of variations of a game, for trying other moves from any
+ * point of the game and switching between lines.
+ *
+ * Positions are the nodes and moves are the edges between them, both
+ * kept in primitive arrays indexed by their number. Every node stores
+ * the squares of its figures, so any node can be shown at once without
+ * replaying the moves leading to it. A move leading to a position which
+ * is already stored by another line, a transposition, points to the
+ * stored node, so both lines share all continuations after it. Positions
+ * are recognised by their {@link FoxHoundPosition#key}.
+ *
+ * A cursor marks the current node and remembers the moves taken to
+ * reach it, so going back, forward and to the previous or next variation
+ * all take constant time. The first move stored at a node is its main
+ * line. Node 0 is the position the tree was started with.
+ */
+public class FoxHoundVariations {
+
+    /** Marker for no node or no move edge. */
+    public static final int NONE = -1;
+    /** First line of a variations file. */
+    static final String HEADER = "foxhound-variations 1";
+
+    /** Capacity of the arrays of a new tree. */
+    private static final int INITIAL_CAPACITY = 64;
+    /** Odd constant spreading position keys over the slots of the node index. */
+    private static final long MIX = 0x9E3779B97F4A7C15L;
+    private static final String DIM_PREFIX = "dim ";
+    private static final String ROOT_PREFIX = "root ";
+    private static final String MOVE_PREFIX = "move ";
+    private static final String CURRENT_PREFIX = "current ";
+
+    private final int dim;
+    /** Number of squares stored per node, the fox first and then the hounds. */
+    private final int stride;
+
+    private int nodeCount;
+    /** Squares of the figures of every node. */
+    private short[] squares;
+    /** Figure to move at every node. */
+    private char[] turns;
+    /** First and last move edge leaving every node. */
+    private int[] firstEdge;
+    private int[] lastEdge;
+    /** Move edge by which every node was first reached. */
+    private int[] parentEdge;
+    /**
+     * Open addressing index of the nodes by position key, with linear
+     * probing. A slot holds a key and its node, or {@link #NONE} if it is
+     * empty. It is kept at most half full.
+     */
+    private long[] slotKeys = new long[2 * INITIAL_CAPACITY];
+    private int[] slotNodes = newSlots(2 * INITIAL_CAPACITY);
+
+    private int edgeCount;
+    /** Encoded move of every edge. */
+    private int[] moves;
+    /** Node every edge leaves from and leads to. */
+    private int[] sources;
+    private int[] targets;
+    /** Next and previous edge leaving the same node. */
+    private int[] nextEdge;
+    private int[] previousEdge;
+
+    /** Node of the cursor. */
+    private int current;
+    /** Edges taken since the cursor was placed, the last one led to the current node. */
+    private int[] path = new int[INITIAL_CAPACITY];
+    private int pathLength;
+
+    /**
+     * Create a tree with only a start position.
+     *
+     * @param root the position to start from, which is copied
+     */
+    public FoxHoundVariations(FoxHoundPosition root) {
+        this.dim = root.getDim();
+        this.stride = root.getHoundCount() + 1;
+        this.squares = new short[INITIAL_CAPACITY * stride];
+        this.turns = new char[INITIAL_CAPACITY];
+        this.firstEdge = new int[INITIAL_CAPACITY];
+        this.lastEdge = new int[INITIAL_CAPACITY];
+        this.parentEdge = new int[INITIAL_CAPACITY];
+        this.moves = new int[INITIAL_CAPACITY];
+        this.sources = new int[INITIAL_CAPACITY];
+        this.targets = new int[INITIAL_CAPACITY];
+        this.nextEdge = new int[INITIAL_CAPACITY];
+        this.previousEdge = new int[INITIAL_CAPACITY];
+        addNode(root, NONE);
+    }
+
+    /**
+     * Board dimension of all positions.
+     *
+     * @return an int for the dimension
+     */
+    public int getDim() {
+        return dim;
+    }
+
+    /**
+     * Number of stored positions.
+     *
+     * @return an int for the number of nodes
+     */
+    public int getNodeCount() {
+        return nodeCount;
+    }
+
+    /**
+     * Number of stored moves, which is larger than the number of nodes
+     * minus one if lines transpose.
+     *
+     * @return an int for the number of moves
+     */
+    public int getMoveCount() {
+        return edgeCount;
+    }
+
+    /**
+     * Node of the cursor.
+     *
+     * @return an int for the current node
+     */
+    public int getCurrent() {
+        return current;
+    }
+
+    /**
+     * Position of the cursor.
+     *
+     * @return a new position
+     */
+    public FoxHoundPosition getPosition() {
+        return getPosition(current);
+    }
+
+    /**
+     * Position of a node.
+     *
+     * @param node an int for the node
+     * @return a new position
+     * @throws IllegalArgumentException if there is no such node
+     */
+    public FoxHoundPosition getPosition(int node) {
+        checkNode(node);
+        String[] players = new String[stride];
+        int base = node * stride;
+        for (int i = 1; i < stride; i++) {
+            players[i - 1] = FoxHoundUtils.toCoord(dim, squares[base + i]);
+        }
+        players[stride - 1] = FoxHoundUtils.toCoord(dim, squares[base]);
+        return new FoxHoundPosition(dim, players, turns[node]);
+    }
+
+    /**
+     * Play a move at the cursor. If the move is stored already it is
+     * followed, otherwise it is added as the last variation.
+     *
+     * @param move an encoded move, see {@link FoxHoundPosition#move}
+     * @return an int for the node reached
+     * @throws IllegalArgumentException if the move is not valid at the cursor
+     */
+    public int play(int move) {
+        push(addEdge(current, move));
+        return current;
+    }
+
+    /**
+     * Go back to the position before the last move.
+     *
+     * @return a boolean whether the cursor moved, false at the start position
+     */
+    public boolean back() {
+        int edge = incoming();
+        if (edge == NONE) {
+            return false;
+        }
+        if (pathLength > 0) {
+            pathLength--;
+        }
+        current = sources[edge];
+        return true;
+    }
+
+    /**
+     * Follow the main line by one move.
+     *
+     * @return a boolean whether the cursor moved, false at the end of a line
+     */
+    public boolean forward() {
+        int edge = firstEdge[current];
+        if (edge == NONE) {
+            return false;
+        }
+        push(edge);
+        return true;
+    }
+
+    /**
+     * Switch to the variation after the one of the last move.
+     *
+     * @return a boolean whether the cursor moved, false if there is none
+     */
+    public boolean nextVariation() {
+        int edge = incoming();
+        return edge != NONE && replace(nextEdge[edge]);
+    }
+
+    /**
+     * Switch to the variation before the one of the last move.
+     *
+     * @return a boolean whether the cursor moved, false if there is none
+     */
+    public boolean previousVariation() {
+        int edge = incoming();
+        return edge != NONE && replace(previousEdge[edge]);
+    }
+
+    /**
+     * Place the cursor on any node. Going back from there follows the
+     * line by which the node was first reached.
+     *
+     * @param node an int for the node
+     * @throws IllegalArgumentException if there is no such node
+     */
+    public void gotoNode(int node) {
+        checkNode(node);
+        current = node;
+        pathLength = 0;
+    }
+
+    /**
+     * Move which led to the current node.
+     *
+     * @return an int for the encoded move, or {@link FoxHoundPosition#NO_MOVE} at the start position
+     */
+    public int getLastMove() {
+        int edge = incoming();
+        return edge == NONE ? FoxHoundPosition.NO_MOVE : moves[edge];
+    }
+
+    /**
+     * Number of the variation of the last move among all moves from the previous node.
+     *
+     * @return an int from 1 for the main line, or 0 at the start position
+     */
+    public int getVariation() {
+        int number = 0;
+        for (int edge = incoming(); edge != NONE; edge = previousEdge[edge]) {
+            number++;
+        }
+        return number;
+    }
+
+    /**
+     * Moves stored at a node, the main line first.
+     *
+     * @param node an int for the node
+     * @return an int array of encoded moves
+     * @throws IllegalArgumentException if there is no such node
+     */
+    public int[] getMoves(int node) {
+        checkNode(node);
+        int count = 0;
+        for (int edge = firstEdge[node]; edge != NONE; edge = nextEdge[edge]) {
+            count++;
+        }
+        int[] result = new int[count];
+        count = 0;
+        for (int edge = firstEdge[node]; edge != NONE; edge = nextEdge[edge]) {
+            result[count++] = moves[edge];
+        }
+        return result;
+    }
+
+    /**
+     * Nodes reached by the moves stored at a node, in the order of {@link #getMoves}.
+     *
+     * @param node an int for the node
+     * @return an int array of nodes
+     * @throws IllegalArgumentException if there is no such node
+     */
+    public int[] getChildren(int node) {
+        int[] children = getMoves(node);
+        int i = 0;
+        for (int edge = firstEdge[node]; edge != NONE; edge = nextEdge[edge]) {
+            children[i++] = targets[edge];
+        }
+        return children;
+    }
+
+    /**
+     * Write the whole tree and the cursor to a file, replacing it at once.
+     *
+     * The file starts with {@value #HEADER}, the dimension and the start
+     * position in save file notation, followed by one line per move with
+     * the node it is played at, in the order the moves were added.
+     *
+     * @param path a Path to the variations file
+     * @throws IOException if the file cannot be written
+     */
+    public void save(Path path) throws IOException {
+        String newLine = System.lineSeparator();
+        StringBuilder text = new StringBuilder(64 + edgeCount * 16);
+        text.append(HEADER).append(newLine);
+        text.append(DIM_PREFIX).append(dim).append(newLine);
+        text.append(ROOT_PREFIX).append(getPosition(0).toSaveLine()).append(newLine);
+        for (int edge = 0; edge < edgeCount; edge++) {
+            int move = moves[edge];
+            text.append(MOVE_PREFIX).append(sources[edge]).append(' ')
+                .append(FoxHoundUtils.toCoord(dim, FoxHoundPosition.from(move))).append(' ')
+                .append(FoxHoundUtils.toCoord(dim, FoxHoundPosition.to(move))).append(newLine);
+        }
+        text.append(CURRENT_PREFIX).append(current).append(newLine);
+        FoxHoundIO.writeAtomically(path, "variations", text.toString());
+    }
+
+    /**
+     * Read a tree written by {@link #save}. The cursor is placed on the saved node.
+     *
+     * @param path a Path to the variations file
+     * @return the tree of the file
+     * @throws IOException if the file cannot be read
+     * @throws IllegalArgumentException if the file is not a valid variations file
+     */
+    public static FoxHoundVariations load(Path path) throws IOException {
+        List<String> lines = Files.readAllLines(path, StandardCharsets.UTF_8);
+        if (lines.size() < 3 || !lines.get(0).trim().equals(HEADER)
+                || !lines.get(1).startsWith(DIM_PREFIX) || !lines.get(2).startsWith(ROOT_PREFIX)) {
+            throw new IllegalArgumentException("Not a variations file: " + path);
+        }
+        int dim = parseInt(lines.get(1).substring(DIM_PREFIX.length()), 2);
+        FoxHoundVariations tree = new FoxHoundVariations(
+            FoxHoundPosition.parse(dim, lines.get(2).substring(ROOT_PREFIX.length())));
+        int current = 0;
+        for (int i = 3; i < lines.size(); i++) {
+            String line = lines.get(i).trim();
+            if (line.startsWith(MOVE_PREFIX)) {
+                String[] parts = line.substring(MOVE_PREFIX.length()).trim().split("\\s+");
+                if (parts.length != 3) {
+                    throw new IllegalArgumentException("Invalid line " + (i + 1) + ": " + line);
+                }
+                int node = parseInt(parts[0], i + 1);
+                tree.checkNode(node);
+                int from = FoxHoundUtils.toSquare(dim, parts[1]);
+                int to = FoxHoundUtils.toSquare(dim, parts[2]);
+                if (from == FoxHoundUtils.NO_SQUARE || to == FoxHoundUtils.NO_SQUARE) {
+                    throw new IllegalArgumentException("Invalid move in line " + (i + 1) + ": " + line);
+                }
+                tree.addEdge(node, FoxHoundPosition.move(from, to));
+            }
+            else if (line.startsWith(CURRENT_PREFIX)) {
+                current = parseInt(line.substring(CURRENT_PREFIX.length()), i + 1);
+            }
+            else if (!line.isEmpty()) {
+                throw new IllegalArgumentException("Invalid line " + (i + 1) + ": " + line);
+            }
+        }
+        tree.gotoNode(current);
+        return tree;
+    }
+
+    /**
+     * Find or add a move at a node, together with the node it leads to.
+     *
+     * @param node an int for the node to play the move at
+     * @param move an encoded move
+     * @return an int for the edge of the move
+     * @throws IllegalArgumentException if the move is not valid at the node
+     */
+    private int addEdge(int node, int move) {
+        for (int edge = firstEdge[node]; edge != NONE; edge = nextEdge[edge]) {
+            if (moves[edge] == move) {
+                return edge;
+            }
+        }
+        FoxHoundPosition position = getPosition(node);
+        if (!position.isLegal(move)) {
+            throw new IllegalArgumentException("Invalid move at node " + node + ": " + move);
+        }
+        position.makeMove(move);
+        if (edgeCount == moves.length) {
+            int capacity = 2 * edgeCount;
+            moves = Arrays.copyOf(moves, capacity);
+            sources = Arrays.copyOf(sources, capacity);
+            targets = Arrays.copyOf(targets, capacity);
+            nextEdge = Arrays.copyOf(nextEdge, capacity);
+            previousEdge = Arrays.copyOf(previousEdge, capacity);
+        }
+        int edge = edgeCount++;
+        int target = slotNodes[findSlot(position.key())];
+        moves[edge] = move;
+        sources[edge] = node;
+        targets[edge] = target != NONE ? target : addNode(position, edge);
+        nextEdge[edge] = NONE;
+        previousEdge[edge] = lastEdge[node];
+        if (lastEdge[node] == NONE) {
+            firstEdge[node] = edge;
+        }
+        else {
+            nextEdge[lastEdge[node]] = edge;
+        }
+        lastEdge[node] = edge;
+        return edge;
+    }
+
+    /**
+     * Store a new position.
+     *
+     * @param position the position
+     * @param edge an int for the edge leading to it, or {@link #NONE} for the start position
+     * @return an int for the new node
+     */
+    private int addNode(FoxHoundPosition position, int edge) {
+        if (position.getDim() != dim || position.getHoundCount() != stride - 1) {
+            throw new IllegalArgumentException("Position does not belong to this game");
+        }
+        if (nodeCount == turns.length) {
+            int capacity = 2 * nodeCount;
+            squares = Arrays.copyOf(squares, capacity * stride);
+            turns = Arrays.copyOf(turns, capacity);
+            firstEdge = Arrays.copyOf(firstEdge, capacity);
+            lastEdge = Arrays.copyOf(lastEdge, capacity);
+            parentEdge = Arrays.copyOf(parentEdge, capacity);
+        }
+        int node = nodeCount++;
+        int base = node * stride;
+        squares[base] = (short) position.getFox();
+        for (int i = 1; i < stride; i++) {
+            squares[base + i] = (short) position.getHound(i - 1);
+        }
+        turns[node] = position.getTurn();
+        firstEdge[node] = NONE;
+        lastEdge[node] = NONE;
+        parentEdge[node] = edge;
+        if (2 * nodeCount > slotNodes.length) {
+            growSlots();
+        }
+        int slot = findSlot(position.key());
+        slotKeys[slot] = position.key();
+        slotNodes[slot] = node;
+        return node;
+    }
+
+    /**
+     * Slot of the node index holding a position key, or the empty slot it would be stored in.
+     *
+     * @param key a long for the position key
+     * @return an int for the slot
+     */
+    private int findSlot(long key) {
+        int mask = slotNodes.length - 1;
+        int slot = (int) ((key * MIX) >>> 32) & mask;
+        while (slotNodes[slot] != NONE && slotKeys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    /**
+     * Double the slots of the node index and store all nodes again.
+     */
+    private void growSlots() {
+        long[] oldKeys = slotKeys;
+        int[] oldNodes = slotNodes;
+        slotKeys = new long[2 * oldKeys.length];
+        slotNodes = newSlots(2 * oldNodes.length);
+        for (int i = 0; i < oldNodes.length; i++) {
+            if (oldNodes[i] != NONE) {
+                int slot = findSlot(oldKeys[i]);
+                slotKeys[slot] = oldKeys[i];
+                slotNodes[slot] = oldNodes[i];
+            }
+        }
+    }
+
+    /**
+     * Create empty slots of the node index.
+     *
+     * @param length an int for the number of slots, a power of two
+     * @return an int array filled with {@link #NONE}
+     */
+    private static int[] newSlots(int length) {
+        int[] nodes = new int[length];
+        Arrays.fill(nodes, NONE);
+        return nodes;
+    }
+
+    /**
+     * Edge which led to the current node, from the path or else the first one reaching it.
+     *
+     * @return an int for the edge, or {@link #NONE} at the start position
+     */
+    private int incoming() {
+        return pathLength > 0 ? path[pathLength - 1] : parentEdge[current];
+    }
+
+    /**
+     * Follow an edge from the current node.
+     *
+     * @param edge an int for the edge
+     */
+    private void push(int edge) {
+        if (pathLength == path.length) {
+            path = Arrays.copyOf(path, 2 * pathLength);
+        }
+        path[pathLength++] = edge;
+        current = targets[edge];
+    }
+
+    /**
+     * Replace the edge which led to the current node by another edge from the same node.
+     *
+     * @param edge an int for the other edge, or {@link #NONE}
+     * @return a boolean whether there was another edge
+     */
+    private boolean replace(int edge) {
+        if (edge == NONE) {
+            return false;
+        }
+        if (pathLength > 0) {
+            pathLength--;
+        }
+        push(edge);
+        return true;
+    }
+
+    private void checkNode(int node) {
+        if (node < 0 || node >= nodeCount) {
+            throw new IllegalArgumentException("No such node: " + node);
+        }
+    }
+
+    private static int parseInt(String text, int line) {
+        try {
+            return Integer.parseInt(text.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid number in line " + line + ": " + text);
+        }
+    }
+}
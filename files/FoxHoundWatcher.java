@@ -0,0 +1,471 @@
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A daemon analysing save files dropped into a directory.
+ *
+ * A watch thread learns about new and changed files from a
+ * {@link WatchService}. A file is only taken once its size and
+ * modification time did not change for {@value #DEBOUNCE_MILLIS}
+ * milliseconds, so files which are still being written are not read
+ * half way. Quiet files are put into a bounded queue, which blocks the
+ * watch thread while the workers are busy. If the system drops watch
+ * events in the meantime, the directory is scanned again, so bursts of
+ * thousands of files are not lost.
+ *
+ * Worker threads read each file with {@link FoxHoundIO#readGame}, which
+ * does not create missing files, search the position and write the
+ * verdict next to it into a file with the suffix {@value #RESULT_SUFFIX}.
+ * Files which already have a newer result are skipped.
+ * <pre>
+ * java FoxHoundWatcher [directory] [workers] [queue size] [depth]
+ * </pre>
+ */
+public class FoxHoundWatcher implements AutoCloseable {
+
+    /** Suffix of the result files. */
+    public static final String RESULT_SUFFIX = ".result";
+    /** Time a file must stay unchanged before it is read, in milliseconds. */
+    public static final long DEBOUNCE_MILLIS = 200;
+    /** Default number of queued files. */
+    private static final int DEFAULT_QUEUE = 256;
+    /** Default search depth of an analysis. */
+    private static final int DEFAULT_DEPTH = 8;
+    /** Longest time of an analysis in milliseconds. */
+    private static final long SEARCH_MILLIS = 1000;
+    /** Transposition table size of every worker's engine. */
+    private static final int TABLE_BITS = 18;
+    /** Prefix of files written by the watcher itself before they get their name. */
+    private static final String TEMP_PREFIX = ".foxhound";
+
+    /**
+     * A file seen changing, waiting to become quiet.
+     */
+    private static final class Pending {
+        long seenNanos;
+        long size;
+        long modified;
+    }
+
+    private final Path directory;
+    private final int depth;
+    /** Evaluation function of the engines of the workers. */
+    private final FoxHoundEval eval;
+    private final WatchService watchService;
+    private final BlockingQueue<Path> queue;
+    /** Files which are queued or being analysed, so they are not queued twice. */
+    private final Set<Path> busy = ConcurrentHashMap.newKeySet();
+    /** Files waiting to become quiet, only used by the watch thread. */
+    private final Map<Path, Pending> pending = new HashMap<>();
+    private final Thread watchThread;
+    private final Thread[] workers;
+    private volatile boolean running;
+
+    private final AtomicLong analysed = new AtomicLong();
+    private final AtomicLong invalid = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong overflows = new AtomicLong();
+
+    /**
+     * Create a watcher of a directory analysing with the default weights.
+     * It starts watching with {@link #start}.
+     *
+     * @param directory a Path to the directory to watch
+     * @param workers an int for the number of worker threads
+     * @param queueSize an int for the number of files waiting for a worker
+     * @param depth an int for the search depth of an analysis
+     * @throws IOException if the directory cannot be watched
+     * @throws IllegalArgumentException if a number is not positive
+     */
+    public FoxHoundWatcher(Path directory, int workers, int queueSize, int depth) throws IOException {
+        this(directory, workers, queueSize, depth, new FoxHoundEval());
+    }
+
+    /**
+     * Create a watcher of a directory. It starts watching with {@link #start}.
+     *
+     * @param directory a Path to the directory to watch
+     * @param workers an int for the number of worker threads
+     * @param queueSize an int for the number of files waiting for a worker
+     * @param depth an int for the search depth of an analysis
+     * @param eval the evaluation function of the engines of the workers
+     * @throws IOException if the directory cannot be watched
+     * @throws IllegalArgumentException if a number is not positive
+     */
+    public FoxHoundWatcher(Path directory, int workers, int queueSize, int depth, FoxHoundEval eval)
+            throws IOException {
+        if (workers <= 0 || queueSize <= 0 || depth <= 0) {
+            throw new IllegalArgumentException("Workers, queue size and depth must be positive");
+        }
+        this.directory = directory.toAbsolutePath();
+        this.depth = depth;
+        this.eval = eval;
+        this.queue = new ArrayBlockingQueue<>(queueSize);
+        this.watchService = this.directory.getFileSystem().newWatchService();
+        this.directory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+            StandardWatchEventKinds.ENTRY_MODIFY);
+        this.watchThread = new Thread(this::watch, "foxhound-watcher");
+        this.workers = new Thread[workers];
+        for (int i = 0; i < workers; i++) {
+            this.workers[i] = new Thread(this::work, "foxhound-analyser-" + i);
+        }
+    }
+
+    /**
+     * Start watching, files already in the directory are analysed as well.
+     */
+    public void start() {
+        running = true;
+        for (Thread worker : workers) {
+            worker.start();
+        }
+        watchThread.start();
+    }
+
+    /**
+     * Stop watching and wait for the threads to end. Queued files are not
+     * analysed. If waiting is interrupted, the interrupt is kept for the
+     * caller and the threads end on their own.
+     */
+    @Override
+    public void close() {
+        running = false;
+        try {
+            watchService.close();
+        } catch (IOException e) {
+            System.err.println("Could not close the watch service: " + e.getMessage());
+        }
+        watchThread.interrupt();
+        for (Thread worker : workers) {
+            worker.interrupt();
+        }
+        try {
+            watchThread.join();
+            for (Thread worker : workers) {
+                worker.join();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Main loop of the watch thread: collect changed files and queue the quiet ones.
+     */
+    private void watch() {
+        try {
+            scan();
+            while (running) {
+                WatchKey key = watchService.poll(DEBOUNCE_MILLIS / 2, TimeUnit.MILLISECONDS);
+                if (key != null) {
+                    for (WatchEvent<?> event : key.pollEvents()) {
+                        if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                            // events were lost, look at every file again
+                            overflows.incrementAndGet();
+                            scan();
+                        }
+                        else {
+                            touch(directory.resolve((Path) event.context()));
+                        }
+                    }
+                    if (!key.reset()) {
+                        System.err.println("Directory no longer watchable: " + directory);
+                        return;
+                    }
+                }
+                queueQuietFiles();
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // closed
+        }
+    }
+
+    /**
+     * Note every file of the directory as changed. Files which already
+     * have a current result are skipped when they are queued.
+     */
+    private void scan() {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+            for (Path file : files) {
+                touch(file);
+            }
+        } catch (IOException e) {
+            System.err.println("Could not scan " + directory + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Note that a file changed, restarting its quiet time.
+     *
+     * @param file a Path to the changed file
+     */
+    private void touch(Path file) {
+        if (!isSaveFile(file)) {
+            return;
+        }
+        BasicFileAttributes attributes;
+        try {
+            attributes = Files.readAttributes(file, BasicFileAttributes.class);
+        } catch (IOException e) {
+            // deleted again
+            pending.remove(file);
+            return;
+        }
+        Pending state = pending.computeIfAbsent(file, f -> new Pending());
+        state.seenNanos = System.nanoTime();
+        state.size = attributes.size();
+        state.modified = attributes.lastModifiedTime().toMillis();
+    }
+
+    /**
+     * Determine if a file may be a save file, i.e. it is not written by the watcher.
+     *
+     * @param file a Path to the file
+     * @return a boolean whether the file should be analysed
+     */
+    static boolean isSaveFile(Path file) {
+        String name = file.getFileName().toString();
+        return !name.endsWith(RESULT_SUFFIX) && !name.startsWith(TEMP_PREFIX);
+    }
+
+    /**
+     * Queue every pending file which did not change for the debounce time.
+     * Blocks while the queue is full.
+     *
+     * @throws InterruptedException if waiting for room in the queue is interrupted
+     */
+    private void queueQuietFiles() throws InterruptedException {
+        long now = System.nanoTime();
+        Iterator<Map.Entry<Path, Pending>> entries = pending.entrySet().iterator();
+        while (entries.hasNext()) {
+            Map.Entry<Path, Pending> entry = entries.next();
+            Path file = entry.getKey();
+            Pending state = entry.getValue();
+            if (now - state.seenNanos < DEBOUNCE_MILLIS * 1_000_000) {
+                continue;
+            }
+            BasicFileAttributes attributes;
+            try {
+                attributes = Files.readAttributes(file, BasicFileAttributes.class);
+            } catch (IOException e) {
+                // deleted again
+                entries.remove();
+                continue;
+            }
+            long size = attributes.size();
+            long modified = attributes.lastModifiedTime().toMillis();
+            if (size != state.size || modified != state.modified) {
+                // changed since it was last looked at, wait another quiet time
+                state.size = size;
+                state.modified = modified;
+                state.seenNanos = now;
+                continue;
+            }
+            entries.remove();
+            if (!attributes.isRegularFile() || hasCurrentResult(file, modified) || !busy.add(file)) {
+                continue;
+            }
+            queue.put(file);
+        }
+    }
+
+    /**
+     * Determine if a file already has a result which is not older than the file.
+     *
+     * @param file a Path to the save file
+     * @param modified a long for the modification time of the save file in milliseconds
+     * @return a boolean whether the file need not be analysed
+     */
+    private static boolean hasCurrentResult(Path file, long modified) {
+        try {
+            return Files.getLastModifiedTime(resultFile(file)).toMillis() >= modified;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * The result file of a save file.
+     *
+     * @param file a Path to the save file
+     * @return a Path to the result file next to it
+     */
+    public static Path resultFile(Path file) {
+        return file.resolveSibling(file.getFileName() + RESULT_SUFFIX);
+    }
+
+    /**
+     * Main loop of a worker: analyse queued files.
+     */
+    private void work() {
+        FoxHoundEngine engine = new FoxHoundEngine(eval, TABLE_BITS);
+        while (running) {
+            Path file;
+            try {
+                file = queue.take();
+            } catch (InterruptedException e) {
+                return;
+            }
+            try {
+                writeResult(file, analyse(engine, file));
+            } catch (NoSuchFileException e) {
+                // deleted before it was analysed
+            } catch (IOException e) {
+                failed.incrementAndGet();
+                System.err.println("Could not analyse " + file + ": " + e.getMessage());
+            } catch (RuntimeException e) {
+                // a broken file or a bug must not cost the worker
+                failed.incrementAndGet();
+                System.err.println("Analysis of " + file + " failed: " + e);
+            } finally {
+                busy.remove(file);
+            }
+        }
+    }
+
+    /**
+     * Analyse a save file.
+     *
+     * @param engine the engine of the worker
+     * @param file a Path to the save file
+     * @return a String with the lines of the result file
+     * @throws IOException if the file cannot be read
+     */
+    String analyse(FoxHoundEngine engine, Path file) throws IOException {
+        FoxHoundPosition position = FoxHoundIO.readGame(file);
+        String newLine = System.lineSeparator();
+        if (position == null) {
+            invalid.incrementAndGet();
+            return "error invalid save file" + newLine;
+        }
+        StringBuilder result = new StringBuilder();
+        result.append("position ").append(position.toSaveLine().trim()).append(newLine);
+        if (position.isFoxWin()) {
+            result.append("winner ").append(FoxHoundUtils.FOX_FIELD).append(newLine);
+        }
+        else if (position.isHoundWin()) {
+            result.append("winner ").append(FoxHoundUtils.HOUND_FIELD).append(newLine);
+        }
+        else {
+            FoxHoundEngine.Result best = engine.search(position, depth, SEARCH_MILLIS, null);
+            if (best.move == FoxHoundPosition.NO_MOVE) {
+                // the hounds cannot move
+                result.append("winner ").append(FoxHoundUtils.FOX_FIELD).append(newLine);
+            }
+            else {
+                result.append("bestMove ").append(position.moveToString(best.move)).append(newLine);
+                result.append("score ").append(best.foxScore()).append(newLine);
+                result.append("depth ").append(best.depth).append(newLine);
+            }
+        }
+        analysed.incrementAndGet();
+        return result.toString();
+    }
+
+    /**
+     * Write the result of a save file next to it, replacing an older result at once.
+     *
+     * @param file a Path to the save file
+     * @param content a String with the result
+     * @throws IOException if the result cannot be written
+     */
+    private static void writeResult(Path file, String content) throws IOException {
+        // the temporary file is ignored by the watcher through its prefix
+        FoxHoundIO.writeAtomically(resultFile(file), TEMP_PREFIX, content);
+    }
+
+    /**
+     * Number of files analysed, including invalid save files.
+     *
+     * @return a long for the number of result files written
+     */
+    public long getAnalysed() {
+        return analysed.get() + invalid.get();
+    }
+
+    /**
+     * Number of files which were not valid save files.
+     *
+     * @return a long for the number of invalid files
+     */
+    public long getInvalid() {
+        return invalid.get();
+    }
+
+    /**
+     * Number of files which could not be read, could not be analysed or whose
+     * result could not be written.
+     *
+     * @return a long for the number of failures
+     */
+    public long getFailed() {
+        return failed.get();
+    }
+
+    /**
+     * Number of times watch events were lost and the directory was scanned again.
+     *
+     * @return a long for the number of overflows
+     */
+    public long getOverflows() {
+        return overflows.get();
+    }
+
+    /**
+     * Number of files waiting for a worker.
+     *
+     * @return an int for the queued files
+     */
+    public int getQueued() {
+        return queue.size();
+    }
+
+    /**
+     * Entry method of the watcher, runs until the program is stopped.
+     *
+     * @param args directory, number of workers, queue size and search depth, all optional
+     * @throws IOException if the directory cannot be watched or the weights file cannot be read
+     * @throws InterruptedException if the program is interrupted
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        FoxHoundMetrics.register();
+        Path directory = Paths.get(args.length > 0 ? args[0] : ".");
+        int workers = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        int queueSize = args.length > 2 ? Integer.parseInt(args[2]) : DEFAULT_QUEUE;
+        int depth = args.length > 3 ? Integer.parseInt(args[3]) : DEFAULT_DEPTH;
+
+        FoxHoundWatcher watcher = new FoxHoundWatcher(directory, workers, queueSize, depth, FoxHoundEval.load());
+        Runtime.getRuntime().addShutdownHook(new Thread(watcher::close));
+        watcher.start();
+        System.out.println("Watching " + watcher.directory + " with " + workers + " workers");
+        long reported = -1;
+        while (true) {
+            Thread.sleep(1000);
+            long done = watcher.getAnalysed();
+            if (done != reported) {
+                System.out.printf("analysed=%d invalid=%d failed=%d queued=%d overflows=%d%n", done,
+                    watcher.getInvalid(), watcher.getFailed(), watcher.getQueued(), watcher.getOverflows());
+                reported = done;
+            }
+        }
+    }
+}
@@ -0,0 +1,101 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+public class FoxHoundAnalyticsBasicTest {
+
+    private static final List<String> ARCHIVE = Arrays.asList(
+        "# archived games",
+        "6 C6D5 B1C2 D5C4 D1E2 C4D3 C2B3 D3C2 B3A4 C2B1",
+        "4 C4D3 B1C2 D3C4 C2B3 C4D3 D1C2 D3C4 C2D3",
+        "",
+        "8 E8-D7 B1-C2",
+        "8 E8D7 D7E8",
+        "30 E8D7");
+
+    // ------------------------- analyse --------------------
+
+    @Test
+    public void testCounts() {
+        FoxHoundAnalytics.Stats stats = FoxHoundAnalytics.analyse(ARCHIVE.stream());
+
+        assertEquals("Fox win expected.", 1, stats.getFoxWins(6));
+        assertEquals("Hound win expected.", 1, stats.getHoundWins(4));
+        assertEquals("Unfinished game expected.", 1, stats.getGames(8));
+        assertEquals("Invalid move expected.", 1, stats.getErrors(8));
+        assertEquals("Invalid dimension expected.", 1, stats.getInvalid());
+        assertEquals(4, stats.getTotalGames());
+        assertEquals(8.0, stats.getAverageMoves(4), 0);
+        // the fox was caught on C4
+        assertEquals(1, stats.getCaptures(4, FoxHoundUtils.toSquare(4, "C4")));
+    }
+
+    @Test
+    public void testOpenings() {
+        FoxHoundAnalytics.Stats stats = FoxHoundAnalytics.analyse(ARCHIVE.stream());
+        int found = 0;
+        for (int opening = 0; opening < FoxHoundAnalytics.OPENINGS; opening++) {
+            if (stats.getOpeningGames(8, opening) > 0) {
+                assertEquals("E8D7 B1C2", FoxHoundAnalytics.openingName(8, opening));
+                found++;
+            }
+        }
+        assertEquals("Single opening expected.", 1, found);
+        assertTrue(FoxHoundAnalytics.openingsCsv(stats).contains("6,C6D5 B1C2,1,1,0,1.0000"));
+    }
+
+    @Test
+    public void testParallelMatchesSequential() {
+        SplittableRandom random = new SplittableRandom(5);
+        int[] moves = new int[FoxHoundPosition.MAX_MOVES];
+        List<String> lines = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            int dim = FoxHoundUtils.MIN_DIM + random.nextInt(9);
+            FoxHoundPosition position = FoxHoundPosition.initial(dim);
+            StringBuilder line = new StringBuilder().append(dim);
+            while (!FoxHoundEngine.isGameOver(position) && position.generateMoves(moves) > 0) {
+                int move = moves[random.nextInt(position.generateMoves(moves))];
+                line.append(' ').append(position.moveToString(move).replace(" ", ""));
+                position.makeMove(move);
+            }
+            lines.add(line.toString());
+        }
+        FoxHoundAnalytics.Stats sequential = FoxHoundAnalytics.analyse(lines.stream());
+        FoxHoundAnalytics.Stats parallel = FoxHoundAnalytics.analyse(lines.parallelStream());
+
+        assertEquals(FoxHoundAnalytics.toJson(sequential), FoxHoundAnalytics.toJson(parallel));
+        for (String line : lines.subList(0, 200)) {
+            String result = FoxHoundBatch.playGame(line);
+            FoxHoundAnalytics.Stats single = FoxHoundAnalytics.analyse(Arrays.asList(line).stream());
+            int dim = Integer.parseInt(line.split(" ")[0]);
+            assertEquals("Same outcome as the batch mode expected: " + line,
+                result.startsWith(FoxHoundBatch.RESULT_FOX), single.getFoxWins(dim) == 1);
+            assertEquals("Same outcome as the batch mode expected: " + line,
+                result.startsWith(FoxHoundBatch.RESULT_HOUNDS), single.getHoundWins(dim) == 1);
+        }
+    }
+
+    // ------------------------- reports --------------------
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testJsonReport() {
+        FoxHoundAnalytics.Stats stats = FoxHoundAnalytics.analyse(ARCHIVE.stream());
+        Map<String, Object> report = (Map<String, Object>) FoxHoundJson.parse(FoxHoundAnalytics.toJson(stats));
+
+        assertEquals(4.0, ((Number) report.get("games")).doubleValue(), 0);
+        List<Object> dimensions = (List<Object>) report.get("dimensions");
+        assertEquals("Dimensions 4, 6 and 8 expected.", 3, dimensions.size());
+        List<Object> captures = (List<Object>) ((Map<String, Object>) dimensions.get(0)).get("captures");
+        assertEquals("A row per board row expected.", 4, captures.size());
+        assertEquals("dim,games,fox_wins,hound_wins,open,errors,average_moves\n"
+            + "4,1,0,1,0,0,8.00\n6,1,1,0,0,0,9.00\n8,1,0,0,1,1,2.00\n",
+            FoxHoundAnalytics.dimensionsCsv(stats).replace("\r", ""));
+    }
+}
@@ -0,0 +1,146 @@
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+public class FoxHoundAnsiRendererBasicTest {
+
+    private static final String CSI = "\u001b[";
+
+    private final ByteArrayOutputStream output = new ByteArrayOutputStream();
+    private final PrintStream out = new PrintStream(output, true);
+
+    private String takeOutput() {
+        String text = new String(output.toByteArray(), StandardCharsets.UTF_8);
+        output.reset();
+        return text;
+    }
+
+    private static String[] afterFoxMove() {
+        String[] players = FoxHoundUtils.initialisePositions(8);
+        players[players.length - 1] = "D7";
+        return players;
+    }
+
+    // ------------------------- render --------------------
+
+    @Test
+    public void testPlainOutput() {
+        FoxHoundAnsiRenderer renderer = new FoxHoundAnsiRenderer(out, false, 0);
+        String[] players = FoxHoundUtils.initialisePositions(8);
+        renderer.render(players, 8);
+        renderer.render(players, 8);
+
+        String board = FoxHoundUI.renderBoard(players, 8);
+        assertEquals(board + board, takeOutput());
+    }
+
+    @Test
+    public void testFirstFrameInFull() {
+        FoxHoundAnsiRenderer renderer = new FoxHoundAnsiRenderer(out, true, 0);
+        String[] players = FoxHoundUtils.initialisePositions(8);
+        renderer.render(players, 8);
+
+        assertEquals(CSI + "2J" + CSI + "H" + FoxHoundUI.renderBoard(players, 8), takeOutput());
+    }
+
+    @Test
+    public void testChangedFieldsRelativeToCursor() {
+        FoxHoundAnsiRenderer renderer = new FoxHoundAnsiRenderer(out, true, 0);
+        PrintStream tracked = renderer.track(out);
+        renderer.render(FoxHoundUtils.initialisePositions(8), 8);
+        tracked.println("Menu");
+        tracked.println("1");
+        takeOutput();
+        renderer.render(afterFoxMove(), 8);
+
+        // 12 board lines and 2 more below, D7 is on board line 8 and E8 on line 9
+        String expected = "\r" + CSI + "6A" + CSI + "6G" + "F"
+            + CSI + "1B" + CSI + "7G" + "."
+            + CSI + "3B" + "\r" + CSI + "J";
+        assertEquals(expected, takeOutput());
+    }
+
+    @Test
+    public void testTypedLinesCounted() throws IOException {
+        FoxHoundAnsiRenderer renderer = new FoxHoundAnsiRenderer(out, true, 0);
+        InputStream in = renderer.track(new ByteArrayInputStream("1\nE8 D7\n".getBytes(StandardCharsets.US_ASCII)));
+        renderer.render(FoxHoundUtils.initialisePositions(8), 8);
+        while (in.read(new byte[4]) >= 0) {
+            // read all input like a Scanner
+        }
+        takeOutput();
+        renderer.render(afterFoxMove(), 8);
+
+        assertTrue(takeOutput().startsWith("\r" + CSI + "6A"));
+    }
+
+    @Test
+    public void testScrolledBoardDrawnAgain() {
+        FoxHoundAnsiRenderer renderer = new FoxHoundAnsiRenderer(out, true, 0, 20);
+        PrintStream tracked = renderer.track(out);
+        renderer.render(FoxHoundUtils.initialisePositions(8), 8);
+        for (int i = 0; i < 8; i++) {
+            tracked.println("Please enter valid number.");
+        }
+        takeOutput();
+        String[] players = afterFoxMove();
+        renderer.render(players, 8);
+
+        assertEquals("\r" + CSI + "J" + FoxHoundUI.renderBoard(players, 8), takeOutput());
+    }
+
+    @Test
+    public void testFrameRateLimit() throws InterruptedException {
+        FoxHoundAnsiRenderer renderer = new FoxHoundAnsiRenderer(out, true, 10);
+        renderer.render(FoxHoundUtils.initialisePositions(8), 8);
+        takeOutput();
+        long start = System.nanoTime();
+        renderer.render(afterFoxMove(), 8);
+        long elapsed = System.nanoTime() - start;
+
+        assertTrue("Second frame expected not to wait, waited " + elapsed + " ns", elapsed < 50_000_000L);
+        assertEquals("Second frame expected to wait for the frame rate.", "", takeOutput());
+        String frame = "";
+        for (int i = 0; i < 200 && frame.isEmpty(); i++) {
+            Thread.sleep(10);
+            frame = takeOutput();
+        }
+        assertTrue("Waiting frame expected once the time between frames passed: " + frame,
+            frame.startsWith("\u001b7") && frame.endsWith("\u001b8"));
+        assertTrue(frame.contains("F"));
+    }
+
+    @Test
+    public void testWaitingFrameDrawnOnInput() throws IOException {
+        FoxHoundAnsiRenderer renderer = new FoxHoundAnsiRenderer(out, true, 1);
+        PrintStream tracked = renderer.track(out);
+        InputStream in = renderer.track(new ByteArrayInputStream("1\n".getBytes(StandardCharsets.US_ASCII)));
+        renderer.render(FoxHoundUtils.initialisePositions(8), 8);
+        String[] players = afterFoxMove();
+        renderer.render(players, 8);
+        players[players.length - 1] = "C6";
+        renderer.render(players, 8);
+        tracked.print("Menu: ");
+        takeOutput();
+        in.read();
+
+        // only the last frame, the fox from E8 on C6, with the menu line kept below the board
+        String expected = "\u001b7" + CSI + "5A" + CSI + "5G" + "F"
+            + CSI + "2B" + CSI + "7G" + "." + "\u001b8";
+        assertEquals(expected, takeOutput());
+        in.read();
+        assertEquals("No frame expected to be waiting.", "", takeOutput());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidFrameRate() {
+        new FoxHoundAnsiRenderer(out, true, -1);
+    }
+}
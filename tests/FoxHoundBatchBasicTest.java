@@ -0,0 +1,55 @@
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+public class FoxHoundBatchBasicTest {
+
+    // ------------------------- playGame --------------------
+
+    @Test
+    public void testPlayGameFoxWin() {
+        String line = "6 C6D5 B1C2 D5C4 D1E2 C4D3 C2B3 D3C2 B3A4 C2B1";
+
+        assertEquals("Fox expected to win after 9 moves.", "F 9", FoxHoundBatch.playGame(line));
+    }
+
+    @Test
+    public void testPlayGameHoundWin() {
+        String line = "4 C4D3 B1C2 D3C4 C2B3 C4D3 D1C2 D3C4 C2D3";
+
+        assertEquals("Hounds expected to win after 8 moves.", "H 8", FoxHoundBatch.playGame(line));
+    }
+
+    @Test
+    public void testPlayGameOpen() {
+        assertEquals("Game expected to be unfinished.", "- 2", FoxHoundBatch.playGame("8 E8-D7 B1-C2"));
+    }
+
+    @Test
+    public void testPlayGameInvalidMove() {
+        // hounds can only move forward
+        assertEquals("Invalid move expected to be reported.",
+            "ERROR 1 D7E8", FoxHoundBatch.playGame("8 E8D7 D7E8"));
+        assertEquals("Malformed move expected to be reported.",
+            "ERROR 0 E8", FoxHoundBatch.playGame("8 E8"));
+        assertEquals("Invalid dimension expected to be reported.",
+            "ERROR 0 30", FoxHoundBatch.playGame("30 E8D7"));
+    }
+
+    // ------------------------- run --------------------
+
+    @Test
+    public void testRunSkipsCommentsAndEmptyLines() {
+        String input = "# scripted games\n\n8 E8D7\n4 C4D3 B1C2 D3C4 C2B3 C4D3 D1C2 D3C4 C2D3\n";
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        int games = FoxHoundBatch.run(new ByteArrayInputStream(input.getBytes()), output);
+
+        assertEquals("Number of games not as expected.", 2, games);
+        assertEquals("Results not as expected.", "1 - 1\n2 H 8",
+            output.toString().trim().replaceAll("\r", ""));
+    }
+}
@@ -0,0 +1,68 @@
+import java.util.SplittableRandom;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+public class FoxHoundBatchEvalBasicTest {
+
+    private static void checkAgainstPositions(int dim) {
+        SplittableRandom random = new SplittableRandom(dim);
+        FoxHoundBatchEval batch = new FoxHoundBatchEval(dim, 4);
+        FoxHoundPosition[] positions = new FoxHoundPosition[500];
+        int[] moves = new int[FoxHoundPosition.MAX_MOVES];
+        FoxHoundPosition position = FoxHoundPosition.initial(dim);
+        for (int i = 0; i < positions.length; i++) {
+            int n = FoxHoundEngine.isGameOver(position) ? 0 : position.generateMoves(moves);
+            if (n == 0) {
+                position = FoxHoundPosition.initial(dim);
+                n = position.generateMoves(moves);
+            }
+            position.makeMove(moves[random.nextInt(n)]);
+            positions[i] = position.copy();
+            batch.add(positions[i]);
+        }
+        byte[] flags = new byte[positions.length];
+        byte[] mobility = new byte[positions.length];
+
+        assertEquals("All positions legal expected.", positions.length, batch.evaluate(flags, mobility));
+        for (int i = 0; i < positions.length; i++) {
+            FoxHoundPosition p = positions[i];
+            assertEquals("Fox mobility expected.", p.foxMobility(), mobility[i]);
+            assertEquals("Hound win expected.", p.isHoundWin(), (flags[i] & FoxHoundBatchEval.TRAPPED) != 0);
+            boolean escaped = true;
+            for (int h = 0; h < p.getHoundCount(); h++) {
+                escaped &= p.getHound(h) / dim >= p.getFox() / dim;
+            }
+            assertEquals("Escape expected.", escaped, (flags[i] & FoxHoundBatchEval.ESCAPED) != 0);
+        }
+    }
+
+    // ------------------------- evaluate --------------------
+
+    @Test
+    public void testSingleWordBoard() {
+        checkAgainstPositions(8);
+    }
+
+    @Test
+    public void testMultiWordBoard() {
+        checkAgainstPositions(13);
+    }
+
+    @Test
+    public void testIllegalPositions() {
+        FoxHoundBatchEval batch = new FoxHoundBatchEval(8, 1);
+        batch.add(new String[]{"B1", "D1", "F1", "H1", "E8"});
+        batch.add(new String[]{"B1", "D1", "F1", "H1", "B1"});
+        batch.add(new String[]{"B1", "B1", "F1", "H1", "E8"});
+        batch.add(new String[]{"B1", "D1", "F1", "Z9", "E8"});
+        byte[] flags = new byte[4];
+        byte[] mobility = new byte[4];
+
+        assertEquals("Only the first position legal expected.", 1, batch.evaluate(flags, mobility));
+        assertEquals("Initial position flags expected.", FoxHoundBatchEval.LEGAL, flags[0]);
+        assertEquals("Initial fox mobility expected.", 2, mobility[0]);
+        assertArrayEquals("Illegal positions expected.", new byte[]{0, 0, 0}, new byte[]{flags[1], flags[2], flags[3]});
+    }
+}
@@ -0,0 +1,61 @@
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+public class FoxHoundBeamEngineBasicTest {
+
+    // ------------------------- search --------------------
+
+    @Test
+    public void testFoxWinInOne() {
+        FoxHoundPosition position = FoxHoundPosition.parse(8, "F B3 D1 F3 H3 A2");
+        FoxHoundEngine.Result result = new FoxHoundBeamEngine().search(position, 0);
+
+        assertEquals("Winning move expected.", "A2 B1", position.moveToString(result.move));
+        assertTrue("Win expected.", result.score > FoxHoundEngine.WIN_BOUND);
+        assertEquals("Position expected to be restored.", "F B3 D1 F3 H3 A2", position.toSaveLine().trim());
+    }
+
+    @Test
+    public void testHoundTrap() {
+        FoxHoundPosition position = FoxHoundPosition.parse(8, "H C6 D1 F1 H1 A8");
+        FoxHoundEngine.Result result = new FoxHoundBeamEngine().search(position, 0);
+
+        assertEquals("Trapping move expected.", "C6 B7", position.moveToString(result.move));
+        assertTrue("Win expected.", result.score > FoxHoundEngine.WIN_BOUND);
+    }
+
+    @Test
+    public void testLargeBoard() {
+        FoxHoundPosition position = FoxHoundPosition.initial(FoxHoundUtils.MAX_DIM);
+        FoxHoundEngine.Result result = new FoxHoundBeamEngine().search(position, 0);
+
+        assertTrue("Legal move expected.", position.isLegal(result.move));
+        assertEquals("Full depth expected.", FoxHoundBeamEngine.DEFAULT_DEPTH, result.depth);
+    }
+
+    // ------------------------- pruning --------------------
+
+    @Test
+    public void testKeepsFormation() {
+        FoxHoundPosition position = FoxHoundPosition.parse(8, "H B3 D3 G2 H1 E4");
+        // opens the way in front of the fox
+        assertFalse(FoxHoundBeamEngine.keepsFormation(position, position.parseMove("D3", "C4")));
+        // out of reach of the fox and moving away
+        assertFalse(FoxHoundBeamEngine.keepsFormation(position, position.parseMove("B3", "A4")));
+        assertTrue(FoxHoundBeamEngine.keepsFormation(position, position.parseMove("B3", "C4")));
+        assertTrue(FoxHoundBeamEngine.keepsFormation(position, position.parseMove("G2", "H3")));
+
+        int[] moves = new int[FoxHoundPosition.MAX_MOVES];
+        assertEquals("Two pruned moves expected.", position.generateMoves(moves) - 2,
+            FoxHoundBeamEngine.candidateMoves(position, moves));
+    }
+
+    @Test
+    public void testFarHoundsCloseIn() {
+        FoxHoundPosition position = FoxHoundPosition.parse(10, "H B1 D1 F1 H1 J1 G3");
+        // too far to the side to be reached, moving away is rejected
+        assertFalse(FoxHoundBeamEngine.keepsFormation(position, position.parseMove("B1", "A2")));
+        assertTrue(FoxHoundBeamEngine.keepsFormation(position, position.parseMove("B1", "C2")));
+    }
+}
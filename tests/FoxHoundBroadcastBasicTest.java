@@ -0,0 +1,79 @@
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+public class FoxHoundBroadcastBasicTest {
+
+    /** A spectator recording the updates it received. */
+    private static final class Recorder implements FoxHoundBroadcast.Listener {
+        final StringBuilder updates = new StringBuilder();
+
+        @Override
+        public void onMove(char figure, int from, int to) {
+            updates.append(figure).append(from).append('-').append(to).append(' ');
+        }
+
+        @Override
+        public void onSnapshot(int dim, String line) {
+            updates.append('[').append(line).append("] ");
+        }
+    }
+
+    // ------------------------- poll --------------------
+
+    @Test
+    public void testPollDeliversSnapshotThenMoves() {
+        FoxHoundPosition position = FoxHoundPosition.initial(8);
+        FoxHoundBroadcast broadcast = new FoxHoundBroadcast(16, position);
+        Recorder recorder = new Recorder();
+        FoxHoundBroadcast.Subscriber subscriber = broadcast.subscribe(recorder, true);
+
+        assertEquals(1, subscriber.poll(10));
+        broadcast.publishMove(position.parseMove("E8", "D7"));
+        broadcast.publishMove(FoxHoundPosition.parse(8, "H B1 D1 F1 H1 D7").parseMove("B1", "C2"));
+
+        assertEquals(2, subscriber.poll(10));
+        assertEquals("[F B1 D1 F1 H1 E8] F60-51 H1-10 ", recorder.updates.toString());
+        assertEquals("No updates expected to be left.", 0, subscriber.poll(10));
+    }
+
+    @Test
+    public void testPollResynchronisesSlowSubscriber() {
+        FoxHoundBroadcast broadcast = new FoxHoundBroadcast(2, FoxHoundPosition.initial(8));
+        Recorder recorder = new Recorder();
+        FoxHoundBroadcast.Subscriber subscriber = broadcast.subscribe(recorder, true);
+        subscriber.poll(10);
+
+        publishOpening(broadcast);
+
+        assertEquals(1, subscriber.poll(10));
+        assertEquals("Snapshot of the current game expected.",
+            "[F B1 D1 F1 H1 E8] [F A4 D1 F1 H1 D7] ", recorder.updates.toString());
+        assertEquals(1, subscriber.getResyncs());
+    }
+
+    @Test
+    public void testPollDropsSlowSubscriber() {
+        FoxHoundBroadcast broadcast = new FoxHoundBroadcast(2, FoxHoundPosition.initial(8));
+        FoxHoundBroadcast.Subscriber subscriber = broadcast.subscribe(new Recorder(), false);
+        subscriber.poll(10);
+
+        publishOpening(broadcast);
+
+        assertEquals(0, subscriber.poll(10));
+        assertTrue("Slow subscriber expected to be dropped.", subscriber.isDropped());
+    }
+
+    /**
+     * Publish more moves than a broadcast of capacity 2 keeps.
+     */
+    private static void publishOpening(FoxHoundBroadcast broadcast) {
+        FoxHoundPosition position = FoxHoundPosition.initial(8);
+        String[][] moves = {{"E8", "D7"}, {"B1", "C2"}, {"D7", "E8"}, {"C2", "B3"}, {"E8", "D7"}, {"B3", "A4"}};
+        for (String[] move : moves) {
+            int encoded = position.parseMove(move[0], move[1]);
+            position.makeMove(encoded);
+            broadcast.publishMove(encoded);
+        }
+    }
+}
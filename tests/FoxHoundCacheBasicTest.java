@@ -0,0 +1,70 @@
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+public class FoxHoundCacheBasicTest {
+
+    // all keys below are multiples of the number of sets, so they share a single set
+    private static final int CAPACITY = 512;
+    private static final long SAME_SET = CAPACITY / FoxHoundCache.WAYS;
+
+    // ------------------------- get / put --------------------
+
+    @Test
+    public void testPutGet() {
+        FoxHoundCache cache = new FoxHoundCache(CAPACITY);
+        long key = FoxHoundPosition.initial(8).key();
+
+        assertEquals("Empty cache expected to miss.", FoxHoundCache.MISSING, cache.get(key));
+        cache.put(key, -42);
+        assertEquals("Stored value expected.", -42, cache.get(key));
+        cache.put(key, 7);
+        assertEquals("Replaced value expected.", 7, cache.get(key));
+        assertEquals("Single entry expected.", 1, cache.size());
+        assertEquals("Two hits of three lookups expected.", 2 / 3.0, cache.getHitRate(), 1e-9);
+    }
+
+    @Test
+    public void testEvictsLeastRecentlyUsed() {
+        FoxHoundCache cache = new FoxHoundCache(CAPACITY);
+        for (int i = 1; i <= FoxHoundCache.WAYS; i++) {
+            cache.put(i * SAME_SET, i);
+        }
+        // use the oldest entry again, so the second one is the least recently used
+        cache.get(SAME_SET);
+        cache.put((FoxHoundCache.WAYS + 1) * SAME_SET, 99);
+
+        assertEquals("Recently used entry expected to stay.", 1, cache.get(SAME_SET));
+        assertEquals("Least recently used entry expected to be evicted.",
+            FoxHoundCache.MISSING, cache.get(2 * SAME_SET));
+        assertEquals(99, cache.get((FoxHoundCache.WAYS + 1) * SAME_SET));
+        assertEquals("Single eviction expected.", 1, cache.getEvictions());
+    }
+
+    // ------------------------- save / load --------------------
+
+    @Test
+    public void testSaveLoad() throws IOException {
+        Path dir = Files.createTempDirectory("foxhound-cache");
+        Path file = dir.resolve("analyses.cache");
+        try {
+            FoxHoundCache cache = new FoxHoundCache(CAPACITY);
+            for (int i = 1; i <= 100; i++) {
+                cache.put(i * 0x9E3779B97F4A7C15L, i);
+            }
+            assertEquals("All entries expected to be saved.", 100, cache.save(file));
+
+            FoxHoundCache loaded = new FoxHoundCache(CAPACITY);
+            assertEquals("All entries expected to be loaded.", 100, loaded.load(file));
+            assertEquals(37, loaded.get(37 * 0x9E3779B97F4A7C15L));
+            assertEquals("Missing file expected to load nothing.", 0, loaded.load(dir.resolve("missing")));
+        } finally {
+            Files.deleteIfExists(file);
+            Files.delete(dir);
+        }
+    }
+}
@@ -0,0 +1,131 @@
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+public class FoxHoundEngineBasicTest {
+
+    // ------------------------- search --------------------
+
+    @Test
+    public void testSearchFoxWinsInOne() {
+        FoxHoundPosition position = FoxHoundPosition.parse(8, "F C4 E4 G4 H5 B2");
+        FoxHoundEngine.Result result = new FoxHoundEngine().search(position, 6, 0, null);
+
+        position.makeMove(result.move);
+        assertTrue("Fox expected to reach the first row.", position.isFoxWin());
+        assertEquals("Win in one move expected.", FoxHoundEngine.WIN_SCORE - 1, result.score);
+    }
+
+    @Test
+    public void testSearchHoundsWinInOne() {
+        FoxHoundPosition position = FoxHoundPosition.parse(8, "H A6 C2 E2 G2 A8");
+        FoxHoundEngine.Result result = new FoxHoundEngine().search(position, 6, 0, null);
+
+        assertEquals("Hounds expected to block the fox.", "A6 B7", position.moveToString(result.move));
+        assertEquals("Loss for the fox expected.", -(FoxHoundEngine.WIN_SCORE - 1), result.foxScore());
+    }
+
+    @Test
+    public void testSearchDoesNotModifyPosition() {
+        FoxHoundPosition position = FoxHoundPosition.initial(8);
+        FoxHoundPosition copy = position.copy();
+        FoxHoundEngine.Result result = new FoxHoundEngine().search(position, 5, 0, null);
+
+        assertEquals("Position expected to be unchanged.", copy, position);
+        assertTrue("Legal move expected.", position.isLegal(result.move));
+        assertEquals("Search expected to reach the maximum depth.", 5, result.depth);
+    }
+
+    // ------------------------- FoxHoundJson --------------------
+
+    @Test
+    public void testJsonRoundTrip() {
+        Object value = FoxHoundJson.parse("[{\"position\": \"F C2 D1\", \"dim\": 8}, true, null]");
+
+        assertEquals("[{position=F C2 D1, dim=8.0}, true, null]", String.valueOf(value));
+        assertEquals("\"a\\\"b\\n\"", FoxHoundJson.quote(new StringBuilder(), "a\"b\n").toString());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testJsonInvalid() {
+        FoxHoundJson.parse("{\"position\": }");
+    }
+
+    @Test
+    public void testJsonNestingLimit() {
+        String deepest = "[".repeat(FoxHoundJson.MAX_NESTING) + "]".repeat(FoxHoundJson.MAX_NESTING);
+        assertTrue(FoxHoundJson.parse(deepest) instanceof java.util.List);
+        try {
+            FoxHoundJson.parse("{\"a\": " + deepest + "}");
+            fail("Nesting deeper than the limit expected to be rejected.");
+        } catch (IllegalArgumentException e) {
+            assertTrue(e.getMessage().startsWith("Nesting deeper than"));
+        }
+    }
+
+    // ------------------------- FoxHoundEval weights --------------------
+
+    @Test
+    public void testWeightsRoundTrip() throws IOException {
+        Path path = Files.createTempFile("foxhound", ".weights");
+        try {
+            double[] weights = {1, -2.5, 3, 4, 5, 6};
+            FoxHoundEval.writeWeights(path, weights, "test");
+
+            assertArrayEquals("Written weights expected.", weights, FoxHoundEval.readWeights(path), 0);
+        } finally {
+            Files.deleteIfExists(path);
+        }
+    }
+
+    @Test
+    public void testWeightsUnknownAndMissingFeatures() throws IOException {
+        Path path = Files.createTempFile("foxhound", ".weights");
+        try {
+            Files.write(path, Arrays.asList("# old file", "", "foxAdvance 7", "noSuchFeature 9"));
+            double[] expected = FoxHoundEval.defaultWeights();
+            expected[FoxHoundEval.FOX_ADVANCE] = 7;
+
+            assertArrayEquals("Unknown feature ignored, missing ones at default expected.",
+                expected, FoxHoundEval.readWeights(path), 0);
+        } finally {
+            Files.deleteIfExists(path);
+        }
+    }
+
+    @Test
+    public void testLoadReportsInvalidWeightsFile() throws IOException {
+        Path path = Files.createTempFile("foxhound", ".weights");
+        String before = System.getProperty(FoxHoundEval.WEIGHTS_PROPERTY);
+        System.setProperty(FoxHoundEval.WEIGHTS_PROPERTY, path.toString());
+        try {
+            Files.write(path, Arrays.asList("foxAdvance 7"));
+            assertEquals(7, FoxHoundEval.load().getWeights()[FoxHoundEval.FOX_ADVANCE], 0);
+
+            Files.write(path, Arrays.asList("foxAdvance seven"));
+            try {
+                FoxHoundEval.load();
+                fail("Invalid weights file expected to be reported.");
+            } catch (IllegalArgumentException e) {
+                assertTrue(e.getMessage().contains("foxAdvance seven"));
+            }
+
+            Files.delete(path);
+            assertArrayEquals("Default weights expected without a weights file.",
+                FoxHoundEval.defaultWeights(), FoxHoundEval.load().getWeights(), 0);
+        } finally {
+            if (before == null) {
+                System.clearProperty(FoxHoundEval.WEIGHTS_PROPERTY);
+            }
+            else {
+                System.setProperty(FoxHoundEval.WEIGHTS_PROPERTY, before);
+            }
+            Files.deleteIfExists(path);
+        }
+    }
+}
@@ -0,0 +1,140 @@
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+import org.junit.After;
+import org.junit.Test;
+
+public class FoxHoundEnginePlayerBasicTest {
+
+    private static final long MOVE_MILLIS = 100;
+
+    /**
+     * An engine remembering the searches it was asked for. Searches
+     * without a time limit are the background searches of the player,
+     * of which only the first one is remembered.
+     */
+    private static class RecordingEngine extends FoxHoundEngine {
+        final List<FoxHoundPosition> searched = new ArrayList<>();
+        volatile FoxHoundPosition pondered;
+        volatile Thread ponderThread;
+        volatile FoxHoundEngine.Result ponderResult;
+
+        RecordingEngine() {
+            super(new FoxHoundEval(), 16);
+        }
+
+        @Override
+        public Result search(FoxHoundPosition root, int maxDepth, long timeLimitMillis, Listener listener) {
+            if (timeLimitMillis > 0) {
+                searched.add(root.copy());
+                return super.search(root, maxDepth, timeLimitMillis, listener);
+            }
+            if (ponderThread != null) {
+                return super.search(root, maxDepth, timeLimitMillis, listener);
+            }
+            pondered = root.copy();
+            ponderThread = Thread.currentThread();
+            return super.search(root, maxDepth, timeLimitMillis, iteration -> {
+                ponderResult = iteration;
+                listener.onIteration(iteration);
+            });
+        }
+    }
+
+    private final RecordingEngine engine = new RecordingEngine();
+    private final FoxHoundEnginePlayer player =
+        new FoxHoundEnginePlayer(FoxHoundUtils.FOX_FIELD, MOVE_MILLIS, engine);
+
+    @After
+    public void teardown() {
+        player.stopPondering();
+    }
+
+    private String statistics() {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        player.printStatistics(new PrintStream(output, true));
+        return output.toString();
+    }
+
+    /**
+     * Let the engine move in the starting position and wait for its background search.
+     *
+     * @return the position after the move of the engine
+     */
+    private FoxHoundPosition firstMove() throws InterruptedException {
+        FoxHoundPosition position = FoxHoundPosition.initial(8);
+        String[] move = player.chooseMove(8, position.toPlayers());
+        assertNotNull(move);
+        position.makeMove(position.parseMove(move[0], move[1]));
+        for (int i = 0; i < 500 && engine.ponderResult == null; i++) {
+            Thread.sleep(10);
+        }
+        assertNotNull("Background search expected to complete an iteration.", engine.ponderResult);
+        return position;
+    }
+
+    // ------------------------- pondering --------------------
+
+    @Test
+    public void testPonderHitReusesResult() throws InterruptedException {
+        firstMove();
+        FoxHoundPosition expected = engine.pondered;
+        String[] move = player.chooseMove(8, expected.toPlayers());
+
+        assertEquals("No new search expected after a ponder hit.", 1, engine.searched.size());
+        assertTrue(statistics().contains("Ponder hits: 1 of "));
+        assertArrayEquals("Move of the background search expected.",
+            expected.moveToString(engine.ponderResult.move).split(" "), move);
+        assertEquals(2, player.getMoves());
+    }
+
+    @Test
+    public void testPonderMissSearchesAgain() throws InterruptedException {
+        FoxHoundPosition position = firstMove();
+        FoxHoundPosition expected = engine.pondered;
+        int[] moves = new int[FoxHoundPosition.MAX_MOVES];
+        int count = position.generateMoves(moves);
+        FoxHoundPosition other = null;
+        for (int i = 0; i < count && other == null; i++) {
+            position.makeMove(moves[i]);
+            if (!position.equals(expected)) {
+                other = position.copy();
+            }
+            position.unmakeMove(moves[i]);
+        }
+        assertNotNull(other);
+        player.chooseMove(8, other.toPlayers());
+
+        assertEquals("New search expected after a ponder miss.", 2, engine.searched.size());
+        assertEquals(other, engine.searched.get(1));
+        assertTrue(statistics().contains("Ponder hits: 0 of "));
+    }
+
+    @Test
+    public void testStopPonderingEndsThread() throws InterruptedException {
+        firstMove();
+        Thread thread = engine.ponderThread;
+        assertNotNull(thread);
+        player.stopPondering();
+
+        assertFalse("Background search expected to end.", thread.isAlive());
+    }
+
+    // ------------------------- large boards --------------------
+
+    @Test
+    public void testBeamSearchOnLargeBoard() {
+        int dim = FoxHoundBeamEngine.LARGE_DIM;
+        FoxHoundPosition position = FoxHoundPosition.initial(dim);
+        String[] move = player.chooseMove(dim, position.toPlayers());
+
+        assertNotNull(move);
+        assertTrue(position.isLegal(position.parseMove(move[0], move[1])));
+        assertTrue("Full search expected to be left out.", engine.searched.isEmpty());
+        assertNull("No pondering expected on a large board.", engine.ponderThread);
+    }
+}
@@ -0,0 +1,72 @@
+import java.util.SplittableRandom;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+public class FoxHoundFoxDistanceBasicTest {
+
+    // ------------------------- distance --------------------
+
+    @Test
+    public void testStraightWay() {
+        // the hounds start on all fields of the first row the fox can reach
+        assertEquals(FoxHoundFoxDistance.UNREACHABLE, new FoxHoundFoxDistance().distance(FoxHoundPosition.initial(8)));
+
+        FoxHoundPosition position = FoxHoundPosition.parse(8, "F A6 C6 E6 G6 B3");
+        assertEquals("Fox expected to walk straight to the first row.", 2,
+            new FoxHoundFoxDistance().distance(position));
+    }
+
+    @Test
+    public void testWays() {
+        FoxHoundFoxDistance distance = new FoxHoundFoxDistance();
+        // a closed line in front of the fox
+        FoxHoundPosition closed = FoxHoundPosition.parse(8, "F B3 D3 F3 H3 E4");
+        assertEquals(FoxHoundFoxDistance.UNREACHABLE, distance.distance(closed));
+        assertEquals(FoxHoundFoxDistance.UNREACHABLE, FoxHoundFoxDistance.measure(closed));
+
+        // a hound behind the fox opens a way around the line
+        FoxHoundPosition open = FoxHoundPosition.parse(8, "F B3 D3 F3 C6 E4");
+        assertEquals(5, distance.distance(open));
+        assertEquals(5, FoxHoundFoxDistance.measure(open));
+    }
+
+    @Test
+    public void testIncrementalMatchesFullSearch() {
+        SplittableRandom random = new SplittableRandom(3);
+        FoxHoundFoxDistance distance = new FoxHoundFoxDistance();
+        int[] moves = new int[FoxHoundPosition.MAX_MOVES];
+        for (int game = 0; game < 50; game++) {
+            int dim = 8 + 2 * random.nextInt(10);
+            FoxHoundPosition position = FoxHoundPosition.initial(dim);
+            for (int ply = 0; ply < 4 * dim && !FoxHoundEngine.isGameOver(position); ply++) {
+                int count = position.generateMoves(moves);
+                if (count == 0) {
+                    break;
+                }
+                int move = moves[random.nextInt(count)];
+                position.makeMove(move);
+                assertEquals(position.toSaveLine(), FoxHoundFoxDistance.measure(position), distance.distance(position));
+                if (random.nextBoolean()) {
+                    // a sibling position, as visited by a search
+                    position.unmakeMove(move);
+                    position.makeMove(moves[random.nextInt(count)]);
+                    assertEquals(position.toSaveLine(), FoxHoundFoxDistance.measure(position),
+                        distance.distance(position));
+                }
+            }
+        }
+    }
+
+    // ------------------------- FoxHoundEval feature --------------------
+
+    @Test
+    public void testFoxPathFeature() {
+        double[] features = new double[FoxHoundEval.FEATURES.length];
+        FoxHoundEval.features(FoxHoundPosition.parse(8, "F B3 D3 F3 H3 E4"), features);
+        assertEquals("Closed way expected.", 0, features[FoxHoundEval.FOX_PATH], 0);
+        FoxHoundEval.features(FoxHoundPosition.parse(8, "F B3 D3 F3 C6 E4"), features);
+        assertEquals("Detour expected.", 3 / 5.0, features[FoxHoundEval.FOX_PATH], 1e-9);
+    }
+}
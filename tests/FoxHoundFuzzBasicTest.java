@@ -0,0 +1,62 @@
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+public class FoxHoundFuzzBasicTest {
+
+    // ------------------------- run --------------------
+
+    @Test
+    public void testRulesAgree() throws InterruptedException {
+        FoxHoundFuzz fuzz = new FoxHoundFuzz(FoxHoundFuzz.UTILS, FoxHoundFuzz.POSITION, 2000, 1);
+        fuzz.run(2);
+
+        assertEquals("No mismatch expected: " + fuzz.getReproducers(), 0, fuzz.getMismatches());
+        for (long positive : fuzz.getPositives()) {
+            assertTrue("Every check expected to be true sometimes.", positive > 0);
+        }
+    }
+
+    @Test
+    public void testOffBoardMovesGenerated() {
+        SplittableRandom random = new SplittableRandom(1);
+        int offBoard = 0;
+        for (int i = 0; i < 10_000; i++) {
+            FoxHoundFuzz.Case c = FoxHoundFuzz.randomCase(8, random);
+            if (FoxHoundUtils.toSquare(8, c.origin) == FoxHoundUtils.NO_SQUARE
+                    || FoxHoundUtils.toSquare(8, c.destination) == FoxHoundUtils.NO_SQUARE) {
+                offBoard++;
+                assertFalse("Move off the board expected to be invalid: " + c,
+                    FoxHoundFuzz.UTILS.isValidMove(8, c.players, c.figure, c.origin, c.destination));
+                assertFalse(FoxHoundFuzz.POSITION.isValidMove(8, c.players, c.figure, c.origin, c.destination));
+            }
+        }
+        assertTrue("Moves off the board expected.", offBoard > 0);
+        for (int i = 0; i < 100; i++) {
+            String coord = FoxHoundFuzz.offBoard(8, random);
+            assertFalse("Coordinate expected to be off the board: " + coord, FoxHoundUtils.isValidCoord(8, coord));
+        }
+    }
+
+    @Test
+    public void testMismatchIsShrunk() throws InterruptedException {
+        // the fox on the left edge never trapped, as before the lower bounds were checked
+        FoxHoundFuzz.Rules broken = new FoxHoundFuzz.PositionRules() {
+            @Override
+            public boolean isHoundWin(int dim, String[] players) {
+                return super.isHoundWin(dim, players) && players[players.length - 1].charAt(0) != 'A';
+            }
+        };
+        FoxHoundFuzz fuzz = new FoxHoundFuzz(FoxHoundFuzz.UTILS, broken, 2000, 1);
+        fuzz.run(1);
+        List<String> reproducers = fuzz.getReproducers();
+
+        assertTrue("Mismatches expected.", fuzz.getMismatches() > 0);
+        assertTrue("Smallest board expected: " + reproducers, reproducers.get(0).startsWith("isHoundWin dim=4: "));
+        String line = reproducers.get(0).substring("isHoundWin dim=4: ".length(), reproducers.get(0).indexOf(" move"));
+        assertTrue("Fox in a corner with one hound expected: " + line, line.matches("[FH] B[1-3] A[14]"));
+    }
+}
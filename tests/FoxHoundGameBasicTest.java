@@ -0,0 +1,82 @@
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Scanner;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+public class FoxHoundGameBasicTest {
+
+    /** Output of the last game played by {@link #play}. */
+    private final ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+    /**
+     * Play a game on the default board from scripted input.
+     *
+     * @param input the lines typed by the user
+     * @param saveDir directory of save files
+     * @param autosave autosave writer, or null
+     * @return the figures after the game
+     */
+    private String[] play(String input, Path saveDir, FoxHoundAutosave autosave) {
+        String[] players = FoxHoundUtils.initialisePositions(8);
+        PrintStream out = new PrintStream(output, true);
+        FoxHoundGame.gameLoop(8, players, new Scanner(input), out, out,
+            new FoxHoundGame.Options().saveDir(saveDir).autosave(autosave));
+        return players;
+    }
+
+    private String output() {
+        return new String(output.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    // ------------------------- autosave --------------------
+
+    @Test
+    public void testAutosaveAfterLoad() throws IOException {
+        Path dir = Files.createTempDirectory("foxhound");
+        String[] loaded = {"B3", "C2", "F1", "H3", "F3"};
+        assertTrue(FoxHoundIO.saveGame(loaded, FoxHoundUtils.HOUND_FIELD, dir.resolve("game.txt")));
+        Path saveFile = dir.resolve("auto.txt");
+        FoxHoundAutosave autosave = new FoxHoundAutosave(saveFile);
+
+        play(FoxHoundUI.MENU_LOAD + "\ngame.txt\n" + FoxHoundUI.MENU_EXIT + "\n", dir, autosave);
+        autosave.close();
+
+        String[] saved = FoxHoundUtils.initialisePositions(8);
+        assertEquals(FoxHoundUtils.HOUND_FIELD, FoxHoundIO.loadGame(saved, saveFile));
+        assertArrayEquals("Loaded game expected to be autosaved.", loaded, saved);
+    }
+
+    // ------------------------- variations --------------------
+
+    @Test
+    public void testVariationsJumpToFinishedNode() throws IOException {
+        Path dir = Files.createTempDirectory("foxhound");
+        FoxHoundPosition start = FoxHoundPosition.parse(8, "F B3 D1 F3 H3 A2");
+        FoxHoundVariations variations = new FoxHoundVariations(start);
+        int won = variations.play(start.parseMove("A2", "B1"));
+        variations.save(dir.resolve("won.var"));
+        Path saveFile = dir.resolve("auto.txt");
+        FoxHoundAutosave autosave = new FoxHoundAutosave(saveFile);
+
+        // load the variations, go to the node after the winning move and return to the game
+        String input = FoxHoundUI.MENU_VARIATIONS + "\n"
+            + FoxHoundUI.VARIATIONS_LOAD + "\nwon.var\n"
+            + FoxHoundUI.VARIATIONS_GOTO + "\n" + won + "\n"
+            + FoxHoundUI.VARIATIONS_RETURN + "\n";
+        String[] players = play(input, dir, autosave);
+        autosave.close();
+
+        assertEquals("B1", players[players.length - 1]);
+        assertTrue("Fox win expected after returning to a finished node.", output().contains("The Fox wins!"));
+        String[] saved = FoxHoundUtils.initialisePositions(8);
+        assertEquals(FoxHoundUtils.HOUND_FIELD, FoxHoundIO.loadGame(saved, saveFile));
+        assertArrayEquals("Autosave expected after returning to a node.", players, saved);
+    }
+}
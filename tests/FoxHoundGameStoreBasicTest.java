@@ -0,0 +1,72 @@
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+public class FoxHoundGameStoreBasicTest {
+
+    // ------------------------- create --------------------
+
+    @Test
+    public void testRoundTrip() {
+        FoxHoundGameStore store = new FoxHoundGameStore(4);
+        FoxHoundPosition small = FoxHoundPosition.parse(8, "H C2 D1 F1 H1 D7");
+        FoxHoundPosition large = FoxHoundPosition.initial(FoxHoundUtils.MAX_DIM);
+        long first = store.create(small, 7);
+        long second = store.create(large, FoxHoundGameStore.MAX_MOVE_COUNT + 1);
+
+        assertEquals(2, store.size());
+        assertEquals("Position expected.", small.toSaveLine(), store.getPosition(first).toSaveLine());
+        assertArrayEquals("Players expected.", small.toPlayers(), store.getPlayers(first));
+        assertEquals('H', store.getTurn(first));
+        assertEquals(8, store.getDim(first));
+        assertEquals(7, store.getMoveCount(first));
+        assertEquals("Largest board expected.", large.key(), store.getPosition(second).key());
+        assertEquals("Counter expected to be capped.", FoxHoundGameStore.MAX_MOVE_COUNT, store.getMoveCount(second));
+    }
+
+    // ------------------------- applyMove --------------------
+
+    @Test
+    public void testApplyMove() {
+        FoxHoundGameStore store = new FoxHoundGameStore(1);
+        FoxHoundPosition position = FoxHoundPosition.initial(FoxHoundUtils.MAX_DIM);
+        long handle = store.create(position, 0);
+        int[] moves = new int[FoxHoundPosition.MAX_MOVES];
+        for (int i = 0; i < 30 && !FoxHoundEngine.isGameOver(position); i++) {
+            int move = moves[i % position.generateMoves(moves)];
+            position.makeMove(move);
+            assertTrue("Move expected to be applied.", store.applyMove(handle, move));
+            assertEquals("Position expected.", position.key(), store.getPosition(handle).key());
+            assertEquals(i + 1, store.getMoveCount(handle));
+        }
+        assertFalse("Figure of the other side expected to stay.",
+            store.applyMove(handle, FoxHoundPosition.move(position.getHound(0), 0)));
+    }
+
+    // ------------------------- remove --------------------
+
+    @Test
+    public void testStaleHandleAndCapacity() {
+        FoxHoundGameStore store = new FoxHoundGameStore(1);
+        long old = store.create(FoxHoundPosition.initial(8), 0);
+        try {
+            store.create(FoxHoundPosition.initial(8), 0);
+            fail("Full store expected.");
+        }
+        catch (IllegalStateException e) {
+            // expected
+        }
+        store.remove(old);
+        long handle = store.create(FoxHoundPosition.initial(4), 0);
+
+        assertEquals("Slot expected to be reused.", 1, store.size());
+        assertEquals(4, store.getDim(handle));
+        try {
+            store.getDim(old);
+            fail("Stale handle expected to be rejected.");
+        }
+        catch (IllegalArgumentException e) {
+            // expected
+        }
+    }
+}
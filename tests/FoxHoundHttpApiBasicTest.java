@@ -0,0 +1,159 @@
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.Assert.*;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class FoxHoundHttpApiBasicTest {
+
+    /** Released to let the searches of the engines go on. */
+    private final CountDownLatch gate = new CountDownLatch(1);
+    /** Position key whose searches fail after the gate, 0 for none. */
+    private volatile long failingKey;
+    private final HttpClient http = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+    private FoxHoundHttpApi api;
+    private URI uri;
+
+    @Before
+    public void setup() throws IOException {
+        api = new FoxHoundHttpApi(new InetSocketAddress("127.0.0.1", 0), 2, new FoxHoundCache(1 << 10),
+            () -> new FoxHoundEngine(new FoxHoundEval(), 16) {
+                @Override
+                public Result search(FoxHoundPosition root, int maxDepth, long timeLimitMillis, Listener listener) {
+                    try {
+                        gate.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    if (root.key() == failingKey) {
+                        throw new IllegalStateException("search failed");
+                    }
+                    return super.search(root, maxDepth, timeLimitMillis, listener);
+                }
+            });
+        api.start();
+        uri = URI.create("http://127.0.0.1:" + api.getPort() + FoxHoundHttpApi.PATH);
+    }
+
+    @After
+    public void teardown() {
+        gate.countDown();
+        api.stop();
+    }
+
+    private HttpRequest post(String body) {
+        return HttpRequest.newBuilder(uri).POST(HttpRequest.BodyPublishers.ofString(body)).build();
+    }
+
+    private HttpResponse<String> send(HttpRequest request) throws IOException, InterruptedException {
+        return http.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    // ------------------------- batches --------------------
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testBatch() throws IOException, InterruptedException {
+        gate.countDown();
+        HttpResponse<String> response = send(post("[{\"position\": \"F B1 D1 F1 H1 E8\", \"depth\": 3},"
+            + " {\"position\": \"F Z9 D1 F1 H1 E8\"},"
+            + " {\"position\": \"F B1 D1 F1 H1 E8\", \"depth\": 3, \"move\": \"E8 E7\"},"
+            + " 7]"));
+
+        assertEquals(200, response.statusCode());
+        List<Object> answers = (List<Object>) FoxHoundJson.parse(response.body());
+        assertEquals(4, answers.size());
+        Map<String, Object> first = (Map<String, Object>) answers.get(0);
+        assertEquals("F B1 D1 F1 H1 E8", first.get("position"));
+        assertNull(first.get("winner"));
+        assertTrue(((String) first.get("bestMove")).startsWith("E8 "));
+        assertTrue("Invalid position expected to be answered with an error.",
+            ((Map<String, Object>) answers.get(1)).containsKey("error"));
+        assertEquals(Boolean.FALSE, ((Map<String, Object>) answers.get(2)).get("legal"));
+        assertEquals("Expected an object", ((Map<String, Object>) answers.get(3)).get("error"));
+        assertEquals(4, api.getPositions());
+        assertEquals("Repeated position expected from the cache.", 1, api.getCacheHits());
+        assertEquals(1, api.getSearches());
+    }
+
+    // ------------------------- coalescing --------------------
+
+    @Test
+    public void testConcurrentRequestsCoalesced() throws InterruptedException {
+        String body = "{\"position\": \"H B1 D1 F1 H1 D7\", \"depth\": 3}";
+        CompletableFuture<HttpResponse<String>> first = http.sendAsync(post(body), HttpResponse.BodyHandlers.ofString());
+        CompletableFuture<HttpResponse<String>> second = http.sendAsync(post(body), HttpResponse.BodyHandlers.ofString());
+        for (int i = 0; i < 500 && api.getCoalesced() == 0; i++) {
+            Thread.sleep(10);
+        }
+        assertEquals("Second request expected to wait for the running search.", 1, api.getCoalesced());
+        gate.countDown();
+
+        assertEquals(200, first.join().statusCode());
+        assertEquals(first.join().body(), second.join().body());
+        assertEquals("One search expected for both requests.", 1, api.getSearches());
+        assertEquals(0, api.getCacheHits());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testFailedSearchAnsweredForEveryRequest() throws InterruptedException {
+        failingKey = FoxHoundPosition.parse(8, "H B1 D1 F1 H1 D7").key();
+        String body = "[{\"position\": \"H B1 D1 F1 H1 D7\", \"depth\": 3},"
+            + " {\"position\": \"F B1 D1 F1 H1 E8\", \"depth\": 3}]";
+        CompletableFuture<HttpResponse<String>> first = http.sendAsync(post(body), HttpResponse.BodyHandlers.ofString());
+        CompletableFuture<HttpResponse<String>> second = http.sendAsync(post(body), HttpResponse.BodyHandlers.ofString());
+        for (int i = 0; i < 500 && api.getCoalesced() == 0; i++) {
+            Thread.sleep(10);
+        }
+        assertEquals(1, api.getCoalesced());
+        gate.countDown();
+
+        for (HttpResponse<String> response : List.of(first.join(), second.join())) {
+            assertEquals(200, response.statusCode());
+            List<Object> answers = (List<Object>) FoxHoundJson.parse(response.body());
+            assertEquals("Analysis failed: java.lang.IllegalStateException: search failed",
+                ((Map<String, Object>) answers.get(0)).get("error"));
+            assertTrue("Other positions of the batch expected to be answered.",
+                ((Map<String, Object>) answers.get(1)).containsKey("bestMove"));
+        }
+    }
+
+    // ------------------------- errors --------------------
+
+    @Test
+    public void testErrorResponses() throws IOException, InterruptedException {
+        HttpResponse<String> get = send(HttpRequest.newBuilder(uri).GET().build());
+        assertEquals(405, get.statusCode());
+        assertEquals("POST", get.headers().firstValue("Allow").orElse(null));
+
+        HttpResponse<String> invalid = send(post("{\"position\": }"));
+        assertEquals(400, invalid.statusCode());
+        assertTrue(invalid.body().startsWith("{\"error\":"));
+
+        String nested = "[".repeat(100_000) + "]".repeat(100_000);
+        HttpResponse<String> deep = send(post(nested));
+        assertEquals("Deeply nested request expected to be rejected.", 400, deep.statusCode());
+        assertTrue(deep.body().contains("Nesting deeper than " + FoxHoundJson.MAX_NESTING));
+
+        HttpResponse<String> hounds = send(post("{\"position\": \"H B1 D1 F1 H1 J1 L1 N1 P1 R1 T1 V1 X1 Z1 B3 M20\","
+            + " \"dim\": 26, \"depth\": 2}"));
+        assertEquals(200, hounds.statusCode());
+        assertEquals("{\"error\":\"Too many hounds: 14\"}", hounds.body());
+
+        HttpResponse<String> large = send(post(" ".repeat((1 << 20) + 1)));
+        assertEquals(413, large.statusCode());
+        assertEquals(1, api.getPositions());
+    }
+}
@@ -1,8 +1,10 @@
 import java.io.File;
 import java.io.UncheckedIOException;
 import java.io.IOException;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.stream.Stream;
 
 import static org.junit.Assert.*;
 
@@ -111,6 +113,28 @@ public class FoxHoundIOBasicTest {
         FoxHoundIO.loadGame(players, input);
     }
 
+    // ------------------------- readGame --------------------
+
+    @Test
+    public void testReadGame() throws IOException {
+        FoxHoundPosition position = FoxHoundIO.readGame(Paths.get("game01.txt"));
+
+        assertNotNull("Valid save file expected.", position);
+        assertEquals("Saved position expected.", "F C2 D1 F1 H1 D7", position.toSaveLine().trim());
+        assertNull("Invalid save file expected.", FoxHoundIO.readGame(Paths.get("invalidGame01.txt")));
+    }
+
+    @Test
+    public void testReadGameMissingFileNotCreated() {
+        Path input = getTmpPath();
+        try {
+            FoxHoundIO.readGame(input);
+            fail("Missing file expected to be reported.");
+        } catch (IOException e) {
+            assertFalse("Missing file expected not to be created.", input.toFile().exists());
+        }
+    }
+
     // ------------------------- saveGame --------------------
 
     private Path getTmpPath() {
@@ -172,4 +196,40 @@ public class FoxHoundIOBasicTest {
         Path saveFile = getTmpPath();
         FoxHoundIO.saveGame(players, nextMove, saveFile);
     }
+
+    // ------------------------- autosave --------------------
+
+    @Test
+    public void testAutosaveOverwritesExistingFile() throws IOException {
+        Path saveFile = getTmpPath();
+        saveFile.toFile().createNewFile();
+        saveFile.toFile().deleteOnExit();
+
+        FoxHoundAutosave autosave = new FoxHoundAutosave(saveFile);
+        autosave.submit(defaultPlayers, FoxHoundUtils.FOX_FIELD);
+        String[] expected = {"B3", "C2", "F1", "H3", "F3"};
+        autosave.submit(expected, FoxHoundUtils.HOUND_FIELD);
+        autosave.close();
+
+        String[] players = defaultPlayers.clone();
+        char nextMove = FoxHoundIO.loadGame(players, saveFile);
+        assertArrayEquals("Autosaved players array not as expected.", expected, players);
+        assertEquals("Autosaved next move not as expected.", FoxHoundUtils.HOUND_FIELD, nextMove);
+    }
+
+    // ------------------------- writeAtomically --------------------
+
+    @Test
+    public void testWriteAtomicallyReplacesFile() throws IOException {
+        Path dir = Files.createTempDirectory("foxhound-io");
+        Path file = dir.resolve("game.txt");
+        Files.writeString(file, "old content which is longer");
+
+        FoxHoundIO.writeAtomically(file, "game", "F B1 D1 F1 H1 E8");
+
+        assertEquals("F B1 D1 F1 H1 E8", Files.readString(file));
+        try (Stream<Path> files = Files.list(dir)) {
+            assertEquals("No temporary file expected to be left.", 1, files.count());
+        }
+    }
 }
@@ -0,0 +1,57 @@
+import static org.junit.Assert.*;
+
+import org.junit.After;
+import org.junit.Test;
+
+public class FoxHoundMetricsBasicTest {
+
+    private final String[] players = FoxHoundUtils.initialisePositions(8);
+
+    @After
+    public void disable() {
+        FoxHoundMetrics.get().setEnabled(false);
+        FoxHoundMetrics.get().reset();
+    }
+
+    // ------------------------- recording --------------------
+
+    @Test
+    public void testNothingRecordedWhenDisabled() {
+        FoxHoundMetrics.get().setEnabled(false);
+        FoxHoundMetrics.get().reset();
+        FoxHoundUtils.isValidMove(8, players, FoxHoundUtils.FOX_FIELD, "E8", "E7");
+
+        assertEquals("No start time expected.", 0, FoxHoundMetrics.start());
+        assertEquals("No validation expected to be counted.", 0,
+            (long) FoxHoundMetrics.get().getCounts().get("move.validation"));
+        assertEquals("No invalid move expected to be counted.", 0, FoxHoundMetrics.INVALID_MOVES.get());
+    }
+
+    @Test
+    public void testRecordedWhenEnabled() {
+        FoxHoundMetrics.get().setEnabled(true);
+        FoxHoundMetrics.get().reset();
+        FoxHoundUtils.isValidMove(8, players, FoxHoundUtils.FOX_FIELD, "E8", "D7");
+        FoxHoundUtils.isValidMove(8, players, FoxHoundUtils.FOX_FIELD, "E8", "E7");
+
+        assertEquals("Two validations expected.", 2,
+            (long) FoxHoundMetrics.get().getCounts().get("move.validation"));
+        assertEquals("One invalid move expected.", 1,
+            (long) FoxHoundMetrics.get().getCounters().get("move.invalid"));
+        assertTrue("Positive duration expected.", FoxHoundMetrics.MOVE_VALIDATION.getPercentileMicros(99) > 0);
+    }
+
+    @Test
+    public void testPercentile() {
+        FoxHoundMetrics.Timer timer = FoxHoundMetrics.SEARCH;
+        FoxHoundMetrics.get().reset();
+        for (int i = 0; i < 99; i++) {
+            timer.record(1000);
+        }
+        timer.record(1_000_000);
+
+        assertEquals("Median in the bucket up to 1024 ns expected.", 1.024, timer.getPercentileMicros(50), 1e-9);
+        assertEquals("Mean expected.", (99 * 1000 + 1_000_000) / 100 / 1e3, timer.getMeanMicros(), 1e-9);
+        assertTrue("Largest duration expected in the last percent.", timer.getPercentileMicros(100) >= 1000);
+    }
+}
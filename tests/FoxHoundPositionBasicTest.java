@@ -0,0 +1,190 @@
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+public class FoxHoundPositionBasicTest {
+
+    /**
+     * Play random moves from the starting position.
+     *
+     * @param dim an int for the board dimension
+     * @param plies an int for the largest number of moves
+     * @param random random numbers
+     * @return the position reached
+     */
+    private static FoxHoundPosition randomPosition(int dim, int plies, Random random) {
+        FoxHoundPosition position = FoxHoundPosition.initial(dim);
+        int[] moves = new int[FoxHoundPosition.MAX_MOVES];
+        for (int ply = 0; ply < plies && !FoxHoundEngine.isGameOver(position); ply++) {
+            int count = position.generateMoves(moves);
+            if (count == 0) {
+                break;
+            }
+            position.makeMove(moves[random.nextInt(count)]);
+        }
+        return position;
+    }
+
+    // ------------------------- makeMove / unmakeMove --------------------
+
+    @Test
+    public void testMakeUnmakeRoundTrip() {
+        Random random = new Random(1);
+        int[] moves = new int[FoxHoundPosition.MAX_MOVES];
+        for (int dim = FoxHoundUtils.MIN_DIM; dim <= FoxHoundUtils.MAX_DIM; dim += 2) {
+            for (int game = 0; game < 20; game++) {
+                FoxHoundPosition position = randomPosition(dim, random.nextInt(3 * dim), random);
+                FoxHoundPosition before = position.copy();
+                int count = position.generateMoves(moves);
+                for (int i = 0; i < count; i++) {
+                    position.makeMove(moves[i]);
+                    assertNotEquals(before.key(), position.key());
+                    position.unmakeMove(moves[i]);
+
+                    assertEquals("Position expected to be restored after " + before.moveToString(moves[i]),
+                        before, position);
+                    assertEquals(before.key(), position.key());
+                    assertEquals(before.toSaveLine(), position.toSaveLine());
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testPassTwiceRestores() {
+        FoxHoundPosition position = FoxHoundPosition.initial(8);
+        long key = position.key();
+        position.pass();
+
+        assertEquals(FoxHoundUtils.HOUND_FIELD, position.getTurn());
+        assertNotEquals(key, position.key());
+        position.pass();
+        assertEquals(key, position.key());
+    }
+
+    // ------------------------- key --------------------
+
+    @Test
+    public void testKeyMatchesNewPosition() {
+        Random random = new Random(2);
+        for (int dim = FoxHoundUtils.MIN_DIM; dim <= FoxHoundUtils.MAX_DIM; dim++) {
+            FoxHoundPosition position = randomPosition(dim, random.nextInt(4 * dim), random);
+            FoxHoundPosition parsed = FoxHoundPosition.parse(dim, position.toSaveLine());
+
+            assertEquals("Incremental key expected to match the key of a new position: " + position,
+                parsed.key(), position.key());
+            assertEquals(parsed, position);
+        }
+    }
+
+    @Test
+    public void testKeyIndependentOfHoundOrder() {
+        FoxHoundPosition first = FoxHoundPosition.parse(8, "F B3 D1 F3 H3 A2");
+        FoxHoundPosition second = FoxHoundPosition.parse(8, "F H3 F3 D1 B3 A2");
+
+        assertEquals(first.key(), second.key());
+        assertEquals(first, second);
+    }
+
+    @Test
+    public void testKeyDiffersByTurnAndDimension() {
+        FoxHoundPosition fox = FoxHoundPosition.parse(8, "F B1 D1 F1 H1 E8");
+        FoxHoundPosition hounds = FoxHoundPosition.parse(8, "H B1 D1 F1 H1 E8");
+        FoxHoundPosition larger = FoxHoundPosition.parse(10, "F B1 D1 F1 H1 E8");
+
+        assertNotEquals(fox.key(), hounds.key());
+        assertNotEquals(fox.key(), larger.key());
+    }
+
+    // ------------------------- isLegal --------------------
+
+    @Test
+    public void testLegalityMatchesUtils() {
+        Random random = new Random(3);
+        int[] moves = new int[FoxHoundPosition.MAX_MOVES];
+        for (int dim : new int[]{4, 8, 11}) {
+            for (int game = 0; game < 20; game++) {
+                FoxHoundPosition position = randomPosition(dim, random.nextInt(3 * dim), random);
+                String[] players = position.toPlayers();
+                int count = position.generateMoves(moves);
+                int legal = 0;
+                for (int from = 0; from < dim * dim; from++) {
+                    for (int to = 0; to < dim * dim; to++) {
+                        int move = FoxHoundPosition.move(from, to);
+                        boolean expected = FoxHoundUtils.isValidMove(dim, players, position.getTurn(),
+                            FoxHoundUtils.toCoord(dim, from), FoxHoundUtils.toCoord(dim, to));
+                        assertEquals("Legality of " + position.moveToString(move) + " in " + position,
+                            expected, position.isLegal(move));
+                        if (expected) {
+                            legal++;
+                        }
+                    }
+                }
+                assertEquals("Every legal move expected to be generated in " + position, legal, count);
+            }
+        }
+    }
+
+    @Test
+    public void testIllegalMoves() {
+        FoxHoundPosition position = FoxHoundPosition.initial(8);
+
+        assertTrue(position.isLegal(position.parseMove("E8", "D7")));
+        assertFalse("Hound cannot move on the fox's turn.", position.isLegal(position.parseMove("B1", "C2")));
+        assertFalse("Fox moves diagonally only.", position.isLegal(position.parseMove("E8", "E7")));
+        assertFalse(position.isLegal(FoxHoundPosition.NO_MOVE));
+        position.makeMove(position.parseMove("E8", "D7"));
+        assertTrue(position.isLegal(position.parseMove("B1", "C2")));
+        position.makeMove(position.parseMove("B1", "C2"));
+        position.makeMove(position.parseMove("D7", "E6"));
+        assertFalse("Hounds cannot move backwards.", position.isLegal(position.parseMove("C2", "B1")));
+        assertFalse("Field is occupied.", position.isLegal(position.parseMove("D1", "C2")));
+    }
+
+    // ------------------------- wins --------------------
+
+    @Test
+    public void testFoxWin() {
+        FoxHoundPosition position = FoxHoundPosition.parse(8, "F B3 D1 F3 H3 A2");
+        assertFalse(position.isFoxWin());
+        position.makeMove(position.parseMove("A2", "B1"));
+
+        assertTrue(position.isFoxWin());
+        assertTrue(FoxHoundEngine.isGameOver(position));
+    }
+
+    @Test
+    public void testHoundWin() {
+        FoxHoundPosition trapped = FoxHoundPosition.parse(8, "F A7 C7 B6 D6 B8");
+        FoxHoundPosition corner = FoxHoundPosition.parse(8, "F C1 E1 G1 G7 H8");
+
+        assertTrue(trapped.isHoundWin());
+        assertEquals(0, trapped.foxMobility());
+        assertTrue("Fox in the corner expected to be trapped by a single hound.", corner.isHoundWin());
+        assertFalse(FoxHoundPosition.initial(8).isHoundWin());
+        assertEquals(2, FoxHoundPosition.initial(8).foxMobility());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testFieldOccupiedTwice() {
+        FoxHoundPosition.parse(8, "F B1 B1 F1 H1 E8");
+    }
+
+    @Test
+    public void testTooManyHounds() {
+        try {
+            FoxHoundPosition.parse(26, "H B1 D1 F1 H1 J1 L1 N1 P1 R1 T1 V1 X1 Z1 B3 M20");
+            fail("More than dim / 2 hounds expected to be rejected.");
+        } catch (IllegalArgumentException e) {
+            assertEquals("Too many hounds: 14", e.getMessage());
+        }
+        try {
+            FoxHoundPosition.parse(8, "F B1 D1 F1 H1 A2 E8");
+            fail("Five hounds on an 8x8 board expected to be rejected.");
+        } catch (IllegalArgumentException e) {
+            assertTrue(e.getMessage().startsWith("Too many hounds"));
+        }
+    }
+}
@@ -0,0 +1,97 @@
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.SplittableRandom;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+public class FoxHoundPuzzlesBasicTest {
+
+    // ------------------------- solve --------------------
+
+    @Test
+    public void testFoxWinInOne() {
+        FoxHoundPosition position = FoxHoundPosition.parse(8, "F B3 D1 F3 H3 A2");
+        int move = FoxHoundPuzzles.solve(new FoxHoundPuzzles.Solver(), position, 1);
+
+        assertEquals("Single winning move expected.", "A2 B1", position.moveToString(move));
+        assertEquals("Position expected to be restored.", "F B3 D1 F3 H3 A2", position.toSaveLine().trim());
+    }
+
+    @Test
+    public void testHoundWinInOne() {
+        FoxHoundPosition position = FoxHoundPosition.parse(8, "H C6 D1 F1 H1 A8");
+        FoxHoundPuzzles.Solver solver = new FoxHoundPuzzles.Solver();
+
+        assertEquals("Trapping move expected.", "C6 B7",
+            position.moveToString(FoxHoundPuzzles.solve(solver, position, 1)));
+        assertEquals("No win in exactly two expected.", FoxHoundPosition.NO_MOVE,
+            FoxHoundPuzzles.solve(solver, position, 2));
+        assertTrue("Win within two expected.", solver.forcedWin(position, 2));
+    }
+
+    @Test
+    public void testNoPuzzle() {
+        FoxHoundPuzzles.Solver solver = new FoxHoundPuzzles.Solver();
+        // two ways to the first row
+        assertEquals(FoxHoundPosition.NO_MOVE,
+            FoxHoundPuzzles.solve(solver, FoxHoundPosition.parse(8, "F B3 A1 F3 H3 C2"), 1));
+        // nothing is forced at the start
+        assertEquals(FoxHoundPosition.NO_MOVE, FoxHoundPuzzles.solve(solver, FoxHoundPosition.initial(8), 3));
+    }
+
+    // ------------------------- sample --------------------
+
+    @Test
+    public void testSampleIsRunning() {
+        SplittableRandom random = new SplittableRandom(1);
+        for (int i = 0; i < 20; i++) {
+            FoxHoundPosition position = FoxHoundPuzzles.sample(8, 3, new FoxHoundEval(), random);
+            assertEquals("Game expected to go on.", 0, FoxHoundPuzzles.winner(position));
+        }
+    }
+
+    // ------------------------- ProvenTable --------------------
+
+    @Test
+    public void testProvenTableGrowsAndClears() {
+        FoxHoundPuzzles.ProvenTable table = new FoxHoundPuzzles.ProvenTable(4);
+        for (long key = 0; key < 1000; key++) {
+            table.put(key * 31, key % 3 == 0);
+        }
+        table.put(0, false);
+
+        assertEquals(1000, table.size());
+        assertEquals(0, table.get(0));
+        assertEquals(1, table.get(3 * 31));
+        assertEquals(0, table.get(4 * 31));
+        assertEquals(FoxHoundPuzzles.ProvenTable.UNKNOWN, table.get(5));
+        table.clear();
+        assertEquals(0, table.size());
+        assertEquals("Cleared entry expected to be gone.", FoxHoundPuzzles.ProvenTable.UNKNOWN, table.get(3 * 31));
+        table.put(3 * 31, false);
+        assertEquals(0, table.get(3 * 31));
+    }
+
+    // ------------------------- run --------------------
+
+    @Test
+    public void testWriteFailureReachesCaller() throws IOException, InterruptedException {
+        Path directory = Files.createTempDirectory("foxhound-puzzles");
+        FoxHoundPuzzles generator = new FoxHoundPuzzles(directory, 1);
+        // no puzzle file can be written any more
+        Files.delete(directory.resolve(FoxHoundPuzzles.INDEX_FILE));
+        Files.delete(directory);
+        long start = System.nanoTime();
+        try {
+            generator.run(30, 2, 1);
+            fail("Failed write expected to be thrown.");
+        } catch (IOException e) {
+            assertTrue(e.getMessage().contains(directory.toString()));
+        }
+        assertTrue("Workers expected to stop after the first failure.",
+            System.nanoTime() - start < 20_000_000_000L && generator.getPuzzles() <= 2);
+    }
+}
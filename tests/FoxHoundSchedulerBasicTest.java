@@ -0,0 +1,180 @@
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+public class FoxHoundSchedulerBasicTest {
+
+    /** Time every search takes on the clock of a {@link StepEngine}. */
+    private static final long STEP_NANOS = 10_000_000;
+    /** Time passing on every read of a ticking clock, about every 128 nodes of a search. */
+    private static final long TICK_NANOS = 100_000;
+
+    /**
+     * An engine whose searches take {@link #STEP_NANOS} on a clock which
+     * moves only while searching, so the scheduler sees the same times on
+     * every run. The first search waits for a gate to open.
+     */
+    private static final class StepEngine extends FoxHoundEngine {
+        final AtomicLong clock;
+        final CountDownLatch gate;
+        /** Board dimension of every searched position, in order. */
+        final List<Integer> searched;
+
+        StepEngine(AtomicLong clock, CountDownLatch gate, List<Integer> searched) {
+            super(new FoxHoundEval(FoxHoundEval.defaultWeights()), 16);
+            this.clock = clock;
+            this.gate = gate;
+            this.searched = searched;
+        }
+
+        @Override
+        public Result searchDepth(FoxHoundPosition root, int depth, long deadlineNanos) {
+            try {
+                gate.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            searched.add(root.getDim());
+            clock.addAndGet(STEP_NANOS);
+            return super.searchDepth(root, depth, 0);
+        }
+    }
+
+    // ------------------------- submit --------------------
+
+    @Test
+    public void testWinningMove() throws Exception {
+        try (FoxHoundScheduler scheduler = new FoxHoundScheduler(1, 20)) {
+            String[] players = {"B3", "D1", "F3", "H3", "A2"};
+            String[] move = scheduler.chooseMove(8, players, FoxHoundUtils.FOX_FIELD, 1000);
+
+            assertArrayEquals("Winning move expected.", new String[]{"A2", "B1"}, move);
+            assertArrayEquals("Players expected to be unchanged.", new String[]{"B3", "D1", "F3", "H3", "A2"}, players);
+        }
+    }
+
+    @Test
+    public void testEarliestDeadlineFirst() throws Exception {
+        AtomicLong clock = new AtomicLong();
+        CountDownLatch gate = new CountDownLatch(1);
+        List<Integer> searched = Collections.synchronizedList(new ArrayList<>());
+        try (FoxHoundScheduler scheduler = new FoxHoundScheduler(1, 6, FoxHoundScheduler.DEFAULT_SLICE_MILLIS,
+                clock::get, () -> new StepEngine(clock, gate, searched))) {
+            // the worker takes the first request and waits at the gate while the others queue up
+            CompletableFuture<FoxHoundEngine.Result> first = scheduler.submit(8,
+                FoxHoundUtils.initialisePositions(8), FoxHoundUtils.FOX_FIELD, 10_000);
+            CompletableFuture<FoxHoundEngine.Result> slow = scheduler.submit(12,
+                FoxHoundUtils.initialisePositions(12), FoxHoundUtils.FOX_FIELD, 2000);
+            CompletableFuture<FoxHoundEngine.Result> urgent = scheduler.submit(10,
+                FoxHoundUtils.initialisePositions(10), FoxHoundUtils.HOUND_FIELD, 50);
+            List<Integer> beforeUrgent = new ArrayList<>();
+            urgent.thenRun(() -> beforeUrgent.addAll(searched));
+            gate.countDown();
+
+            assertNotEquals(FoxHoundPosition.NO_MOVE, urgent.get().move);
+            assertFalse("Request with the later deadline expected to wait for the urgent one.",
+                beforeUrgent.contains(12));
+            assertTrue(slow.get().depth > urgent.get().depth);
+            assertNotEquals(FoxHoundPosition.NO_MOVE, first.get().move);
+        }
+    }
+
+    @Test
+    public void testLoad() throws Exception {
+        AtomicLong clock = new AtomicLong();
+        CountDownLatch gate = new CountDownLatch(1);
+        List<Integer> searched = Collections.synchronizedList(new ArrayList<>());
+        FoxHoundScheduler scheduler = new FoxHoundScheduler(1, 40, FoxHoundScheduler.DEFAULT_SLICE_MILLIS,
+            clock::get, () -> new StepEngine(clock, gate, searched));
+        List<CompletableFuture<FoxHoundEngine.Result>> results = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            results.add(scheduler.submit(10, FoxHoundUtils.initialisePositions(10), FoxHoundUtils.FOX_FIELD, 100));
+        }
+        gate.countDown();
+        for (CompletableFuture<FoxHoundEngine.Result> result : results) {
+            assertTrue("Legal move expected.", FoxHoundPosition.initial(10).isLegal(result.get().move));
+        }
+        scheduler.close();
+
+        assertEquals(40, scheduler.getCompleted());
+        assertTrue("Shallower searches expected under load.", scheduler.getDegraded() > 0);
+        assertTrue("Searches of 40 requests expected to take longer than the deadline.", scheduler.getMisses() > 0);
+        assertTrue(scheduler.getAverageDepth() < 40);
+    }
+
+    /**
+     * Depth a request reaches on a clock which moves only when it is read,
+     * so the time of a search depends on its nodes and not on the machine.
+     *
+     * @param threads an int for the number of workers
+     * @param sliceMillis a long for the length of a slice
+     * @return an int for the depth of the answer
+     */
+    private static int depthOnTickingClock(int threads, long sliceMillis) throws Exception {
+        AtomicLong time = new AtomicLong();
+        LongSupplier clock = () -> time.addAndGet(TICK_NANOS);
+        FoxHoundEval eval = new FoxHoundEval(FoxHoundEval.defaultWeights());
+        try (FoxHoundScheduler scheduler = new FoxHoundScheduler(threads, 40, sliceMillis, clock,
+                () -> new FoxHoundEngine(eval, 18, clock))) {
+            return scheduler.submit(10, FoxHoundUtils.initialisePositions(10), FoxHoundUtils.FOX_FIELD, 400)
+                .get().depth;
+        }
+    }
+
+    @Test
+    public void testSlicedSearchAsDeepAsUnsliced() throws Exception {
+        int unsliced = depthOnTickingClock(1, 10_000);
+        for (int threads = 1; threads <= 3; threads++) {
+            assertEquals("Sliced request on " + threads + " workers expected to reach the same depth.",
+                unsliced, depthOnTickingClock(threads, 1));
+        }
+    }
+
+    @Test
+    public void testSlicesOfRequestOnOneEngine() throws Exception {
+        AtomicLong time = new AtomicLong();
+        LongSupplier clock = () -> time.addAndGet(TICK_NANOS);
+        FoxHoundEval eval = new FoxHoundEval(FoxHoundEval.defaultWeights());
+        Map<Integer, Set<FoxHoundEngine>> engines = new ConcurrentHashMap<>();
+        try (FoxHoundScheduler scheduler = new FoxHoundScheduler(2, 40, 1, clock,
+                () -> new FoxHoundEngine(eval, 16, clock) {
+                    @Override
+                    public Result searchDepth(FoxHoundPosition root, int depth, long deadlineNanos) {
+                        engines.computeIfAbsent(root.getDim(), dim -> ConcurrentHashMap.newKeySet()).add(this);
+                        // let the other worker come first to the queue
+                        Thread.yield();
+                        return super.searchDepth(root, depth, deadlineNanos);
+                    }
+                })) {
+            List<CompletableFuture<FoxHoundEngine.Result>> results = new ArrayList<>();
+            for (int dim = 8; dim <= 10; dim += 2) {
+                results.add(scheduler.submit(dim, FoxHoundUtils.initialisePositions(dim), FoxHoundUtils.FOX_FIELD, 200));
+            }
+            for (CompletableFuture<FoxHoundEngine.Result> result : results) {
+                assertNotEquals(FoxHoundPosition.NO_MOVE, result.get().move);
+            }
+        }
+        assertEquals(2, engines.size());
+        for (Set<FoxHoundEngine> searching : engines.values()) {
+            assertEquals("Slices of a request expected to be searched by one engine.", 1, searching.size());
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testClosed() throws Exception {
+        FoxHoundScheduler scheduler = new FoxHoundScheduler(1, 4);
+        scheduler.close();
+        scheduler.submit(8, FoxHoundUtils.initialisePositions(8), FoxHoundUtils.FOX_FIELD, 100);
+    }
+}
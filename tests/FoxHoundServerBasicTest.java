@@ -0,0 +1,210 @@
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.PrintWriter;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.*;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class FoxHoundServerBasicTest {
+
+    private FoxHoundServer server;
+    private Thread loop;
+    private Client fox;
+    private Client hounds;
+
+    /**
+     * A connection speaking the line protocol.
+     */
+    private static final class Client implements AutoCloseable {
+        final Socket socket;
+        final BufferedReader in;
+        final PrintWriter out;
+
+        Client(int port) throws IOException {
+            socket = new Socket("127.0.0.1", port);
+            socket.setSoTimeout(10_000);
+            in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII));
+            out = new PrintWriter(socket.getOutputStream(), true);
+        }
+
+        String ask(String request) throws IOException {
+            out.println(request);
+            return in.readLine();
+        }
+
+        @Override
+        public void close() throws IOException {
+            socket.close();
+        }
+    }
+
+    @Before
+    public void setup() throws IOException {
+        server = new FoxHoundServer(new InetSocketAddress("127.0.0.1", 0));
+        server.start();
+        loop = new Thread(server);
+        loop.start();
+        fox = new Client(server.getPort());
+        hounds = new Client(server.getPort());
+        fox.out.println("JOIN 8");
+        // the first client waits, so make sure it is queued before the second joins
+        assertEquals("ERR not in a game", fox.ask("SAVE"));
+        hounds.out.println("JOIN 8");
+        assertEquals("START F 8 F B1 D1 F1 H1 E8", fox.in.readLine());
+        assertEquals("START H 8 F B1 D1 F1 H1 E8", hounds.in.readLine());
+    }
+
+    @After
+    public void teardown() throws IOException, InterruptedException {
+        fox.close();
+        hounds.close();
+        server.stop();
+        loop.join(5000);
+    }
+
+    // ------------------------- moves --------------------
+
+    @Test
+    public void testMoves() throws IOException {
+        assertEquals("OK", fox.ask("MOVE E8 D7"));
+        assertEquals("MOVED E8 D7", hounds.in.readLine());
+        assertEquals("ERR not your turn", fox.ask("MOVE D7 E6"));
+        assertEquals("ERR invalid move: B1 B2", hounds.ask("MOVE B1 B2"));
+        assertEquals("ERR invalid coordinates: B1", hounds.ask("MOVE B1"));
+        assertEquals("OK", hounds.ask("MOVE B1 C2"));
+        assertEquals("MOVED B1 C2", fox.in.readLine());
+        assertEquals("SAVED F C2 D1 F1 H1 D7", fox.ask("SAVE"));
+        assertEquals(1, server.getGamesStarted());
+        assertEquals(2, server.getMovesPlayed());
+    }
+
+    @Test
+    public void testLoadAndWin() throws IOException {
+        assertEquals("BOARD F B3 D1 F3 H3 A2", fox.ask("LOAD F B3 D1 F3 H3 A2"));
+        assertEquals("BOARD F B3 D1 F3 H3 A2", hounds.in.readLine());
+        assertEquals("ERR invalid game: F B3", fox.ask("LOAD F B3"));
+        assertEquals("OK", fox.ask("MOVE A2 B1"));
+        assertEquals("WIN F", fox.in.readLine());
+        assertEquals("MOVED A2 B1", hounds.in.readLine());
+        assertEquals("WIN F", hounds.in.readLine());
+        assertEquals("ERR game over", hounds.ask("MOVE B3 C4"));
+        assertEquals("Finished game expected to stay over.", "ERR game over", hounds.ask("LOAD H B3 D1 F3 H3 A2"));
+        assertEquals("ERR game over", fox.ask("LOAD H B3 D1 F3 H3 A2"));
+    }
+
+    @Test
+    public void testLoadRejected() throws IOException {
+        assertEquals("ERR not your turn", hounds.ask("LOAD H B3 D1 F3 H3 A2"));
+        assertEquals("ERR invalid game: F B3 B3 F3 H3 A2", fox.ask("LOAD F B3 B3 F3 H3 A2"));
+        assertEquals("SAVED F B1 D1 F1 H1 E8", fox.ask("SAVE"));
+    }
+
+    // ------------------------- broadcast --------------------
+
+    @Test
+    public void testBroadcastOfNetworkGame() throws IOException {
+        StringBuilder updates = new StringBuilder();
+        FoxHoundBroadcast broadcast = server.getBroadcast(1);
+        assertNotNull("Started game expected to be broadcast.", broadcast);
+        FoxHoundBroadcast.Subscriber subscriber = broadcast.subscribe(new FoxHoundBroadcast.Listener() {
+            @Override
+            public void onMove(char figure, int from, int to) {
+                updates.append(figure).append(' ').append(FoxHoundUtils.toCoord(8, from))
+                    .append(' ').append(FoxHoundUtils.toCoord(8, to)).append(", ");
+            }
+
+            @Override
+            public void onSnapshot(int dim, String line) {
+                updates.append(dim).append(": ").append(line).append(", ");
+            }
+        }, true);
+        subscriber.poll(10);
+
+        assertEquals("OK", fox.ask("MOVE E8 D7"));
+        hounds.in.readLine();
+        assertEquals("OK", hounds.ask("MOVE B1 C2"));
+        fox.in.readLine();
+        assertEquals("BOARD F B3 D1 F3 H3 A2", fox.ask("LOAD F B3 D1 F3 H3 A2"));
+        hounds.in.readLine();
+        subscriber.poll(10);
+
+        assertEquals("8: F B1 D1 F1 H1 E8, F E8 D7, H B1 C2, 8: F B3 D1 F3 H3 A2, ", updates.toString());
+        assertNull("No other game expected.", server.getBroadcast(2));
+        fox.out.println("EXIT");
+        assertEquals("END", hounds.in.readLine());
+        assertNull("Ended game expected not to be found.", server.getBroadcast(1));
+    }
+
+    // ------------------------- hint --------------------
+
+    @Test
+    public void testHint() throws IOException {
+        assertEquals("ERR not your turn", hounds.ask("HINT"));
+        assertEquals("BOARD F B3 D1 F3 H3 A2", fox.ask("LOAD F B3 D1 F3 H3 A2"));
+        hounds.in.readLine();
+
+        assertEquals("Winning move expected as hint.", "HINT A2 B1", fox.ask("HINT"));
+        // the other client is served while a hint is searched
+        fox.out.println("HINT");
+        assertEquals("ERR not your turn", hounds.ask("HINT"));
+        assertEquals("HINT A2 B1", fox.in.readLine());
+    }
+
+    // ------------------------- other commands --------------------
+
+    @Test
+    public void testUnknownAndRefusedCommands() throws IOException {
+        assertEquals("ERR unknown command: FLY", fox.ask("FLY"));
+        assertEquals("ERR variations are not available in network games", fox.ask("VARIATIONS"));
+        assertEquals("ERR invalid dimension: 3", fox.ask("JOIN 3"));
+    }
+
+    @Test
+    public void testClientNotReadingDisconnected() throws IOException {
+        int sent = 1_000_000;
+        try (Socket socket = new Socket()) {
+            // a small window lets the responses pile up on the server
+            socket.setReceiveBufferSize(4096);
+            socket.connect(new InetSocketAddress("127.0.0.1", server.getPort()));
+            socket.setSoTimeout(10_000);
+            OutputStream out = new BufferedOutputStream(socket.getOutputStream());
+            byte[] save = "SAVE\n".getBytes(StandardCharsets.US_ASCII);
+            try {
+                for (int i = 0; i < sent; i++) {
+                    out.write(save);
+                }
+                out.flush();
+            } catch (IOException e) {
+                // closed by the server
+            }
+            BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII));
+            int received = 0;
+            try {
+                while (in.readLine() != null) {
+                    received++;
+                }
+            } catch (IOException e) {
+                // reset by the server
+            }
+            assertTrue("Responses expected to be dropped, got " + received, received < sent);
+        }
+        assertEquals("Server expected to serve the other clients.", "SAVED F B1 D1 F1 H1 E8", fox.ask("SAVE"));
+    }
+
+    @Test
+    public void testExitEndsGame() throws IOException {
+        fox.out.println("EXIT");
+        assertNull("Connection expected to be closed after exit.", fox.in.readLine());
+        assertEquals("END", hounds.in.readLine());
+        assertEquals("ERR not in a game", hounds.ask("MOVE B1 C2"));
+    }
+}
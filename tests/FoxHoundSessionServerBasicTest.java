@@ -0,0 +1,136 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.Assert.*;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class FoxHoundSessionServerBasicTest {
+
+    private FoxHoundSessionServer server;
+    private Thread acceptor;
+    private Path saveDir;
+
+    @Before
+    public void setup() throws IOException {
+        saveDir = Files.createTempDirectory("foxhound-sessions");
+        server = new FoxHoundSessionServer(new InetSocketAddress("127.0.0.1", 0),
+            FoxHoundUtils.DEFAULT_DIM, FoxHoundSessionServer.MODE_PLATFORM, saveDir);
+        server.start();
+        acceptor = new Thread(server);
+        acceptor.start();
+    }
+
+    @After
+    public void teardown() throws InterruptedException {
+        server.stop();
+        acceptor.join(5000);
+    }
+
+    /**
+     * Read lines until one contains a text.
+     *
+     * @param in the reader of the connection
+     * @param text the text to wait for
+     * @return all lines read, separated by line breaks
+     * @throws IOException if reading fails or the connection ends first
+     */
+    private static String readUntil(BufferedReader in, String text) throws IOException {
+        StringBuilder read = new StringBuilder();
+        String line;
+        while ((line = in.readLine()) != null) {
+            read.append(line).append('\n');
+            if (line.contains(text)) {
+                return read.toString();
+            }
+        }
+        throw new IOException("Connection ended before \"" + text + "\", got: " + read);
+    }
+
+    // ------------------------- sessions --------------------
+
+    @Test
+    public void testMoveAndExit() throws IOException, InterruptedException {
+        try (Socket socket = new Socket("127.0.0.1", server.getPort())) {
+            socket.setSoTimeout(10_000);
+            BufferedReader in = new BufferedReader(
+                new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+            PrintWriter out = new PrintWriter(socket.getOutputStream(), true);
+
+            String first = readUntil(in, "Enter 1 - ");
+            assertTrue(first.contains("8 ....F... 8"));
+            assertEquals(1, server.getActiveSessions());
+
+            out.println(FoxHoundUI.MENU_MOVE);
+            out.println("E8 D7");
+            String second = readUntil(in, "Enter 1 - ");
+            assertTrue("Fox expected on D7.", second.contains("7 ...F.... 7"));
+            assertTrue(second.contains("Hounds to move"));
+
+            out.println(FoxHoundUI.MENU_EXIT);
+            assertNull("Connection expected to be closed after exit.", in.readLine());
+        }
+        for (int i = 0; i < 100 && server.getActiveSessions() > 0; i++) {
+            Thread.sleep(20);
+        }
+        assertEquals(0, server.getActiveSessions());
+    }
+
+    @Test
+    public void testSessionsIndependent() throws IOException {
+        try (Socket first = new Socket("127.0.0.1", server.getPort());
+             Socket second = new Socket("127.0.0.1", server.getPort())) {
+            first.setSoTimeout(10_000);
+            second.setSoTimeout(10_000);
+            BufferedReader firstIn = new BufferedReader(
+                new InputStreamReader(first.getInputStream(), StandardCharsets.UTF_8));
+            BufferedReader secondIn = new BufferedReader(
+                new InputStreamReader(second.getInputStream(), StandardCharsets.UTF_8));
+            readUntil(firstIn, "Enter 1 - ");
+            readUntil(secondIn, "Enter 1 - ");
+
+            PrintWriter firstOut = new PrintWriter(first.getOutputStream(), true);
+            firstOut.println(FoxHoundUI.MENU_MOVE);
+            firstOut.println("E8 F7");
+            assertTrue(readUntil(firstIn, "Enter 1 - ").contains("7 .....F.. 7"));
+
+            PrintWriter secondOut = new PrintWriter(second.getOutputStream(), true);
+            secondOut.println(FoxHoundUI.MENU_MOVE);
+            secondOut.println("E8 D7");
+            String board = readUntil(secondIn, "Enter 1 - ");
+            assertTrue("Second game expected to start from its own board.", board.contains("7 ...F.... 7"));
+        }
+    }
+
+    @Test
+    public void testSaveInSaveDirectory() throws IOException {
+        try (Socket socket = new Socket("127.0.0.1", server.getPort())) {
+            socket.setSoTimeout(10_000);
+            BufferedReader in = new BufferedReader(
+                new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+            PrintWriter out = new PrintWriter(socket.getOutputStream(), true);
+
+            readUntil(in, "Enter 1 - ");
+            out.println(FoxHoundUI.MENU_SAVE);
+            out.println("game.txt");
+            readUntil(in, "Enter 1 - ");
+        }
+        assertEquals("Game expected in the save directory of the server.",
+            "F B1 D1 F1 H1 E8", Files.readString(saveDir.resolve("game.txt")).trim());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnknownMode() {
+        new FoxHoundSessionServer(new InetSocketAddress(0), FoxHoundUtils.DEFAULT_DIM, "fibers",
+            FoxHoundSessionServer.DEFAULT_SAVE_DIR);
+    }
+}
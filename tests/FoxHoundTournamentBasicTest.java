@@ -0,0 +1,94 @@
+import java.util.SplittableRandom;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+public class FoxHoundTournamentBasicTest {
+
+    private static final String[] BOTS = {FoxHoundBot.RANDOM, FoxHoundBot.GREEDY};
+
+    // ------------------------- playGame --------------------
+
+    @Test
+    public void testPlayGameEnds() {
+        int[] length = new int[1];
+        char winner = FoxHoundTournament.playGame(FoxHoundBot.create(FoxHoundBot.RANDOM),
+            FoxHoundBot.create(FoxHoundBot.RANDOM), 8, new SplittableRandom(3), length);
+
+        assertTrue("Fox or Hounds expected to win.",
+            winner == FoxHoundUtils.FOX_FIELD || winner == FoxHoundUtils.HOUND_FIELD);
+        assertTrue("Moves expected to be played.", length[0] > 0);
+    }
+
+    // ------------------------- run --------------------
+
+    @Test
+    public void testSameSeedSameResults() throws InterruptedException {
+        FoxHoundTournament single = new FoxHoundTournament(BOTS, 2, 5);
+        single.run(1);
+        FoxHoundTournament parallel = new FoxHoundTournament(BOTS, 2, 5);
+        parallel.run(3);
+
+        assertArrayEquals("Same wins with any number of threads expected.",
+            single.getWins(), parallel.getWins());
+        int[][] wins = single.getWins();
+        assertEquals("Every game expected to have a winner.",
+            single.getGameCount(), wins[0][1] + wins[1][0]);
+    }
+
+    @Test
+    public void testColoursAlternateOverAllGames() throws InterruptedException {
+        // the bot to move gives up at once, so the bot playing the Fox always loses
+        FoxHoundTournament tournament = new FoxHoundTournament(BOTS, 1, 5,
+            name -> (position, random) -> FoxHoundPosition.NO_MOVE);
+        tournament.run(2);
+        int[][] wins = tournament.getWins();
+
+        assertEquals(FoxHoundUtils.MAX_DIM - FoxHoundUtils.MIN_DIM + 1, tournament.getGameCount());
+        assertTrue("Both bots expected to play the Fox equally often up to one game: " + wins[0][1] + " " + wins[1][0],
+            Math.abs(wins[0][1] - wins[1][0]) <= 1);
+    }
+
+    @Test
+    public void testFailedGameRethrown() throws InterruptedException {
+        FoxHoundTournament tournament = new FoxHoundTournament(BOTS, 2, 5, name -> {
+            if (name.equals(FoxHoundBot.GREEDY)) {
+                return (position, random) -> {
+                    throw new IllegalStateException("bot failed");
+                };
+            }
+            return FoxHoundBot.create(name);
+        });
+        try {
+            tournament.run(2);
+            fail("Failure of a bot expected to be rethrown.");
+        } catch (IllegalStateException e) {
+            assertEquals("bot failed", e.getMessage());
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnknownBot() {
+        new FoxHoundTournament(new String[]{FoxHoundBot.RANDOM, "clever"}, 1, 1);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNoGames() {
+        new FoxHoundTournament(new String[]{FoxHoundBot.RANDOM, FoxHoundBot.GREEDY}, 0, 1);
+    }
+
+    // ------------------------- ratings --------------------
+
+    @Test
+    public void testRatings() {
+        double[][] even = FoxHoundTournament.ratings(new int[][]{{0, 10}, {10, 0}});
+        assertEquals("Equal ratings expected.", 0, even[0][0], 1e-6);
+        assertEquals("Equal ratings expected.", 0, even[1][0], 1e-6);
+
+        double[][] uneven = FoxHoundTournament.ratings(new int[][]{{0, 30}, {10, 0}});
+        assertTrue("Stronger bot expected to be rated higher.", uneven[0][0] > 0);
+        assertEquals("Ratings expected to average 0.", 0, uneven[0][0] + uneven[1][0], 1e-6);
+        assertTrue("Interval expected to shrink with more games.", uneven[0][1] < even[0][1]);
+    }
+}
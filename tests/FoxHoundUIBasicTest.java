@@ -135,6 +135,32 @@ public class FoxHoundUIBasicTest {
         } 
     }
 
+    @Test
+    public void testDisplayBoardTwoDigitDim() {
+        int dim = 10;
+        String[] players = FoxHoundUtils.initialisePositions(dim);
+        String expected =
+        "   ABCDEFGHIJ   \n" +
+        "\n" +
+        "01 .H.H.H.H.H 01\n" +
+        "02 .......... 02\n" +
+        "03 .......... 03\n" +
+        "04 .......... 04\n" +
+        "05 .......... 05\n" +
+        "06 .......... 06\n" +
+        "07 .......... 07\n" +
+        "08 .......... 08\n" +
+        "09 .......... 09\n" +
+        "10 ....F..... 10\n" +
+        "\n" +
+        "   ABCDEFGHIJ   ";
+
+        String result = FoxHoundUI.renderBoard(players, dim);
+
+        assertEquals("Rendered board not as expected in renderBoard.",
+            expected.trim(), result.trim().replaceAll("\r", ""));
+    }
+
     // ------------------------- positionQuery --------------------
 
     private void checkPosQueryOutput(int dim, String expectedStdOut, String expectedStdErr, String inputLine) {
@@ -240,4 +266,67 @@ public class FoxHoundUIBasicTest {
 
         assertEquals("Resulting path not as expected.", expected, result.toString());
     }
+
+    @Test
+    public void testFileQueryInDirectory() {
+        PrintStream out = new PrintStream(new ByteArrayOutputStream());
+        Path dir = Paths.get("saves");
+        Scanner TEST_IN = new Scanner(new ByteArrayInputStream("../../etc/game01.txt\n..\n".getBytes()));
+
+        assertEquals("Only the file name expected to be used.", dir.resolve("game01.txt"),
+            FoxHoundUI.fileQuery(TEST_IN, out, dir));
+        assertEquals("Default file name expected.", dir.resolve("game.txt"),
+            FoxHoundUI.fileQuery(TEST_IN, out, dir));
+        TEST_IN.close();
+    }
+
+    // ------------------------- stream overloads --------------------
+
+    @Test
+    public void testStreamOverloadsLeaveStdOutAlone() {
+        ByteArrayOutputStream outBytes = new ByteArrayOutputStream();
+        ByteArrayOutputStream errBytes = new ByteArrayOutputStream();
+        PrintStream out = new PrintStream(outBytes, true);
+        PrintStream err = new PrintStream(errBytes, true);
+        Scanner TEST_IN = new Scanner(new ByteArrayInputStream(
+            ("x\n" + FoxHoundUI.MENU_MOVE + "\n" + INVALID_MOVE + "\n" + VALID_MOVE + "\n").getBytes()));
+
+        stdCaptureStart();
+        try {
+            FoxHoundUI.displayBoard(defaultPlayers, FoxHoundUtils.DEFAULT_DIM, out);
+            assertEquals(FoxHoundUI.MENU_MOVE, FoxHoundUI.mainMenuQuery(FoxHoundUtils.FOX_FIELD, TEST_IN, out));
+            assertArrayEquals(new String[]{"E8", "F7"},
+                FoxHoundUI.positionQuery(FoxHoundUtils.DEFAULT_DIM, TEST_IN, out, err));
+            assertEquals("Standard output expected to be unused.", "", getCapturedStdOut());
+            assertEquals("Standard error expected to be unused.", "", getCapturedStdErr());
+        } finally {
+            stdCaptureStop();
+        }
+        TEST_IN.close();
+
+        String printed = outBytes.toString();
+        assertTrue(printed.replaceAll("\r", "").startsWith(defaultOutput));
+        assertTrue(printed.contains("Enter 1 - "));
+        assertTrue(printed.contains(POS_QUERY_MSG.substring(0, 20)));
+        assertEquals(POS_QUERY_ERROR, errBytes.toString().trim());
+    }
+
+    @Test(expected = java.util.NoSuchElementException.class)
+    public void testPositionQueryEndOfInput() {
+        PrintStream out = new PrintStream(new ByteArrayOutputStream());
+        Scanner TEST_IN = new Scanner(new ByteArrayInputStream(INVALID_MOVE.getBytes()));
+        FoxHoundUI.positionQuery(FoxHoundUtils.DEFAULT_DIM, TEST_IN, out, out);
+    }
+
+    // ------------------------- hintQuery --------------------
+
+    @Test
+    public void testHintQueryReturn() {
+        PrintStream out = new PrintStream(new ByteArrayOutputStream());
+        Scanner TEST_IN = new Scanner(new ByteArrayInputStream("maybe\nY\nn\n".getBytes()));
+
+        assertTrue("Hint expected to be accepted after an invalid answer.", FoxHoundUI.hintQuery(TEST_IN, out));
+        assertFalse("Hint expected to be declined.", FoxHoundUI.hintQuery(TEST_IN, out));
+        TEST_IN.close();
+    }
 }
@@ -96,6 +96,48 @@ public class FoxHoundUtilsBasicTest {
         FoxHoundUtils.isHoundWin(defaultPlayers, -5);
     }
 
+    @Test
+    public void testIsHoundWinFoxAtEdge() {
+        String[] players = {"B3","B5","F1","H1","A4"};
+        int dimension = FoxHoundUtils.DEFAULT_DIM;
+
+        boolean result = FoxHoundUtils.isHoundWin(players, dimension);
+
+        assertTrue("Hounds are expected to win with the fox trapped at the edge.", result);
+    }
+
+    // ------------------------- isValidCoord -------------------------------
+
+    @Test
+    public void testIsValidCoordBounds() {
+        int dim = FoxHoundUtils.DEFAULT_DIM;
+
+        assertTrue("Coordinate expected to be valid.", FoxHoundUtils.isValidCoord(dim, "A1"));
+        assertTrue("Coordinate expected to be valid.", FoxHoundUtils.isValidCoord(dim, "H8"));
+        assertFalse("Coordinate expected to be invalid.", FoxHoundUtils.isValidCoord(dim, "I1"));
+        assertFalse("Coordinate expected to be invalid.", FoxHoundUtils.isValidCoord(dim, "A9"));
+        assertFalse("Coordinate expected to be invalid.", FoxHoundUtils.isValidCoord(dim, "A0"));
+        assertFalse("Coordinate expected to be invalid.", FoxHoundUtils.isValidCoord(dim, "@1"));
+        assertFalse("Coordinate expected to be invalid.", FoxHoundUtils.isValidCoord(dim, new int[]{'@', 1}));
+        assertFalse("Coordinate expected to be invalid.", FoxHoundUtils.isValidCoord(dim, new int[]{'A', 0}));
+    }
+
+    // ------------------------- toSquare / toCoord -------------------------------
+
+    @Test
+    public void testSquareCoordRoundTrip() {
+        for (int dim = FoxHoundUtils.MIN_DIM; dim <= FoxHoundUtils.MAX_DIM; dim++) {
+            for (int square = 0; square < dim * dim; square++) {
+                String coord = FoxHoundUtils.toCoord(dim, square);
+                assertEquals("Square not as expected for " + coord, square, FoxHoundUtils.toSquare(dim, coord));
+                assertArrayEquals("Coordinate pair not as expected for " + coord,
+                    new int[]{'A' + square % dim, square / dim + 1}, FoxHoundUtils.posToNum(coord));
+            }
+        }
+        assertSame("Coordinate Strings expected to be cached.",
+            FoxHoundUtils.toCoord(8, 0), FoxHoundUtils.toCoord(8, FoxHoundUtils.toSquare(8, "A1")));
+    }
+
     // ------------------------- isValidMove -------------------------------
 
     @Test
@@ -206,4 +248,29 @@ public class FoxHoundUtilsBasicTest {
             "given destination is already occupied.", result);
     }
 
+    @Test
+    public void testIsValidMoveOffBoard() {
+
+        int dim = FoxHoundUtils.DEFAULT_DIM;
+        String[] players = new String[]{"B1","D1","F1","H1","H6"};
+        char figure = FoxHoundUtils.FOX_FIELD;
+        String origin = "H6";
+
+        assertFalse("Move is expected to be invalid if the " +
+            "destination is right of the board.", FoxHoundUtils.isValidMove(dim, players, figure, origin, "I7"));
+
+        players = new String[]{"B1","D1","F1","H1","C1"};
+        origin = "C1";
+
+        assertFalse("Move is expected to be invalid if the " +
+            "destination is below row 1.", FoxHoundUtils.isValidMove(dim, players, figure, origin, "B0"));
+
+        players = new String[]{"B1","D1","F1","G8","C1"};
+        figure = FoxHoundUtils.HOUND_FIELD;
+        origin = "G8";
+
+        assertFalse("Move is expected to be invalid if the " +
+            "destination is past the last row.", FoxHoundUtils.isValidMove(dim, players, figure, origin, "H9"));
+    }
+
 }
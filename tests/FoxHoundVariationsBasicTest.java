@@ -0,0 +1,148 @@
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+public class FoxHoundVariationsBasicTest {
+
+    private static int move(FoxHoundPosition position, String origin, String destination) {
+        return position.parseMove(origin, destination);
+    }
+
+    /**
+     * Two lines which reach the same position with the moves in another order.
+     */
+    private static FoxHoundVariations transposingTree() {
+        FoxHoundPosition start = FoxHoundPosition.initial(8);
+        FoxHoundVariations tree = new FoxHoundVariations(start);
+        tree.play(move(start, "E8", "D7"));
+        tree.play(move(start, "B1", "C2"));
+        tree.play(move(start, "D7", "E6"));
+        tree.play(move(start, "D1", "E2"));
+        tree.gotoNode(2);
+        tree.play(move(start, "D7", "C6"));
+        tree.play(move(start, "D1", "E2"));
+        tree.play(move(start, "C6", "D5"));
+        return tree;
+    }
+
+    // ------------------------- play --------------------
+
+    @Test
+    public void testTranspositionIsShared() {
+        FoxHoundPosition start = FoxHoundPosition.initial(8);
+        FoxHoundVariations tree = new FoxHoundVariations(start);
+        tree.play(move(start, "E8", "D7"));
+        int left = tree.play(move(start, "B1", "C2"));
+        tree.play(move(start, "D7", "C6"));
+        int first = tree.play(move(start, "D1", "E2"));
+        tree.back();
+        tree.back();
+        tree.back();
+        tree.play(move(start, "D1", "E2"));
+        tree.play(move(start, "D7", "C6"));
+        int second = tree.play(move(start, "B1", "C2"));
+
+        assertEquals("Transposed position expected to be stored once.", first, second);
+        assertEquals(7, tree.getNodeCount());
+        assertEquals(7, tree.getMoveCount());
+        assertEquals(2, left);
+    }
+
+    @Test
+    public void testManyPositionsFoundAgain() {
+        FoxHoundVariations tree = new FoxHoundVariations(FoxHoundPosition.initial(8));
+        Set<Long> keys = new HashSet<>();
+        keys.add(tree.getPosition(0).key());
+        int[] moves = new int[FoxHoundPosition.MAX_MOVES];
+        // play every move of the first nodes, far more than the initial capacity
+        for (int node = 0; node < 300; node++) {
+            FoxHoundPosition position = tree.getPosition(node);
+            int count = position.generateMoves(moves);
+            for (int i = 0; i < count; i++) {
+                tree.gotoNode(node);
+                int child = tree.play(moves[i]);
+                keys.add(tree.getPosition(child).key());
+            }
+        }
+        int nodes = tree.getNodeCount();
+        assertEquals("Every position expected to be stored once.", keys.size(), nodes);
+
+        FoxHoundPosition position = tree.getPosition(7);
+        int count = position.generateMoves(moves);
+        for (int i = 0; i < count; i++) {
+            tree.gotoNode(7);
+            tree.play(moves[i]);
+        }
+        assertEquals("Known positions expected to be found again.", nodes, tree.getNodeCount());
+    }
+
+    @Test
+    public void testIllegalMove() {
+        FoxHoundPosition start = FoxHoundPosition.initial(8);
+        FoxHoundVariations tree = new FoxHoundVariations(start);
+        try {
+            tree.play(move(start, "B1", "C2"));
+            fail("Hound move on the fox's turn expected to be rejected.");
+        }
+        catch (IllegalArgumentException e) {
+            // expected
+        }
+        assertEquals(1, tree.getNodeCount());
+    }
+
+    // ------------------------- navigation --------------------
+
+    @Test
+    public void testNavigation() {
+        FoxHoundVariations tree = transposingTree();
+        FoxHoundPosition start = FoxHoundPosition.initial(8);
+        tree.gotoNode(2);
+
+        assertTrue(tree.forward());
+        assertEquals("Main line expected.", "D7 E6", start.moveToString(tree.getLastMove()));
+        assertEquals(1, tree.getVariation());
+        assertTrue(tree.nextVariation());
+        assertEquals("D7 C6", start.moveToString(tree.getLastMove()));
+        assertEquals(2, tree.getVariation());
+        assertFalse("No third variation expected.", tree.nextVariation());
+        assertTrue(tree.previousVariation());
+        assertEquals("D7 E6", start.moveToString(tree.getLastMove()));
+        assertTrue(tree.back());
+        assertEquals(2, tree.getCurrent());
+
+        tree.gotoNode(0);
+        assertFalse("Nothing before the start expected.", tree.back());
+        assertEquals(FoxHoundPosition.NO_MOVE, tree.getLastMove());
+        assertEquals("Start position expected.", FoxHoundPosition.initial(8).key(), tree.getPosition().key());
+    }
+
+    // ------------------------- save --------------------
+
+    @Test
+    public void testSaveAndLoad() throws IOException {
+        FoxHoundVariations tree = transposingTree();
+        Path file = Files.createTempFile("variations", ".txt");
+        try {
+            tree.save(file);
+            FoxHoundVariations loaded = FoxHoundVariations.load(file);
+
+            assertEquals(tree.getNodeCount(), loaded.getNodeCount());
+            assertEquals(tree.getMoveCount(), loaded.getMoveCount());
+            assertEquals("Cursor expected.", tree.getCurrent(), loaded.getCurrent());
+            for (int node = 0; node < tree.getNodeCount(); node++) {
+                assertEquals(tree.getPosition(node).key(), loaded.getPosition(node).key());
+                assertArrayEquals(tree.getMoves(node), loaded.getMoves(node));
+                assertArrayEquals(tree.getChildren(node), loaded.getChildren(node));
+            }
+        }
+        finally {
+            Files.deleteIfExists(file);
+        }
+    }
+}
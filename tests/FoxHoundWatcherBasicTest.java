@@ -0,0 +1,100 @@
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+public class FoxHoundWatcherBasicTest {
+
+    private static final long TIMEOUT_MILLIS = 10_000;
+
+    private static String awaitResult(Path file) throws IOException, InterruptedException {
+        Path result = FoxHoundWatcher.resultFile(file);
+        long end = System.currentTimeMillis() + TIMEOUT_MILLIS;
+        while (!Files.exists(result)) {
+            assertTrue("Result file expected in time.", System.currentTimeMillis() < end);
+            Thread.sleep(20);
+        }
+        return new String(Files.readAllBytes(result), StandardCharsets.UTF_8);
+    }
+
+    // ------------------------- watching --------------------
+
+    @Test
+    public void testAnalysesDroppedFiles() throws IOException, InterruptedException {
+        Path directory = Files.createTempDirectory("foxhound-watch");
+        Path existing = directory.resolve("existing.txt");
+        Files.write(existing, Collections.singletonList("F B1 D1 F1 H1 E8"));
+        try (FoxHoundWatcher watcher = new FoxHoundWatcher(directory, 2, 4, 4)) {
+            watcher.start();
+            Path dropped = directory.resolve("dropped.txt");
+            Files.write(dropped, Collections.singletonList("H C2 D1 F1 H1 D7"));
+            Path invalid = directory.resolve("invalid.txt");
+            Files.write(invalid, Collections.singletonList("F B1 D1"));
+
+            assertTrue("Fox move expected.", awaitResult(existing).contains("bestMove E8 "));
+            assertTrue("Hound move expected.", awaitResult(dropped).startsWith("position H C2 D1 F1 H1 D7"));
+            assertTrue("Error expected.", awaitResult(invalid).startsWith("error"));
+            assertEquals("One invalid file expected.", 1, watcher.getInvalid());
+        } finally {
+            try (Stream<Path> files = Files.list(directory)) {
+                for (Path file : (Iterable<Path>) files::iterator) {
+                    Files.delete(file);
+                }
+            }
+            Files.delete(directory);
+        }
+    }
+
+    @Test
+    public void testWorkerSurvivesFailedAnalysis() throws IOException, InterruptedException {
+        Path directory = Files.createTempDirectory("foxhound-watch");
+        Path broken = directory.resolve("broken.txt");
+        Files.write(broken, Collections.singletonList("F B1 D1 F1 H1 E8"));
+        FoxHoundWatcher watcher = new FoxHoundWatcher(directory, 1, 4, 4) {
+            @Override
+            String analyse(FoxHoundEngine engine, Path file) throws IOException {
+                if (file.getFileName().toString().equals("broken.txt")) {
+                    throw new IllegalStateException("analysis failed");
+                }
+                return super.analyse(engine, file);
+            }
+        };
+        try {
+            watcher.start();
+            long end = System.currentTimeMillis() + TIMEOUT_MILLIS;
+            while (watcher.getFailed() == 0) {
+                assertTrue("Failure expected to be counted in time.", System.currentTimeMillis() < end);
+                Thread.sleep(20);
+            }
+            Path next = directory.resolve("next.txt");
+            Files.write(next, Collections.singletonList("F B1 D1 F1 H1 E8"));
+
+            assertTrue("Single worker expected to go on after a failure.",
+                awaitResult(next).contains("bestMove E8 "));
+            assertEquals(1, watcher.getFailed());
+            assertFalse(Files.exists(FoxHoundWatcher.resultFile(broken)));
+        } finally {
+            watcher.close();
+            try (Stream<Path> files = Files.list(directory)) {
+                for (Path file : (Iterable<Path>) files::iterator) {
+                    Files.delete(file);
+                }
+            }
+            Files.delete(directory);
+        }
+    }
+
+    @Test
+    public void testSkipsOwnFiles() {
+        Path directory = Path.of("games");
+
+        assertTrue(FoxHoundWatcher.isSaveFile(directory.resolve("game.txt")));
+        assertFalse(FoxHoundWatcher.isSaveFile(FoxHoundWatcher.resultFile(directory.resolve("game.txt"))));
+    }
+}